@@ -0,0 +1,28 @@
+#version 430
+
+in vec2 v_TexCoord;
+
+uniform sampler2D u_Matrix; // R32F, texel (j, i) = attraction of group i towards group j
+uniform int u_Groups;
+uniform float u_CellSize; // pixels per cell, the last row and column of each cell stay empty
+
+layout(location = 0) out vec4 outColor;
+
+void main() {
+    vec2 cell = v_TexCoord * float(u_Groups);
+    vec2 local = fract(cell) * u_CellSize;
+    if (local.x >= u_CellSize - 1.0 || local.y >= u_CellSize - 1.0) {
+        discard;
+    }
+    // Row 0 is drawn at the top
+    ivec2 ij = ivec2(int(cell.x), u_Groups - 1 - int(cell.y));
+    float v = texelFetch(u_Matrix, ij, 0).r;
+    float a = min(abs(v), 1.0);
+    if (v > 0.0) {
+        outColor = vec4(0.0, 0.5, 0.0, a); // attraction
+    } else if (v < 0.0) {
+        outColor = vec4(0.5, 0.0, 0.0, a); // repulsion
+    } else {
+        outColor = vec4(0.3, 0.3, 0.3, 0.5); // neutral
+    }
+}
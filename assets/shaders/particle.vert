@@ -2,30 +2,109 @@
 
 layout(location = 0) in vec3 in_pos; // unused, but keeps linker happy
 
+#ifdef FIXED_POINT
+// Fixed point layout of particle_fixed.comp: the full uint range spans the world
 struct Particle {
-    vec4 pos;   // xyz: position; 
-    vec4 vel;   // velocity  
-    vec4 col;   // color (rgba)
-    vec4 group; // group info
+    uint x;   // x position, low 4 bits hold the group index
+    uint y;   // y position
+    uint vel; // packed int16 velocity
 };
+#else
+struct Particle {
+    vec2 pos;   // position (x, y)
+    vec2 vel;   // velocity (x, y)
+    uint group; // group index, colour comes from the palette
+    uint pad;   // std430 rounds the struct up to 24 bytes; world id of an ensemble
+};
+#endif
 
 layout(std430, binding = 0) buffer Particles {
     Particle particles[];
 };
 
+// State before the last physics step, same layout; read when u_Alpha >= 0
+layout(std430, binding = 9) buffer PreviousParticles {
+    Particle previous[];
+};
+
+// Particles inside the zoomed view, compacted by cull.comp; used when u_Culled != 0
+layout(std430, binding = 10) readonly buffer VisibleParticles {
+    uint visible[];
+};
+
+// Group colours, indexed by Particle.group
+layout(std430, binding = 5) buffer Palette {
+    vec4 palette[];
+};
+
 out vec4 v_color;
 
 uniform float u_PointSize;
 uniform float u_AspectScale; // height / width
+uniform float u_WorldHalfExtent; // world spans [-extent, extent]
+uniform int u_MosaicColumns; // > 0: ensemble mosaic, world w drawn into tile w of a columns x columns grid
+uniform float u_Alpha; // fraction of a physics step since the last one, < 0 draws the current state as is
+uniform int u_Wrap;    // 1 = torus: a particle that wrapped is interpolated the short way round
+uniform vec2 u_ViewCenter; // world position at the centre of the view
+uniform float u_ViewZoom;  // 1 = whole world
+uniform int u_Culled;      // 1 = instance i draws particle visible[i]
 const float DEFAULT_POINT_SIZE = 5.0;
 
+#ifdef FIXED_POINT
+// Unsigned subtraction wraps, so int(cur - prev) is already the short way round
+uint interpolate(uint prev, uint cur) {
+    return prev + uint(int(float(int(cur - prev)) * u_Alpha));
+}
+#else
+vec2 interpolate(vec2 prev, vec2 cur) {
+    vec2 delta = cur - prev;
+    if (u_Wrap == 0) {
+        return prev + delta * u_Alpha;
+    }
+    float span = 2.0 * u_WorldHalfExtent;
+    delta -= span * round(delta / span);
+    return mod(prev + delta * u_Alpha + u_WorldHalfExtent, span) - u_WorldHalfExtent;
+}
+#endif
+
+// World position to view NDC; on the torus the nearest image of the particle
+// is used, so a view over the seam shows both sides
+vec2 toView(vec2 pos) {
+    vec2 d = pos - u_ViewCenter;
+    if (u_Wrap != 0) {
+        float span = 2.0 * u_WorldHalfExtent;
+        d -= span * round(d / span);
+    }
+    return d * u_ViewZoom / u_WorldHalfExtent;
+}
+
 void main() {
-    uint id = uint(gl_InstanceID);
+    uint id = u_Culled != 0 ? visible[gl_InstanceID] : uint(gl_InstanceID);
     Particle p = particles[id];
 
-    gl_Position = vec4(p.pos.xy, 0.0, 1.0);
+#ifdef FIXED_POINT
+    uvec2 fixedPos = uvec2(p.x & ~15u, p.y);
+    if (u_Alpha >= 0.0) {
+        Particle q = previous[id];
+        fixedPos = uvec2(interpolate(q.x & ~15u, fixedPos.x), interpolate(q.y, fixedPos.y));
+    }
+    vec2 ndc = toView((vec2(fixedPos) * (2.0 / 4294967296.0) - 1.0) * u_WorldHalfExtent);
+    uint group = p.x & 15u;
+#else
+    vec2 pos = u_Alpha >= 0.0 ? interpolate(previous[id].pos, p.pos) : p.pos;
+    vec2 ndc = toView(pos);
+    uint group = p.group;
+    if (u_MosaicColumns > 0) {
+        // World 0 in the top left corner, filling rows left to right; the camera does not apply
+        int columns = u_MosaicColumns;
+        vec2 tile = vec2(int(p.pad) % columns, columns - 1 - int(p.pad) / columns);
+        ndc = (tile + pos / u_WorldHalfExtent * 0.5 + 0.5) * (2.0 / float(columns)) - 1.0;
+    }
+#endif
+
+    gl_Position = vec4(ndc, 0.0, 1.0);
     gl_Position.x *= u_AspectScale; // shrink horizontally to make a square region
-    v_color = p.col;
+    v_color = palette[group];
 
     gl_PointSize = (u_PointSize > 0.0) ? u_PointSize : DEFAULT_POINT_SIZE;
 }
\ No newline at end of file
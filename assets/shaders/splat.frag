@@ -0,0 +1,31 @@
+#version 430
+
+in vec2 v_TexCoord;
+
+// Per pixel: r, g, b (scaled by COLOR_SCALE) and particle count
+layout(std430, binding = 4) buffer SplatAccum {
+    uint accum[];
+};
+
+#define COLOR_SCALE 256.0
+
+uniform int u_size;
+uniform float u_Exposure;
+
+layout(location = 0) out vec4 outColor;
+
+void main() {
+    ivec2 pixel = clamp(ivec2(v_TexCoord * float(u_size)), ivec2(0), ivec2(u_size - 1));
+    uint base = uint(pixel.y * u_size + pixel.x) * 4u;
+    float count = float(accum[base + 3u]);
+    if (count == 0.0) {
+        discard;
+    }
+
+    vec3 sum = vec3(accum[base + 0u], accum[base + 1u], accum[base + 2u]) / COLOR_SCALE;
+
+    // Hue from the average colour, brightness from density
+    vec3 avg = sum / count;
+    float intensity = 1.0 - exp(-count * u_Exposure);
+    outColor = vec4(avg * intensity, 1.0);
+}
@@ -3,18 +3,27 @@ package io.github.simulation;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputMultiplexer;
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import io.github.simulation.config.RuntimeConfig;
 import io.github.simulation.config.RuntimeGrid;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.gl.GLCallBudget;
 import io.github.simulation.gl.GLCapabilitiesChecker;
+import io.github.simulation.gl.GLFacade;
 import io.github.simulation.gl.GLStateManager;
+import io.github.simulation.gl.LwjglGLFacade;
+import io.github.simulation.gl.RecordingGLFacade;
 import io.github.simulation.input.SimulationInputProcessor;
 import io.github.simulation.particles.ParticleSystem;
+import io.github.simulation.profiling.FramePhaseEvent;
+import io.github.simulation.profiling.GpuProfiler;
+import io.github.simulation.profiling.SimulationMetrics;
 import io.github.simulation.render.ComputeRenderer;
+import io.github.simulation.render.ComputeTuner;
+import io.github.simulation.render.EnsembleRenderer;
 import io.github.simulation.render.GLRenderer;
+import io.github.simulation.render.HudRenderer;
+import io.github.simulation.render.QualityGovernor;
+import io.github.simulation.render.SceneFrame;
 import io.github.simulation.shader.ShaderManager;
 
 /**
@@ -30,15 +39,30 @@ public class Simulation extends ApplicationAdapter {
     private ParticleSystem particleSystem;
     private ComputeRenderer computeRenderer;
     private GLRenderer glRenderer;
+    private SceneFrame sceneFrame;
+    private EnsembleRenderer ensembleRenderer;
+    private GpuProfiler gpuProfiler;
+    private QualityGovernor qualityGovernor;
+    private SimulationMetrics metrics;
+    private long lastFrameNanos = 0;
+
+    // Only with GL_CALL_BUDGET: every GL call of a frame, checked against the steady state budget
+    private RecordingGLFacade glRecorder;
+    private final GLCallBudget glBudget = GLCallBudget.steadyState();
+    private long recordedFrames = 0;
 
     // State
+    private static final int OVERLAY_TEXT_LINES = 19; // Text and spacing lines before the GPU passes
+
     private float time = 0f;
     private boolean canRun = false;
 
     // UI components
-    private SpriteBatch uiBatch;
-    private BitmapFont font;
-    private ShapeRenderer shapeRenderer;
+    // Status text, rebuilt at HUD_REFRESH_HZ divided by the governor's overlay interval
+    private final String[] overlayLines = new String[OVERLAY_TEXT_LINES + GpuProfiler.PASSES];
+    private int overlayLineCount = 0;
+    private float overlayAge = Float.MAX_VALUE;
+    private HudRenderer hud;
 
     @Override
     public void create() {
@@ -50,6 +74,11 @@ public class Simulation extends ApplicationAdapter {
             return;
         }
 
+        if (SimulationConfig.GL_CALL_BUDGET) {
+            glRecorder = new RecordingGLFacade(new LwjglGLFacade());
+            GLFacade.install(glRecorder);
+        }
+
         shaderManager = new ShaderManager();
         if (!shaderManager.initializeShaders()) {
             canRun = false;
@@ -62,18 +91,43 @@ public class Simulation extends ApplicationAdapter {
             return;
         }
 
-        computeRenderer = new ComputeRenderer(shaderManager.getComputeProgram());
-        glRenderer = new GLRenderer(shaderManager.getRenderProgram(), shaderManager.getBlitProgram());
+        computeRenderer = new ComputeRenderer(shaderManager.getPopulateProgram(), shaderManager.getComputeProgram(),
+                shaderManager.getDispatchProgram(), shaderManager.getFixedPopulateProgram(),
+                shaderManager.getFixedComputeProgram(), shaderManager.getFixedPositionProgram());
+
+        // Workgroup size and strategy measured on this GPU before, otherwise tune on the first frame
+        ComputeTuner computeTuner = new ComputeTuner();
+        ComputeTuner.Choice tuned = computeTuner.loadPersisted();
+        if (tuned != null) {
+            shaderManager.setComputeStrategy(tuned.workgroupSize, tuned.strategy);
+            Gdx.app.log("Simulation", "Using tuned compute configuration " + tuned);
+        } else if (SimulationConfig.AUTO_TUNE_COMPUTE) {
+            RuntimeConfig.requestComputeTuning();
+        }
+        glRenderer = new GLRenderer(shaderManager.getRenderProgram(), shaderManager.getBlitProgram(),
+                shaderManager.getSplatProgram(), shaderManager.getToneMapProgram(),
+                shaderManager.getFixedRenderProgram(), shaderManager.getFixedSplatProgram());
+
+        glRenderer.setCullPrograms(shaderManager.getCullProgram(), shaderManager.getFixedCullProgram());
 
         if (!glRenderer.initialize()) {
             canRun = false;
             return;
         }
 
-        // Initialize UI components
-        uiBatch = new SpriteBatch();
-        font = new BitmapFont();
-        shapeRenderer = new ShapeRenderer();
+        ensembleRenderer = new EnsembleRenderer(shaderManager.getEnsemblePopulateProgram(),
+                shaderManager.getEnsembleComputeProgram(), particleSystem.getBufferPool());
+
+        gpuProfiler = SimulationConfig.GPU_PROFILER ? new GpuProfiler() : GpuProfiler.DISABLED;
+        computeRenderer.setProfiler(gpuProfiler);
+        glRenderer.setProfiler(gpuProfiler);
+        ensembleRenderer.setProfiler(gpuProfiler);
+        sceneFrame = new SceneFrame(shaderManager, particleSystem, computeRenderer, glRenderer);
+        sceneFrame.setComputeTuner(computeTuner, gpuProfiler);
+        metrics = SimulationMetrics.forSource("gpu");
+        qualityGovernor = new QualityGovernor(glRenderer);
+
+        hud = new HudRenderer(shaderManager.getBlitProgram(), shaderManager.getHudMatrixProgram());
 
         setupInputHandling();
     }
@@ -94,122 +148,180 @@ public class Simulation extends ApplicationAdapter {
             return;
         }
 
+        long workStart = System.nanoTime();
         float deltaTime = Gdx.graphics.getDeltaTime();
         time += deltaTime;
+        recordMetrics();
 
-        particleSystem.reassignGroupsIfNeeded();
-
-        particleSystem.bindSSBO();
-
-        particleSystem.checkAndRebuildGrid();
-
-        particleSystem.clearGrid();
-
-        computeRenderer.executeComputeShader(deltaTime, time);
+        checkGlBudget();
+        GLStateManager.beginFrame();
+        gpuProfiler.beginFrame();
+        if (RuntimeConfig.consumeProfileExportRequest()) {
+            gpuProfiler.exportCsv(Gdx.files.local(SimulationConfig.GPU_PROFILE_CSV));
+        }
 
-        glRenderer.render();
+        if (RuntimeConfig.isEnsembleMode()) {
+            renderEnsemble(deltaTime);
+        } else {
+            renderScene(deltaTime);
+        }
 
-        particleSystem.unbindSSBO();
+        FramePhaseEvent phase = FramePhaseEvent.start("renderStatusOverlay");
+        gpuProfiler.begin(GpuProfiler.OVERLAY);
+        renderStatusOverlay(deltaTime);
+        gpuProfiler.end(GpuProfiler.OVERLAY);
+        phase.finish();
 
-        renderStatusOverlay();
+        updateQualityGovernor(deltaTime, System.nanoTime() - workStart);
     }
 
-    private void renderStatusOverlay() {
-        GLStateManager.ensureSpriteBatchCompatibility();
-
-        int groupCount = RuntimeConfig.getGroupCount();
-
-        // Layout constants
-        final float paddingX = 10f;
-        final float lineHeight = 20f;
-        final float minTextWidth = 300f;
-        final int cellSize = 18;
-
-        int lineCount = 9 + 2; // 9 text + 2 spacing
-
-        float statsStartY = Gdx.graphics.getHeight() - 5f;
-
-        float matrixStartX = 200f;
-        float matrixStartY = Gdx.graphics.getHeight() - 30f;
-        float matrixWidth = groupCount * cellSize;
-        float matrixHeight = groupCount * cellSize;
-
-        float textHeight = lineCount * lineHeight - 5f;
-        float statsBackgroundWidth = Math.max(minTextWidth, matrixStartX + matrixWidth) + 15f;
-        float statsBackgroundHeight = Math.max(textHeight, matrixHeight);
-
-        // Semi-transparent background
-        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-        shapeRenderer.setColor(0.2f, 0.2f, 0.2f, 0.8f);
-        shapeRenderer.rect(0, statsStartY - statsBackgroundHeight, statsBackgroundWidth, statsBackgroundHeight + 10f);
-        shapeRenderer.end();
-
-        if (groupCount > 0) {
-            renderAttractionMatrix((int) matrixStartX, (int) matrixStartY, cellSize);
+    /**
+     * Logs how the frame that just ended broke the GL call budget, once past
+     * the warmup frames that create buffers, textures and programs
+     */
+    private void checkGlBudget() {
+        if (glRecorder == null) {
+            return;
         }
+        if (++recordedFrames > SimulationConfig.GL_BUDGET_WARMUP_FRAMES) {
+            for (String violation : glBudget.check(glRecorder)) {
+                Gdx.app.error("GLCallBudget", "Frame " + recordedFrames + ": " + violation);
+            }
+        }
+        glRecorder.beginFrame();
+    }
 
-        // Text overlay
-        uiBatch.begin();
-        float y = statsStartY;
+    /**
+     * Busy time is the larger of the CPU work in render() and the summed GPU
+     * pass medians, so time spent waiting for vsync does not count as load
+     */
+    private void updateQualityGovernor(float deltaTime, long workNanos) {
+        float busyMs = workNanos / 1e6f;
+        float computeMs = 0f;
+        if (gpuProfiler.isEnabled() && gpuProfiler.hasSamples()) {
+            float gpuMs = 0f;
+            for (int pass = 0; pass < GpuProfiler.PASSES; pass++) {
+                gpuMs += gpuProfiler.percentile(pass, 0.5f);
+            }
+            busyMs = Math.max(busyMs, gpuMs);
+            computeMs = gpuProfiler.percentile(GpuProfiler.POPULATE, 0.5f)
+                    + gpuProfiler.percentile(GpuProfiler.FORCE, 0.5f);
+        }
+        qualityGovernor.update(deltaTime * 1000f, busyMs, computeMs);
+    }
 
-        font.draw(uiBatch, String.format("FPS: %d", Gdx.graphics.getFramesPerSecond()), paddingX, y);
-        y -= lineHeight;
-        y -= lineHeight;
+    private void renderScene(float deltaTime) {
+        // Buffers of a previous ensemble go back to the pool for the single world
+        if (ensembleRenderer.getWorldCount() > 0) {
+            ensembleRenderer.release();
+        }
 
-        font.draw(uiBatch, String.format("Particle Count: %d", RuntimeConfig.getParticleCount()), paddingX, y);
-        y -= lineHeight;
-        font.draw(uiBatch, String.format("Groups: %d", groupCount), paddingX, y);
-        y -= lineHeight;
-        y -= lineHeight;
+        sceneFrame.render(deltaTime, time);
+    }
 
-        font.draw(uiBatch, String.format("Time Scale: %.2f", RuntimeConfig.getTimeScale()), paddingX, y);
-        y -= lineHeight;
-        font.draw(uiBatch, String.format("Force Factor: %.3f", RuntimeConfig.getForceFactor()), paddingX, y);
-        y -= lineHeight;
-        font.draw(uiBatch, String.format("Velocity Damping: %.3f", RuntimeConfig.getVelocityDamping()), paddingX, y);
-        y -= lineHeight;
-        font.draw(uiBatch, String.format("Interaction Range: %.2f", RuntimeConfig.getInteractionRange()), paddingX, y);
-        y -= lineHeight;
-        font.draw(uiBatch, RuntimeGrid.getGridStatusString(), paddingX, y);
-        y -= lineHeight;
-        font.draw(uiBatch, RuntimeGrid.getMaxCellString(), paddingX, y);
-        y -= lineHeight;
+    /**
+     * Ensemble mode: all worlds step in one populate and one force dispatch
+     * per substep and are drawn as a mosaic
+     */
+    private void renderEnsemble(float deltaTime) {
+        if (RuntimeConfig.consumeEnsembleReseedRequest()) {
+            ensembleRenderer.seed(SimulationConfig.ENSEMBLE_WORLDS, SimulationConfig.ENSEMBLE_PARTICLES_PER_WORLD,
+                    System.nanoTime());
+        }
+        ensembleRenderer.seedIfStale();
 
-        uiBatch.end();
+        FramePhaseEvent phase = FramePhaseEvent.start("ensembleStep");
+        ensembleRenderer.step(deltaTime);
+        phase.finish();
 
-        GLStateManager.ensureComputeRenderState();
+        ensembleRenderer.bindForRender();
+        glRenderer.setMosaic(ensembleRenderer.getMosaicColumns(), ensembleRenderer.getParticleCount());
+        phase = FramePhaseEvent.start("GLRenderer.render");
+        glRenderer.render();
+        phase.finish();
+        glRenderer.setMosaic(0, 0);
     }
 
-    private void renderAttractionMatrix(int startX, int startY, int cellSize) {
-        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-
-        float[][] matrix = RuntimeConfig.getAttractionMatrix();
-        if (matrix == null) {
-            shapeRenderer.end();
-            return;
+    /**
+     * Frame-to-frame time is the step latency here: GPU work is asynchronous,
+     * so only the frame cadence reflects what the GPU actually took
+     */
+    private void recordMetrics() {
+        long now = System.nanoTime();
+        boolean ensemble = RuntimeConfig.isEnsembleMode();
+        int particles = ensemble ? ensembleRenderer.getParticleCount() : RuntimeConfig.getParticleCount();
+        if (lastFrameNanos != 0) {
+            int steps = RuntimeConfig.isFixedPoint() && !ensemble ? 1 : RuntimeConfig.getSubsteps();
+            if (!ensemble) {
+                steps *= sceneFrame.getPhysicsSteps();
+            }
+            metrics.recordSteps(particles > 0 ? steps : 0, now - lastFrameNanos);
         }
+        lastFrameNanos = now;
+        metrics.setScene(particles, RuntimeGrid.getGridSize());
+        metrics.setDroppedInserts(computeRenderer.getDroppedInserts());
+        metrics.setBufferBytes(particleSystem.getBufferPool().getLiveBytes());
+    }
 
-        for (int i = 0; i < matrix.length; i++) {
-            for (int j = 0; j < matrix[i].length; j++) {
-                Color gridColor = getGridColor(matrix[i][j]);
-                shapeRenderer.setColor(gridColor);
-                shapeRenderer.rect(startX + j * cellSize, startY - i * cellSize, cellSize - 1, cellSize - 1);
-            }
+    /**
+     * The HUD keeps its own cached texture; the text only changes at the
+     * refresh rate and the matrix whenever it is edited
+     */
+    private void renderStatusOverlay(float deltaTime) {
+        overlayAge += deltaTime;
+        if (overlayAge >= qualityGovernor.getOverlayInterval() / SimulationConfig.HUD_REFRESH_HZ) {
+            overlayAge = 0f;
+            updateOverlayLines(RuntimeConfig.getGroupCount());
+            hud.setLines(overlayLines, overlayLineCount);
         }
-        shapeRenderer.end();
+        hud.setMatrix(RuntimeConfig.getAttractionMatrix(), RuntimeConfig.getGroupCount());
+        hud.render();
     }
 
-    private Color getGridColor(float value) {
-        if (value > 0) {
-            // Green for attraction
-            return new Color(0, 0.5f, 0, Math.min(Math.abs(value), 1.0f));
-        } else if (value < 0) {
-            // Red for repulsion
-            return new Color(0.5f, 0, 0, Math.min(Math.abs(value), 1.0f));
-        } else {
-            // Gray for neutral
-            return new Color(0.3f, 0.3f, 0.3f, 0.5f);
+    // Null entries are spacing lines
+    private void updateOverlayLines(int groupCount) {
+        int n = 0;
+        overlayLines[n++] = String.format("FPS: %d", Gdx.graphics.getFramesPerSecond());
+        overlayLines[n++] = null;
+        overlayLines[n++] = String.format("Particle Count: %d", RuntimeConfig.getParticleCount());
+        overlayLines[n++] = String.format("Groups: %d", groupCount);
+        overlayLines[n++] = String.format("Render: %s (%s)", RuntimeConfig.getRenderMode(),
+                glRenderer.isSplatActive() ? "splat" : "points");
+        overlayLines[n++] = null;
+        overlayLines[n++] = String.format("Time Scale: %.2f", RuntimeConfig.getTimeScale());
+        overlayLines[n++] = String.format("Force Factor: %.3f", RuntimeConfig.getForceFactor());
+        overlayLines[n++] = String.format("Velocity Damping: %.3f", RuntimeConfig.getVelocityDamping());
+        overlayLines[n++] = String.format("Interaction Range: %.2f", RuntimeConfig.getInteractionRange());
+        overlayLines[n++] = "Force Law: " + RuntimeConfig.getForceLaw().getName();
+        overlayLines[n++] = RuntimeGrid.getGridStatusString();
+        overlayLines[n++] = RuntimeGrid.getHashStatusString();
+        overlayLines[n++] = String.format("World: %.2f (%s) | View: x%.1f at (%.2f, %.2f)",
+                2.0f * RuntimeConfig.getWorldHalfExtent(), RuntimeConfig.isWrapBoundaries() ? "wrap" : "walls",
+                RuntimeConfig.getViewZoom(), RuntimeConfig.getViewCenterX(), RuntimeConfig.getViewCenterY());
+        overlayLines[n++] = RuntimeConfig.isFixedPoint() ? "Physics: fixed point (deterministic)" : "Physics: float";
+        overlayLines[n++] = RuntimeConfig.isEnsembleMode()
+                ? String.format("Ensemble: %d worlds x %d particles", ensembleRenderer.getWorldCount(),
+                        ensembleRenderer.getParticleCount() / Math.max(1, ensembleRenderer.getWorldCount()))
+                : "Ensemble: off";
+        overlayLines[n++] = RuntimeConfig.isQualityGovernor()
+                ? String.format("Governor: on, %d steps down | scale %.2f, HUD %.1f Hz",
+                        qualityGovernor.getDegradations(), glRenderer.getResolutionScale(),
+                        SimulationConfig.HUD_REFRESH_HZ / qualityGovernor.getOverlayInterval())
+                : "Governor: off";
+        overlayLines[n++] = String.format("GL state calls: %d issued, %d skipped",
+                GLStateManager.getIssuedLastFrame(), GLStateManager.getSkippedLastFrame());
+
+        if (gpuProfiler.isEnabled()) {
+            overlayLines[n++] = null;
+            for (int pass = 0; pass < GpuProfiler.PASSES; pass++) {
+                String timing = gpuProfiler.hasSamples()
+                        ? String.format("%.2f / %.2f ms", gpuProfiler.percentile(pass, 0.5f),
+                                gpuProfiler.percentile(pass, 0.95f))
+                        : "waiting";
+                overlayLines[n++] = "GPU " + GpuProfiler.passName(pass) + " p50/p95: " + timing;
+            }
         }
+        overlayLineCount = n;
     }
 
     @Override
@@ -217,20 +329,23 @@ public class Simulation extends ApplicationAdapter {
         if (shaderManager != null) {
             shaderManager.dispose();
         }
+        if (ensembleRenderer != null) {
+            ensembleRenderer.dispose();
+        }
         if (particleSystem != null) {
             particleSystem.dispose();
         }
         if (glRenderer != null) {
             glRenderer.dispose();
         }
-        if (uiBatch != null) {
-            uiBatch.dispose();
+        if (computeRenderer != null) {
+            computeRenderer.dispose();
         }
-        if (font != null) {
-            font.dispose();
+        if (gpuProfiler != null) {
+            gpuProfiler.dispose();
         }
-        if (shapeRenderer != null) {
-            shapeRenderer.dispose();
+        if (hud != null) {
+            hud.dispose();
         }
     }
 }
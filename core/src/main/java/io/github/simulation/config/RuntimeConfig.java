@@ -1,5 +1,7 @@
 package io.github.simulation.config;
 
+import io.github.simulation.force.ForceLaw;
+import io.github.simulation.force.ForceLaws;
 import io.github.simulation.particles.ParticleSystem;
 import io.github.simulation.util.PaletteUtil;
 
@@ -19,9 +21,29 @@ public class RuntimeConfig {
     private static float forceFactor = SimulationConfig.FORCE_FACTOR;
     private static float velocityDamping = SimulationConfig.VELOCITY_DAMPING;
     private static float interactionRange = SimulationConfig.INTERACTION_RANGE;
+    private static ForceLaw forceLaw = SimulationConfig.FORCE_LAW;
+    private static int forceLawVersion = 0;
+
+    private static float worldHalfExtent = SimulationConfig.WORLD_HALF_EXTENT;
+    private static boolean wrapBoundaries = SimulationConfig.WRAP_BOUNDARIES;
+
+    private static float viewCenterX = 0f;
+    private static float viewCenterY = 0f;
+    private static float viewZoom = 1f;
 
     private static float[][] attractionMatrix = copyMatrix(SimulationConfig.ATTRACTION_MATRIX);
+    private static int attractionVersion = 0;
     private static Distribution distribution = SimulationConfig.DISTRIBUTION;
+    private static RenderMode renderMode = SimulationConfig.RENDER_MODE;
+    private static boolean fixedPoint = SimulationConfig.FIXED_POINT;
+    private static boolean layoutChanged = false;
+    private static boolean computeTuningRequested = false;
+    private static boolean profileExportRequested = false;
+    private static boolean ensembleMode = false;
+    private static boolean qualityGovernor = SimulationConfig.QUALITY_GOVERNOR;
+    private static boolean ensembleReseedRequested = false;
+    private static int substeps = SimulationConfig.SUBSTEPS;
+    private static float physicsHz = SimulationConfig.PHYSICS_HZ;
 
     public enum Distribution {
         UNIFORM,
@@ -29,6 +51,12 @@ public class RuntimeConfig {
         GAUSSIAN
     }
 
+    public enum RenderMode {
+        AUTO,   // point sprites, density splat above SPLAT_PARTICLE_THRESHOLD
+        POINTS,
+        SPLAT
+    }
+
     public static int getParticleCount() {
         return particleCount;
     }
@@ -77,6 +105,7 @@ public class RuntimeConfig {
         groupCount = newCount;
         // Reset attraction matrix to identity (default)
         attractionMatrix = buildIdentity(groupCount);
+        attractionVersion++;
         // Regenerate palette
         groupColors = PaletteUtil.generateEvenHue(groupCount);
         groupsChanged = true;
@@ -110,6 +139,14 @@ public class RuntimeConfig {
         return attractionMatrix;
     }
 
+    /**
+     * Changes whenever the attraction matrix does, so data derived from it
+     * can be kept until then
+     */
+    public static int getAttractionVersion() {
+        return attractionVersion;
+    }
+
     public static void setTimeScale(float value) {
         timeScale = Math.max(0.1f, Math.min(5.0f, value));
     }
@@ -158,12 +195,103 @@ public class RuntimeConfig {
         setInteractionRange(interactionRange - 0.01f);
     }
 
+    public static float getWorldHalfExtent() {
+        return worldHalfExtent;
+    }
+
+    public static void setWorldHalfExtent(float value) {
+        float previous = worldHalfExtent;
+        worldHalfExtent = Math.clamp(value, SimulationConfig.MIN_WORLD_HALF_EXTENT,
+                SimulationConfig.MAX_WORLD_HALF_EXTENT);
+        // Same relative spot of the world stays in view
+        viewCenterX *= worldHalfExtent / previous;
+        viewCenterY *= worldHalfExtent / previous;
+    }
+
+    public static void increaseWorldSize() {
+        setWorldHalfExtent(worldHalfExtent * 2.0f);
+    }
+
+    public static void decreaseWorldSize() {
+        setWorldHalfExtent(worldHalfExtent * 0.5f);
+    }
+
+    public static boolean isWrapBoundaries() {
+        // Fixed point positions wrap by integer overflow, so that mode is always a torus
+        return wrapBoundaries || fixedPoint;
+    }
+
+    public static void setWrapBoundaries(boolean value) {
+        wrapBoundaries = value;
+        clampView();
+    }
+
+    public static void toggleWrapBoundaries() {
+        wrapBoundaries = !wrapBoundaries;
+        clampView();
+    }
+
+    public static float getViewCenterX() {
+        return viewCenterX;
+    }
+
+    public static float getViewCenterY() {
+        return viewCenterY;
+    }
+
+    /**
+     * 1 shows the whole world; the view never zooms out past it
+     */
+    public static float getViewZoom() {
+        return viewZoom;
+    }
+
+    public static void zoomView(float factor) {
+        viewZoom = Math.clamp(viewZoom * factor, 1f, SimulationConfig.MAX_VIEW_ZOOM);
+        clampView();
+    }
+
+    /**
+     * Moves the view by a fraction of its own half size (NDC units)
+     */
+    public static void panView(float dxNdc, float dyNdc) {
+        float halfView = worldHalfExtent / viewZoom;
+        viewCenterX += dxNdc * halfView;
+        viewCenterY += dyNdc * halfView;
+        clampView();
+    }
+
+    public static void resetView() {
+        viewCenterX = 0f;
+        viewCenterY = 0f;
+        viewZoom = 1f;
+    }
+
+    // On the torus the centre wraps freely; between walls the view stays inside the world
+    private static void clampView() {
+        float e = worldHalfExtent;
+        if (isWrapBoundaries()) {
+            viewCenterX = wrapCoordinate(viewCenterX, e);
+            viewCenterY = wrapCoordinate(viewCenterY, e);
+        } else {
+            float limit = e - e / viewZoom;
+            viewCenterX = Math.clamp(viewCenterX, -limit, limit);
+            viewCenterY = Math.clamp(viewCenterY, -limit, limit);
+        }
+    }
+
+    private static float wrapCoordinate(float v, float e) {
+        float span = 2f * e;
+        return v - span * (float) Math.floor((v + e) / span);
+    }
+
     public static void randomizeAttractionMatrix() {
         for (int i = 0; i < RuntimeConfig.getGroupCount(); i++) {
             for (int j = 0; j < RuntimeConfig.getGroupCount(); j++) {
                 attractionMatrix[i][j] = (float) (Math.random() * 2.0 - 1.0); // -1 to 1
             }
         }
+        attractionVersion++;
     }
 
     public static void loadPreset(int idx) {
@@ -185,6 +313,7 @@ public class RuntimeConfig {
                 attractionMatrix = buildIdentity(g);
                 break;
         }
+        attractionVersion++;
     }
 
     private static float[][] buildZero(int g) {
@@ -228,12 +357,155 @@ public class RuntimeConfig {
         }
     }
 
+    public static RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public static void setRenderMode(RenderMode mode) {
+        if (mode != null) {
+            renderMode = mode;
+        }
+    }
+
+    public static void cycleRenderMode() {
+        RenderMode[] modes = RenderMode.values();
+        renderMode = modes[(renderMode.ordinal() + 1) % modes.length];
+    }
+
+    public static ForceLaw getForceLaw() {
+        return forceLaw;
+    }
+
+    public static void setForceLaw(ForceLaw law) {
+        if (law != null && law != forceLaw) {
+            forceLaw = law;
+            forceLawVersion++;
+        }
+    }
+
+    public static void cycleForceLaw() {
+        forceLaw = ForceLaws.next(forceLaw);
+        forceLawVersion++;
+    }
+
+    /**
+     * Changes whenever the force law does, like getAttractionVersion()
+     */
+    public static int getForceLawVersion() {
+        return forceLawVersion;
+    }
+
+    public static boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    public static void setFixedPoint(boolean value) {
+        if (value != fixedPoint) {
+            fixedPoint = value;
+            layoutChanged = true;
+        }
+    }
+
+    public static void toggleFixedPoint() {
+        setFixedPoint(!fixedPoint);
+    }
+
+    /**
+     * True once after the particle buffer layout switched between float and fixed point
+     */
+    public static boolean consumeLayoutChanged() {
+        if (layoutChanged) {
+            layoutChanged = false;
+            return true;
+        }
+        return false;
+    }
+
+    public static int getSubsteps() {
+        return substeps;
+    }
+
+    public static void setSubsteps(int value) {
+        substeps = Math.clamp(value, 1, SimulationConfig.MAX_SUBSTEPS);
+    }
+
+    public static float getPhysicsHz() {
+        return physicsHz;
+    }
+
+    /**
+     * Fixed physics rate in steps per second, 0 for one variable step per frame
+     */
+    public static void setPhysicsHz(float value) {
+        physicsHz = Math.max(0f, value);
+    }
+
+    public static boolean isQualityGovernor() {
+        return qualityGovernor;
+    }
+
+    public static void toggleQualityGovernor() {
+        qualityGovernor = !qualityGovernor;
+    }
+
+    public static boolean isEnsembleMode() {
+        return ensembleMode;
+    }
+
+    /**
+     * Entering ensemble mode always draws a fresh set of worlds
+     */
+    public static void toggleEnsembleMode() {
+        ensembleMode = !ensembleMode;
+        ensembleReseedRequested = ensembleMode;
+    }
+
+    public static boolean consumeEnsembleReseedRequest() {
+        if (ensembleReseedRequested) {
+            ensembleReseedRequested = false;
+            return true;
+        }
+        return false;
+    }
+
+    public static void requestProfileExport() {
+        profileExportRequested = true;
+    }
+
+    public static boolean consumeProfileExportRequest() {
+        if (profileExportRequested) {
+            profileExportRequested = false;
+            return true;
+        }
+        return false;
+    }
+
+    public static void requestComputeTuning() {
+        computeTuningRequested = true;
+    }
+
+    public static boolean consumeComputeTuningRequest() {
+        if (computeTuningRequested) {
+            computeTuningRequested = false;
+            return true;
+        }
+        return false;
+    }
+
     public static void resetToDefaults(ParticleSystem particleSystem) {
         timeScale = 1.0f;
         forceFactor = SimulationConfig.FORCE_FACTOR;
         velocityDamping = SimulationConfig.VELOCITY_DAMPING;
         interactionRange = SimulationConfig.INTERACTION_RANGE;
+        forceLaw = SimulationConfig.FORCE_LAW;
+        forceLawVersion++;
+        substeps = SimulationConfig.SUBSTEPS;
+        physicsHz = SimulationConfig.PHYSICS_HZ;
+        worldHalfExtent = SimulationConfig.WORLD_HALF_EXTENT;
+        wrapBoundaries = SimulationConfig.WRAP_BOUNDARIES;
+        resetView();
         attractionMatrix = copyMatrix(SimulationConfig.ATTRACTION_MATRIX);
+        attractionVersion++;
         particleSystem.repositionAllParticles(distribution);
     }
 
@@ -2,12 +2,14 @@ package io.github.simulation.config;
 
 /**
  * Runtime grid configuration that updates based on current interaction range
+ * and world size. Occupied cells are stored in a spatial hash, so memory
+ * scales with particle count rather than with gridSize * gridSize.
  */
 public class RuntimeGrid {
 
     private static float currentGridCellSize;
     private static int currentGridSize;
-    private static int currentMaxParticlesPerCell;
+    private static int currentHashSlots;
     private static boolean needsGridRebuild = true;
 
     static {
@@ -15,27 +17,46 @@ public class RuntimeGrid {
     }
 
     public static void updateGridParameters() {
-        float newCellSize = RuntimeConfig.getInteractionRange();
-        int newGridSize = (int) Math.ceil(2.0f / newCellSize);
+        float worldSize = 2.0f * RuntimeConfig.getWorldHalfExtent();
+        int newGridSize = gridSizeFor(RuntimeConfig.getWorldHalfExtent(), RuntimeConfig.getInteractionRange());
+        float newCellSize = worldSize / newGridSize;
 
-        // Calculate particles per cell based on expected density
-        int totalCells = newGridSize * newGridSize;
-        float densitySafetyFactor = 4.0f;
-        int newMaxParticles = Math.max(64,
-                (int) Math.ceil((SimulationConfig.PARTICLE_COUNT / (float) totalCells) * densitySafetyFactor));
+        // Occupied cells can never exceed the particle count nor the cell count
+        long totalCells = (long) newGridSize * newGridSize;
+        int particles = Math.max(SimulationConfig.PARTICLE_COUNT, RuntimeConfig.getParticleCount());
+        long occupiedBound = Math.min(totalCells, particles);
+        int newHashSlots = nextPowerOfTwo(Math.max(SimulationConfig.MIN_HASH_SLOTS,
+                (long) Math.ceil(occupiedBound / SimulationConfig.HASH_LOAD_FACTOR)));
 
         // Check if parameters changed
         if (Math.abs(newCellSize - currentGridCellSize) > 0.001f ||
                 newGridSize != currentGridSize ||
-                newMaxParticles != currentMaxParticlesPerCell) {
+                newHashSlots != currentHashSlots) {
 
             currentGridCellSize = newCellSize;
             currentGridSize = newGridSize;
-            currentMaxParticlesPerCell = newMaxParticles;
+            currentHashSlots = newHashSlots;
             needsGridRebuild = true;
         }
     }
 
+    /**
+     * Cells must tile the world exactly (for wrapping) and be at least one interaction
+     * range wide so the 3x3 neighbourhood covers every interacting pair
+     */
+    public static int gridSizeFor(float worldHalfExtent, float interactionRange) {
+        int size = (int) Math.floor(2.0f * worldHalfExtent / interactionRange);
+        return Math.clamp(size, 3, SimulationConfig.MAX_GRID_DIM);
+    }
+
+    public static int nextPowerOfTwo(long value) {
+        long p = 1;
+        while (p < value && p < (1L << 30)) {
+            p <<= 1;
+        }
+        return (int) p;
+    }
+
     public static float getGridCellSize() {
         return currentGridCellSize;
     }
@@ -44,8 +65,23 @@ public class RuntimeGrid {
         return currentGridSize;
     }
 
-    public static int getMaxParticlesPerCell() {
-        return currentMaxParticlesPerCell;
+    public static int getHashSlots() {
+        return currentHashSlots;
+    }
+
+    public static int getHashMask() {
+        return currentHashSlots - 1;
+    }
+
+    /**
+     * Shift that keeps the top log2(hash slots) bits of a 32-bit product
+     */
+    public static int getHashShift() {
+        return hashShift(currentHashSlots);
+    }
+
+    public static int hashShift(int slots) {
+        return 32 - Integer.numberOfTrailingZeros(slots);
     }
 
     public static boolean needsGridRebuild() {
@@ -61,8 +97,8 @@ public class RuntimeGrid {
                 currentGridSize, currentGridSize, currentGridCellSize);
     }
 
-    public static String getMaxCellString() {
-        return String.format("Max/Cell: %d", currentMaxParticlesPerCell);
+    public static String getHashStatusString() {
+        return String.format("Hash Slots: %d", currentHashSlots);
     }
 
 }
@@ -1,6 +1,9 @@
 package io.github.simulation.config;
 
 import io.github.simulation.config.RuntimeConfig.Distribution;
+import io.github.simulation.config.RuntimeConfig.RenderMode;
+import io.github.simulation.force.ForceLaw;
+import io.github.simulation.force.ForceLaws;
 import io.github.simulation.util.PaletteUtil;
 /**
  * Configuration constants
@@ -34,30 +37,109 @@ public final class SimulationConfig {
     // Physics constants
     public static final float FORCE_FACTOR = 0.2f; // Global force multiplier
     public static final float VELOCITY_DAMPING = 0.95f; // Velocity damping per frame
+    public static final int SUBSTEPS = 1; // GPU steps per frame, each advancing dt / SUBSTEPS
+    public static final int MAX_SUBSTEPS = 8;
+    public static final float PHYSICS_HZ = 60f; // Fixed physics rate, drawn interpolated; 0 = one step per frame
+    public static final int MAX_PHYSICS_STEPS_PER_FRAME = 4; // Further steps are dropped after a slow frame
     public static final float INTERACTION_RANGE = 0.1f; // Interaction range for particles
+    public static final ForceLaw FORCE_LAW = ForceLaws.PARTICLE_LIFE; // Sampled through a ForceTable on CPU and GPU
+
+    // World bounds
+    public static final float WORLD_HALF_EXTENT = 1.0f; // World spans [-extent, extent] in both dimensions
+    public static final float MIN_WORLD_HALF_EXTENT = 0.25f;
+    public static final float MAX_WORLD_HALF_EXTENT = 1024.0f;
+    public static final boolean WRAP_BOUNDARIES = true; // true = torus, false = reflecting walls
+
+    // Spatial hash of occupied grid cells
+    // Cell keys are packed as y * gridSize + x into a uint, so each axis is capped
+    public static final int MAX_GRID_DIM = 65535;
+    public static final float HASH_LOAD_FACTOR = 0.5f; // Occupied cells / hash slots
+    public static final int MIN_HASH_SLOTS = 1024;
 
     // Spatial partitioning grid
-    public static final float GRID_CELL_SIZE = INTERACTION_RANGE; // Each cell is the size of interaction range
-    public static final int GRID_SIZE = (int) Math.ceil(2.0f / GRID_CELL_SIZE); // Grid spans from -1 to 1 in both
-                                                                                // dimensions
-
-    // Calculate particles per cell based on expected density
-    // Max particles per cell PARTICLE_COUNT / (GRID_SIZE * GRID_SIZE) *
-    // DENSITY_SAFETY_FACTOR
-    // Overflow will be ignored
-    private static final int TOTAL_CELLS = GRID_SIZE * GRID_SIZE;
-    private static final float DENSITY_SAFETY_FACTOR = 10.0f; // Increase for more safety, decrease for performance
-    public static final int MAX_PARTICLES_PER_CELL = Math.max(64,
-            (int) Math.ceil((PARTICLE_COUNT / (float) TOTAL_CELLS) * DENSITY_SAFETY_FACTOR));
+    public static final float GRID_CELL_SIZE = INTERACTION_RANGE; // Each cell is at least the size of interaction range
 
     // Rendering constants
     public static final float[] BACKGROUND_COLOR = { 0f, 0f, 0f, 0f };
     public static final int WORKGROUP_SIZE = 256; 
-    public static final int PARTICLE_STRIDE_FLOATS = 16; // vec4 pos + vec4 vel + vec4 col + vec4 type/group
-    public static final int OFFSET_POS    = 0;   // 4 floats
-    public static final int OFFSET_VEL    = 4;   // 4 floats
-    public static final int OFFSET_COLOR  = 8;   // 4 floats
-    public static final int OFFSET_META   = 12;  // 4 floats
+    public static final boolean GL_DEBUG = false; // glGetError after each pass; every call is a CPU-GPU sync point
+
+    // particle.comp variants with group count, grid size etc. compiled in as constants
+    public static final boolean COMPUTE_VARIANTS = true;
+    public static final int COMPUTE_VARIANT_CACHE_SIZE = 16; // Linked programs kept (LRU), two per variant
+    public static final int MAX_HASH_PROBES = 64; // Linear probing limit of the GPU cell hash
+    public static final int TILE_CELLS = 4; // Tiled force kernel: each workgroup owns TILE_CELLS^2 grid cells
+
+    // Workgroup size / strategy tuning, persisted per GPU and driver (relative to the user's home directory)
+    public static final boolean AUTO_TUNE_COMPUTE = true; // Tune on the first frame if this GPU has no entry yet
+    public static final String COMPUTE_TUNING_FILE = ".particle-life/compute-tuning.properties";
+
+    // Skip GL binds/enables/blend funcs that would not change state; false issues every call (for comparison)
+    public static final boolean GL_STATE_CACHE = true;
+
+    // Per-frame GL call budget (see GLCallBudget): the checkGlBudget task drives the renderers without a GPU and
+    // fails when a frame after warmup goes over it; GL_CALL_BUDGET also records the app's own calls and logs them
+    public static final boolean GL_CALL_BUDGET = false;
+    public static final int GL_BUDGET_MAX_STATE_CHANGES = 64;
+    public static final int GL_BUDGET_WARMUP_FRAMES = 3;
+    public static final int GL_BUDGET_FRAMES = 30;
+
+    // GPU timer queries per pass, shown as rolling percentiles in the overlay; P writes them as CSV
+    public static final boolean GPU_PROFILER = true;
+    public static final int GPU_PROFILE_WINDOW = 240; // Frames in the rolling window
+    public static final String GPU_PROFILE_CSV = "gpu-profile.csv"; // Relative to the working directory
+
+    // Status HUD: text is re-formatted at most this often, the cached panel only redrawn when it changed
+    public static final float HUD_REFRESH_HZ = 4f;
+
+    // Quality governor (Q toggles): trades the knobs below, one step per window, to hold the target
+    public static final boolean QUALITY_GOVERNOR = true;
+    public static final float GOVERNOR_TARGET_FRAME_MS = 1000f / 60f;
+    public static final int GOVERNOR_WINDOW = 60; // Frames averaged per decision
+    public static final float GOVERNOR_OVER_BUDGET = 1.1f; // Degrade once busy time is above target * this
+    public static final float GOVERNOR_HEADROOM = 0.7f; // Undo the last step once busy time is below target * this
+    public static final int GOVERNOR_MIN_SUBSTEPS = 1;
+    public static final float GOVERNOR_MIN_RESOLUTION_SCALE = 0.5f; // Offscreen FBO height / window height
+    public static final float GOVERNOR_MIN_POINT_SIZE = 1.0f;
+    public static final int GOVERNOR_MAX_OVERLAY_INTERVAL = 8; // Slowest HUD text refresh: HUD_REFRESH_HZ / this
+    public static final boolean GOVERNOR_ALLOW_SPLAT = true;
+    public static final int GOVERNOR_SPLAT_MIN_PARTICLES = 500_000;
+
+    // Camera: wheel / I / O zoom, drag pans, C resets. Zoomed views draw only the
+    // particles a compute pass found on screen, through an indirect draw
+    public static final float MAX_VIEW_ZOOM = 256f;
+    public static final float VIEW_ZOOM_STEP = 1.25f;
+
+    // Ensemble mode (E): independent worlds with their own matrix and parameters share the
+    // particle and grid buffers and step in one populate + one force dispatch, drawn as a mosaic
+    public static final int ENSEMBLE_WORLDS = 16;
+    public static final int ENSEMBLE_PARTICLES_PER_WORLD = 4096;
+    public static final int MAX_ENSEMBLE_WORLDS = 64; // MAX_GROUPS^2 force table rows each, within the GL minimum
+
+    // Density splat rendering: above this many visible particles point sprites are
+    // replaced by per-pixel atomic accumulation and a tone-mapped full-screen pass
+    public static final RenderMode RENDER_MODE = RenderMode.AUTO;
+    public static final int SPLAT_PARTICLE_THRESHOLD = 2_000_000;
+    public static final float SPLAT_EXPOSURE = 0.35f;
+
+    // Particle and grid SSBOs: pooled immutable buffers in power-of-two size classes
+    public static final long BUFFER_POOL_RETAIN_BYTES = 64L << 20; // Retired buffers kept for reuse
+    public static final int BUFFER_SHRINK_RATIO = 4; // Shrink once capacity is this many times the size class needed
+
+    public static final int PARTICLE_STRIDE_FLOATS = 6; // vec2 pos + vec2 vel + uint group + uint pad (std430)
+    public static final int OFFSET_POS    = 0;   // 2 floats
+    public static final int OFFSET_VEL    = 2;   // 2 floats
+    public static final int OFFSET_GROUP  = 4;   // 1 uint, colour comes from the palette buffer
+
+    // Fixed point physics: the world maps onto the full uint range (wrap is integer
+    // overflow) and every step uses the same integer arithmetic on CPU and GPU
+    public static final boolean FIXED_POINT = false;
+    public static final float FIXED_POINT_DT = 1.0f / 60.0f; // Velocities are stored per step, so dt is fixed
+    public static final int FIXED_STRIDE_WORDS = 3; // uint x (low bits = group) + uint y + packed int16 velocity
+
+    // Linked program binaries are cached here (relative to the user's home directory)
+    public static final boolean SHADER_BINARY_CACHE = true;
+    public static final String SHADER_CACHE_DIR = ".particle-life/shader-cache";
 
     // Default attraction matrix preset
     private static float[][] identity(int n) {
@@ -0,0 +1,684 @@
+package io.github.simulation.cpu;
+
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.RuntimeConfig.Distribution;
+import io.github.simulation.config.RuntimeGrid;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.force.ForceLaw;
+import io.github.simulation.force.ForceTable;
+import io.github.simulation.profiling.BufferEvent;
+import io.github.simulation.profiling.CpuStageEvent;
+import io.github.simulation.profiling.SimulationMetrics;
+import io.github.simulation.util.FixedPoint;
+import io.github.simulation.util.FixedPointParams;
+import io.github.simulation.util.PositionSampler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Multithreaded CPU implementation of the particle.comp physics for runs
+ * without a GPU. Particles are stored as structure of arrays and the spatial
+ * hash is rebuilt every step by a counting sort over hashed cell keys.
+ *
+ * In fixed point mode (see FixedPoint) the integer arrays hold the state and
+ * the float arrays become a decoded view; integer sums do not depend on the
+ * order neighbours are visited, so results match for any thread count and
+ * match particle_fixed.comp bit for bit.
+ */
+public final class CpuParticleEngine {
+
+    // Mirrors the constants in particle.comp
+    private static final float MAX_VELOCITY = 0.5f;
+    private static final int HASH_MULTIPLIER = 0x9E3779B1; // 2654435761u
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final int BYTES_PER_PARTICLE = 10 * Integer.BYTES; // every per-particle array
+
+    // Particle state
+    private float[] posX = new float[MIN_CAPACITY];
+    private float[] posY = new float[MIN_CAPACITY];
+    private float[] velX = new float[MIN_CAPACITY];
+    private float[] velY = new float[MIN_CAPACITY];
+    private int[] group = new int[MIN_CAPACITY];
+    private int count = 0;
+
+    // Fixed point state, authoritative while fixedPoint is set
+    private boolean fixedPoint = false;
+    private int[] fixedX = new int[MIN_CAPACITY];
+    private int[] fixedY = new int[MIN_CAPACITY];
+    private int[] fixedVel = new int[MIN_CAPACITY];
+    private boolean floatViewStale = false;
+    private float fixedDt = SimulationConfig.FIXED_POINT_DT;
+    private FixedPointParams fixedParams; // null when a parameter it depends on changed
+
+    // Spatial hash: particle indices sorted by the bucket of their cell
+    private int[] cellKey = new int[MIN_CAPACITY];
+    private int[] sorted = new int[MIN_CAPACITY];
+    private int[] bucketStart = new int[1];
+    private int[] bucketFill = new int[1];
+    private int bucketShift = 32;
+    private int gridSize = 3;
+    private float cellSize = 1.0f;
+
+    // Parameters
+    private int groupCount = SimulationConfig.PARTICLE_GROUPS;
+    private float[] attraction = new float[SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS];
+    private float forceFactor = SimulationConfig.FORCE_FACTOR;
+    private float velocityDamping = SimulationConfig.VELOCITY_DAMPING;
+    private float interactionRange = SimulationConfig.INTERACTION_RANGE;
+    private float worldHalfExtent = SimulationConfig.WORLD_HALF_EXTENT;
+    private boolean wrap = SimulationConfig.WRAP_BOUNDARIES;
+    private ForceLaw forceLaw = SimulationConfig.FORCE_LAW;
+    private ForceTable forceTable; // compiled on the next step after a law or matrix change
+
+    private final int threads;
+    private final ExecutorService executor;
+    private SimulationMetrics metrics = SimulationMetrics.DISABLED;
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    public CpuParticleEngine(int threads) {
+        this.threads = Math.max(1, threads);
+        this.executor = this.threads > 1 ? Executors.newFixedThreadPool(this.threads, r -> {
+            Thread t = new Thread(r, "cpu-engine");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        setAttractionMatrix(SimulationConfig.ATTRACTION_MATRIX);
+    }
+
+    /**
+     * Where step() publishes its telemetry. Engines running at the same time
+     * must not share one, so the owner decides; the default records nothing.
+     */
+    public void setMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Copies the current runtime parameters into this engine
+     */
+    public void loadRuntimeConfig() {
+        groupCount = RuntimeConfig.getGroupCount();
+        setAttractionMatrix(RuntimeConfig.getAttractionMatrix());
+        setForceFactor(RuntimeConfig.getForceFactor());
+        setVelocityDamping(RuntimeConfig.getVelocityDamping());
+        setInteractionRange(RuntimeConfig.getInteractionRange());
+        setWorldHalfExtent(RuntimeConfig.getWorldHalfExtent());
+        wrap = RuntimeConfig.isWrapBoundaries();
+        setForceLaw(RuntimeConfig.getForceLaw());
+        setFixedPoint(RuntimeConfig.isFixedPoint());
+    }
+
+    public void setGroupCount(int value) {
+        groupCount = Math.clamp(value, 1, SimulationConfig.MAX_GROUPS);
+    }
+
+    public void setAttractionMatrix(float[][] m) {
+        // Stored with a fixed MAX_GROUPS stride so group count changes need no repacking
+        Arrays.fill(attraction, 0f);
+        int g = Math.min(m.length, SimulationConfig.MAX_GROUPS);
+        for (int r = 0; r < g; r++) {
+            for (int c = 0; c < Math.min(m[r].length, SimulationConfig.MAX_GROUPS); c++) {
+                attraction[r * SimulationConfig.MAX_GROUPS + c] = m[r][c];
+            }
+        }
+        forceTable = null;
+        fixedParams = null;
+    }
+
+    public void setForceFactor(float value) {
+        if (value != forceFactor) {
+            forceFactor = value;
+            fixedParams = null;
+        }
+    }
+
+    public void setVelocityDamping(float value) {
+        if (value != velocityDamping) {
+            velocityDamping = value;
+            fixedParams = null;
+        }
+    }
+
+    public void setInteractionRange(float value) {
+        if (value != interactionRange) {
+            interactionRange = value;
+            fixedParams = null;
+        }
+    }
+
+    public void setWorldHalfExtent(float value) {
+        worldHalfExtent = value;
+        fixedParams = null;
+        // Fixed point positions are fractions of the world, so the decoded view rescales
+        floatViewStale = fixedPoint;
+    }
+
+    public void setWrapBoundaries(boolean value) {
+        wrap = value;
+    }
+
+    /**
+     * The float kernel samples the law from a ForceTable compiled on the next
+     * step. Fixed point mode keeps its integer Particle Life curve.
+     */
+    public void setForceLaw(ForceLaw law) {
+        if (law != forceLaw) {
+            forceLaw = law;
+            forceTable = null;
+        }
+    }
+
+    public ForceLaw getForceLaw() {
+        return forceLaw;
+    }
+
+    /**
+     * Switches between float and fixed point state, converting the current particles
+     */
+    public void setFixedPoint(boolean enabled) {
+        if (enabled == fixedPoint) {
+            return;
+        }
+        if (enabled) {
+            for (int i = 0; i < count; i++) {
+                encodeFixed(i);
+            }
+        } else {
+            syncFloatView();
+        }
+        fixedPoint = enabled;
+    }
+
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    public float getInteractionRange() {
+        return interactionRange;
+    }
+
+    public float getWorldHalfExtent() {
+        return worldHalfExtent;
+    }
+
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Adds n particles sampled from the distribution, groups assigned round robin
+     */
+    public void seed(int n, Distribution dist, long seed) {
+        Random rng = new Random(seed);
+        for (int i = 0; i < n; i++) {
+            float[] p = PositionSampler.sample(dist, rng, worldHalfExtent);
+            add(p[0], p[1], 0f, 0f, i % groupCount);
+        }
+    }
+
+    public int add(float x, float y, float vx, float vy, int g) {
+        ensureCapacity(count + 1);
+        posX[count] = x;
+        posY[count] = y;
+        velX[count] = vx;
+        velY[count] = vy;
+        group[count] = g;
+        if (fixedPoint) {
+            encodeFixed(count);
+        }
+        return count++;
+    }
+
+    /**
+     * Removes particle i by moving the last particle into its slot
+     */
+    public void remove(int i) {
+        int last = count - 1;
+        if (i != last) {
+            posX[i] = posX[last];
+            posY[i] = posY[last];
+            velX[i] = velX[last];
+            velY[i] = velY[last];
+            group[i] = group[last];
+            fixedX[i] = fixedX[last];
+            fixedY[i] = fixedY[last];
+            fixedVel[i] = fixedVel[last];
+        }
+        count--;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Truncates to the first n particles
+     */
+    public void setCount(int n) {
+        count = Math.clamp(n, 0, count);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public float[] getPosX() {
+        syncFloatView();
+        return posX;
+    }
+
+    public float[] getPosY() {
+        syncFloatView();
+        return posY;
+    }
+
+    public float[] getVelX() {
+        syncFloatView();
+        return velX;
+    }
+
+    public float[] getVelY() {
+        syncFloatView();
+        return velY;
+    }
+
+    public int[] getGroups() {
+        return group;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= posX.length) {
+            return;
+        }
+        int newCapacity = Math.max(needed, posX.length * 2);
+        BufferEvent event = BufferEvent.start("cpu particles", BufferEvent.GROW, (long) posX.length * BYTES_PER_PARTICLE);
+        posX = Arrays.copyOf(posX, newCapacity);
+        posY = Arrays.copyOf(posY, newCapacity);
+        velX = Arrays.copyOf(velX, newCapacity);
+        velY = Arrays.copyOf(velY, newCapacity);
+        group = Arrays.copyOf(group, newCapacity);
+        fixedX = Arrays.copyOf(fixedX, newCapacity);
+        fixedY = Arrays.copyOf(fixedY, newCapacity);
+        fixedVel = Arrays.copyOf(fixedVel, newCapacity);
+        cellKey = new int[newCapacity];
+        sorted = new int[newCapacity];
+        event.toBytes = (long) newCapacity * BYTES_PER_PARTICLE;
+        event.finish(count, gridSize, groupCount);
+    }
+
+    public void step(float dt) {
+        step(dt, count);
+    }
+
+    /**
+     * Advances the first activeCount particles by dt. Particles past activeCount
+     * still exert forces but are not moved (halo particles of a shard).
+     * Fixed point velocities are stored per step, so keep dt constant there.
+     */
+    public void step(float dt, int activeCount) {
+        long start = System.nanoTime();
+        int active = Math.clamp(activeCount, 0, count);
+        if (fixedPoint) {
+            stepFixed(dt, active);
+        } else {
+            stepFloat(dt, active);
+        }
+        metrics.recordSteps(1, System.nanoTime() - start);
+        metrics.setScene(count, gridSize);
+        metrics.setBufferBytes((long) posX.length * BYTES_PER_PARTICLE
+                + (long) (bucketStart.length + bucketFill.length) * Integer.BYTES);
+    }
+
+    private void stepFloat(float dt, int active) {
+        if (forceTable == null) {
+            forceTable = new ForceTable(forceLaw, attraction);
+        }
+        CpuStageEvent stage = CpuStageEvent.start("grid", threads);
+        buildGrid();
+        finishStage(stage);
+
+        stage = CpuStageEvent.start("forces", threads);
+        parallelFor(active, (from, to) -> computeForces(dt, from, to));
+        finishStage(stage);
+
+        stage = CpuStageEvent.start("integrate", threads);
+        parallelFor(active, (from, to) -> integrate(dt, from, to));
+        finishStage(stage);
+    }
+
+    private void finishStage(CpuStageEvent stage) {
+        stage.finish(count, gridSize, groupCount);
+    }
+
+    private void buildGrid() {
+        gridSize = RuntimeGrid.gridSizeFor(worldHalfExtent, interactionRange);
+        cellSize = 2.0f * worldHalfExtent / gridSize;
+
+        int buckets = RuntimeGrid.nextPowerOfTwo(Math.max(SimulationConfig.MIN_HASH_SLOTS,
+                (long) Math.ceil(count / SimulationConfig.HASH_LOAD_FACTOR)));
+        if (bucketStart.length < buckets + 1) {
+            bucketStart = new int[buckets + 1];
+            bucketFill = new int[buckets + 1];
+        }
+        bucketShift = RuntimeGrid.hashShift(buckets);
+
+        parallelFor(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                cellKey[i] = fixedPoint
+                        ? cellKey(FixedPoint.cellCoord(fixedX[i], gridSize), FixedPoint.cellCoord(fixedY[i], gridSize))
+                        : cellKey(cellCoord(posX[i]), cellCoord(posY[i]));
+            }
+        });
+
+        // Counting sort by bucket
+        Arrays.fill(bucketStart, 0, buckets + 1, 0);
+        for (int i = 0; i < count; i++) {
+            bucketStart[bucketOf(cellKey[i]) + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        System.arraycopy(bucketStart, 0, bucketFill, 0, buckets);
+        for (int i = 0; i < count; i++) {
+            sorted[bucketFill[bucketOf(cellKey[i])]++] = i;
+        }
+    }
+
+    private int cellCoord(float p) {
+        int c = (int) Math.floor((p + worldHalfExtent) / cellSize);
+        return Math.clamp(c, 0, gridSize - 1);
+    }
+
+    private int cellKey(int cx, int cy) {
+        // Same bit pattern as the uint key in particle.comp
+        return cy * gridSize + cx;
+    }
+
+    private int bucketOf(int key) {
+        // High bits, as hashKey() in particle.comp
+        return (key * HASH_MULTIPLIER) >>> bucketShift;
+    }
+
+    private void computeForces(float dt, int from, int to) {
+        float range = interactionRange;
+        float worldSize = 2.0f * worldHalfExtent;
+        ForceTable table = forceTable;
+
+        for (int i = from; i < to; i++) {
+            float px = posX[i];
+            float py = posY[i];
+            int gi = Math.clamp(group[i], 0, groupCount - 1);
+            int cx = cellCoord(px);
+            int cy = cellCoord(py);
+            float fx = 0f;
+            float fy = 0f;
+
+            // Check neighboring grid cells
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = cx + dx;
+                    int ny = cy + dy;
+                    if (wrap) {
+                        nx = (nx + gridSize) % gridSize;
+                        ny = (ny + gridSize) % gridSize;
+                    } else if (nx < 0 || ny < 0 || nx >= gridSize || ny >= gridSize) {
+                        continue;
+                    }
+
+                    int key = cellKey(nx, ny);
+                    int b = bucketOf(key);
+                    for (int s = bucketStart[b], end = bucketStart[b + 1]; s < end; s++) {
+                        int j = sorted[s];
+                        // Skip self and other cells sharing the bucket
+                        if (j == i || cellKey[j] != key) {
+                            continue;
+                        }
+
+                        float dirX = posX[j] - px;
+                        float dirY = posY[j] - py;
+                        if (wrap) {
+                            if (dirX > worldHalfExtent) dirX -= worldSize;
+                            else if (dirX < -worldHalfExtent) dirX += worldSize;
+                            if (dirY > worldHalfExtent) dirY -= worldSize;
+                            else if (dirY < -worldHalfExtent) dirY += worldSize;
+                        }
+                        float dist = (float) Math.sqrt(dirX * dirX + dirY * dirY);
+
+                        if (dist > 0f && dist < range) {
+                            int gj = Math.clamp(group[j], 0, groupCount - 1);
+                            float magnitude = table.sample(gi * SimulationConfig.MAX_GROUPS + gj, dist / range);
+                            float scale = magnitude * forceFactor / dist;
+                            fx += dirX * scale;
+                            fy += dirY * scale;
+                        }
+                    }
+                }
+            }
+
+            // Apply forces
+            float vx = (velX[i] + fx * dt * 0.1f) * velocityDamping;
+            float vy = (velY[i] + fy * dt * 0.1f) * velocityDamping;
+
+            // Cap maximum velocity
+            float speed = (float) Math.sqrt(vx * vx + vy * vy);
+            if (speed > MAX_VELOCITY) {
+                vx = vx / speed * MAX_VELOCITY;
+                vy = vy / speed * MAX_VELOCITY;
+            }
+            velX[i] = vx;
+            velY[i] = vy;
+        }
+    }
+
+    private void integrate(float dt, int from, int to) {
+        float e = worldHalfExtent;
+        for (int i = from; i < to; i++) {
+            float x = posX[i] + velX[i] * dt;
+            float y = posY[i] + velY[i] * dt;
+            if (wrap) {
+                // Wrap around world
+                if (x > e) x = -e;
+                if (x < -e) x = e;
+                if (y > e) y = -e;
+                if (y < -e) y = e;
+            } else {
+                // Reflect off world walls
+                if (Math.abs(x) > e) {
+                    x = Math.clamp(x, -e, e);
+                    velX[i] = -velX[i];
+                }
+                if (Math.abs(y) > e) {
+                    y = Math.clamp(y, -e, e);
+                    velY[i] = -velY[i];
+                }
+            }
+            posX[i] = x;
+            posY[i] = y;
+        }
+    }
+
+    private void stepFixed(float dt, int active) {
+        if (fixedParams == null || dt != fixedDt) {
+            fixedParams = new FixedPointParams(interactionRange, worldHalfExtent, forceFactor, velocityDamping, dt,
+                    attraction);
+        }
+        fixedDt = dt;
+        CpuStageEvent stage = CpuStageEvent.start("grid", threads);
+        buildGrid();
+        finishStage(stage);
+
+        stage = CpuStageEvent.start("forces", threads);
+        parallelFor(active, this::computeForcesFixed);
+        finishStage(stage);
+
+        stage = CpuStageEvent.start("integrate", threads);
+        parallelFor(active, this::integrateFixed);
+        finishStage(stage);
+        floatViewStale = true;
+    }
+
+    private void computeForcesFixed(int from, int to) {
+        FixedPointParams fp = fixedParams;
+        int range = fp.range;
+        int groupMask = ~FixedPoint.GROUP_MASK;
+
+        for (int i = from; i < to; i++) {
+            int xi = fixedX[i] & groupMask;
+            int yi = fixedY[i];
+            int gi = Math.min(FixedPoint.groupOf(fixedX[i]), groupCount - 1);
+            int cx = FixedPoint.cellCoord(xi, gridSize);
+            int cy = FixedPoint.cellCoord(yi, gridSize);
+            int fx = 0;
+            int fy = 0;
+
+            // Check neighboring grid cells, always on the torus
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int key = cellKey((cx + dx + gridSize) % gridSize, (cy + dy + gridSize) % gridSize);
+                    int b = bucketOf(key);
+                    for (int s = bucketStart[b], end = bucketStart[b + 1]; s < end; s++) {
+                        int j = sorted[s];
+                        if (j == i || cellKey[j] != key) {
+                            continue;
+                        }
+
+                        // Wrapping subtraction is the toroidal offset
+                        int ox = (fixedX[j] & groupMask) - xi;
+                        int oy = fixedY[j] - yi;
+                        if (ox <= -range || ox >= range || oy <= -range || oy >= range) {
+                            continue;
+                        }
+                        int sx = ox >> fp.distShift;
+                        int sy = oy >> fp.distShift;
+                        int dist = FixedPoint.isqrt(sx * sx + sy * sy);
+                        if (dist == 0 || dist >= fp.rangeShifted) {
+                            continue;
+                        }
+
+                        int gj = Math.min(FixedPoint.groupOf(fixedX[j]), groupCount - 1);
+                        int dn = (dist << 16) / fp.rangeShifted;
+                        int magnitude = FixedPoint.force(dn, fp.attractionQ15[gi * SimulationConfig.MAX_GROUPS + gj]);
+                        fx += (magnitude * FixedPoint.divSigned(sx << FixedPoint.DIR_SHIFT, dist)) >> FixedPoint.DIR_SHIFT;
+                        fy += (magnitude * FixedPoint.divSigned(sy << FixedPoint.DIR_SHIFT, dist)) >> FixedPoint.DIR_SHIFT;
+                    }
+                }
+            }
+
+            // Apply forces and damping (rounded to nearest)
+            int v = fixedVel[i];
+            int vx = FixedPoint.velocityX(v) + FixedPoint.mulShift(fx, fp.forceMul, fp.forceShift);
+            int vy = FixedPoint.velocityY(v) + FixedPoint.mulShift(fy, fp.forceMul, fp.forceShift);
+            vx = Math.clamp(vx, -FixedPoint.MAX_VEL_COMPONENT, FixedPoint.MAX_VEL_COMPONENT);
+            vy = Math.clamp(vy, -FixedPoint.MAX_VEL_COMPONENT, FixedPoint.MAX_VEL_COMPONENT);
+            vx = (vx * fp.damping + (1 << 15)) >> 16;
+            vy = (vy * fp.damping + (1 << 15)) >> 16;
+
+            // Cap maximum velocity
+            int speed = FixedPoint.isqrt(vx * vx + vy * vy);
+            if (speed > fp.maxVelocity) {
+                vx = FixedPoint.divSigned(vx * fp.maxVelocity, speed);
+                vy = FixedPoint.divSigned(vy * fp.maxVelocity, speed);
+            }
+            fixedVel[i] = FixedPoint.packVelocity(vx, vy);
+        }
+    }
+
+    private void integrateFixed(int from, int to) {
+        for (int i = from; i < to; i++) {
+            // Steps are multiples of 2^VEL_SHIFT, so the group bits of x are untouched
+            int v = fixedVel[i];
+            fixedX[i] += FixedPoint.velocityX(v) << FixedPoint.VEL_SHIFT;
+            fixedY[i] += FixedPoint.velocityY(v) << FixedPoint.VEL_SHIFT;
+        }
+    }
+
+    private void encodeFixed(int i) {
+        fixedX[i] = FixedPoint.withGroup(FixedPoint.encodePosition(posX[i], worldHalfExtent), group[i]);
+        fixedY[i] = FixedPoint.encodePosition(posY[i], worldHalfExtent);
+        fixedVel[i] = FixedPoint.packVelocity(FixedPoint.encodeVelocity(velX[i], fixedDt, worldHalfExtent),
+                FixedPoint.encodeVelocity(velY[i], fixedDt, worldHalfExtent));
+    }
+
+    private void syncFloatView() {
+        if (!floatViewStale) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            posX[i] = FixedPoint.decodePosition(fixedX[i], worldHalfExtent);
+            posY[i] = FixedPoint.decodePosition(fixedY[i], worldHalfExtent);
+            velX[i] = FixedPoint.decodeVelocity(FixedPoint.velocityX(fixedVel[i]), fixedDt, worldHalfExtent);
+            velY[i] = FixedPoint.decodeVelocity(FixedPoint.velocityY(fixedVel[i]), fixedDt, worldHalfExtent);
+        }
+        floatViewStale = false;
+    }
+
+    /**
+     * Hash of the raw particle state; equal hashes across thread counts (or
+     * against a GPU readback) confirm a deterministic run
+     */
+    public long stateChecksum() {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < count; i++) {
+            if (fixedPoint) {
+                h = (h ^ fixedX[i]) * 0x100000001B3L;
+                h = (h ^ fixedY[i]) * 0x100000001B3L;
+                h = (h ^ fixedVel[i]) * 0x100000001B3L;
+            } else {
+                h = (h ^ Float.floatToRawIntBits(posX[i])) * 0x100000001B3L;
+                h = (h ^ Float.floatToRawIntBits(posY[i])) * 0x100000001B3L;
+            }
+        }
+        return h;
+    }
+
+    private void parallelFor(int n, RangeTask task) {
+        if (executor == null || n < PARALLEL_THRESHOLD) {
+            task.run(0, n);
+            return;
+        }
+        int chunkSize = (n + threads * 4 - 1) / (threads * 4);
+        List<Future<?>> futures = new ArrayList<>(threads * 4);
+        for (int start = 0; start < n; start += chunkSize) {
+            int from = start;
+            int to = Math.min(n, start + chunkSize);
+            futures.add(executor.submit(() -> task.run(from, to)));
+        }
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CPU engine step interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("CPU engine step failed", e.getCause());
+        }
+    }
+
+    public void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
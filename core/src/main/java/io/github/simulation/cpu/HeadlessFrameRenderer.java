@@ -0,0 +1,88 @@
+package io.github.simulation.cpu;
+
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.profiling.SimulationMetrics;
+import io.github.simulation.util.PaletteUtil;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Steps the CPU engine and writes PNG frames without a GPU or window.
+ *
+ * Example: --particles 1000000 --steps 600 --every 2 --size 1024 --out frames
+ * Add --physics fixed for the deterministic integer engine; the printed state
+ * checksum is then identical for any --threads value.
+ */
+public class HeadlessFrameRenderer {
+
+    public static void main(String[] args) throws IOException {
+        int particles = SimulationConfig.PARTICLE_COUNT;
+        int steps = 600;
+        int every = 1;
+        int size = 1024;
+        float pointSize = 2.0f;
+        float dt = 1.0f / 60.0f;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int encoders = Math.max(1, threads / 2);
+        long seed = 1L;
+        boolean fixedPoint = SimulationConfig.FIXED_POINT;
+        Path out = Paths.get("frames");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--particles": particles = Integer.parseInt(value); break;
+                case "--steps": steps = Integer.parseInt(value); break;
+                case "--every": every = Math.max(1, Integer.parseInt(value)); break;
+                case "--size": size = Integer.parseInt(value); break;
+                case "--point": pointSize = Float.parseFloat(value); break;
+                case "--dt": dt = Float.parseFloat(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--encoders": encoders = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--physics": fixedPoint = "fixed".equals(value); break;
+                case "--out": out = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        CpuParticleEngine engine = new CpuParticleEngine(threads);
+        engine.setMetrics(SimulationMetrics.forSource("cpu"));
+        engine.setFixedPoint(fixedPoint);
+        engine.seed(particles, SimulationConfig.DISTRIBUTION, seed);
+        float[][] palette = PaletteUtil.generateEvenHue(engine.getGroupCount());
+        SoftwareRasterizer rasterizer = new SoftwareRasterizer(size, threads);
+
+        long stepNanos = 0;
+        long renderNanos = 0;
+        int frames = 0;
+        long checksum;
+        try (PngFrameWriter writer = new PngFrameWriter(out, size, encoders)) {
+            for (int step = 0; step < steps; step++) {
+                long t0 = System.nanoTime();
+                engine.step(dt);
+                long t1 = System.nanoTime();
+                stepNanos += t1 - t0;
+
+                if (step % every == 0) {
+                    rasterizer.render(engine, palette, pointSize);
+                    int[] rgb = writer.acquireBuffer();
+                    rasterizer.resolve(rgb);
+                    writer.submit(frames++, rgb);
+                    renderNanos += System.nanoTime() - t1;
+                }
+            }
+            checksum = engine.stateChecksum();
+        } finally {
+            rasterizer.dispose();
+            engine.dispose();
+        }
+
+        System.out.printf("Particles: %d, steps: %d, frames: %d (%dx%d)%n", particles, steps, frames, size, size);
+        System.out.printf("Avg step:   %.2f ms%n", stepNanos / 1e6 / steps);
+        System.out.printf("Avg render: %.2f ms (incl. waiting on encoders)%n", frames == 0 ? 0 : renderNanos / 1e6 / frames);
+        System.out.printf("Physics: %s, state checksum: %016x%n", fixedPoint ? "fixed" : "float", checksum);
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.simulation.cpu;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encodes frames to PNG on a pool of background threads. Pixel buffers are
+ * pooled; acquireBuffer blocks when every buffer is still being encoded, so
+ * a slow disk throttles the simulation instead of growing the heap.
+ */
+public class PngFrameWriter implements Closeable {
+
+    private static final DirectColorModel RGB = new DirectColorModel(24, 0xFF0000, 0x00FF00, 0x0000FF);
+
+    private final int size;
+    private final Path dir;
+    private final ExecutorService encoders;
+    private final BlockingQueue<int[]> freeBuffers;
+    private final AtomicInteger written = new AtomicInteger();
+    private volatile IOException failure;
+
+    public PngFrameWriter(Path dir, int size, int encoderThreads) throws IOException {
+        this.size = size;
+        this.dir = dir;
+        Files.createDirectories(dir);
+
+        int threads = Math.max(1, encoderThreads);
+        this.encoders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "png-encoder");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // One buffer in flight per encoder plus one being filled
+        this.freeBuffers = new ArrayBlockingQueue<>(threads + 1);
+        for (int i = 0; i < threads + 1; i++) {
+            freeBuffers.add(new int[size * size]);
+        }
+    }
+
+    public int[] acquireBuffer() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            return freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a frame buffer", e);
+        }
+    }
+
+    /**
+     * Queues a buffer from acquireBuffer for encoding; it is returned to the pool afterwards
+     */
+    public void submit(int frameIndex, int[] rgb) {
+        Path file = dir.resolve(String.format("frame-%06d.png", frameIndex));
+        encoders.execute(() -> {
+            try {
+                WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(rgb, rgb.length),
+                        size, size, size, RGB.getMasks(), null);
+                ImageIO.write(new BufferedImage(RGB, raster, false, null), "png", file.toFile());
+                written.incrementAndGet();
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                freeBuffers.add(rgb);
+            }
+        });
+    }
+
+    public int getFramesWritten() {
+        return written.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        encoders.shutdown();
+        try {
+            encoders.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.github.simulation.cpu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CPU rasteriser producing the same image as GLRenderer's offscreen pass:
+ * antialiased discs with particle.frag's falloff, alpha blended in particle
+ * order into a square framebuffer. Particles are binned into screen tiles
+ * which are then rasterised in parallel.
+ */
+public class SoftwareRasterizer {
+
+    private static final int TILE_SIZE = 64;
+
+    private final int size;
+    private final int tilesPerRow;
+    private final int tileCount;
+
+    // Framebuffer, bottom row first like GL
+    private final float[] red;
+    private final float[] green;
+    private final float[] blue;
+
+    // Particle screen positions and per-tile bins
+    private float[] screenX = new float[0];
+    private float[] screenY = new float[0];
+    private int[] binned = new int[0];
+    private final int[] tileStart;
+    private final int[] tileFill;
+
+    private final ExecutorService pool;
+    private final List<Callable<Void>> tileWorkers = new ArrayList<>();
+    private final AtomicInteger nextTile = new AtomicInteger();
+
+    // Per frame inputs shared with the tile workers
+    private int[] groups;
+    private float[][] palette;
+    private float radius;
+
+    public SoftwareRasterizer(int size, int threads) {
+        this.size = size;
+        this.tilesPerRow = (size + TILE_SIZE - 1) / TILE_SIZE;
+        this.tileCount = tilesPerRow * tilesPerRow;
+        this.red = new float[size * size];
+        this.green = new float[size * size];
+        this.blue = new float[size * size];
+        this.tileStart = new int[tileCount + 1];
+        this.tileFill = new int[tileCount];
+
+        int n = Math.max(1, threads);
+        this.pool = Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "rasterizer");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < n; i++) {
+            tileWorkers.add(() -> {
+                int tile;
+                while ((tile = nextTile.getAndIncrement()) < tileCount) {
+                    rasterizeTile(tile);
+                }
+                return null;
+            });
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Draws the engine's particles, coloured by group, with discs pointSizePx wide
+     */
+    public void render(CpuParticleEngine engine, float[][] palette, float pointSizePx) {
+        this.groups = engine.getGroups();
+        this.palette = palette;
+        this.radius = Math.max(0.5f, pointSizePx * 0.5f);
+
+        binParticles(engine);
+
+        nextTile.set(0);
+        try {
+            for (Future<Void> f : pool.invokeAll(tileWorkers)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rasterisation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Rasterisation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Counting sort of particles into every tile their disc touches; stable, so
+     * each tile blends in particle order like the instanced draw
+     */
+    private void binParticles(CpuParticleEngine engine) {
+        int count = engine.getCount();
+        float[] x = engine.getPosX();
+        float[] y = engine.getPosY();
+        float scale = 0.5f * size / engine.getWorldHalfExtent();
+        float half = 0.5f * size;
+
+        if (screenX.length < count) {
+            screenX = new float[count];
+            screenY = new float[count];
+        }
+        Arrays.fill(tileStart, 0);
+
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            float sx = x[i] * scale + half;
+            float sy = y[i] * scale + half;
+            screenX[i] = sx;
+            screenY[i] = sy;
+            int tx0 = tileOf(sx - radius), tx1 = tileOf(sx + radius);
+            int ty0 = tileOf(sy - radius), ty1 = tileOf(sy + radius);
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    tileStart[ty * tilesPerRow + tx + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int t = 0; t < tileCount; t++) {
+            tileStart[t + 1] += tileStart[t];
+        }
+        if (binned.length < total) {
+            binned = new int[total + total / 4];
+        }
+        System.arraycopy(tileStart, 0, tileFill, 0, tileCount);
+        for (int i = 0; i < count; i++) {
+            float sx = screenX[i], sy = screenY[i];
+            int tx0 = tileOf(sx - radius), tx1 = tileOf(sx + radius);
+            int ty0 = tileOf(sy - radius), ty1 = tileOf(sy + radius);
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    binned[tileFill[ty * tilesPerRow + tx]++] = i;
+                }
+            }
+        }
+    }
+
+    private int tileOf(float screen) {
+        return Math.clamp((int) Math.floor(screen / TILE_SIZE), 0, tilesPerRow - 1);
+    }
+
+    private void rasterizeTile(int tile) {
+        int x0 = (tile % tilesPerRow) * TILE_SIZE;
+        int y0 = (tile / tilesPerRow) * TILE_SIZE;
+        int x1 = Math.min(size, x0 + TILE_SIZE);
+        int y1 = Math.min(size, y0 + TILE_SIZE);
+
+        for (int py = y0; py < y1; py++) {
+            int row = py * size;
+            Arrays.fill(red, row + x0, row + x1, 0f);
+            Arrays.fill(green, row + x0, row + x1, 0f);
+            Arrays.fill(blue, row + x0, row + x1, 0f);
+        }
+
+        float r = radius;
+        float invR = 1.0f / r;
+        // fwidth(r) of particle.frag: point coords span 2 units over the point diameter
+        float edge = invR;
+
+        for (int b = tileStart[tile], end = tileStart[tile + 1]; b < end; b++) {
+            int i = binned[b];
+            float sx = screenX[i], sy = screenY[i];
+            float[] col = palette[Math.clamp(groups[i], 0, palette.length - 1)];
+
+            // Pixels whose centres fall inside the disc
+            int px0 = Math.max(x0, (int) Math.ceil(sx - r - 0.5f));
+            int px1 = Math.min(x1 - 1, (int) Math.floor(sx + r - 0.5f));
+            int py0 = Math.max(y0, (int) Math.ceil(sy - r - 0.5f));
+            int py1 = Math.min(y1 - 1, (int) Math.floor(sy + r - 0.5f));
+
+            for (int py = py0; py <= py1; py++) {
+                float v = (py + 0.5f - sy) * invR;
+                int row = py * size;
+                for (int px = px0; px <= px1; px++) {
+                    float u = (px + 0.5f - sx) * invR;
+                    float d2 = u * u + v * v;
+                    if (d2 > 1.0f) {
+                        continue;
+                    }
+                    float d = (float) Math.sqrt(d2);
+                    float a = d < 1.0f - edge ? col[3] : col[3] * (1.0f - smoothstep(1.0f - edge, 1.0f, d));
+
+                    // GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA
+                    int idx = row + px;
+                    red[idx] = col[0] * a + red[idx] * (1.0f - a);
+                    green[idx] = col[1] * a + green[idx] * (1.0f - a);
+                    blue[idx] = col[2] * a + blue[idx] * (1.0f - a);
+                }
+            }
+        }
+    }
+
+    private static float smoothstep(float e0, float e1, float x) {
+        float t = Math.clamp((x - e0) / (e1 - e0), 0f, 1f);
+        return t * t * (3.0f - 2.0f * t);
+    }
+
+    /**
+     * Packs the framebuffer as 0xRRGGBB, top row first (image order)
+     */
+    public void resolve(int[] rgb) {
+        for (int py = 0; py < size; py++) {
+            int src = py * size;
+            int dst = (size - 1 - py) * size;
+            for (int px = 0; px < size; px++) {
+                int r = (int) (Math.clamp(red[src + px], 0f, 1f) * 255.0f + 0.5f);
+                int g = (int) (Math.clamp(green[src + px], 0f, 1f) * 255.0f + 0.5f);
+                int b = (int) (Math.clamp(blue[src + px], 0f, 1f) * 255.0f + 0.5f);
+                rgb[dst + px] = (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    public void dispose() {
+        pool.shutdownNow();
+    }
+}
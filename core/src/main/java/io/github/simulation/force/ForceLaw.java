@@ -0,0 +1,13 @@
+package io.github.simulation.force;
+
+/**
+ * Force between two particles as a function of normalised distance
+ * d = dist / interactionRange in [0, 1] and the attraction a of the pair.
+ * Positive values pull towards the other particle, negative values push away.
+ */
+public interface ForceLaw {
+
+    String getName();
+
+    float evaluate(float d, float a);
+}
@@ -0,0 +1,91 @@
+package io.github.simulation.force;
+
+import io.github.simulation.config.SimulationConfig;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares per-pair cost and accuracy of each force law evaluated
+ * analytically against its ForceTable lookup.
+ *
+ * Example: --pairs 4000000 --rounds 10 [--samples my-law.csv]
+ */
+public class ForceLawBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int pairs = 4_000_000;
+        int rounds = 10;
+        List<ForceLaw> laws = new ArrayList<>(List.of(ForceLaws.builtIn()));
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--pairs": pairs = Integer.parseInt(value); break;
+                case "--rounds": rounds = Integer.parseInt(value); break;
+                case "--samples": laws.add(SampledForceLaw.load(Paths.get(value))); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // Same inputs for every law: a random matrix, random group pairs and distances within range
+        Random rng = new Random(1L);
+        float[] attraction = new float[SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS];
+        for (int i = 0; i < attraction.length; i++) {
+            attraction[i] = rng.nextFloat() * 2.0f - 1.0f;
+        }
+        float[] d = new float[pairs];
+        int[] pair = new int[pairs];
+        for (int i = 0; i < pairs; i++) {
+            d[i] = rng.nextFloat();
+            pair[i] = rng.nextInt(attraction.length);
+        }
+
+        System.out.printf("%-16s %12s %12s %9s %11s %11s%n", "Law", "analytic ns", "table ns", "speedup",
+                "max error", "compile ms");
+        for (ForceLaw law : laws) {
+            long c0 = System.nanoTime();
+            ForceTable table = new ForceTable(law, attraction);
+            double compileMs = (System.nanoTime() - c0) / 1e6;
+
+            double analytic = Double.MAX_VALUE;
+            double tabulated = Double.MAX_VALUE;
+            float sink = 0f;
+            // Best of several rounds; the first rounds double as JIT warm-up
+            for (int r = 0; r < rounds; r++) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < pairs; i++) {
+                    sink += law.evaluate(d[i], attraction[pair[i]]);
+                }
+                long t1 = System.nanoTime();
+                for (int i = 0; i < pairs; i++) {
+                    sink += table.sample(pair[i], d[i]);
+                }
+                long t2 = System.nanoTime();
+                analytic = Math.min(analytic, (t1 - t0) / (double) pairs);
+                tabulated = Math.min(tabulated, (t2 - t1) / (double) pairs);
+            }
+
+            System.out.printf("%-16s %12.2f %12.2f %8.2fx %11.5f %11.2f%s%n", law.getName(), analytic, tabulated,
+                    analytic / tabulated, maxError(law, table, attraction), compileMs, sink == 42f ? " " : "");
+        }
+    }
+
+    /**
+     * Largest deviation from the analytic curve on a grid much finer than the table
+     */
+    private static float maxError(ForceLaw law, ForceTable table, float[] attraction) {
+        float max = 0f;
+        int steps = 4096;
+        for (int p = 0; p < attraction.length; p++) {
+            for (int x = 0; x < steps; x++) {
+                float d = x / (float) steps;
+                max = Math.max(max, Math.abs(law.evaluate(d, attraction[p]) - table.sample(p, d)));
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.simulation.force;
+
+/**
+ * Built-in force laws, in the order the runtime cycles through them
+ */
+public final class ForceLaws {
+
+    public static final ForceLaw PARTICLE_LIFE = new ParticleLifeForce(0.3f);
+    public static final ForceLaw SMOOTH_KERNEL = new SmoothKernelForce(0.3f);
+    public static final ForceLaw LENNARD_JONES = new LennardJonesForce(0.3f);
+
+    private static final ForceLaw[] BUILT_IN = { PARTICLE_LIFE, SMOOTH_KERNEL, LENNARD_JONES };
+
+    private ForceLaws() {
+    }
+
+    public static ForceLaw[] builtIn() {
+        return BUILT_IN.clone();
+    }
+
+    /**
+     * Next built-in law after current; custom laws cycle back to the first
+     */
+    public static ForceLaw next(ForceLaw current) {
+        for (int i = 0; i < BUILT_IN.length; i++) {
+            if (BUILT_IN[i] == current) {
+                return BUILT_IN[(i + 1) % BUILT_IN.length];
+            }
+        }
+        return BUILT_IN[0];
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.simulation.force;
+
+/**
+ * A force law compiled against an attraction matrix: one row of
+ * DISTANCE_SAMPLES values over normalised distance [0, 1] per matrix entry.
+ * Kernels look up the pair's row and lerp along distance instead of
+ * evaluating the law's branches; particle.comp gets the same rows as a
+ * linearly filtered texture.
+ */
+public final class ForceTable {
+
+    public static final int DISTANCE_SAMPLES = 256;
+
+    private static final float DISTANCE_SCALE = DISTANCE_SAMPLES - 1;
+
+    private final ForceLaw law;
+    private final float[] attraction;
+    private final float[] rows;
+
+    /**
+     * @param attraction attraction per pair, e.g. the matrix with a MAX_GROUPS stride
+     */
+    public ForceTable(ForceLaw law, float[] attraction) {
+        this.law = law;
+        this.attraction = attraction.clone();
+        this.rows = new float[attraction.length * DISTANCE_SAMPLES];
+        for (int pair = 0; pair < attraction.length; pair++) {
+            for (int col = 0; col < DISTANCE_SAMPLES; col++) {
+                rows[pair * DISTANCE_SAMPLES + col] = law.evaluate(col / DISTANCE_SCALE, attraction[pair]);
+            }
+        }
+    }
+
+    public ForceLaw getLaw() {
+        return law;
+    }
+
+    public int getPairCount() {
+        return attraction.length;
+    }
+
+    /**
+     * Force for the pair at normalised distance d in [0, 1)
+     */
+    public float sample(int pair, float d) {
+        float x = d * DISTANCE_SCALE;
+        int x0 = (int) x;
+        int i = pair * DISTANCE_SAMPLES + x0;
+        return rows[i] + (x - x0) * (rows[i + 1] - rows[i]);
+    }
+
+    /**
+     * Row-major texels for a DISTANCE_SAMPLES x pair count R32F texture
+     */
+    public float[] getValues() {
+        return rows;
+    }
+}
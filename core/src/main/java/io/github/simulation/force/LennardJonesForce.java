@@ -0,0 +1,39 @@
+package io.github.simulation.force;
+
+/**
+ * Lennard-Jones style force a * (s/d)^7 - (s/d)^13, normalised so the
+ * attractive peak for a = 1 is 1, clamped to [-1, 1] near the core and
+ * tapered to zero at the interaction range
+ */
+public class LennardJonesForce implements ForceLaw {
+
+    // Peak of x^7 - x^13, reached at x^6 = 7/13
+    private static final float PEAK = (float) (Math.pow(7.0 / 13.0, 7.0 / 6.0) * (6.0 / 13.0));
+
+    private final float sigma;
+
+    public LennardJonesForce(float sigma) {
+        this.sigma = sigma;
+    }
+
+    @Override
+    public String getName() {
+        return "Lennard-Jones";
+    }
+
+    @Override
+    public float evaluate(float d, float a) {
+        if (d >= 1.0f) {
+            return 0f;
+        }
+        if (d <= 0f) {
+            return -1.0f;
+        }
+        float x = sigma / d;
+        float x6 = x * x * x * x * x * x;
+        float x7 = x6 * x;
+        float f = (a * x7 - x7 * x6) / PEAK;
+        float taper = 1.0f - d * d;
+        return Math.clamp(f, -1.0f, 1.0f) * taper * taper;
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.simulation.force;
+
+/**
+ * The classic Particle Life curve: universal linear repulsion inside beta,
+ * then a triangular bump scaled by the attraction
+ */
+public class ParticleLifeForce implements ForceLaw {
+
+    private final float beta;
+
+    public ParticleLifeForce(float beta) {
+        this.beta = beta;
+    }
+
+    @Override
+    public String getName() {
+        return "Particle Life";
+    }
+
+    @Override
+    public float evaluate(float d, float a) {
+        if (d < beta) {
+            return d / beta - 1.0f;
+        } else if (d < 1.0f) {
+            return a * (1.0f - Math.abs(2.0f * d - 1.0f - beta) / (1.0f - beta));
+        }
+        return 0f;
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.simulation.force;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * User supplied force curve: f(d, a) = base(d) + a * scaled(d), both linearly
+ * interpolated between sample points sorted by distance. Distances outside
+ * the samples use the nearest end point.
+ */
+public class SampledForceLaw implements ForceLaw {
+
+    private final String name;
+    private final float[] distances;
+    private final float[] base;
+    private final float[] scaled;
+
+    public SampledForceLaw(String name, float[] distances, float[] base, float[] scaled) {
+        if (distances.length == 0 || distances.length != base.length || distances.length != scaled.length) {
+            throw new IllegalArgumentException("Sample arrays must be non-empty and of equal length");
+        }
+        for (int i = 1; i < distances.length; i++) {
+            if (distances[i] <= distances[i - 1]) {
+                throw new IllegalArgumentException("Sample distances must be strictly increasing");
+            }
+        }
+        this.name = name;
+        this.distances = distances.clone();
+        this.base = base.clone();
+        this.scaled = scaled.clone();
+    }
+
+    /**
+     * Reads "d, base, scaled" lines; blank lines and lines starting with # are skipped
+     */
+    public static SampledForceLaw load(Path file) throws IOException {
+        List<float[]> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split("[,\\s]+");
+            if (parts.length != 3) {
+                throw new IOException("Expected 'd, base, scaled' in " + file + ": " + line);
+            }
+            rows.add(new float[] { Float.parseFloat(parts[0]), Float.parseFloat(parts[1]), Float.parseFloat(parts[2]) });
+        }
+        float[] d = new float[rows.size()];
+        float[] b = new float[rows.size()];
+        float[] s = new float[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            d[i] = rows.get(i)[0];
+            b[i] = rows.get(i)[1];
+            s[i] = rows.get(i)[2];
+        }
+        return new SampledForceLaw(file.getFileName().toString(), d, b, s);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public float evaluate(float d, float a) {
+        int last = distances.length - 1;
+        if (d <= distances[0]) {
+            return base[0] + a * scaled[0];
+        }
+        if (d >= distances[last]) {
+            return base[last] + a * scaled[last];
+        }
+        // Binary search for the segment containing d
+        int lo = 0;
+        int hi = last;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (distances[mid] <= d) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        float t = (d - distances[lo]) / (distances[hi] - distances[lo]);
+        float b = base[lo] + t * (base[hi] - base[lo]);
+        float s = scaled[lo] + t * (scaled[hi] - scaled[lo]);
+        return b + a * s;
+    }
+}
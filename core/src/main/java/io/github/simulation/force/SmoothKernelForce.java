@@ -0,0 +1,32 @@
+package io.github.simulation.force;
+
+/**
+ * Particle Life with smooth edges: quadratic repulsion inside beta and a
+ * squared bell for the attraction, so the force and its slope are continuous
+ */
+public class SmoothKernelForce implements ForceLaw {
+
+    private final float beta;
+
+    public SmoothKernelForce(float beta) {
+        this.beta = beta;
+    }
+
+    @Override
+    public String getName() {
+        return "Smooth Kernel";
+    }
+
+    @Override
+    public float evaluate(float d, float a) {
+        if (d < beta) {
+            float t = 1.0f - d / beta;
+            return -t * t;
+        } else if (d < 1.0f) {
+            float t = 2.0f * (d - beta) / (1.0f - beta) - 1.0f;
+            float bell = 1.0f - t * t;
+            return a * bell * bell;
+        }
+        return 0f;
+    }
+}
@@ -0,0 +1,227 @@
+package io.github.simulation.gl;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Files;
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.particles.ParticleSystem;
+import io.github.simulation.render.ComputeRenderer;
+import io.github.simulation.render.GLRenderer;
+import io.github.simulation.render.SceneFrame;
+import io.github.simulation.shader.ShaderManager;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * Drives ShaderManager, ParticleSystem, ComputeRenderer and GLRenderer
+ * through SceneFrame, the frame Simulation renders, against a
+ * RecordingGLFacade with no GPU behind it, and checks every frame after
+ * warmup against GLCallBudget.steadyState(). Prints the broken limits with
+ * the frame's call log and exits with 1 if any frame is over budget.
+ *
+ * Run from the assets directory so the shaders resolve.
+ * Example: --frames 30 --warmup 3 --size 1280x720 [--particles 100000] [--log]
+ */
+public class GLBudgetCheck {
+
+    private static final float FRAME_SECONDS = 1f / 60f;
+
+    private final RecordingGLFacade recorder = new RecordingGLFacade(null);
+    private final GLCallBudget budget = GLCallBudget.steadyState();
+    private final ShaderManager shaderManager;
+    private final ParticleSystem particleSystem;
+    private final ComputeRenderer computeRenderer;
+    private final GLRenderer glRenderer;
+    private final SceneFrame sceneFrame;
+    private float time = 0f;
+
+    /**
+     * Installs the headless Gdx stubs and the recorder, then sets up the
+     * renderers the way Simulation.create() does
+     *
+     * @throws IllegalStateException if a shader or buffer fails to set up
+     */
+    public GLBudgetCheck(int width, int height, boolean log) {
+        Gdx.app = headlessApp();
+        Gdx.graphics = headlessGraphics(width, height);
+        Gdx.files = new Lwjgl3Files();
+        recorder.setEcho(log);
+        GLFacade.install(recorder);
+
+        shaderManager = new ShaderManager();
+        particleSystem = new ParticleSystem();
+        if (!shaderManager.initializeShaders() || !particleSystem.initialize()) {
+            throw new IllegalStateException("Setup failed, see the log above.");
+        }
+        computeRenderer = new ComputeRenderer(shaderManager.getPopulateProgram(),
+                shaderManager.getComputeProgram(), shaderManager.getDispatchProgram(),
+                shaderManager.getFixedPopulateProgram(), shaderManager.getFixedComputeProgram(),
+                shaderManager.getFixedPositionProgram());
+        glRenderer = new GLRenderer(shaderManager.getRenderProgram(), shaderManager.getBlitProgram(),
+                shaderManager.getSplatProgram(), shaderManager.getToneMapProgram(),
+                shaderManager.getFixedRenderProgram(), shaderManager.getFixedSplatProgram());
+        glRenderer.setCullPrograms(shaderManager.getCullProgram(), shaderManager.getFixedCullProgram());
+        if (!glRenderer.initialize()) {
+            throw new IllegalStateException("Setup failed, see the log above.");
+        }
+        sceneFrame = new SceneFrame(shaderManager, particleSystem, computeRenderer, glRenderer);
+    }
+
+    /**
+     * Records one frame and returns how it broke the steady state budget,
+     * empty if it did not
+     */
+    public List<String> runFrame() {
+        recorder.beginFrame();
+        GLStateManager.beginFrame();
+        time += FRAME_SECONDS;
+        sceneFrame.render(FRAME_SECONDS, time);
+        return budget.check(recorder);
+    }
+
+    public RecordingGLFacade getRecorder() {
+        return recorder;
+    }
+
+    public SceneFrame getSceneFrame() {
+        return sceneFrame;
+    }
+
+    public void dispose() {
+        glRenderer.dispose();
+        computeRenderer.dispose();
+        particleSystem.dispose();
+        shaderManager.dispose();
+    }
+
+    public static void main(String[] args) {
+        int frames = SimulationConfig.GL_BUDGET_FRAMES;
+        int warmup = SimulationConfig.GL_BUDGET_WARMUP_FRAMES;
+        int width = 1280;
+        int height = 720;
+        boolean log = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--log")) {
+                log = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--frames": frames = Integer.parseInt(value); break;
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--particles": RuntimeConfig.setParticleCount(Integer.parseInt(value)); break;
+                case "--size":
+                    String[] size = value.split("x");
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                    break;
+                default: throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        GLBudgetCheck check;
+        try {
+            check = new GLBudgetCheck(width, height, log);
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        RecordingGLFacade recorder = check.getRecorder();
+        int failed = 0;
+
+        System.out.printf("%6s %8s %10s %14s %9s%n", "Frame", "Calls", "Bytes", "State changes", "Result");
+        for (int frame = 1; frame <= warmup + frames; frame++) {
+            List<String> violations = check.runFrame();
+
+            int stateChanges = 0;
+            for (String name : GLCallBudget.STATE_CHANGES) {
+                stateChanges += recorder.getCount(name);
+            }
+            String result = "warmup";
+            if (frame > warmup) {
+                result = violations.isEmpty() ? "ok" : "OVER";
+            }
+            System.out.printf("%6d %8d %10d %14d %9s%n", frame, recorder.getCalls().size(), recorder.getBytes(),
+                    stateChanges, result);
+
+            if (frame > warmup && !violations.isEmpty()) {
+                failed++;
+                for (String violation : violations) {
+                    System.out.println("  " + violation);
+                }
+                // The first failing frame in full; later ones usually repeat it
+                if (failed == 1 && !log) {
+                    for (RecordingGLFacade.Call call : recorder.getCalls()) {
+                        System.out.println("    " + call);
+                    }
+                }
+            }
+        }
+
+        check.dispose();
+
+        if (failed > 0) {
+            System.out.println(failed + " of " + frames + " frames over the GL call budget.");
+            System.exit(1);
+        }
+        System.out.println("All " + frames + " frames within the GL call budget.");
+    }
+
+    // Logging is all the classes under test use of the Application
+    private static Application headlessApp() {
+        return (Application) Proxy.newProxyInstance(GLBudgetCheck.class.getClassLoader(),
+                new Class<?>[]{Application.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (args != null && args.length >= 2
+                            && (name.equals("log") || name.equals("error") || name.equals("debug"))) {
+                        System.out.println("[" + args[0] + "] " + args[1]);
+                        if (args.length > 2 && args[2] instanceof Throwable) {
+                            ((Throwable) args[2]).printStackTrace(System.out);
+                        }
+                    }
+                    return defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Graphics headlessGraphics(int width, int height) {
+        return (Graphics) Proxy.newProxyInstance(GLBudgetCheck.class.getClassLoader(),
+                new Class<?>[]{Graphics.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWidth":
+                        case "getBackBufferWidth":
+                            return width;
+                        case "getHeight":
+                        case "getBackBufferHeight":
+                            return height;
+                        case "getDeltaTime":
+                            return 1f / 60f;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0d;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.simulation.gl;
+
+import com.badlogic.gdx.utils.ObjectIntMap;
+import io.github.simulation.config.SimulationConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-frame limits on the calls a RecordingGLFacade has seen. check() lists
+ * every limit the recorded frame broke, so one run reports all of them.
+ */
+public class GLCallBudget {
+
+    /**
+     * Calls that change bindings or fixed-function state
+     */
+    public static final String[] STATE_CHANGES = {
+            "glUseProgram", "glBindVertexArray", "glBindBuffer", "glBindBufferBase", "glActiveTexture",
+            "glBindTexture", "glEnable", "glDisable", "glBlendFunc", "glBlendFuncSeparate", "glPointParameteri",
+            "glBindFramebuffer", "glBindRenderbuffer", "glViewport"
+    };
+
+    private final ObjectIntMap<String> limits = new ObjectIntMap<>();
+    private int maxStateChanges = -1;
+    private boolean forbidReallocation = false;
+
+    /**
+     * What a frame after warmup must stay within: no uniform lookups, no
+     * mapped buffers, no buffer or texture reallocation and at most
+     * GL_BUDGET_MAX_STATE_CHANGES state changes
+     */
+    public static GLCallBudget steadyState() {
+        return new GLCallBudget()
+                .forbid("glGetUniformLocation")
+                .forbid("glMapBuffer")
+                .maxStateChanges(SimulationConfig.GL_BUDGET_MAX_STATE_CHANGES)
+                .forbidReallocation();
+    }
+
+    public GLCallBudget limit(String name, int max) {
+        limits.put(name, max);
+        return this;
+    }
+
+    public GLCallBudget forbid(String name) {
+        return limit(name, 0);
+    }
+
+    public GLCallBudget maxStateChanges(int max) {
+        maxStateChanges = max;
+        return this;
+    }
+
+    public GLCallBudget forbidReallocation() {
+        forbidReallocation = true;
+        return this;
+    }
+
+    /**
+     * @return one message per broken limit, empty if the frame is within budget
+     */
+    public List<String> check(RecordingGLFacade recorder) {
+        List<String> violations = new ArrayList<>();
+        for (ObjectIntMap.Entry<String> entry : limits) {
+            int count = recorder.getCount(entry.key);
+            if (count > entry.value) {
+                violations.add(entry.key + ": " + count + " calls, budget " + entry.value);
+            }
+        }
+        if (maxStateChanges >= 0) {
+            int stateChanges = 0;
+            for (String name : STATE_CHANGES) {
+                stateChanges += recorder.getCount(name);
+            }
+            if (stateChanges > maxStateChanges) {
+                violations.add("state changes: " + stateChanges + " calls, budget " + maxStateChanges);
+            }
+        }
+        if (forbidReallocation) {
+            for (RecordingGLFacade.Call call : recorder.getCalls()) {
+                if (call.reallocation) {
+                    violations.add("reallocation: " + call);
+                }
+            }
+        }
+        return violations;
+    }
+}
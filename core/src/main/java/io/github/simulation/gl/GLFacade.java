@@ -0,0 +1,260 @@
+package io.github.simulation.gl;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The OpenGL entry points the simulation uses, named and typed like their
+ * LWJGL counterparts. Renderers call them through the installed facade, so
+ * they can run against something other than the live context:
+ * LwjglGLFacade forwards to LWJGL, RecordingGLFacade logs every call and can
+ * stand in for a GPU. install() has to happen before those classes are
+ * created, they keep the facade they were built with.
+ *
+ * libGDX classes (SpriteBatch, FrameBuffer) still go through Gdx.gl.
+ */
+public abstract class GLFacade {
+
+    private static GLFacade current = new LwjglGLFacade();
+
+    public static GLFacade get() {
+        return current;
+    }
+
+    public static void install(GLFacade facade) {
+        current = facade;
+    }
+
+    // Capabilities
+
+    /**
+     * GL 4.4 or ARB_buffer_storage
+     */
+    public abstract boolean hasBufferStorage();
+
+    /**
+     * Lets the driver compile shaders on its own threads if KHR/ARB_parallel_shader_compile
+     * is present; returns whether it is
+     */
+    public abstract boolean enableParallelShaderCompile();
+
+    // State
+
+    public abstract void glUseProgram(int program);
+
+    public abstract void glBindVertexArray(int array);
+
+    public abstract void glBindBuffer(int target, int buffer);
+
+    public abstract void glBindBufferBase(int target, int index, int buffer);
+
+    public abstract void glActiveTexture(int texture);
+
+    public abstract void glBindTexture(int target, int texture);
+
+    public abstract void glEnable(int cap);
+
+    public abstract void glDisable(int cap);
+
+    public abstract void glBlendFunc(int sfactor, int dfactor);
+
+    public abstract void glBlendFuncSeparate(int srcRgb, int dstRgb, int srcAlpha, int dstAlpha);
+
+    public abstract void glPointParameteri(int pname, int param);
+
+    public abstract void glViewport(int x, int y, int width, int height);
+
+    public abstract void glBindFramebuffer(int target, int framebuffer);
+
+    public abstract void glBindRenderbuffer(int target, int renderbuffer);
+
+    public abstract void glPixelStorei(int pname, int param);
+
+    public abstract void glClearColor(float red, float green, float blue, float alpha);
+
+    public abstract void glClear(int mask);
+
+    // Object names
+
+    public abstract int glGenBuffers();
+
+    public abstract void glDeleteBuffers(int buffer);
+
+    public abstract int glGenVertexArrays();
+
+    public abstract void glDeleteVertexArrays(int array);
+
+    public abstract int glGenTextures();
+
+    public abstract void glDeleteTextures(int texture);
+
+    public abstract int glGenFramebuffers();
+
+    public abstract void glDeleteFramebuffers(int framebuffer);
+
+    public abstract int glGenRenderbuffers();
+
+    public abstract void glDeleteRenderbuffers(int renderbuffer);
+
+    public abstract void glGenQueries(int[] ids);
+
+    public abstract void glDeleteQueries(int[] ids);
+
+    // Shaders and programs
+
+    public abstract int glCreateShader(int type);
+
+    public abstract void glDeleteShader(int shader);
+
+    public abstract void glShaderSource(int shader, CharSequence source);
+
+    public abstract void glCompileShader(int shader);
+
+    public abstract int glGetShaderi(int shader, int pname);
+
+    public abstract String glGetShaderInfoLog(int shader);
+
+    public abstract int glCreateProgram();
+
+    public abstract void glDeleteProgram(int program);
+
+    public abstract void glAttachShader(int program, int shader);
+
+    public abstract void glDetachShader(int program, int shader);
+
+    public abstract void glLinkProgram(int program);
+
+    public abstract int glGetProgrami(int program, int pname);
+
+    public abstract void glGetProgramiv(int program, int pname, IntBuffer params);
+
+    public abstract String glGetProgramInfoLog(int program);
+
+    public abstract void glBindAttribLocation(int program, int index, CharSequence name);
+
+    public abstract void glProgramParameteri(int program, int pname, int value);
+
+    public abstract void glGetProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary);
+
+    public abstract void glProgramBinary(int program, int binaryFormat, ByteBuffer binary);
+
+    // Uniforms
+
+    public abstract int glGetUniformLocation(int program, CharSequence name);
+
+    public abstract void glUniform1f(int location, float v0);
+
+    public abstract void glUniform2f(int location, float v0, float v1);
+
+    public abstract void glUniform4f(int location, float v0, float v1, float v2, float v3);
+
+    public abstract void glUniform1i(int location, int v0);
+
+    public abstract void glUniform1ui(int location, int v0);
+
+    public abstract void glUniform1iv(int location, int[] value);
+
+    // Buffers
+
+    public abstract void glBufferData(int target, long size, int usage);
+
+    public abstract void glBufferData(int target, ByteBuffer data, int usage);
+
+    public abstract void glBufferData(int target, FloatBuffer data, int usage);
+
+    public abstract void glBufferData(int target, int[] data, int usage);
+
+    public abstract void glBufferData(int target, float[] data, int usage);
+
+    public abstract void glBufferStorage(int target, long size, int flags);
+
+    public abstract void glBufferSubData(int target, long offset, ByteBuffer data);
+
+    public abstract void glBufferSubData(int target, long offset, IntBuffer data);
+
+    public abstract void glGetBufferSubData(int target, long offset, IntBuffer data);
+
+    public abstract ByteBuffer glMapBuffer(int target, int access);
+
+    public abstract boolean glUnmapBuffer(int target);
+
+    public abstract void glCopyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset,
+                                             long size);
+
+    public abstract void glClearBufferData(int target, int internalFormat, int format, int type, int[] data);
+
+    public abstract void glClearBufferSubData(int target, int internalFormat, long offset, long size, int format,
+                                              int type, int[] data);
+
+    // Textures and framebuffers
+
+    public abstract void glTexParameteri(int target, int pname, int param);
+
+    public abstract void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border,
+                                      int format, int type, IntBuffer pixels);
+
+    public abstract void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border,
+                                      int format, int type, FloatBuffer pixels);
+
+    public abstract void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height,
+                                         int format, int type, FloatBuffer pixels);
+
+    public abstract void glFramebufferTexture(int target, int attachment, int texture, int level);
+
+    public abstract void glFramebufferRenderbuffer(int target, int attachment, int renderbufferTarget,
+                                                   int renderbuffer);
+
+    public abstract void glRenderbufferStorage(int target, int internalFormat, int width, int height);
+
+    public abstract int glCheckFramebufferStatus(int target);
+
+    // Vertex arrays
+
+    public abstract void glEnableVertexAttribArray(int index);
+
+    public abstract void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride,
+                                               long pointer);
+
+    // Draws, dispatches and barriers
+
+    public abstract void glDrawArrays(int mode, int first, int count);
+
+    public abstract void glDrawArraysInstanced(int mode, int first, int count, int primcount);
+
+    public abstract void glDrawArraysIndirect(int mode, long indirect);
+
+    public abstract void glDispatchCompute(int numGroupsX, int numGroupsY, int numGroupsZ);
+
+    public abstract void glDispatchComputeIndirect(long indirect);
+
+    public abstract void glMemoryBarrier(int barriers);
+
+    // Sync objects and queries
+
+    public abstract long glFenceSync(int condition, int flags);
+
+    public abstract int glClientWaitSync(long sync, int flags, long timeout);
+
+    public abstract void glDeleteSync(long sync);
+
+    public abstract void glBeginQuery(int target, int id);
+
+    public abstract void glEndQuery(int target);
+
+    public abstract int glGetQueryObjecti(int id, int pname);
+
+    public abstract long glGetQueryObjecti64(int id, int pname);
+
+    public abstract long glGetQueryObjectui64(int id, int pname);
+
+    // Queries of the context
+
+    public abstract int glGetError();
+
+    public abstract int glGetInteger(int pname);
+
+    public abstract int glGetIntegeri(int target, int index);
+
+    public abstract String glGetString(int name);
+}
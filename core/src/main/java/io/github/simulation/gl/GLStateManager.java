@@ -1,94 +1,374 @@
 package io.github.simulation.gl;
 
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import io.github.simulation.config.SimulationConfig;
 import org.lwjgl.opengl.*;
 
 /**
  * Utility class for managing OpenGL state to prevent interference between
- * different rendering systems
+ * different rendering systems.
+ *
+ * Binds, enables and blend functions issued through this class go through a
+ * shadow copy of the context state and are skipped when they would not change
+ * anything. The shadow only knows what passed through here: code that changes
+ * state behind its back (libGDX SpriteBatch, FrameBuffer, Texture) must be
+ * followed by invalidate(). Issued and skipped calls are counted per frame.
+ *
+ * Uniform locations are looked up once per program and name, so renderers
+ * can set uniforms by name every frame without querying GL.
  */
 public class GLStateManager {
 
+    private static final int UNKNOWN = -1;
+    private static final int TEXTURE_UNITS = 16;
+
+    private static final boolean CACHE = SimulationConfig.GL_STATE_CACHE;
+
+    private static int program = UNKNOWN;
+    private static int vertexArray = UNKNOWN;
+    private static int activeTexture = UNKNOWN;
+    private static final int[] texture2D = new int[TEXTURE_UNITS];
+    private static final IntIntMap buffers = new IntIntMap(); // target -> buffer
+    private static final IntIntMap indexedBuffers = new IntIntMap(); // (target << 8 | index) -> buffer
+    private static final IntIntMap capabilities = new IntIntMap(); // cap -> 1 enabled, 0 disabled
+    private static int blendSrcRgb = UNKNOWN;
+    private static int blendDstRgb = UNKNOWN;
+    private static int blendSrcAlpha = UNKNOWN;
+    private static int blendDstAlpha = UNKNOWN;
+    private static int pointSpriteOrigin = UNKNOWN;
+    private static final IntMap<ObjectIntMap<String>> uniformLocations = new IntMap<>();
+
+    private static int issued = 0;
+    private static int skipped = 0;
+    private static int lastIssued = 0;
+    private static int lastSkipped = 0;
+
+    static {
+        invalidate();
+    }
+
     /**
      * Ensures that OpenGL state is properly set up for compute shader and
      * instanced rendering
      */
     public static void ensureComputeRenderState() {
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
-        GL11.glEnable(GL33.GL_PROGRAM_POINT_SIZE);
+        disable(GL11.GL_DEPTH_TEST);
+        enable(GL33.GL_PROGRAM_POINT_SIZE);
 
         // Enable point sprites because of Compatibility Profile
-        GL31.glEnable(GL31.GL_POINT_SPRITE);
-        GL31.glPointParameteri(GL20.GL_POINT_SPRITE_COORD_ORIGIN, GL20.GL_LOWER_LEFT);
+        enable(GL31.GL_POINT_SPRITE);
+        pointSpriteCoordOrigin(GL20.GL_LOWER_LEFT);
+
+        enable(GL11.GL_BLEND);
+        blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
 
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-        
-        GL30.glBindVertexArray(0);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+        bindVertexArray(0);
+        bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
 
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        activeTexture(GL13.GL_TEXTURE0);
+        bindTexture(GL11.GL_TEXTURE_2D, 0);
 
-        GL20.glUseProgram(0);
+        useProgram(0);
     }
 
     /**
-     * Particle render pass state 
+     * Particle render pass state
      */
     public static void ensureParticleRenderState() {
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
-        GL11.glEnable(GL33.GL_PROGRAM_POINT_SIZE);
+        disable(GL11.GL_DEPTH_TEST);
+        enable(GL33.GL_PROGRAM_POINT_SIZE);
 
-        GL31.glEnable(GL31.GL_POINT_SPRITE);
-        GL31.glPointParameteri(GL20.GL_POINT_SPRITE_COORD_ORIGIN, GL20.GL_LOWER_LEFT);
+        enable(GL31.GL_POINT_SPRITE);
+        pointSpriteCoordOrigin(GL20.GL_LOWER_LEFT);
 
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        enable(GL11.GL_BLEND);
+        blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
 
-        GL30.glBindVertexArray(0);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+        bindVertexArray(0);
+        bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
 
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        activeTexture(GL13.GL_TEXTURE0);
+        bindTexture(GL11.GL_TEXTURE_2D, 0);
 
-        GL20.glUseProgram(0);
+        useProgram(0);
     }
 
     /**
-     * Blit/composite pass state 
+     * Blit/composite pass state
      */
     public static void ensureBlitState() {
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
+        disable(GL11.GL_DEPTH_TEST);
 
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        enable(GL11.GL_BLEND);
+        blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
 
-        GL30.glBindVertexArray(0);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+        bindVertexArray(0);
+        bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
 
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
+        activeTexture(GL13.GL_TEXTURE0);
         // Do not unbind texture here; caller will bind the FBO texture
 
-        GL20.glUseProgram(0);
+        useProgram(0);
     }
 
     /**
      * Sets up OpenGL state for SpriteBatch compatibility
      */
     public static void ensureSpriteBatchCompatibility() {
-        GL20.glUseProgram(0);
-        GL30.glBindVertexArray(0);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+        useProgram(0);
+        bindVertexArray(0);
+        bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+
+        activeTexture(GL13.GL_TEXTURE0);
+        bindTexture(GL11.GL_TEXTURE_2D, 0);
+
+        enable(GL11.GL_BLEND);
+        blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        disable(GL11.GL_DEPTH_TEST);
+    }
+
+    private static GLFacade gl() {
+        return GLFacade.get();
+    }
+
+    public static void useProgram(int id) {
+        if (CACHE && program == id) {
+            skipped++;
+            return;
+        }
+        gl().glUseProgram(id);
+        program = id;
+        issued++;
+    }
+
+    public static void bindVertexArray(int id) {
+        if (CACHE && vertexArray == id) {
+            skipped++;
+            return;
+        }
+        gl().glBindVertexArray(id);
+        vertexArray = id;
+        // The element array binding belongs to the VAO
+        buffers.remove(GL15.GL_ELEMENT_ARRAY_BUFFER, UNKNOWN);
+        issued++;
+    }
+
+    public static void bindBuffer(int target, int buffer) {
+        if (CACHE && buffers.get(target, UNKNOWN) == buffer) {
+            skipped++;
+            return;
+        }
+        gl().glBindBuffer(target, buffer);
+        buffers.put(target, buffer);
+        issued++;
+    }
 
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+    /**
+     * Indexed binding; like glBindBufferBase it also sets the generic binding
+     */
+    public static void bindBufferBase(int target, int index, int buffer) {
+        int key = target << 8 | index;
+        if (CACHE && indexedBuffers.get(key, UNKNOWN) == buffer && buffers.get(target, UNKNOWN) == buffer) {
+            skipped++;
+            return;
+        }
+        gl().glBindBufferBase(target, index, buffer);
+        indexedBuffers.put(key, buffer);
+        buffers.put(target, buffer);
+        issued++;
+    }
+
+    public static void activeTexture(int unit) {
+        if (CACHE && activeTexture == unit) {
+            skipped++;
+            return;
+        }
+        gl().glActiveTexture(unit);
+        activeTexture = unit;
+        issued++;
+    }
+
+    /**
+     * Only GL_TEXTURE_2D on the first TEXTURE_UNITS units is shadowed
+     */
+    public static void bindTexture(int target, int texture) {
+        int unit = activeTexture - GL13.GL_TEXTURE0;
+        boolean tracked = target == GL11.GL_TEXTURE_2D && unit >= 0 && unit < TEXTURE_UNITS;
+        if (CACHE && tracked && texture2D[unit] == texture) {
+            skipped++;
+            return;
+        }
+        gl().glBindTexture(target, texture);
+        if (tracked) {
+            texture2D[unit] = texture;
+        }
+        issued++;
+    }
+
+    public static void enable(int cap) {
+        if (CACHE && capabilities.get(cap, UNKNOWN) == 1) {
+            skipped++;
+            return;
+        }
+        gl().glEnable(cap);
+        capabilities.put(cap, 1);
+        issued++;
+    }
+
+    public static void disable(int cap) {
+        if (CACHE && capabilities.get(cap, UNKNOWN) == 0) {
+            skipped++;
+            return;
+        }
+        gl().glDisable(cap);
+        capabilities.put(cap, 0);
+        issued++;
+    }
+
+    public static void blendFunc(int src, int dst) {
+        if (CACHE && blendSrcRgb == src && blendDstRgb == dst && blendSrcAlpha == src && blendDstAlpha == dst) {
+            skipped++;
+            return;
+        }
+        gl().glBlendFunc(src, dst);
+        blendSrcRgb = blendSrcAlpha = src;
+        blendDstRgb = blendDstAlpha = dst;
+        issued++;
+    }
+
+    public static void blendFuncSeparate(int srcRgb, int dstRgb, int srcAlpha, int dstAlpha) {
+        if (CACHE && blendSrcRgb == srcRgb && blendDstRgb == dstRgb && blendSrcAlpha == srcAlpha
+                && blendDstAlpha == dstAlpha) {
+            skipped++;
+            return;
+        }
+        gl().glBlendFuncSeparate(srcRgb, dstRgb, srcAlpha, dstAlpha);
+        blendSrcRgb = srcRgb;
+        blendDstRgb = dstRgb;
+        blendSrcAlpha = srcAlpha;
+        blendDstAlpha = dstAlpha;
+        issued++;
+    }
 
-        GL11.glEnable(GL11.GL_BLEND);
-        GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
+    public static void pointSpriteCoordOrigin(int origin) {
+        if (CACHE && pointSpriteOrigin == origin) {
+            skipped++;
+            return;
+        }
+        gl().glPointParameteri(GL20.GL_POINT_SPRITE_COORD_ORIGIN, origin);
+        pointSpriteOrigin = origin;
+        issued++;
+    }
+
+    /**
+     * Deleting a bound buffer resets every binding of it to 0, which the
+     * shadow has to follow or a recycled name would be skipped
+     */
+    public static void deleteBuffer(int buffer) {
+        gl().glDeleteBuffers(buffer);
+        forget(buffers, buffer);
+        forget(indexedBuffers, buffer);
+    }
+
+    public static void deleteVertexArray(int id) {
+        gl().glDeleteVertexArrays(id);
+        if (vertexArray == id) {
+            vertexArray = 0;
+        }
+    }
+
+    public static void deleteTexture(int texture) {
+        gl().glDeleteTextures(texture);
+        for (int unit = 0; unit < TEXTURE_UNITS; unit++) {
+            if (texture2D[unit] == texture) {
+                texture2D[unit] = 0;
+            }
+        }
+    }
+
+    /**
+     * A current program stays in use until replaced, so only the shadow is
+     * made unsure about it
+     */
+    public static void deleteProgram(int id) {
+        gl().glDeleteProgram(id);
+        uniformLocations.remove(id);
+        if (program == id) {
+            program = UNKNOWN;
+        }
+    }
+
+    /**
+     * Location of a uniform, queried from GL the first time only; -1 if the
+     * program has no such active uniform. Stays valid until deleteProgram().
+     */
+    public static int uniformLocation(int program, String name) {
+        ObjectIntMap<String> locations = uniformLocations.get(program);
+        if (locations == null) {
+            locations = new ObjectIntMap<>();
+            uniformLocations.put(program, locations);
+        }
+        int location = locations.get(name, Integer.MIN_VALUE);
+        if (location == Integer.MIN_VALUE) {
+            location = gl().glGetUniformLocation(program, name);
+            locations.put(name, location);
+        }
+        return location;
+    }
+
+    private static void forget(IntIntMap bindings, int buffer) {
+        for (IntIntMap.Entry entry : bindings.entries()) {
+            if (entry.value == buffer) {
+                bindings.put(entry.key, 0);
+            }
+        }
+    }
+
+    /**
+     * Forgets everything, so the next call of each kind is issued; required
+     * after code that changes GL state without going through this class
+     */
+    public static void invalidate() {
+        program = UNKNOWN;
+        vertexArray = UNKNOWN;
+        activeTexture = UNKNOWN;
+        for (int unit = 0; unit < TEXTURE_UNITS; unit++) {
+            texture2D[unit] = UNKNOWN;
+        }
+        buffers.clear();
+        indexedBuffers.clear();
+        capabilities.clear();
+        blendSrcRgb = blendDstRgb = blendSrcAlpha = blendDstAlpha = UNKNOWN;
+        pointSpriteOrigin = UNKNOWN;
+    }
+
+    /**
+     * Publishes the counts of the frame that just ended and starts a new one
+     */
+    public static void beginFrame() {
+        lastIssued = issued;
+        lastSkipped = skipped;
+        issued = 0;
+        skipped = 0;
+    }
+
+    /**
+     * State calls that reached GL in the last frame
+     */
+    public static int getIssuedLastFrame() {
+        return lastIssued;
+    }
+
+    /**
+     * State calls the shadow found redundant in the last frame
+     */
+    public static int getSkippedLastFrame() {
+        return lastSkipped;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+package io.github.simulation.gl;
+
+import com.badlogic.gdx.Gdx;
+import org.lwjgl.opengl.*;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pool of GPU buffers in power-of-two size classes. Buffers are immutable
+ * (glBufferStorage) when GL 4.4 or ARB_buffer_storage is present, so the
+ * driver can place them once and never reallocate behind our back; otherwise
+ * glBufferData is used. Released buffers are retired per class and handed out
+ * again by acquire, up to a byte budget, so a buffer that grows and shrinks
+ * around the same sizes stops allocating.
+ * Storage is created with DYNAMIC_STORAGE | MAP_READ | MAP_WRITE, so
+ * glBufferSubData, glClearBufferSubData and glMapBuffer keep working.
+ */
+public class GpuBufferPool {
+
+    private static final int MIN_CLASS_SHIFT = 12; // 4 KB
+    private static final int STORAGE_FLAGS =
+            GL44.GL_DYNAMIC_STORAGE_BIT | GL30.GL_MAP_READ_BIT | GL30.GL_MAP_WRITE_BIT;
+
+    private final GLFacade gl = GLFacade.get();
+    private final boolean immutable;
+    private final long retainBytes;
+    private final Map<Integer, ArrayDeque<Integer>> retired = new HashMap<>();
+    private final Map<Integer, Long> capacities = new HashMap<>();
+
+    private long liveBytes = 0;
+    private long retiredBytes = 0;
+    private int allocations = 0;
+    private int reuses = 0;
+
+    /**
+     * @param retainBytes most bytes kept in retired buffers; larger releases are deleted
+     */
+    public GpuBufferPool(long retainBytes) {
+        this.immutable = gl.hasBufferStorage();
+        this.retainBytes = retainBytes;
+        if (!immutable) {
+            Gdx.app.log("GpuBufferPool", "No buffer storage support, falling back to glBufferData.");
+        }
+    }
+
+    /**
+     * Bytes of the size class holding minBytes
+     */
+    public static long classBytes(long minBytes) {
+        long bytes = 1L << MIN_CLASS_SHIFT;
+        while (bytes < minBytes) {
+            bytes <<= 1;
+        }
+        return bytes;
+    }
+
+    /**
+     * A buffer of at least minBytes, reused from the retired list of its size
+     * class when possible. Contents are undefined.
+     */
+    public int acquire(long minBytes) {
+        long bytes = classBytes(minBytes);
+        int sizeClass = Long.numberOfTrailingZeros(bytes);
+
+        ArrayDeque<Integer> free = retired.get(sizeClass);
+        if (free != null && !free.isEmpty()) {
+            int buffer = free.pop();
+            retiredBytes -= bytes;
+            liveBytes += bytes;
+            reuses++;
+            return buffer;
+        }
+
+        int buffer = gl.glGenBuffers();
+        GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, buffer);
+        if (immutable) {
+            gl.glBufferStorage(GL31.GL_COPY_WRITE_BUFFER, bytes, STORAGE_FLAGS);
+        } else {
+            gl.glBufferData(GL31.GL_COPY_WRITE_BUFFER, bytes, GL15.GL_DYNAMIC_DRAW);
+        }
+        GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        capacities.put(buffer, bytes);
+        liveBytes += bytes;
+        allocations++;
+        return buffer;
+    }
+
+    /**
+     * Retires a buffer from acquire for reuse, or deletes it if the retired
+     * budget is full. 0 is ignored.
+     */
+    public void release(int buffer) {
+        Long bytes = capacities.get(buffer);
+        if (bytes == null) {
+            return;
+        }
+        liveBytes -= bytes;
+        if (retiredBytes + bytes > retainBytes) {
+            capacities.remove(buffer);
+            GLStateManager.deleteBuffer(buffer);
+            return;
+        }
+        int sizeClass = Long.numberOfTrailingZeros(bytes);
+        retired.computeIfAbsent(sizeClass, k -> new ArrayDeque<>()).push(buffer);
+        retiredBytes += bytes;
+    }
+
+    /**
+     * Size in bytes of a pooled buffer, 0 if it is not from this pool
+     */
+    public long capacityOf(int buffer) {
+        Long bytes = capacities.get(buffer);
+        return bytes != null ? bytes : 0L;
+    }
+
+    /**
+     * Deletes every retired buffer
+     */
+    public void trim() {
+        for (ArrayDeque<Integer> free : retired.values()) {
+            for (int buffer : free) {
+                capacities.remove(buffer);
+                GLStateManager.deleteBuffer(buffer);
+            }
+            free.clear();
+        }
+        retiredBytes = 0;
+    }
+
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public long getRetiredBytes() {
+        return retiredBytes;
+    }
+
+    public int getAllocations() {
+        return allocations;
+    }
+
+    public int getReuses() {
+        return reuses;
+    }
+
+    /**
+     * Deletes every buffer created by the pool, live or retired
+     */
+    public void dispose() {
+        for (int buffer : capacities.keySet()) {
+            GLStateManager.deleteBuffer(buffer);
+        }
+        capacities.clear();
+        retired.clear();
+        liveBytes = 0;
+        retiredBytes = 0;
+    }
+}
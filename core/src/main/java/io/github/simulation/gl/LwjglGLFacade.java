@@ -0,0 +1,517 @@
+package io.github.simulation.gl;
+
+import org.lwjgl.opengl.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Forwards every call to LWJGL on the current context
+ */
+public class LwjglGLFacade extends GLFacade {
+
+    @Override
+    public boolean hasBufferStorage() {
+        GLCapabilities caps = GL.getCapabilities();
+        return caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+    }
+
+    @Override
+    public boolean enableParallelShaderCompile() {
+        GLCapabilities caps = GL.getCapabilities();
+        if (caps.GL_KHR_parallel_shader_compile) {
+            KHRParallelShaderCompile.glMaxShaderCompilerThreadsKHR(0xFFFFFFFF);
+            return true;
+        }
+        if (caps.GL_ARB_parallel_shader_compile) {
+            ARBParallelShaderCompile.glMaxShaderCompilerThreadsARB(0xFFFFFFFF);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        GL20.glUseProgram(program);
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        GL30.glBindVertexArray(array);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        GL15.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBindBufferBase(int target, int index, int buffer) {
+        GL30.glBindBufferBase(target, index, buffer);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        GL13.glActiveTexture(texture);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        GL11.glBindTexture(target, texture);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        GL11.glEnable(cap);
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        GL11.glDisable(cap);
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        GL11.glBlendFunc(sfactor, dfactor);
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRgb, int dstRgb, int srcAlpha, int dstAlpha) {
+        GL14.glBlendFuncSeparate(srcRgb, dstRgb, srcAlpha, dstAlpha);
+    }
+
+    @Override
+    public void glPointParameteri(int pname, int param) {
+        GL14.glPointParameteri(pname, param);
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        GL11.glViewport(x, y, width, height);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        GL30.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        GL30.glBindRenderbuffer(target, renderbuffer);
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+        GL11.glPixelStorei(pname, param);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        GL11.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        GL11.glClear(mask);
+    }
+
+    @Override
+    public int glGenBuffers() {
+        return GL15.glGenBuffers();
+    }
+
+    @Override
+    public void glDeleteBuffers(int buffer) {
+        GL15.glDeleteBuffers(buffer);
+    }
+
+    @Override
+    public int glGenVertexArrays() {
+        return GL30.glGenVertexArrays();
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int array) {
+        GL30.glDeleteVertexArrays(array);
+    }
+
+    @Override
+    public int glGenTextures() {
+        return GL11.glGenTextures();
+    }
+
+    @Override
+    public void glDeleteTextures(int texture) {
+        GL11.glDeleteTextures(texture);
+    }
+
+    @Override
+    public int glGenFramebuffers() {
+        return GL30.glGenFramebuffers();
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int framebuffer) {
+        GL30.glDeleteFramebuffers(framebuffer);
+    }
+
+    @Override
+    public int glGenRenderbuffers() {
+        return GL30.glGenRenderbuffers();
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int renderbuffer) {
+        GL30.glDeleteRenderbuffers(renderbuffer);
+    }
+
+    @Override
+    public void glGenQueries(int[] ids) {
+        GL15.glGenQueries(ids);
+    }
+
+    @Override
+    public void glDeleteQueries(int[] ids) {
+        GL15.glDeleteQueries(ids);
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        return GL20.glCreateShader(type);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        GL20.glDeleteShader(shader);
+    }
+
+    @Override
+    public void glShaderSource(int shader, CharSequence source) {
+        GL20.glShaderSource(shader, source);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        GL20.glCompileShader(shader);
+    }
+
+    @Override
+    public int glGetShaderi(int shader, int pname) {
+        return GL20.glGetShaderi(shader, pname);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        return GL20.glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        return GL20.glCreateProgram();
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        GL20.glDeleteProgram(program);
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        GL20.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        GL20.glDetachShader(program, shader);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        GL20.glLinkProgram(program);
+    }
+
+    @Override
+    public int glGetProgrami(int program, int pname) {
+        return GL20.glGetProgrami(program, pname);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, IntBuffer params) {
+        GL20.glGetProgramiv(program, pname, params);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        return GL20.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void glBindAttribLocation(int program, int index, CharSequence name) {
+        GL20.glBindAttribLocation(program, index, name);
+    }
+
+    @Override
+    public void glProgramParameteri(int program, int pname, int value) {
+        GL41.glProgramParameteri(program, pname, value);
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary) {
+        GL41.glGetProgramBinary(program, length, binaryFormat, binary);
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, ByteBuffer binary) {
+        GL41.glProgramBinary(program, binaryFormat, binary);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, CharSequence name) {
+        return GL20.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public void glUniform1f(int location, float v0) {
+        GL20.glUniform1f(location, v0);
+    }
+
+    @Override
+    public void glUniform2f(int location, float v0, float v1) {
+        GL20.glUniform2f(location, v0, v1);
+    }
+
+    @Override
+    public void glUniform4f(int location, float v0, float v1, float v2, float v3) {
+        GL20.glUniform4f(location, v0, v1, v2, v3);
+    }
+
+    @Override
+    public void glUniform1i(int location, int v0) {
+        GL20.glUniform1i(location, v0);
+    }
+
+    @Override
+    public void glUniform1ui(int location, int v0) {
+        GL30.glUniform1ui(location, v0);
+    }
+
+    @Override
+    public void glUniform1iv(int location, int[] value) {
+        GL20.glUniform1iv(location, value);
+    }
+
+    @Override
+    public void glBufferData(int target, long size, int usage) {
+        GL15.glBufferData(target, size, usage);
+    }
+
+    @Override
+    public void glBufferData(int target, ByteBuffer data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void glBufferData(int target, FloatBuffer data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void glBufferData(int target, int[] data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void glBufferData(int target, float[] data, int usage) {
+        GL15.glBufferData(target, data, usage);
+    }
+
+    @Override
+    public void glBufferStorage(int target, long size, int flags) {
+        GL44.glBufferStorage(target, size, flags);
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, ByteBuffer data) {
+        GL15.glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, IntBuffer data) {
+        GL15.glBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public void glGetBufferSubData(int target, long offset, IntBuffer data) {
+        GL15.glGetBufferSubData(target, offset, data);
+    }
+
+    @Override
+    public ByteBuffer glMapBuffer(int target, int access) {
+        return GL15.glMapBuffer(target, access);
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        return GL15.glUnmapBuffer(target);
+    }
+
+    @Override
+    public void glCopyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        GL31.glCopyBufferSubData(readTarget, writeTarget, readOffset, writeOffset, size);
+    }
+
+    @Override
+    public void glClearBufferData(int target, int internalFormat, int format, int type, int[] data) {
+        GL43.glClearBufferData(target, internalFormat, format, type, data);
+    }
+
+    @Override
+    public void glClearBufferSubData(int target, int internalFormat, long offset, long size, int format, int type,
+                                     int[] data) {
+        GL43.glClearBufferSubData(target, internalFormat, offset, size, format, type, data);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        GL11.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+                             int type, IntBuffer pixels) {
+        GL11.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+                             int type, FloatBuffer pixels) {
+        GL11.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format,
+                                int type, FloatBuffer pixels) {
+        GL11.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void glFramebufferTexture(int target, int attachment, int texture, int level) {
+        GL32.glFramebufferTexture(target, attachment, texture, level);
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbuffer) {
+        GL30.glFramebufferRenderbuffer(target, attachment, renderbufferTarget, renderbuffer);
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalFormat, int width, int height) {
+        GL30.glRenderbufferStorage(target, internalFormat, width, height);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        return GL30.glCheckFramebufferStatus(target);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        GL20.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+        GL20.glVertexAttribPointer(index, size, type, normalized, stride, pointer);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        GL11.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int primcount) {
+        GL31.glDrawArraysInstanced(mode, first, count, primcount);
+    }
+
+    @Override
+    public void glDrawArraysIndirect(int mode, long indirect) {
+        GL40.glDrawArraysIndirect(mode, indirect);
+    }
+
+    @Override
+    public void glDispatchCompute(int numGroupsX, int numGroupsY, int numGroupsZ) {
+        GL43.glDispatchCompute(numGroupsX, numGroupsY, numGroupsZ);
+    }
+
+    @Override
+    public void glDispatchComputeIndirect(long indirect) {
+        GL43.glDispatchComputeIndirect(indirect);
+    }
+
+    @Override
+    public void glMemoryBarrier(int barriers) {
+        GL42.glMemoryBarrier(barriers);
+    }
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        return GL32.glFenceSync(condition, flags);
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        return GL32.glClientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        GL32.glDeleteSync(sync);
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        GL15.glBeginQuery(target, id);
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        GL15.glEndQuery(target);
+    }
+
+    @Override
+    public int glGetQueryObjecti(int id, int pname) {
+        return GL15.glGetQueryObjecti(id, pname);
+    }
+
+    @Override
+    public long glGetQueryObjecti64(int id, int pname) {
+        return GL33.glGetQueryObjecti64(id, pname);
+    }
+
+    @Override
+    public long glGetQueryObjectui64(int id, int pname) {
+        return GL33.glGetQueryObjectui64(id, pname);
+    }
+
+    @Override
+    public int glGetError() {
+        return GL11.glGetError();
+    }
+
+    @Override
+    public int glGetInteger(int pname) {
+        return GL11.glGetInteger(pname);
+    }
+
+    @Override
+    public int glGetIntegeri(int target, int index) {
+        return GL30.glGetIntegeri(target, index);
+    }
+
+    @Override
+    public String glGetString(int name) {
+        return GL11.glGetString(name);
+    }
+}
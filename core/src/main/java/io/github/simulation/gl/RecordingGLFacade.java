@@ -0,0 +1,995 @@
+package io.github.simulation.gl;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.IntSet;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import io.github.simulation.config.SimulationConfig;
+import org.lwjgl.opengl.*;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logs every GL call with its arguments and the bytes it moves between CPU
+ * and GPU (uploads, uniforms, readbacks and maps), grouped into
+ * frames by beginFrame(). Buffer and texture allocations on names that
+ * already have storage are flagged as reallocations.
+ *
+ * With a delegate the calls still reach the GPU. Without one the facade
+ * stands in for a context: names are handed out in sequence, every status
+ * query succeeds, maps return host memory of the buffer's size and limits
+ * report typical GL 4.3 values, so the renderers can be driven on machines
+ * without a GPU (see GLBudgetCheck).
+ */
+public class RecordingGLFacade extends GLFacade {
+
+    public static final class Call {
+        public final String name;
+        public final String args;
+        public final long bytes;
+        public final boolean reallocation;
+
+        Call(String name, String args, long bytes, boolean reallocation) {
+            this.name = name;
+            this.args = args;
+            this.bytes = bytes;
+            this.reallocation = reallocation;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(" + args + ")" + (bytes > 0 ? " " + bytes + " B" : "")
+                    + (reallocation ? " REALLOCATION" : "");
+        }
+    }
+
+    private final GLFacade delegate;
+    private boolean echo = false;
+
+    // Current frame
+    private final List<Call> calls = new ArrayList<>();
+    private final ObjectIntMap<String> counts = new ObjectIntMap<>();
+    private long bytes = 0;
+    private int reallocations = 0;
+
+    // Enough of the context to size transfers and detect reallocation
+    private final IntIntMap boundBuffers = new IntIntMap(); // target -> buffer
+    private final IntMap<Long> bufferSizes = new IntMap<>();
+    private final IntSet allocatedTextures = new IntSet();
+    private final IntIntMap unitTextures = new IntIntMap(); // unit -> 2D texture
+    private int activeUnit = GL13.GL_TEXTURE0;
+
+    // Stand-in state without a delegate
+    private int nextName = 1;
+    private final ObjectIntMap<String> stubUniforms = new ObjectIntMap<>();
+    private final IntMap<ByteBuffer> stubMappings = new IntMap<>();
+
+    /**
+     * @param delegate facade the calls are forwarded to, or null to run without a GPU
+     */
+    public RecordingGLFacade(GLFacade delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Also writes every call to the log as it is made
+     */
+    public void setEcho(boolean echo) {
+        this.echo = echo;
+    }
+
+    /**
+     * Forgets the calls of the previous frame; the tracked context state is kept
+     */
+    public void beginFrame() {
+        calls.clear();
+        counts.clear();
+        bytes = 0;
+        reallocations = 0;
+    }
+
+    public List<Call> getCalls() {
+        return calls;
+    }
+
+    public int getCount(String name) {
+        return counts.get(name, 0);
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public int getReallocations() {
+        return reallocations;
+    }
+
+    // Records a call that moves data or allocates storage
+    private void transfer(String name, long moved, boolean reallocation, Object... args) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            Object arg = args[i];
+            if (arg instanceof Buffer) {
+                sb.append('<').append(((Buffer) arg).remaining()).append(" elements>");
+            } else if (arg instanceof int[]) {
+                sb.append("int[").append(((int[]) arg).length).append(']');
+            } else if (arg instanceof float[]) {
+                sb.append("float[").append(((float[]) arg).length).append(']');
+            } else {
+                sb.append(arg);
+            }
+        }
+        Call call = new Call(name, sb.toString(), moved, reallocation);
+        calls.add(call);
+        counts.getAndIncrement(name, 0, 1);
+        bytes += moved;
+        if (reallocation) {
+            reallocations++;
+        }
+        if (echo) {
+            Gdx.app.log("GL", call.toString());
+        }
+    }
+
+    private void record(String name, Object... args) {
+        transfer(name, 0, false, args);
+    }
+
+    private int newName() {
+        return nextName++;
+    }
+
+    private long boundSize(int target) {
+        Long size = bufferSizes.get(boundBuffers.get(target, 0));
+        return size == null ? 0 : size;
+    }
+
+    // Storage for the buffer bound to target; true if it already had some
+    private boolean allocateBuffer(int target, long size) {
+        int buffer = boundBuffers.get(target, 0);
+        boolean had = bufferSizes.containsKey(buffer);
+        bufferSizes.put(buffer, size);
+        stubMappings.remove(buffer);
+        return had;
+    }
+
+    private boolean allocateTexture(int target) {
+        if (target != GL11.GL_TEXTURE_2D) {
+            return false;
+        }
+        return !allocatedTextures.add(unitTextures.get(activeUnit, 0));
+    }
+
+    private static long bytesOf(Buffer data) {
+        if (data == null) {
+            return 0;
+        }
+        return data instanceof ByteBuffer ? data.remaining() : (long) data.remaining() * 4;
+    }
+
+    // Capabilities
+
+    @Override
+    public boolean hasBufferStorage() {
+        return delegate != null && delegate.hasBufferStorage();
+    }
+
+    @Override
+    public boolean enableParallelShaderCompile() {
+        return delegate != null && delegate.enableParallelShaderCompile();
+    }
+
+    // State
+
+    @Override
+    public void glUseProgram(int program) {
+        record("glUseProgram", program);
+        if (delegate != null) {
+            delegate.glUseProgram(program);
+        }
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        record("glBindVertexArray", array);
+        if (delegate != null) {
+            delegate.glBindVertexArray(array);
+        }
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        record("glBindBuffer", target, buffer);
+        boundBuffers.put(target, buffer);
+        if (delegate != null) {
+            delegate.glBindBuffer(target, buffer);
+        }
+    }
+
+    @Override
+    public void glBindBufferBase(int target, int index, int buffer) {
+        record("glBindBufferBase", target, index, buffer);
+        boundBuffers.put(target, buffer);
+        if (delegate != null) {
+            delegate.glBindBufferBase(target, index, buffer);
+        }
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        record("glActiveTexture", texture);
+        activeUnit = texture;
+        if (delegate != null) {
+            delegate.glActiveTexture(texture);
+        }
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        record("glBindTexture", target, texture);
+        if (target == GL11.GL_TEXTURE_2D) {
+            unitTextures.put(activeUnit, texture);
+        }
+        if (delegate != null) {
+            delegate.glBindTexture(target, texture);
+        }
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        record("glEnable", cap);
+        if (delegate != null) {
+            delegate.glEnable(cap);
+        }
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        record("glDisable", cap);
+        if (delegate != null) {
+            delegate.glDisable(cap);
+        }
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        record("glBlendFunc", sfactor, dfactor);
+        if (delegate != null) {
+            delegate.glBlendFunc(sfactor, dfactor);
+        }
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRgb, int dstRgb, int srcAlpha, int dstAlpha) {
+        record("glBlendFuncSeparate", srcRgb, dstRgb, srcAlpha, dstAlpha);
+        if (delegate != null) {
+            delegate.glBlendFuncSeparate(srcRgb, dstRgb, srcAlpha, dstAlpha);
+        }
+    }
+
+    @Override
+    public void glPointParameteri(int pname, int param) {
+        record("glPointParameteri", pname, param);
+        if (delegate != null) {
+            delegate.glPointParameteri(pname, param);
+        }
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        record("glViewport", x, y, width, height);
+        if (delegate != null) {
+            delegate.glViewport(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        record("glBindFramebuffer", target, framebuffer);
+        if (delegate != null) {
+            delegate.glBindFramebuffer(target, framebuffer);
+        }
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        record("glBindRenderbuffer", target, renderbuffer);
+        if (delegate != null) {
+            delegate.glBindRenderbuffer(target, renderbuffer);
+        }
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+        record("glPixelStorei", pname, param);
+        if (delegate != null) {
+            delegate.glPixelStorei(pname, param);
+        }
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        record("glClearColor", red, green, blue, alpha);
+        if (delegate != null) {
+            delegate.glClearColor(red, green, blue, alpha);
+        }
+    }
+
+    @Override
+    public void glClear(int mask) {
+        record("glClear", mask);
+        if (delegate != null) {
+            delegate.glClear(mask);
+        }
+    }
+
+    // Object names
+
+    @Override
+    public int glGenBuffers() {
+        int name = delegate != null ? delegate.glGenBuffers() : newName();
+        record("glGenBuffers", name);
+        return name;
+    }
+
+    @Override
+    public void glDeleteBuffers(int buffer) {
+        record("glDeleteBuffers", buffer);
+        bufferSizes.remove(buffer);
+        stubMappings.remove(buffer);
+        if (delegate != null) {
+            delegate.glDeleteBuffers(buffer);
+        }
+    }
+
+    @Override
+    public int glGenVertexArrays() {
+        int name = delegate != null ? delegate.glGenVertexArrays() : newName();
+        record("glGenVertexArrays", name);
+        return name;
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int array) {
+        record("glDeleteVertexArrays", array);
+        if (delegate != null) {
+            delegate.glDeleteVertexArrays(array);
+        }
+    }
+
+    @Override
+    public int glGenTextures() {
+        int name = delegate != null ? delegate.glGenTextures() : newName();
+        record("glGenTextures", name);
+        return name;
+    }
+
+    @Override
+    public void glDeleteTextures(int texture) {
+        record("glDeleteTextures", texture);
+        allocatedTextures.remove(texture);
+        if (delegate != null) {
+            delegate.glDeleteTextures(texture);
+        }
+    }
+
+    @Override
+    public int glGenFramebuffers() {
+        int name = delegate != null ? delegate.glGenFramebuffers() : newName();
+        record("glGenFramebuffers", name);
+        return name;
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int framebuffer) {
+        record("glDeleteFramebuffers", framebuffer);
+        if (delegate != null) {
+            delegate.glDeleteFramebuffers(framebuffer);
+        }
+    }
+
+    @Override
+    public int glGenRenderbuffers() {
+        int name = delegate != null ? delegate.glGenRenderbuffers() : newName();
+        record("glGenRenderbuffers", name);
+        return name;
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int renderbuffer) {
+        record("glDeleteRenderbuffers", renderbuffer);
+        if (delegate != null) {
+            delegate.glDeleteRenderbuffers(renderbuffer);
+        }
+    }
+
+    @Override
+    public void glGenQueries(int[] ids) {
+        record("glGenQueries", (Object) ids);
+        if (delegate != null) {
+            delegate.glGenQueries(ids);
+        } else {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = newName();
+            }
+        }
+    }
+
+    @Override
+    public void glDeleteQueries(int[] ids) {
+        record("glDeleteQueries", (Object) ids);
+        if (delegate != null) {
+            delegate.glDeleteQueries(ids);
+        }
+    }
+
+    // Shaders and programs
+
+    @Override
+    public int glCreateShader(int type) {
+        int name = delegate != null ? delegate.glCreateShader(type) : newName();
+        record("glCreateShader", type, name);
+        return name;
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        record("glDeleteShader", shader);
+        if (delegate != null) {
+            delegate.glDeleteShader(shader);
+        }
+    }
+
+    @Override
+    public void glShaderSource(int shader, CharSequence source) {
+        transfer("glShaderSource", source.length(), false, shader, "<" + source.length() + " chars>");
+        if (delegate != null) {
+            delegate.glShaderSource(shader, source);
+        }
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        record("glCompileShader", shader);
+        if (delegate != null) {
+            delegate.glCompileShader(shader);
+        }
+    }
+
+    @Override
+    public int glGetShaderi(int shader, int pname) {
+        record("glGetShaderi", shader, pname);
+        return delegate != null ? delegate.glGetShaderi(shader, pname) : GL11.GL_TRUE;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        record("glGetShaderInfoLog", shader);
+        return delegate != null ? delegate.glGetShaderInfoLog(shader) : "";
+    }
+
+    @Override
+    public int glCreateProgram() {
+        int name = delegate != null ? delegate.glCreateProgram() : newName();
+        record("glCreateProgram", name);
+        return name;
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        record("glDeleteProgram", program);
+        if (delegate != null) {
+            delegate.glDeleteProgram(program);
+        }
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        record("glAttachShader", program, shader);
+        if (delegate != null) {
+            delegate.glAttachShader(program, shader);
+        }
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        record("glDetachShader", program, shader);
+        if (delegate != null) {
+            delegate.glDetachShader(program, shader);
+        }
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        record("glLinkProgram", program);
+        if (delegate != null) {
+            delegate.glLinkProgram(program);
+        }
+    }
+
+    @Override
+    public int glGetProgrami(int program, int pname) {
+        record("glGetProgrami", program, pname);
+        return delegate != null ? delegate.glGetProgrami(program, pname) : GL11.GL_TRUE;
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, IntBuffer params) {
+        record("glGetProgramiv", program, pname, params);
+        if (delegate != null) {
+            delegate.glGetProgramiv(program, pname, params);
+        } else if (pname == GL43.GL_COMPUTE_WORK_GROUP_SIZE) {
+            params.put(0, SimulationConfig.WORKGROUP_SIZE).put(1, 1).put(2, 1);
+        }
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        record("glGetProgramInfoLog", program);
+        return delegate != null ? delegate.glGetProgramInfoLog(program) : "";
+    }
+
+    @Override
+    public void glBindAttribLocation(int program, int index, CharSequence name) {
+        record("glBindAttribLocation", program, index, name);
+        if (delegate != null) {
+            delegate.glBindAttribLocation(program, index, name);
+        }
+    }
+
+    @Override
+    public void glProgramParameteri(int program, int pname, int value) {
+        record("glProgramParameteri", program, pname, value);
+        if (delegate != null) {
+            delegate.glProgramParameteri(program, pname, value);
+        }
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary) {
+        transfer("glGetProgramBinary", binary.remaining(), false, program, binary);
+        if (delegate != null) {
+            delegate.glGetProgramBinary(program, length, binaryFormat, binary);
+        }
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, ByteBuffer binary) {
+        transfer("glProgramBinary", binary.remaining(), false, program, binaryFormat, binary);
+        if (delegate != null) {
+            delegate.glProgramBinary(program, binaryFormat, binary);
+        }
+    }
+
+    // Uniforms
+
+    @Override
+    public int glGetUniformLocation(int program, CharSequence name) {
+        record("glGetUniformLocation", program, name);
+        if (delegate != null) {
+            return delegate.glGetUniformLocation(program, name);
+        }
+        String key = program + "/" + name;
+        int location = stubUniforms.get(key, -1);
+        if (location < 0) {
+            location = stubUniforms.size;
+            stubUniforms.put(key, location);
+        }
+        return location;
+    }
+
+    @Override
+    public void glUniform1f(int location, float v0) {
+        transfer("glUniform1f", 4, false, location, v0);
+        if (delegate != null) {
+            delegate.glUniform1f(location, v0);
+        }
+    }
+
+    @Override
+    public void glUniform2f(int location, float v0, float v1) {
+        transfer("glUniform2f", 8, false, location, v0, v1);
+        if (delegate != null) {
+            delegate.glUniform2f(location, v0, v1);
+        }
+    }
+
+    @Override
+    public void glUniform4f(int location, float v0, float v1, float v2, float v3) {
+        transfer("glUniform4f", 16, false, location, v0, v1, v2, v3);
+        if (delegate != null) {
+            delegate.glUniform4f(location, v0, v1, v2, v3);
+        }
+    }
+
+    @Override
+    public void glUniform1i(int location, int v0) {
+        transfer("glUniform1i", 4, false, location, v0);
+        if (delegate != null) {
+            delegate.glUniform1i(location, v0);
+        }
+    }
+
+    @Override
+    public void glUniform1ui(int location, int v0) {
+        transfer("glUniform1ui", 4, false, location, Integer.toUnsignedString(v0));
+        if (delegate != null) {
+            delegate.glUniform1ui(location, v0);
+        }
+    }
+
+    @Override
+    public void glUniform1iv(int location, int[] value) {
+        transfer("glUniform1iv", (long) value.length * 4, false, location, value);
+        if (delegate != null) {
+            delegate.glUniform1iv(location, value);
+        }
+    }
+
+    // Buffers
+
+    @Override
+    public void glBufferData(int target, long size, int usage) {
+        transfer("glBufferData", 0, allocateBuffer(target, size), target, size, usage);
+        if (delegate != null) {
+            delegate.glBufferData(target, size, usage);
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, ByteBuffer data, int usage) {
+        transfer("glBufferData", bytesOf(data), allocateBuffer(target, bytesOf(data)), target, data, usage);
+        if (delegate != null) {
+            delegate.glBufferData(target, data, usage);
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, FloatBuffer data, int usage) {
+        transfer("glBufferData", bytesOf(data), allocateBuffer(target, bytesOf(data)), target, data, usage);
+        if (delegate != null) {
+            delegate.glBufferData(target, data, usage);
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, int[] data, int usage) {
+        long size = (long) data.length * 4;
+        transfer("glBufferData", size, allocateBuffer(target, size), target, data, usage);
+        if (delegate != null) {
+            delegate.glBufferData(target, data, usage);
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, float[] data, int usage) {
+        long size = (long) data.length * 4;
+        transfer("glBufferData", size, allocateBuffer(target, size), target, data, usage);
+        if (delegate != null) {
+            delegate.glBufferData(target, data, usage);
+        }
+    }
+
+    @Override
+    public void glBufferStorage(int target, long size, int flags) {
+        transfer("glBufferStorage", 0, allocateBuffer(target, size), target, size, flags);
+        if (delegate != null) {
+            delegate.glBufferStorage(target, size, flags);
+        }
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, ByteBuffer data) {
+        transfer("glBufferSubData", bytesOf(data), false, target, offset, data);
+        if (delegate != null) {
+            delegate.glBufferSubData(target, offset, data);
+        }
+    }
+
+    @Override
+    public void glBufferSubData(int target, long offset, IntBuffer data) {
+        transfer("glBufferSubData", bytesOf(data), false, target, offset, data);
+        if (delegate != null) {
+            delegate.glBufferSubData(target, offset, data);
+        }
+    }
+
+    @Override
+    public void glGetBufferSubData(int target, long offset, IntBuffer data) {
+        transfer("glGetBufferSubData", bytesOf(data), false, target, offset, data);
+        if (delegate != null) {
+            delegate.glGetBufferSubData(target, offset, data);
+        }
+    }
+
+    @Override
+    public ByteBuffer glMapBuffer(int target, int access) {
+        long size = boundSize(target);
+        transfer("glMapBuffer", size, false, target, access);
+        if (delegate != null) {
+            return delegate.glMapBuffer(target, access);
+        }
+        int buffer = boundBuffers.get(target, 0);
+        ByteBuffer mapping = stubMappings.get(buffer);
+        if (mapping == null) {
+            mapping = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+            stubMappings.put(buffer, mapping);
+        }
+        mapping.clear();
+        return mapping;
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        record("glUnmapBuffer", target);
+        return delegate == null || delegate.glUnmapBuffer(target);
+    }
+
+    @Override
+    public void glCopyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        record("glCopyBufferSubData", readTarget, writeTarget, readOffset, writeOffset, size);
+        if (delegate != null) {
+            delegate.glCopyBufferSubData(readTarget, writeTarget, readOffset, writeOffset, size);
+        }
+    }
+
+    @Override
+    public void glClearBufferData(int target, int internalFormat, int format, int type, int[] data) {
+        record("glClearBufferData", target, internalFormat, format, type, data);
+        if (delegate != null) {
+            delegate.glClearBufferData(target, internalFormat, format, type, data);
+        }
+    }
+
+    @Override
+    public void glClearBufferSubData(int target, int internalFormat, long offset, long size, int format, int type,
+                                     int[] data) {
+        record("glClearBufferSubData", target, internalFormat, offset, size, format, type, data);
+        if (delegate != null) {
+            delegate.glClearBufferSubData(target, internalFormat, offset, size, format, type, data);
+        }
+    }
+
+    // Textures and framebuffers
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        record("glTexParameteri", target, pname, param);
+        if (delegate != null) {
+            delegate.glTexParameteri(target, pname, param);
+        }
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+                             int type, IntBuffer pixels) {
+        transfer("glTexImage2D", bytesOf(pixels), allocateTexture(target), target, level, internalFormat, width,
+                height, border, format, type, pixels);
+        if (delegate != null) {
+            delegate.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+        }
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalFormat, int width, int height, int border, int format,
+                             int type, FloatBuffer pixels) {
+        transfer("glTexImage2D", bytesOf(pixels), allocateTexture(target), target, level, internalFormat, width,
+                height, border, format, type, pixels);
+        if (delegate != null) {
+            delegate.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+        }
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format,
+                                int type, FloatBuffer pixels) {
+        transfer("glTexSubImage2D", bytesOf(pixels), false, target, level, xoffset, yoffset, width, height, format,
+                type, pixels);
+        if (delegate != null) {
+            delegate.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+        }
+    }
+
+    @Override
+    public void glFramebufferTexture(int target, int attachment, int texture, int level) {
+        record("glFramebufferTexture", target, attachment, texture, level);
+        if (delegate != null) {
+            delegate.glFramebufferTexture(target, attachment, texture, level);
+        }
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbufferTarget, int renderbuffer) {
+        record("glFramebufferRenderbuffer", target, attachment, renderbufferTarget, renderbuffer);
+        if (delegate != null) {
+            delegate.glFramebufferRenderbuffer(target, attachment, renderbufferTarget, renderbuffer);
+        }
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalFormat, int width, int height) {
+        record("glRenderbufferStorage", target, internalFormat, width, height);
+        if (delegate != null) {
+            delegate.glRenderbufferStorage(target, internalFormat, width, height);
+        }
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        record("glCheckFramebufferStatus", target);
+        return delegate != null ? delegate.glCheckFramebufferStatus(target) : GL30.GL_FRAMEBUFFER_COMPLETE;
+    }
+
+    // Vertex arrays
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        record("glEnableVertexAttribArray", index);
+        if (delegate != null) {
+            delegate.glEnableVertexAttribArray(index);
+        }
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+        record("glVertexAttribPointer", index, size, type, normalized, stride, pointer);
+        if (delegate != null) {
+            delegate.glVertexAttribPointer(index, size, type, normalized, stride, pointer);
+        }
+    }
+
+    // Draws, dispatches and barriers
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        record("glDrawArrays", mode, first, count);
+        if (delegate != null) {
+            delegate.glDrawArrays(mode, first, count);
+        }
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int primcount) {
+        record("glDrawArraysInstanced", mode, first, count, primcount);
+        if (delegate != null) {
+            delegate.glDrawArraysInstanced(mode, first, count, primcount);
+        }
+    }
+
+    @Override
+    public void glDrawArraysIndirect(int mode, long indirect) {
+        record("glDrawArraysIndirect", mode, indirect);
+        if (delegate != null) {
+            delegate.glDrawArraysIndirect(mode, indirect);
+        }
+    }
+
+    @Override
+    public void glDispatchCompute(int numGroupsX, int numGroupsY, int numGroupsZ) {
+        record("glDispatchCompute", numGroupsX, numGroupsY, numGroupsZ);
+        if (delegate != null) {
+            delegate.glDispatchCompute(numGroupsX, numGroupsY, numGroupsZ);
+        }
+    }
+
+    @Override
+    public void glDispatchComputeIndirect(long indirect) {
+        record("glDispatchComputeIndirect", indirect);
+        if (delegate != null) {
+            delegate.glDispatchComputeIndirect(indirect);
+        }
+    }
+
+    @Override
+    public void glMemoryBarrier(int barriers) {
+        record("glMemoryBarrier", "0x" + Integer.toHexString(barriers));
+        if (delegate != null) {
+            delegate.glMemoryBarrier(barriers);
+        }
+    }
+
+    // Sync objects and queries
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        record("glFenceSync", condition, flags);
+        return delegate != null ? delegate.glFenceSync(condition, flags) : 1L;
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        record("glClientWaitSync", sync, flags, timeout);
+        return delegate != null ? delegate.glClientWaitSync(sync, flags, timeout) : GL32.GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        record("glDeleteSync", sync);
+        if (delegate != null) {
+            delegate.glDeleteSync(sync);
+        }
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        record("glBeginQuery", target, id);
+        if (delegate != null) {
+            delegate.glBeginQuery(target, id);
+        }
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        record("glEndQuery", target);
+        if (delegate != null) {
+            delegate.glEndQuery(target);
+        }
+    }
+
+    @Override
+    public int glGetQueryObjecti(int id, int pname) {
+        record("glGetQueryObjecti", id, pname);
+        return delegate != null ? delegate.glGetQueryObjecti(id, pname) : GL11.GL_TRUE;
+    }
+
+    @Override
+    public long glGetQueryObjecti64(int id, int pname) {
+        record("glGetQueryObjecti64", id, pname);
+        return delegate != null ? delegate.glGetQueryObjecti64(id, pname) : 0L;
+    }
+
+    @Override
+    public long glGetQueryObjectui64(int id, int pname) {
+        record("glGetQueryObjectui64", id, pname);
+        return delegate != null ? delegate.glGetQueryObjectui64(id, pname) : 0L;
+    }
+
+    // Queries of the context
+
+    @Override
+    public int glGetError() {
+        record("glGetError");
+        return delegate != null ? delegate.glGetError() : GL11.GL_NO_ERROR;
+    }
+
+    @Override
+    public int glGetInteger(int pname) {
+        record("glGetInteger", pname);
+        if (delegate != null) {
+            return delegate.glGetInteger(pname);
+        }
+        switch (pname) {
+            case GL11.GL_MAX_TEXTURE_SIZE:
+                return 16384;
+            case GL43.GL_MAX_COMPUTE_WORK_GROUP_INVOCATIONS:
+                return 1024;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public int glGetIntegeri(int target, int index) {
+        record("glGetIntegeri", target, index);
+        return delegate != null ? delegate.glGetIntegeri(target, index) : 1024;
+    }
+
+    @Override
+    public String glGetString(int name) {
+        record("glGetString", name);
+        if (delegate != null) {
+            return delegate.glGetString(name);
+        }
+        return name == GL11.GL_VERSION ? "4.3 (recorded, no GPU)" : "RecordingGLFacade";
+    }
+}
@@ -6,10 +6,11 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 
 import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.SimulationConfig;
 import io.github.simulation.particles.ParticleSystem;
 
 /**
- * Handles keyboard input 
+ * Handles keyboard input, plus the mouse wheel and drags for the camera
  */
 public class SimulationInputProcessor extends InputAdapter {
 
@@ -78,6 +79,53 @@ public class SimulationInputProcessor extends InputAdapter {
                 RuntimeConfig.increaseGroupCount();
                 return true;
 
+            // World size and boundary control
+            case Input.Keys.X:
+                RuntimeConfig.increaseWorldSize();
+                return true;
+            case Input.Keys.Z:
+                RuntimeConfig.decreaseWorldSize();
+                return true;
+            case Input.Keys.W:
+                RuntimeConfig.toggleWrapBoundaries();
+                return true;
+
+            // Render mode control
+            case Input.Keys.M:
+                RuntimeConfig.cycleRenderMode();
+                return true;
+
+            // Physics mode control
+            case Input.Keys.F:
+                RuntimeConfig.toggleFixedPoint();
+                return true;
+            case Input.Keys.N:
+                RuntimeConfig.cycleForceLaw();
+                return true;
+            case Input.Keys.T:
+                RuntimeConfig.requestComputeTuning();
+                return true;
+            case Input.Keys.P:
+                RuntimeConfig.requestProfileExport();
+                return true;
+            case Input.Keys.E:
+                RuntimeConfig.toggleEnsembleMode();
+                return true;
+            case Input.Keys.Q:
+                RuntimeConfig.toggleQualityGovernor();
+                return true;
+
+            // Camera control
+            case Input.Keys.I:
+                RuntimeConfig.zoomView(SimulationConfig.VIEW_ZOOM_STEP);
+                return true;
+            case Input.Keys.O:
+                RuntimeConfig.zoomView(1f / SimulationConfig.VIEW_ZOOM_STEP);
+                return true;
+            case Input.Keys.C:
+                RuntimeConfig.resetView();
+                return true;
+
             // Attraction matrix control
             case Input.Keys.SPACE:
                 RuntimeConfig.randomizeAttractionMatrix();
@@ -123,4 +171,22 @@ public class SimulationInputProcessor extends InputAdapter {
         }
         return false;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean scrolled(float amountX, float amountY) {
+        if (amountY != 0f) {
+            float step = SimulationConfig.VIEW_ZOOM_STEP;
+            RuntimeConfig.zoomView(amountY < 0f ? step : 1f / step);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean touchDragged(int screenX, int screenY, int pointer) {
+        // The view is a square as tall as the window; the world follows the cursor
+        float pixelsPerNdc = Gdx.graphics.getHeight() / 2f;
+        RuntimeConfig.panView(-Gdx.input.getDeltaX(pointer) / pixelsPerNdc,
+                Gdx.input.getDeltaY(pointer) / pixelsPerNdc);
+        return true;
+    }
+}
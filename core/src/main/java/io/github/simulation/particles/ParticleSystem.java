@@ -6,6 +6,13 @@ import io.github.simulation.config.SimulationConfig;
 import io.github.simulation.config.RuntimeConfig;
 import io.github.simulation.config.RuntimeConfig.Distribution;
 import io.github.simulation.config.RuntimeGrid;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+import io.github.simulation.gl.GpuBufferPool;
+import io.github.simulation.profiling.BufferEvent;
+import io.github.simulation.profiling.FramePhaseEvent;
+import io.github.simulation.util.FixedPoint;
+import io.github.simulation.util.PositionSampler;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
@@ -13,57 +20,89 @@ import java.nio.IntBuffer;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Manages particle data and SSBO operations
+ * Manages particle data and SSBO operations. The particle buffer holds either
+ * the float layout or the fixed point layout (see FixedPoint), depending on
+ * RuntimeConfig.isFixedPoint(); capacity is always sized for the larger one.
+ * All SSBOs come from a GpuBufferPool and only change size class when the
+ * need leaves a grow/shrink hysteresis band.
  */
 public class ParticleSystem {
 
+    private final GLFacade gl = GLFacade.get();
     private int particleSSBO = 0;
-    private int gridDataSSBO = 0;
-    private int gridCountsSSBO = 0;
+    private int cellNextSSBO = 0;
+    private int cellHeadsSSBO = 0;
+    private int cellKeysSSBO = 0;
     private int particleCapacity = 0;
+    private GpuBufferPool bufferPool;
+
+    // Marks an empty hash slot / end of a cell list (also 0xFFFFFFFF as uint)
+    private static final int EMPTY = -1;
+    private static final int[] CLEAR_EMPTY = { EMPTY };
+    private static final String[] GRID_BUFFER_NAMES = { "cellNext", "cellHeads", "cellKeys" };
 
     public boolean initialize() {
+        bufferPool = new GpuBufferPool(SimulationConfig.BUFFER_POOL_RETAIN_BYTES);
         int startCount = RuntimeConfig.getParticleCount();
         createParticleBuffer(startCount);
-        createGridBuffers();
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        ensureGridBuffers();
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
         return true;
     }
 
     private void createParticleBuffer(int count) {
-        if (particleSSBO != 0) {
-            GL15.glDeleteBuffers(particleSSBO);
-        }
-        particleSSBO = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
-
-        long bytes = (long) count * SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES;
-        GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, bytes, GL15.GL_DYNAMIC_DRAW);
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 0, particleSSBO);
+        bufferPool.release(particleSSBO);
+        particleSSBO = bufferPool.acquire(particleBytes(count));
+        particleCapacity = capacityOf(particleSSBO);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 0, particleSSBO);
 
         if (count > 0) {
-            FloatBuffer seed = createInitialParticleData(count, SimulationConfig.DISTRIBUTION);
-            GL15.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, seed);
+            ByteBuffer seed = createInitialParticleData(count, SimulationConfig.DISTRIBUTION);
+            gl.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, seed);
         }
-        particleCapacity = count;
         RuntimeConfig.setParticleCount(count);
     }
 
-    private void createGridBuffers() {
-        int totalCells = RuntimeGrid.getGridSize() * RuntimeGrid.getGridSize();
-        int gridDataSize = totalCells * RuntimeGrid.getMaxParticlesPerCell();
-
-        // Grid data buffer --> stores particle indices for each cell
-        gridDataSSBO = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, gridDataSSBO);
-        GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, gridDataSize * Integer.BYTES, GL15.GL_DYNAMIC_DRAW);
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 1, gridDataSSBO);
-
-        // Grid counts buffer --> stores count of particles in each cell
-        gridCountsSSBO = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, gridCountsSSBO);
-        GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, totalCells * Integer.BYTES, GL15.GL_DYNAMIC_DRAW);
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 2, gridCountsSSBO);
+    /**
+     * Makes the grid buffers fit the current capacity and hash size. Buffers
+     * are only swapped when they leave the hysteresis band, so small range
+     * or count changes keep them.
+     */
+    private void ensureGridBuffers() {
+        long linkBytes = (long) Math.max(1, particleCapacity) * Integer.BYTES;
+        long slotBytes = (long) RuntimeGrid.getHashSlots() * Integer.BYTES;
+
+        // Cell next buffer --> per particle link to the next particle in the same cell
+        cellNextSSBO = fitGridBuffer(cellNextSSBO, linkBytes, 1);
+        // Cell heads buffer --> per hash slot, first particle of the cell list
+        cellHeadsSSBO = fitGridBuffer(cellHeadsSSBO, slotBytes, 2);
+        // Cell keys buffer --> per hash slot, packed cell coordinate occupying it
+        cellKeysSSBO = fitGridBuffer(cellKeysSSBO, slotBytes, 3);
+    }
+
+    private int fitGridBuffer(int buffer, long bytes, int binding) {
+        long capacity = bufferPool.capacityOf(buffer);
+        if (buffer != 0 && !outsideBand(bytes, capacity)) {
+            return buffer;
+        }
+        BufferEvent event = BufferEvent.start(GRID_BUFFER_NAMES[binding - 1],
+                bytes > capacity ? BufferEvent.GROW : BufferEvent.SHRINK, capacity);
+        bufferPool.release(buffer);
+        int fitted = bufferPool.acquire(bytes);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, binding, fitted);
+        event.toBytes = bufferPool.capacityOf(fitted);
+        event.finish();
+        return fitted;
+    }
+
+    /**
+     * True if a buffer of capacity bytes is too small for bytes, or at least
+     * SHRINK_RATIO times larger than the size class bytes needs
+     */
+    private static boolean outsideBand(long bytes, long capacity) {
+        return bytes > capacity
+                || GpuBufferPool.classBytes(bytes) * SimulationConfig.BUFFER_SHRINK_RATIO <= capacity;
     }
 
     public void addRandomParticles(int n) {
@@ -72,14 +111,15 @@ public class ParticleSystem {
         int current = RuntimeConfig.getParticleCount();
         int needed = current + n;
         if (needed > particleCapacity) {
-            growCapacity(Math.max(needed, particleCapacity * 2));
+            // Size classes are powers of two, so growth stays geometric
+            resizeParticleBuffer(needed);
         }
         // Generate new particle data
-        FloatBuffer data = createInitialParticleData(n, RuntimeConfig.getDistribution());
-        long strideBytes = (long) SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES;
+        ByteBuffer data = createInitialParticleData(n, RuntimeConfig.getDistribution());
+        long strideBytes = (long) strideWords() * Integer.BYTES;
         long dstOffset = (long) current * strideBytes;
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
-        GL15.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, dstOffset, data);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        gl.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, dstOffset, data);
         RuntimeConfig.setParticleCount(needed);
     }
 
@@ -89,15 +129,18 @@ public class ParticleSystem {
             return;
         n = Math.min(n, current);
         int newCount = current;
+        long strideBytes = (long) strideWords() * Integer.BYTES;
+        BufferEvent event = BufferEvent.start("particles", BufferEvent.COMPACT, current * strideBytes);
 
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
         // READ_WRITE mapping
-        ByteBuffer bb = GL15.glMapBuffer(GL43.GL_SHADER_STORAGE_BUFFER, GL15.GL_READ_WRITE);
+        ByteBuffer bb = gl.glMapBuffer(GL43.GL_SHADER_STORAGE_BUFFER, GL15.GL_READ_WRITE);
         if (bb == null) {
             return; // mapping failed
         }
-        FloatBuffer fb = bb.asFloatBuffer();
-        int strideFloats = SimulationConfig.PARTICLE_STRIDE_FLOATS;
+        // Swap as raw words so the uint group id is copied bit for bit
+        IntBuffer ib = bb.asIntBuffer();
+        int strideFloats = strideWords();
 
         ThreadLocalRandom rng = ThreadLocalRandom.current();
 
@@ -111,14 +154,20 @@ public class ParticleSystem {
                 int baseB = lastIndex * strideFloats;
                 // Swap (move last into removeIndex)
                 for (int i = 0; i < strideFloats; i++) {
-                    float v = fb.get(baseB + i);
-                    fb.put(baseA + i, v);
+                    ib.put(baseA + i, ib.get(baseB + i));
                 }
             }
             newCount--;
         }
-        GL15.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
+        gl.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
         RuntimeConfig.setParticleCount(newCount);
+        event.toBytes = newCount * strideBytes;
+        event.finish();
+
+        // Give memory back once the buffer is mostly empty, keeping 2x headroom
+        if (outsideBand(particleBytes(newCount), bufferPool.capacityOf(particleSSBO))) {
+            resizeParticleBuffer(newCount * 2);
+        }
     }
 
     public void reassignGroupsIfNeeded() {
@@ -131,154 +180,226 @@ public class ParticleSystem {
             return;
         }
 
+        // Colours live in the palette buffer; only group ids need rewriting
         int gCount = RuntimeConfig.getGroupCount();
-        float[][] palette = RuntimeConfig.getGroupColors();
 
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
-        ByteBuffer bb = GL15.glMapBuffer(GL43.GL_SHADER_STORAGE_BUFFER, GL15.GL_READ_WRITE);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        ByteBuffer bb = gl.glMapBuffer(GL43.GL_SHADER_STORAGE_BUFFER, GL15.GL_READ_WRITE);
         if (bb == null) {
             return;
         }
-        FloatBuffer fb = bb.asFloatBuffer();
+        IntBuffer ib = bb.asIntBuffer();
 
-        int stride = SimulationConfig.PARTICLE_STRIDE_FLOATS;
-        for (int i = 0; i < current; i++) {
-            int base = i * stride;
-            int groupId = i % gCount;
-
-            // color offset
-            int colBase = base + SimulationConfig.OFFSET_COLOR;
-            float[] col = palette[groupId];
-            fb.put(colBase, col[0]);
-            fb.put(colBase + 1, col[1]);
-            fb.put(colBase + 2, col[2]);
-            fb.put(colBase + 3, col[3]);
-
-            // meta/group id offset
-            fb.put(base + SimulationConfig.OFFSET_META, (float) groupId);
+        if (RuntimeConfig.isFixedPoint()) {
+            // Group id lives in the low bits of x
+            int stride = SimulationConfig.FIXED_STRIDE_WORDS;
+            for (int i = 0; i < current; i++) {
+                ib.put(i * stride, FixedPoint.withGroup(ib.get(i * stride), i % gCount));
+            }
+        } else {
+            int stride = SimulationConfig.PARTICLE_STRIDE_FLOATS;
+            for (int i = 0; i < current; i++) {
+                ib.put(i * stride + SimulationConfig.OFFSET_GROUP, i % gCount);
+            }
         }
 
-        GL15.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
+        gl.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
     }
 
-    // Grow capacity preserving existing particle data
-    private void growCapacity(int newCapacity) {
-        if (newCapacity <= particleCapacity) {
-            return;
-        }
-
+    // Move to a pooled buffer of another size class, preserving particle data
+    private void resizeParticleBuffer(int minCount) {
         int currentCount = RuntimeConfig.getParticleCount();
-
-        // Allocate new buffer sized exactly to newCapacity
-        int newBuffer = GL15.glGenBuffers();
-        long newBytes = (long) newCapacity * SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES;
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, newBuffer);
-        GL15.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, newBytes, GL15.GL_DYNAMIC_DRAW);
+        long oldBytes = bufferPool.capacityOf(particleSSBO);
+        BufferEvent event = BufferEvent.start("particles",
+                particleBytes(minCount) > oldBytes ? BufferEvent.GROW : BufferEvent.SHRINK, oldBytes);
+        int newBuffer = bufferPool.acquire(particleBytes(minCount));
 
         // Copy existing particle data if any
         if (currentCount > 0) {
-            long copyBytes = (long) currentCount * SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES;
-            GL15.glBindBuffer(GL31.GL_COPY_READ_BUFFER, particleSSBO);
-            GL15.glBindBuffer(GL31.GL_COPY_WRITE_BUFFER, newBuffer);
-            GL31.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, 0, 0, copyBytes);
+            long copyBytes = (long) currentCount * strideWords() * Integer.BYTES;
+            GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, particleSSBO);
+            GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, newBuffer);
+            gl.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, 0, 0, copyBytes);
         }
 
-        // Bind new buffer as SSBO 0 and delete old
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 0, newBuffer);
-        GL15.glDeleteBuffers(particleSSBO);
+        // Bind new buffer as SSBO 0 and retire the old one
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 0, newBuffer);
+        bufferPool.release(particleSSBO);
 
         particleSSBO = newBuffer;
-        particleCapacity = newCapacity;
+        particleCapacity = capacityOf(newBuffer);
+        event.toBytes = bufferPool.capacityOf(newBuffer);
+        event.finish();
+
+        // Cell links are sized by capacity
+        ensureGridBuffers();
     }
 
-    public void checkAndRebuildGrid() {
-        RuntimeGrid.updateGridParameters();
-        if (RuntimeGrid.needsGridRebuild()) {
-            rebuildGridBuffers();
-            RuntimeGrid.markGridRebuilt();
-        }
+    // Buffers are always sized for the float layout, the larger of the two
+    private static long particleBytes(int count) {
+        return (long) Math.max(1, count) * SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES;
     }
 
-    private void rebuildGridBuffers() {
-        // Delete old grid buffers
-        if (gridDataSSBO != 0) {
-            GL15.glDeleteBuffers(gridDataSSBO);
+    private int capacityOf(int buffer) {
+        long records = bufferPool.capacityOf(buffer) / ((long) SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES);
+        return (int) Math.min(Integer.MAX_VALUE, records);
+    }
+
+    /**
+     * Rewrites the particle buffer in place after the physics mode switched
+     * between float and fixed point
+     */
+    public void convertLayoutIfNeeded() {
+        if (!RuntimeConfig.consumeLayoutChanged()) {
+            return;
+        }
+        int count = RuntimeConfig.getParticleCount();
+        if (count == 0) {
+            return;
         }
-        if (gridCountsSSBO != 0) {
-            GL15.glDeleteBuffers(gridCountsSSBO);
+
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        ByteBuffer bb = gl.glMapBuffer(GL43.GL_SHADER_STORAGE_BUFFER, GL15.GL_READ_WRITE);
+        if (bb == null) {
+            return;
         }
+        IntBuffer ib = bb.asIntBuffer();
+        FloatBuffer fb = bb.asFloatBuffer();
 
-        // Create new grid buffers with current parameters
-        createGridBuffers();
+        float e = RuntimeConfig.getWorldHalfExtent();
+        float dt = SimulationConfig.FIXED_POINT_DT;
+        int fixedStride = SimulationConfig.FIXED_STRIDE_WORDS;
+        int floatStride = SimulationConfig.PARTICLE_STRIDE_FLOATS;
+
+        if (RuntimeConfig.isFixedPoint()) {
+            // Fixed records are smaller, so walking forward never overwrites unread data
+            for (int i = 0; i < count; i++) {
+                int src = i * floatStride;
+                float x = fb.get(src + SimulationConfig.OFFSET_POS);
+                float y = fb.get(src + SimulationConfig.OFFSET_POS + 1);
+                float vx = fb.get(src + SimulationConfig.OFFSET_VEL);
+                float vy = fb.get(src + SimulationConfig.OFFSET_VEL + 1);
+                int group = ib.get(src + SimulationConfig.OFFSET_GROUP);
+
+                int dst = i * fixedStride;
+                ib.put(dst, FixedPoint.withGroup(FixedPoint.encodePosition(x, e), group));
+                ib.put(dst + 1, FixedPoint.encodePosition(y, e));
+                ib.put(dst + 2, FixedPoint.packVelocity(FixedPoint.encodeVelocity(vx, dt, e),
+                        FixedPoint.encodeVelocity(vy, dt, e)));
+            }
+        } else {
+            // Float records are larger, so walk backwards
+            for (int i = count - 1; i >= 0; i--) {
+                int src = i * fixedStride;
+                int fx = ib.get(src);
+                int fy = ib.get(src + 1);
+                int vel = ib.get(src + 2);
+
+                int dst = i * floatStride;
+                fb.put(dst + SimulationConfig.OFFSET_POS, FixedPoint.decodePosition(fx, e));
+                fb.put(dst + SimulationConfig.OFFSET_POS + 1, FixedPoint.decodePosition(fy, e));
+                fb.put(dst + SimulationConfig.OFFSET_VEL, FixedPoint.decodeVelocity(FixedPoint.velocityX(vel), dt, e));
+                fb.put(dst + SimulationConfig.OFFSET_VEL + 1, FixedPoint.decodeVelocity(FixedPoint.velocityY(vel), dt, e));
+                ib.put(dst + SimulationConfig.OFFSET_GROUP, FixedPoint.groupOf(fx));
+                ib.put(dst + SimulationConfig.OFFSET_GROUP + 1, 0);
+            }
+        }
+        gl.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
+    }
+
+    private static int strideWords() {
+        return RuntimeConfig.isFixedPoint() ? SimulationConfig.FIXED_STRIDE_WORDS : SimulationConfig.PARTICLE_STRIDE_FLOATS;
+    }
+
+    public void checkAndRebuildGrid() {
+        RuntimeGrid.updateGridParameters();
+        if (RuntimeGrid.needsGridRebuild()) {
+            ensureGridBuffers();
+            RuntimeGrid.markGridRebuilt();
+        }
     }
 
     public void bindSSBO() {
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 0, particleSSBO);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 0, particleSSBO);
+
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, cellNextSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 1, cellNextSSBO);
 
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, gridDataSSBO);
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 1, gridDataSSBO);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, cellHeadsSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 2, cellHeadsSSBO);
 
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, gridCountsSSBO);
-        GL30.glBindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 2, gridCountsSSBO);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, cellKeysSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 3, cellKeysSSBO);
     }
 
     public int getSSBO() {
         return particleSSBO;
     }
 
-    public void clearGrid() {
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, gridCountsSSBO);
+    /**
+     * Bytes the live particles occupy in the current layout
+     */
+    public long getParticleBytes() {
+        return (long) RuntimeConfig.getParticleCount() * strideWords() * Integer.BYTES;
+    }
 
-        // Clear the buffer with zeros
-        int totalCells = RuntimeGrid.getGridSize() * RuntimeGrid.getGridSize();
-        IntBuffer zeros = BufferUtils.createIntBuffer(totalCells);
-        for (int i = 0; i < totalCells; i++) {
-            zeros.put(0);
-        }
-        zeros.flip();
-        GL15.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, zeros);
+    public GpuBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public void clearGrid() {
+        FramePhaseEvent event = FramePhaseEvent.start("clearGrid");
+        // Mark the active hash slots empty; cell links are rewritten by the populate pass.
+        // The buffers may be larger than the hash (hysteresis), the tail is never read.
+        long slotBytes = (long) RuntimeGrid.getHashSlots() * Integer.BYTES;
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, cellHeadsSSBO);
+        gl.glClearBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, GL30.GL_R32I, 0, slotBytes, GL30.GL_RED_INTEGER,
+                GL11.GL_INT, CLEAR_EMPTY);
+
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, cellKeysSSBO);
+        gl.glClearBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, GL30.GL_R32I, 0, slotBytes, GL30.GL_RED_INTEGER,
+                GL11.GL_INT, CLEAR_EMPTY);
+        event.finish();
     }
 
     public void unbindSSBO() {
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
     }
 
     public void dispose() {
-        if (particleSSBO != 0) {
-            GL15.glDeleteBuffers(particleSSBO);
-            particleSSBO = 0;
-        }
-        if (gridDataSSBO != 0) {
-            GL15.glDeleteBuffers(gridDataSSBO);
-            gridDataSSBO = 0;
-        }
-        if (gridCountsSSBO != 0) {
-            GL15.glDeleteBuffers(gridCountsSSBO);
-            gridCountsSSBO = 0;
+        if (bufferPool != null) {
+            bufferPool.dispose();
         }
+        particleSSBO = 0;
+        cellNextSSBO = 0;
+        cellHeadsSSBO = 0;
+        cellKeysSSBO = 0;
     }
 
-    private FloatBuffer createInitialParticleData(int count, Distribution dist) {
-        FloatBuffer initial = BufferUtils.createFloatBuffer(count * SimulationConfig.PARTICLE_STRIDE_FLOATS);
-        int groups = SimulationConfig.PARTICLE_GROUPS;
+    private ByteBuffer createInitialParticleData(int count, Distribution dist) {
+        ByteBuffer initial = BufferUtils.createByteBuffer(count * strideWords() * Integer.BYTES);
+        int groups = RuntimeConfig.getGroupCount();
+        float e = RuntimeConfig.getWorldHalfExtent();
         for (int i = 0; i < count; i++) {
             // Assign a group
             int groupId = i % groups;
 
             // Position
             float[] p = samplePosition(dist);
-            initial.put(p[0]).put(p[1]).put(0f).put(1f); // pos (w=1)
+            if (RuntimeConfig.isFixedPoint()) {
+                // x with the group in its low bits, y, zero velocity
+                initial.putInt(FixedPoint.withGroup(FixedPoint.encodePosition(p[0], e), groupId));
+                initial.putInt(FixedPoint.encodePosition(p[1], e)).putInt(0);
+                continue;
+            }
+            initial.putFloat(p[0]).putFloat(p[1]);
 
             // Velocity
-            initial.put(0f).put(0f).put(0f).put(0f);
+            initial.putFloat(0f).putFloat(0f);
 
-            // Color
-            float[] col = SimulationConfig.GROUP_COLORS[groupId];
-            initial.put(col[0]).put(col[1]).put(col[2]).put(col[3]);
-
-            // x = group id
-            initial.put((float) groupId).put(0f).put(0f).put(0f);
+            // Group id + padding
+            initial.putInt(groupId).putInt(0);
         }
         initial.flip();
         return initial;
@@ -289,84 +410,48 @@ public class ParticleSystem {
         if (count == 0) {
             return;
         }
-        GL15.glBindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
-        ByteBuffer bb = GL15.glMapBuffer(GL43.GL_SHADER_STORAGE_BUFFER, GL15.GL_READ_WRITE);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        ByteBuffer bb = gl.glMapBuffer(GL43.GL_SHADER_STORAGE_BUFFER, GL15.GL_READ_WRITE);
         if (bb == null) {
             return;
         }
         FloatBuffer fb = bb.asFloatBuffer();
 
+        if (RuntimeConfig.isFixedPoint()) {
+            IntBuffer ib = bb.asIntBuffer();
+            float e = RuntimeConfig.getWorldHalfExtent();
+            int stride = SimulationConfig.FIXED_STRIDE_WORDS;
+            for (int i = 0; i < count; i++) {
+                int base = i * stride;
+                float[] p = samplePosition(dist);
+                ib.put(base, FixedPoint.withGroup(FixedPoint.encodePosition(p[0], e), ib.get(base)));
+                ib.put(base + 1, FixedPoint.encodePosition(p[1], e));
+                ib.put(base + 2, 0);
+            }
+            gl.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
+            return;
+        }
+
         int stride = SimulationConfig.PARTICLE_STRIDE_FLOATS;
         for (int i = 0; i < count; i++) {
             int base = i * stride;
 
             float[] p = samplePosition(dist);
 
-            // position (OFFSET_POS .. +3)
+            // position (OFFSET_POS .. +1)
             int pBase = base + SimulationConfig.OFFSET_POS;
             fb.put(pBase, p[0]);
             fb.put(pBase + 1, p[1]);
-            fb.put(pBase + 2, 0f);
-            fb.put(pBase + 3, 1f);
 
-            // reset velocity (OFFSET_VEL .. +3)
+            // reset velocity (OFFSET_VEL .. +1)
             int vBase = base + SimulationConfig.OFFSET_VEL;
             fb.put(vBase, 0f);
             fb.put(vBase + 1, 0f);
-            fb.put(vBase + 2, 0f);
-            fb.put(vBase + 3, 0f);
         }
-        GL15.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
+        gl.glUnmapBuffer(GL43.GL_SHADER_STORAGE_BUFFER);
     }
 
     private static float[] samplePosition(Distribution dist) {
-        switch (dist) {
-            case UNIFORM:
-                return sampleUniformPosition();
-            case CENTER_BIASED:
-                return sampleCentralPosition();
-            case GAUSSIAN:
-                return sampleGaussianPosition();
-            default:
-                return sampleUniformPosition();
-        }
-    }
-
-    /**
-     * Uniform distribution in the square [-1, 1] x [-1, 1]
-     */
-    private static float[] sampleUniformPosition() {
-        float x = (float) (Math.random() * 2.0 - 1.0);
-        float y = (float) (Math.random() * 2.0 - 1.0);
-        return new float[] { x, y };
-    }
-
-    /**
-     * Center-biased distribution
-     * Uses a radial power law r = U^beta with beta > 0.5
-     */
-    private static final float CENTER_BIAS_BETA = 1.5f; // > 0.5 biases toward center
-
-    private static float[] sampleCentralPosition() {
-        double u = Math.random();
-        double theta = Math.random() * Math.PI * 2.0;
-        double r = Math.pow(u, CENTER_BIAS_BETA);
-        float x = (float) (r * Math.cos(theta));
-        float y = (float) (r * Math.sin(theta));
-        return new float[] { x, y };
-    }
-
-    /**
-     * Gaussian (normal) distribution centered at (0,0)
-     * Uses Box-Muller transform
-     */
-    private static float[] sampleGaussianPosition() {
-        double u1 = Math.max(1e-6, Math.random());
-        double u2 = Math.random();
-        double mag = Math.sqrt(-2.0 * Math.log(u1));
-        double z0 = mag * Math.cos(2 * Math.PI * u2);
-        double z1 = mag * Math.sin(2 * Math.PI * u2);
-        float scale = 0.3f;
-        return new float[] { (float) (z0 * scale), (float) (z1 * scale) };
+        return PositionSampler.sample(dist, ThreadLocalRandom.current(), RuntimeConfig.getWorldHalfExtent());
     }
 }
@@ -0,0 +1,44 @@
+package io.github.simulation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A particle or grid buffer grew, shrank or was compacted
+ */
+@Name("io.github.simulation.Buffer")
+@Label("Buffer Resize")
+@Category({ "Particle Simulation", "Memory" })
+@Description("Growth, shrinking or compaction of a particle or grid buffer")
+public class BufferEvent extends SimulationEvent {
+
+    public static final String GROW = "grow";
+    public static final String SHRINK = "shrink";
+    public static final String COMPACT = "compact";
+
+    @Label("Buffer")
+    public String buffer;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Bytes Before")
+    @DataAmount
+    public long fromBytes;
+
+    @Label("Bytes After")
+    @DataAmount
+    public long toBytes;
+
+    public static BufferEvent start(String buffer, String operation, long fromBytes) {
+        BufferEvent event = new BufferEvent();
+        event.buffer = buffer;
+        event.operation = operation;
+        event.fromBytes = fromBytes;
+        event.begin();
+        return event;
+    }
+}
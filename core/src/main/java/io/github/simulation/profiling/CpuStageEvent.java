@@ -0,0 +1,30 @@
+package io.github.simulation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One stage (grid, forces, integrate) of a CpuParticleEngine step
+ */
+@Name("io.github.simulation.CpuStage")
+@Label("CPU Engine Stage")
+@Category({ "Particle Simulation", "CPU Engine" })
+@Description("Wall time of one stage of a CPU engine step")
+public class CpuStageEvent extends SimulationEvent {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Threads")
+    public int threads;
+
+    public static CpuStageEvent start(String stage, int threads) {
+        CpuStageEvent event = new CpuStageEvent();
+        event.stage = stage;
+        event.threads = threads;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.simulation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One phase of Simulation.render. GL calls are asynchronous, so the duration
+ * is CPU time spent issuing the phase, not GPU execution time.
+ */
+@Name("io.github.simulation.FramePhase")
+@Label("Frame Phase")
+@Category({ "Particle Simulation", "Frame" })
+@Description("CPU time of one phase of the render loop")
+public class FramePhaseEvent extends SimulationEvent {
+
+    @Label("Phase")
+    public String phase;
+
+    public static FramePhaseEvent start(String phase) {
+        FramePhaseEvent event = new FramePhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.simulation.profiling;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import org.lwjgl.opengl.*;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.gl.GLFacade;
+
+import java.util.Arrays;
+
+/**
+ * Per-pass GPU timings from GL_TIME_ELAPSED queries. Queries are double
+ * buffered by frame: a slot is only read back when it is about to be reused,
+ * one frame after it was submitted, and a slot whose results are not
+ * available yet is dropped instead of waited on, so the profiler never
+ * stalls the pipeline. Populate and force run once per substep; their
+ * queries are summed into one value per frame.
+ */
+public class GpuProfiler {
+
+    public static final int POPULATE = 0;
+    public static final int FORCE = 1;
+    public static final int DRAW = 2;
+    public static final int BLIT = 3;
+    public static final int OVERLAY = 4;
+    public static final int PASSES = 5;
+    private static final String[] PASS_NAMES = { "populate", "force", "draw", "blit", "overlay" };
+
+    private static final int FRAMES = 2;
+    private static final int QUERIES_PER_PASS = SimulationConfig.MAX_SUBSTEPS;
+
+    /**
+     * Never issues queries; the default of renderers not given a profiler
+     */
+    public static final GpuProfiler DISABLED = new GpuProfiler(0);
+
+    private final GLFacade gl = GLFacade.get();
+    private final int[][][] queries = new int[FRAMES][PASSES][QUERIES_PER_PASS];
+    private final int[][] issued = new int[FRAMES][PASSES];
+    private boolean queriesCreated = false;
+    private int slot = 0;
+    private int activePass = -1;
+    private boolean enabled;
+
+    // Rolling window of per-frame milliseconds, one ring per pass
+    private final int window;
+    private final float[][] history;
+    private final long[] historyFrames;
+    private final float[] sorted;
+    private int historyHead = 0;
+    private int historyCount = 0;
+    private long frameNumber = 0;
+    private long droppedFrames = 0;
+
+    public GpuProfiler() {
+        this(SimulationConfig.GPU_PROFILE_WINDOW);
+    }
+
+    private GpuProfiler(int window) {
+        this.window = window;
+        this.enabled = window > 0;
+        this.history = new float[PASSES][window];
+        this.historyFrames = new long[window];
+        this.sorted = new float[window];
+    }
+
+    /**
+     * Starts a frame: collects the slot about to be reused, then records into it
+     */
+    public void beginFrame() {
+        if (!enabled) {
+            return;
+        }
+        if (!queriesCreated) {
+            for (int[][] frame : queries) {
+                for (int[] pass : frame) {
+                    gl.glGenQueries(pass);
+                }
+            }
+            queriesCreated = true;
+        }
+        frameNumber++;
+        slot = (slot + 1) % FRAMES;
+        collect(slot);
+        Arrays.fill(issued[slot], 0);
+    }
+
+    public void begin(int pass) {
+        if (!enabled || !queriesCreated || activePass >= 0 || issued[slot][pass] >= QUERIES_PER_PASS) {
+            return;
+        }
+        gl.glBeginQuery(GL33.GL_TIME_ELAPSED, queries[slot][pass][issued[slot][pass]]);
+        activePass = pass;
+    }
+
+    public void end(int pass) {
+        if (activePass != pass) {
+            return;
+        }
+        gl.glEndQuery(GL33.GL_TIME_ELAPSED);
+        issued[slot][pass]++;
+        activePass = -1;
+    }
+
+    private void collect(int frameSlot) {
+        int[][] frame = queries[frameSlot];
+        int[] counts = issued[frameSlot];
+        boolean any = false;
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (int i = 0; i < counts[pass]; i++) {
+                any = true;
+                if (gl.glGetQueryObjecti(frame[pass][i], GL15.GL_QUERY_RESULT_AVAILABLE) == GL11.GL_FALSE) {
+                    droppedFrames++;
+                    return;
+                }
+            }
+        }
+        if (!any) {
+            return;
+        }
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            long nanos = 0;
+            for (int i = 0; i < counts[pass]; i++) {
+                nanos += gl.glGetQueryObjectui64(frame[pass][i], GL15.GL_QUERY_RESULT);
+            }
+            history[pass][historyHead] = nanos / 1_000_000f;
+        }
+        // The slot was recorded FRAMES - 1 frames ago
+        historyFrames[historyHead] = frameNumber - (FRAMES - 1);
+        historyHead = (historyHead + 1) % window;
+        historyCount = Math.min(historyCount + 1, window);
+    }
+
+    /**
+     * Percentile (0..1) of one pass over the rolling window, in milliseconds
+     */
+    public float percentile(int pass, float p) {
+        if (historyCount == 0) {
+            return 0f;
+        }
+        System.arraycopy(history[pass], 0, sorted, 0, historyCount);
+        Arrays.sort(sorted, 0, historyCount);
+        int index = Math.min(historyCount - 1, (int) (p * historyCount));
+        return sorted[index];
+    }
+
+    public boolean hasSamples() {
+        return historyCount > 0;
+    }
+
+    public static String passName(int pass) {
+        return PASS_NAMES[pass];
+    }
+
+    /**
+     * Writes the rolling window, oldest frame first, as CSV
+     */
+    public void exportCsv(FileHandle file) {
+        StringBuilder csv = new StringBuilder("frame");
+        for (String name : PASS_NAMES) {
+            csv.append(',').append(name).append("_ms");
+        }
+        csv.append('\n');
+        int start = (historyHead - historyCount + window) % window;
+        for (int i = 0; i < historyCount; i++) {
+            int row = (start + i) % window;
+            csv.append(historyFrames[row]);
+            for (int pass = 0; pass < PASSES; pass++) {
+                csv.append(',').append(history[pass][row]);
+            }
+            csv.append('\n');
+        }
+        try {
+            file.writeString(csv.toString(), false);
+            Gdx.app.log("GpuProfiler", "Wrote " + historyCount + " frames to " + file.path()
+                    + " (" + droppedFrames + " frames dropped as not ready)");
+        } catch (RuntimeException e) {
+            Gdx.app.error("GpuProfiler", "Could not write " + file.path() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Disabled while something else times GPU work (GL_TIME_ELAPSED queries
+     * cannot nest), e.g. the compute tuner
+     */
+    public void setEnabled(boolean enabled) {
+        if (this == DISABLED) {
+            return;
+        }
+        if (!enabled && activePass >= 0) {
+            end(activePass);
+        }
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void dispose() {
+        if (!queriesCreated) {
+            return;
+        }
+        for (int[][] frame : queries) {
+            for (int[] pass : frame) {
+                gl.glDeleteQueries(pass);
+            }
+        }
+        queriesCreated = false;
+    }
+}
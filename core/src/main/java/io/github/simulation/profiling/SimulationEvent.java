@@ -0,0 +1,47 @@
+package io.github.simulation.profiling;
+
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.RuntimeGrid;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the simulation's JFR events. Every event carries the scene
+ * parameters so recordings can be correlated with what was being simulated.
+ * Events are created per phase; with no recording running begin/end/commit
+ * are no-ops and the JIT removes the allocation.
+ */
+@Category("Particle Simulation")
+public abstract class SimulationEvent extends Event {
+
+    @Label("Particle Count")
+    protected int particleCount;
+
+    @Label("Grid Size")
+    protected int gridSize;
+
+    @Label("Group Count")
+    protected int groupCount;
+
+    /**
+     * Ends the event and commits it with the GPU simulation's current scene
+     */
+    public void finish() {
+        finish(RuntimeConfig.getParticleCount(), RuntimeGrid.getGridSize(), RuntimeConfig.getGroupCount());
+    }
+
+    /**
+     * Ends the event and commits it with the given scene parameters if the
+     * recording wants it
+     */
+    public void finish(int particleCount, int gridSize, int groupCount) {
+        end();
+        if (shouldCommit()) {
+            this.particleCount = particleCount;
+            this.gridSize = gridSize;
+            this.groupCount = groupCount;
+            commit();
+        }
+    }
+}
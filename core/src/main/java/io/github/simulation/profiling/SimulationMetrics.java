@@ -0,0 +1,214 @@
+package io.github.simulation.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Live step telemetry published over JMX. Recording is allocation free and
+ * lock free (atomics and volatile fields only), so it can run on the frame
+ * loop and on CPU engine worker threads; percentiles are computed when a
+ * JMX client reads them.
+ *
+ * Latencies go into a log-linear histogram: 8 linear sub-buckets per power of
+ * two, so any percentile is within 12.5% of the recorded value.
+ */
+public class SimulationMetrics implements SimulationMetricsMBean {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private static final ConcurrentMap<String, SimulationMetrics> SOURCES = new ConcurrentHashMap<>();
+
+    /**
+     * Not registered and records nothing; the default of CPU engines whose
+     * owner runs several side by side and so cannot give each one a source
+     */
+    public static final SimulationMetrics DISABLED = new SimulationMetrics();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong totalSteps = new AtomicLong();
+
+    // Steps/sec over the last completed window of RATE_WINDOW_NANOS
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong windowStepsStart = new AtomicLong();
+    private volatile double stepsPerSecond = 0.0;
+
+    private volatile int particleCount = 0;
+    private volatile int gridSize = 0;
+    private volatile long droppedInserts = 0;
+    private volatile long bufferBytes = 0;
+
+    /**
+     * Metrics of one source ("gpu", "cpu"), created and registered with the
+     * platform MBean server on first use
+     */
+    public static SimulationMetrics forSource(String source) {
+        return SOURCES.computeIfAbsent(source, SimulationMetrics::register);
+    }
+
+    private static SimulationMetrics register(String source) {
+        SimulationMetrics metrics = new SimulationMetrics();
+        try {
+            ObjectName name = new ObjectName("io.github.simulation:type=SimulationMetrics,name=" + source);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+        } catch (JMException | RuntimeException e) {
+            // Still usable for recording, just not visible over JMX
+            System.err.println("SimulationMetrics: could not register " + source + ": " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * Records steps that together took nanos, e.g. one frame of substeps
+     */
+    public void recordSteps(int steps, long nanos) {
+        if (this == DISABLED) {
+            return;
+        }
+        long total = totalSteps.addAndGet(steps);
+        if (nanos < 0) {
+            return;
+        }
+        histogram.incrementAndGet(bucketOf(nanos));
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        long elapsed = now - start;
+        if (elapsed >= RATE_WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            long first = windowStepsStart.getAndSet(total);
+            stepsPerSecond = (total - first) * 1e9 / elapsed;
+        }
+    }
+
+    public void setScene(int particleCount, int gridSize) {
+        if (this == DISABLED) {
+            return;
+        }
+        this.particleCount = particleCount;
+        this.gridSize = gridSize;
+    }
+
+    public void setDroppedInserts(long droppedInserts) {
+        if (this == DISABLED) {
+            return;
+        }
+        this.droppedInserts = droppedInserts;
+    }
+
+    public void setBufferBytes(long bufferBytes) {
+        if (this == DISABLED) {
+            return;
+        }
+        this.bufferBytes = bufferBytes;
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    // Largest value that falls into a bucket
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long lower = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private double percentileMillis(double p) {
+        long samples = getLatencySamples();
+        if (samples == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * samples));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram.get(b);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(b), maxNanos.get()) / 1e6;
+            }
+        }
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getTotalSteps() {
+        return totalSteps.get();
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return percentileMillis(0.50);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return percentileMillis(0.99);
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getLatencySamples() {
+        long samples = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            samples += histogram.get(b);
+        }
+        return samples;
+    }
+
+    @Override
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    @Override
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    @Override
+    public long getDroppedInserts() {
+        return droppedInserts;
+    }
+
+    @Override
+    public long getBufferBytes() {
+        return bufferBytes;
+    }
+
+    @Override
+    public void resetLatency() {
+        for (int b = 0; b < BUCKETS; b++) {
+            histogram.set(b, 0);
+        }
+        maxNanos.set(0);
+    }
+}
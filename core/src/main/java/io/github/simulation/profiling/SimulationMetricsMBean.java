@@ -0,0 +1,33 @@
+package io.github.simulation.profiling;
+
+/**
+ * JMX view of SimulationMetrics, registered as
+ * io.github.simulation:type=SimulationMetrics,name=&lt;source&gt;
+ */
+public interface SimulationMetricsMBean {
+
+    long getTotalSteps();
+
+    double getStepsPerSecond();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyMaxMillis();
+
+    long getLatencySamples();
+
+    int getParticleCount();
+
+    int getGridSize();
+
+    long getDroppedInserts();
+
+    long getBufferBytes();
+
+    /**
+     * Clears the latency histogram and max, e.g. after a scene change
+     */
+    void resetLatency();
+}
@@ -1,105 +1,445 @@
 package io.github.simulation.render;
 
 import com.badlogic.gdx.Gdx;
+import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.*;
 import io.github.simulation.config.SimulationConfig;
 import io.github.simulation.config.RuntimeConfig;
 import io.github.simulation.config.RuntimeGrid;
+import io.github.simulation.force.ForceTable;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+import io.github.simulation.particles.ParticleSystem;
+import io.github.simulation.profiling.GpuProfiler;
+import io.github.simulation.util.FixedPointParams;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
 /**
  * Handles compute shader execution for particle physics
  */
 public class ComputeRenderer {
 
-    private final int computeProgram;
+    private final GLFacade gl = GLFacade.get();
 
-    public ComputeRenderer(int computeProgram) {
-        this.computeProgram = computeProgram;
-    }
+    // Populate and force passes are separate programs (particle.comp with and without POPULATE_PASS)
+    private int populateProgram;
+    private int computeProgram;
+    private int populateWorkgroupSize = SimulationConfig.WORKGROUP_SIZE;
+    private int workgroupSize = SimulationConfig.WORKGROUP_SIZE;
+    private boolean tiledForces = false;
+    private final IntBuffer localSizeQuery = BufferUtils.createIntBuffer(3);
+    private final int dispatchProgram;
 
-    public void executeComputeShader(float deltaTime, float totalTime) {
-        GL20.glUseProgram(computeProgram);
+    // particle_fixed.comp, one program per pass: grid, velocities, positions
+    private final int fixedPopulateProgram;
+    private final int fixedVelocityProgram;
+    private final int fixedPositionProgram;
 
-        // Apply time scaling to delta time
-        float scaledDeltaTime = deltaTime * RuntimeConfig.getTimeScale();
+    // GPU-resident particle count and the indirect dispatch arguments dispatch.comp derives from it
+    private static final int COUNT_BINDING = 6;
+    private static final int DISPATCH_ARGS_BINDING = 7;
+    private static final long POPULATE_ARGS_OFFSET = 0;
+    private static final long FORCE_ARGS_OFFSET = 12;
+    private int countBuffer = 0;
+    private int dispatchArgsBuffer = 0;
+    private int uploadedCount = -1;
+    private final IntBuffer countUpload = BufferUtils.createIntBuffer(1);
 
-        // Set basic uniforms
-        setUniform("u_dt", scaledDeltaTime);
-        setUniform("u_count", RuntimeConfig.getParticleCount());
-        setUniform("u_group_count", RuntimeConfig.getGroupCount());
+    // Hash insert failures counted by the populate pass after the count, copied
+    // out behind a fence and read only once the fence has signalled
+    private static final long DROPPED_INSERTS_OFFSET = 4;
+    private int droppedReadback = 0;
+    private long droppedFence = 0;
+    private long droppedInserts = 0;
+    private final IntBuffer droppedValue = BufferUtils.createIntBuffer(1);
 
-        // Update runtime configuration uniforms
-        setUniform("u_force_factor", RuntimeConfig.getForceFactor());
-        setUniform("u_velocity_damping", RuntimeConfig.getVelocityDamping());
-        setUniform("u_interaction_range", RuntimeConfig.getInteractionRange());
-        setUniform("u_grid_size", RuntimeGrid.getGridSize());
-        setUniform("u_grid_cell_size", RuntimeGrid.getGridCellSize());
-        setUniform("u_max_particles_per_cell", RuntimeGrid.getMaxParticlesPerCell());
+    // Force law compiled against the attraction matrix, sampled with linear filtering by particle.comp
+    private static final int FORCE_TABLE_UNIT = 1;
+    private int forceTableTex = 0;
+    private ForceTable forceTable = null;
+    private int forceTableLawVersion;
+    private int forceTableAttractionVersion;
+
+    private GpuProfiler profiler = GpuProfiler.DISABLED;
+
+    // Fixed point constants and the settings they were derived from
+    private FixedPointParams fixedParams = null;
+    private float fixedRange;
+    private float fixedExtent;
+    private float fixedForceFactor;
+    private float fixedDamping;
+    private int fixedAttractionVersion;
+
+    public ComputeRenderer(int populateProgram, int computeProgram, int dispatchProgram,
+                           int fixedPopulateProgram, int fixedVelocityProgram, int fixedPositionProgram) {
+        this.populateProgram = populateProgram;
+        this.computeProgram = computeProgram;
+        this.dispatchProgram = dispatchProgram;
+        this.fixedPopulateProgram = fixedPopulateProgram;
+        this.fixedVelocityProgram = fixedVelocityProgram;
+        this.fixedPositionProgram = fixedPositionProgram;
+    }
+
+    public void setProfiler(GpuProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Switches to another build of particle.comp, e.g. a specialised variant;
+     * dispatch sizes follow the programs' own local sizes. A tiled program
+     * runs the force pass as one workgroup per block of TILE_CELLS^2 cells.
+     */
+    public void setComputePrograms(int populate, int force, boolean tiled) {
+        if (populate == 0 || force == 0 || (populate == populateProgram && force == computeProgram)) {
+            return;
+        }
+        populateProgram = populate;
+        computeProgram = force;
+        tiledForces = tiled;
+        populateWorkgroupSize = localSize(populate);
+        workgroupSize = localSize(force);
+    }
 
-        updateAttractionMatrix();
+    private int localSize(int program) {
+        gl.glGetProgramiv(program, GL43.GL_COMPUTE_WORK_GROUP_SIZE, localSizeQuery);
+        return Math.max(1, localSizeQuery.get(0));
+    }
 
+    /**
+     * Records RuntimeConfig.getSubsteps() steps of dt / substeps each. Group
+     * counts come from the GPU-resident particle count through
+     * glDispatchComputeIndirect, and nothing here reads back from the GPU
+     * unless GL_DEBUG is set, so the frame is submitted without sync points.
+     */
+    public void executeComputeShader(float deltaTime, float totalTime, ParticleSystem particleSystem) {
         // skip if no particles
         int particleCount = RuntimeConfig.getParticleCount();
         if (particleCount == 0) {
-            // Nothing to process; avoid invalid dispatch (0 workgroups)
-            GL20.glUseProgram(0);
+            return;
+        }
+        ensureDispatchBuffers();
+        uploadCountIfChanged(particleCount);
+
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, COUNT_BINDING, countBuffer);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, DISPATCH_ARGS_BINDING, dispatchArgsBuffer);
+
+        if (RuntimeConfig.isFixedPoint()) {
+            executeFixedPoint(particleSystem);
             return;
         }
 
-        // Calculate dispatch groups
-        int groups = (particleCount + SimulationConfig.WORKGROUP_SIZE - 1)
-                / SimulationConfig.WORKGROUP_SIZE;
+        // Apply time scaling to delta time, split across the substeps
+        int substeps = RuntimeConfig.getSubsteps();
+        float substepDeltaTime = deltaTime * RuntimeConfig.getTimeScale() / substeps;
 
-        // Populate spatial grid
-        setUniform("u_pass", 0);
-        GL43.glDispatchCompute(groups, 1, 1);
-        GL43.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT);
+        int blocks = (RuntimeGrid.getGridSize() + SimulationConfig.TILE_CELLS - 1) / SimulationConfig.TILE_CELLS;
+        writeDispatchArgs(populateWorkgroupSize, workgroupSize, tiledForces ? blocks : 0);
 
-        // Calculate forces using spatial grid
-        setUniform("u_pass", 1);
-        GL43.glDispatchCompute(groups, 1, 1);
+        GLStateManager.useProgram(populateProgram);
+        setStepUniforms(populateProgram, substepDeltaTime);
+        GLStateManager.useProgram(computeProgram);
+        setStepUniforms(computeProgram, substepDeltaTime);
+        bindForceTable(computeProgram);
+
+        GLStateManager.bindBuffer(GL43.GL_DISPATCH_INDIRECT_BUFFER, dispatchArgsBuffer);
+        for (int step = 0; step < substeps; step++) {
+            profiler.begin(GpuProfiler.POPULATE);
+            particleSystem.clearGrid();
+
+            // Populate spatial grid
+            GLStateManager.useProgram(populateProgram);
+            gl.glDispatchComputeIndirect(POPULATE_ARGS_OFFSET);
+            gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT);
+            profiler.end(GpuProfiler.POPULATE);
+
+            // Calculate forces using spatial grid
+            profiler.begin(GpuProfiler.FORCE);
+            GLStateManager.useProgram(computeProgram);
+            gl.glDispatchComputeIndirect(FORCE_ARGS_OFFSET);
+            gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT | GL43.GL_BUFFER_UPDATE_BARRIER_BIT);
+            profiler.end(GpuProfiler.FORCE);
+        }
+        GLStateManager.bindBuffer(GL43.GL_DISPATCH_INDIRECT_BUFFER, 0);
+
+        readDroppedInserts();
+        checkError("Error after compute substeps");
+
+        gl.glMemoryBarrier(GL43.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT);
+        GLStateManager.useProgram(0);
+    }
+
+    // Indirect arguments for both passes from the GPU-resident count
+    private void writeDispatchArgs(int populateLocal, int forceLocal, int forceBlocks) {
+        GLStateManager.useProgram(dispatchProgram);
+        setUniformUnsigned(dispatchProgram, "u_populate_local", populateLocal);
+        setUniformUnsigned(dispatchProgram, "u_force_local", forceLocal);
+        setUniformUnsigned(dispatchProgram, "u_force_blocks", forceBlocks);
+        gl.glDispatchCompute(1, 1, 1);
+        gl.glMemoryBarrier(GL43.GL_COMMAND_BARRIER_BIT);
+    }
+
+    private void setStepUniforms(int program, float dt) {
+        setUniform(program, "u_dt", dt);
+        setUniform(program, "u_group_count", RuntimeConfig.getGroupCount());
+
+        // Update runtime configuration uniforms
+        setUniform(program, "u_force_factor", RuntimeConfig.getForceFactor());
+        setUniform(program, "u_velocity_damping", RuntimeConfig.getVelocityDamping());
+        setUniform(program, "u_interaction_range", RuntimeConfig.getInteractionRange());
+        setUniform(program, "u_grid_size", RuntimeGrid.getGridSize());
+        setUniform(program, "u_grid_cell_size", RuntimeGrid.getGridCellSize());
+        setUniformUnsigned(program, "u_hash_mask", RuntimeGrid.getHashMask());
+        setUniformUnsigned(program, "u_hash_shift", RuntimeGrid.getHashShift());
+        setUniform(program, "u_world_half_extent", RuntimeConfig.getWorldHalfExtent());
+        setUniform(program, "u_wrap", RuntimeConfig.isWrapBoundaries() ? 1 : 0);
+    }
+
+    private void ensureDispatchBuffers() {
+        if (countBuffer != 0) {
+            return;
+        }
+        // particle_count + dropped_inserts, both start at zero
+        countBuffer = gl.glGenBuffers();
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, countBuffer);
+        gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, new int[2], GL15.GL_DYNAMIC_DRAW);
+
+        droppedReadback = gl.glGenBuffers();
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, droppedReadback);
+        gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, 4, GL15.GL_STREAM_READ);
+
+        dispatchArgsBuffer = gl.glGenBuffers();
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, dispatchArgsBuffer);
+        gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, 24, GL15.GL_DYNAMIC_COPY);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+    }
 
-        int error = GL11.glGetError();
+    // Only a changed count is uploaded; the shaders read it from the buffer
+    private void uploadCountIfChanged(int particleCount) {
+        if (particleCount == uploadedCount) {
+            return;
+        }
+        countUpload.put(0, particleCount);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, countBuffer);
+        gl.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, countUpload);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        uploadedCount = particleCount;
+    }
+
+    /**
+     * Picks up the previous copy of dropped_inserts if the GPU is done with it
+     * and starts the next one; never waits
+     */
+    private void readDroppedInserts() {
+        if (droppedFence != 0) {
+            if (gl.glClientWaitSync(droppedFence, 0, 0) == GL32.GL_TIMEOUT_EXPIRED) {
+                return;
+            }
+            gl.glDeleteSync(droppedFence);
+            droppedFence = 0;
+            GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, droppedReadback);
+            gl.glGetBufferSubData(GL31.GL_COPY_READ_BUFFER, 0, droppedValue);
+            droppedInserts = Integer.toUnsignedLong(droppedValue.get(0));
+        }
+        GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, countBuffer);
+        GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, droppedReadback);
+        gl.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, DROPPED_INSERTS_OFFSET, 0, 4);
+        GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, 0);
+        GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        droppedFence = gl.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    /**
+     * Particles the populate pass could not insert into the cell hash since
+     * startup (MAX_PROBES exhausted), as of a frame or two ago
+     */
+    public long getDroppedInserts() {
+        return droppedInserts;
+    }
+
+    private void checkError(String message) {
+        if (!SimulationConfig.GL_DEBUG) {
+            return;
+        }
+        int error = gl.glGetError();
         if (error != GL11.GL_NO_ERROR) {
-            Gdx.app.error("ComputeRenderer", "Error after glDispatchCompute: 0x" + Integer.toHexString(error));
+            Gdx.app.error("ComputeRenderer", message + ": 0x" + Integer.toHexString(error));
+        }
+    }
+
+    private void bindForceTable(int program) {
+        int lawVersion = RuntimeConfig.getForceLawVersion();
+        int attractionVersion = RuntimeConfig.getAttractionVersion();
+        if (forceTableTex == 0) {
+            forceTableTex = gl.glGenTextures();
+            GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, forceTableTex);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
         }
 
-        GL43.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT | GL43.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT);
-        GL20.glUseProgram(0);
+        GLStateManager.activeTexture(GL13.GL_TEXTURE0 + FORCE_TABLE_UNIT);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, forceTableTex);
+        // Recompiled only when the law or the matrix changed
+        if (forceTable == null || lawVersion != forceTableLawVersion
+                || attractionVersion != forceTableAttractionVersion) {
+            forceTable = new ForceTable(RuntimeConfig.getForceLaw(), flattenAttraction());
+            forceTableLawVersion = lawVersion;
+            forceTableAttractionVersion = attractionVersion;
+            float[] values = forceTable.getValues();
+            FloatBuffer texels = BufferUtils.createFloatBuffer(values.length);
+            texels.put(values).flip();
+            gl.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL30.GL_R32F, ForceTable.DISTANCE_SAMPLES,
+                    forceTable.getPairCount(), 0, GL11.GL_RED, GL11.GL_FLOAT, texels);
+        }
+        GLStateManager.activeTexture(GL13.GL_TEXTURE0);
+
+        setUniform(program, "u_force_table", FORCE_TABLE_UNIT);
+        float w = ForceTable.DISTANCE_SAMPLES;
+        setUniform(program, "u_force_table_scale", (w - 1f) / w);
+        setUniform(program, "u_force_table_offset", 0.5f / w);
     }
 
-    private void updateAttractionMatrix() {
-        int g = RuntimeConfig.getGroupCount();
-        float[][] m = RuntimeConfig.getAttractionMatrix();
+    /**
+     * Integer step with a fixed dt: same arithmetic as CpuParticleEngine in
+     * fixed point mode, dispatched indirectly like the float path. Exactly one
+     * step of SimulationConfig.FIXED_POINT_DT per call: velocities are stored
+     * in units of that step (FixedPointParams, the layout conversion and the
+     * CPU engine all assume it), so RuntimeConfig.getSubsteps() does not apply
+     * here. Splitting the step would need those units made dt independent
+     * first and is out of scope for fixed point.
+     */
+    private void executeFixedPoint(ParticleSystem particleSystem) {
+        FixedPointParams fp = fixedPointParams();
+        writeDispatchArgs(SimulationConfig.WORKGROUP_SIZE, SimulationConfig.WORKGROUP_SIZE, 0);
+        GLStateManager.useProgram(fixedPopulateProgram);
+        setFixedUniforms(fixedPopulateProgram, fp);
+        GLStateManager.useProgram(fixedVelocityProgram);
+        setFixedUniforms(fixedVelocityProgram, fp);
+        int loc = GLStateManager.uniformLocation(fixedVelocityProgram, "u_attraction_q15");
+        if (loc >= 0) {
+            gl.glUniform1iv(loc, fp.attractionQ15);
+        }
 
-        int loc = GL20.glGetUniformLocation(computeProgram, "u_attraction_matrix");
-        if (loc < 0) {
-            return; // uniform not found
+        GLStateManager.bindBuffer(GL43.GL_DISPATCH_INDIRECT_BUFFER, dispatchArgsBuffer);
+        profiler.begin(GpuProfiler.POPULATE);
+        particleSystem.clearGrid();
+
+        GLStateManager.useProgram(fixedPopulateProgram);
+        gl.glDispatchComputeIndirect(POPULATE_ARGS_OFFSET);
+        gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT);
+        profiler.end(GpuProfiler.POPULATE);
+
+        // Velocity and position passes count as force
+        profiler.begin(GpuProfiler.FORCE);
+        GLStateManager.useProgram(fixedVelocityProgram);
+        gl.glDispatchComputeIndirect(FORCE_ARGS_OFFSET);
+        gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT);
+        GLStateManager.useProgram(fixedPositionProgram);
+        gl.glDispatchComputeIndirect(FORCE_ARGS_OFFSET);
+        gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT | GL43.GL_BUFFER_UPDATE_BARRIER_BIT);
+        profiler.end(GpuProfiler.FORCE);
+        GLStateManager.bindBuffer(GL43.GL_DISPATCH_INDIRECT_BUFFER, 0);
+
+        readDroppedInserts();
+        checkError("Error after fixed point dispatch");
+
+        gl.glMemoryBarrier(GL43.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT);
+        GLStateManager.useProgram(0);
+    }
+
+    private void setFixedUniforms(int program, FixedPointParams fp) {
+        setUniform(program, "u_group_count", RuntimeConfig.getGroupCount());
+        setUniform(program, "u_grid_size", RuntimeGrid.getGridSize());
+        setUniformUnsigned(program, "u_hash_mask", RuntimeGrid.getHashMask());
+        setUniformUnsigned(program, "u_hash_shift", RuntimeGrid.getHashShift());
+        setUniform(program, "u_range", fp.range);
+        setUniform(program, "u_dist_shift", fp.distShift);
+        setUniform(program, "u_range_shifted", fp.rangeShifted);
+        setUniform(program, "u_force_mul", fp.forceMul);
+        setUniform(program, "u_force_shift", fp.forceShift);
+        setUniform(program, "u_damping", fp.damping);
+        setUniform(program, "u_max_velocity", fp.maxVelocity);
+    }
+
+    /**
+     * Rebuilt only when range, extent, force factor, damping or the matrix changed
+     */
+    private FixedPointParams fixedPointParams() {
+        float range = RuntimeConfig.getInteractionRange();
+        float extent = RuntimeConfig.getWorldHalfExtent();
+        float forceFactor = RuntimeConfig.getForceFactor();
+        float damping = RuntimeConfig.getVelocityDamping();
+        int version = RuntimeConfig.getAttractionVersion();
+        if (fixedParams == null || range != fixedRange || extent != fixedExtent || forceFactor != fixedForceFactor
+                || damping != fixedDamping || version != fixedAttractionVersion) {
+            fixedParams = new FixedPointParams(range, extent, forceFactor, damping, SimulationConfig.FIXED_POINT_DT,
+                    flattenAttraction());
+            fixedRange = range;
+            fixedExtent = extent;
+            fixedForceFactor = forceFactor;
+            fixedDamping = damping;
+            fixedAttractionVersion = version;
         }
+        return fixedParams;
+    }
 
-        int max = SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS;
-        float[] flat = new float[max];
-        int idx = 0;
-        for (int r = 0; r < g; r++) {
-            for (int c = 0; c < g; c++) {
-                flat[idx++] = m[r][c];
+    /**
+     * Attraction matrix with a MAX_GROUPS stride, as FixedPointParams expects
+     */
+    private float[] flattenAttraction() {
+        float[][] m = RuntimeConfig.getAttractionMatrix();
+        float[] flat = new float[SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS];
+        for (int r = 0; r < Math.min(m.length, SimulationConfig.MAX_GROUPS); r++) {
+            for (int c = 0; c < Math.min(m[r].length, SimulationConfig.MAX_GROUPS); c++) {
+                flat[r * SimulationConfig.MAX_GROUPS + c] = m[r][c];
             }
         }
-        // rest already zero
-        GL20.glUniform1fv(loc, flat);
+        return flat;
     }
 
-    private void setUniform(String name, float value) {
-        int location = GL20.glGetUniformLocation(computeProgram, name);
+    private void setUniform(int program, String name, float value) {
+        int location = GLStateManager.uniformLocation(program, name);
         if (location >= 0) {
-            GL20.glUniform1f(location, value);
+            gl.glUniform1f(location, value);
         }
     }
 
-    private void setUniform(String name, int value) {
-        int location = GL20.glGetUniformLocation(computeProgram, name);
+    private void setUniform(int program, String name, int value) {
+        int location = GLStateManager.uniformLocation(program, name);
         if (location >= 0) {
-            GL20.glUniform1i(location, value);
+            gl.glUniform1i(location, value);
+        }
+    }
+
+    // uint uniforms need the ui variant; glUniform1i on them is GL_INVALID_OPERATION
+    private void setUniformUnsigned(int program, String name, int value) {
+        int location = GLStateManager.uniformLocation(program, name);
+        if (location >= 0) {
+            gl.glUniform1ui(location, value);
+        }
+    }
+
+    public void dispose() {
+        if (countBuffer != 0) {
+            GLStateManager.deleteBuffer(countBuffer);
+            GLStateManager.deleteBuffer(dispatchArgsBuffer);
+            GLStateManager.deleteBuffer(droppedReadback);
+            countBuffer = 0;
+            dispatchArgsBuffer = 0;
+            droppedReadback = 0;
+            uploadedCount = -1;
+        }
+        if (droppedFence != 0) {
+            gl.glDeleteSync(droppedFence);
+            droppedFence = 0;
+        }
+        if (forceTableTex != 0) {
+            GLStateManager.deleteTexture(forceTableTex);
+            forceTableTex = 0;
+            forceTable = null;
         }
     }
 }
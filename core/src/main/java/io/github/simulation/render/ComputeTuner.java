@@ -0,0 +1,233 @@
+package io.github.simulation.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import org.lwjgl.opengl.*;
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.RuntimeGrid;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+import io.github.simulation.gl.GpuBufferPool;
+import io.github.simulation.particles.ParticleSystem;
+import io.github.simulation.shader.ComputeStrategy;
+import io.github.simulation.shader.ShaderManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Picks the particle.comp workgroup size and strategy (generic uniforms, a
+ * specialised variant or the tiled force kernel) for this GPU by timing real
+ * steps of the current scene with GL_TIME_ELAPSED queries. The particle
+ * buffer is snapshotted and restored around every trial, so tuning does not
+ * advance the simulation.
+ * The winner is persisted per GL_RENDERER / GL_VERSION.
+ */
+public class ComputeTuner {
+
+    private static final int[] CANDIDATE_SIZES = { 32, 64, 128, 256, 512, 1024 };
+    private static final int WARMUP_STEPS = 2;
+    private static final int TIMED_STEPS = 7;
+    private static final float TRIAL_DT = 1.0f / 60.0f;
+
+    /**
+     * A tuned configuration
+     */
+    public static final class Choice {
+        public final int workgroupSize;
+        public final ComputeStrategy strategy;
+        public final double millisPerStep;
+
+        public Choice(int workgroupSize, ComputeStrategy strategy, double millisPerStep) {
+            this.workgroupSize = workgroupSize;
+            this.strategy = strategy;
+            this.millisPerStep = millisPerStep;
+        }
+
+        @Override
+        public String toString() {
+            return "local=" + workgroupSize + " " + strategy.name().toLowerCase();
+        }
+    }
+
+    private final GLFacade gl = GLFacade.get();
+    private final FileHandle store;
+    private final String deviceKey;
+
+    public ComputeTuner() {
+        this(Gdx.files.external(SimulationConfig.COMPUTE_TUNING_FILE));
+    }
+
+    /**
+     * @param store properties file the tuned choice per device is kept in
+     */
+    public ComputeTuner(FileHandle store) {
+        this.store = store;
+        this.deviceKey = gl.glGetString(GL11.GL_RENDERER) + " | " + gl.glGetString(GL11.GL_VERSION);
+    }
+
+    /**
+     * Choice persisted for this device, or null if it was never tuned
+     */
+    public Choice loadPersisted() {
+        String value = readStore().getProperty(deviceKey);
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        try {
+            ComputeStrategy strategy = parts.length > 1
+                    ? ComputeStrategy.valueOf(parts[1].trim().toUpperCase())
+                    : ComputeStrategy.GENERIC;
+            return new Choice(Integer.parseInt(parts[0].trim()), strategy, 0.0);
+        } catch (IllegalArgumentException e) {
+            Gdx.app.error("ComputeTuner", "Ignoring malformed tuning entry: " + value);
+            return null;
+        }
+    }
+
+    /**
+     * Times every candidate on the current scene, applies and persists the
+     * fastest. Returns null if nothing could be measured (no particles, fixed
+     * point physics or variants disabled).
+     */
+    public Choice tune(ShaderManager shaderManager, ComputeRenderer computeRenderer, ParticleSystem particleSystem) {
+        int particleCount = RuntimeConfig.getParticleCount();
+        if (particleCount == 0 || RuntimeConfig.isFixedPoint() || !shaderManager.hasComputeVariants()) {
+            Gdx.app.log("ComputeTuner", "Skipped: needs particles, float physics and COMPUTE_VARIANTS.");
+            return null;
+        }
+
+        int maxInvocations = gl.glGetInteger(GL43.GL_MAX_COMPUTE_WORK_GROUP_INVOCATIONS);
+        int maxSizeX = gl.glGetIntegeri(GL43.GL_MAX_COMPUTE_WORK_GROUP_SIZE, 0);
+
+        // Snapshot the particles so every trial starts from the same state
+        GpuBufferPool pool = particleSystem.getBufferPool();
+        int particleSSBO = particleSystem.getSSBO();
+        long bytes = pool.capacityOf(particleSSBO);
+        int snapshot = pool.acquire(bytes);
+        GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, particleSSBO);
+        GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, snapshot);
+        gl.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, 0, 0, bytes);
+
+        int[] queries = new int[TIMED_STEPS];
+        gl.glGenQueries(queries);
+        int previousSize = shaderManager.getComputeWorkgroupSize();
+        ComputeStrategy previousStrategy = shaderManager.getComputeStrategy();
+
+        Choice best = null;
+        Choice bestPerParticle = null;
+        Choice bestTiled = null;
+        for (ComputeStrategy strategy : ComputeStrategy.values()) {
+            for (int size : CANDIDATE_SIZES) {
+                if (size > maxInvocations || size > maxSizeX) {
+                    continue;
+                }
+                shaderManager.setComputeStrategy(size, strategy);
+                if (!shaderManager.regenerateComputeShaderNow()) {
+                    continue;
+                }
+                computeRenderer.setComputePrograms(shaderManager.getActivePopulateProgram(),
+                        shaderManager.getActiveComputeProgram(), shaderManager.isActiveComputeTiled());
+
+                double ms = timeTrial(computeRenderer, particleSystem, queries);
+                restore(snapshot, particleSSBO, bytes);
+
+                Choice choice = new Choice(size, strategy, ms);
+                Gdx.app.log("ComputeTuner", String.format("%-24s %.3f ms/step", choice, ms));
+                if (best == null || ms < best.millisPerStep) {
+                    best = choice;
+                }
+                if (strategy == ComputeStrategy.TILED) {
+                    if (bestTiled == null || ms < bestTiled.millisPerStep) {
+                        bestTiled = choice;
+                    }
+                } else if (bestPerParticle == null || ms < bestPerParticle.millisPerStep) {
+                    bestPerParticle = choice;
+                }
+            }
+        }
+
+        if (bestTiled != null && bestPerParticle != null) {
+            Gdx.app.log("ComputeTuner", String.format(
+                    "Tiled force kernel: %.3f ms vs %.3f ms per particle (%.2fx) at %d particles, grid %d",
+                    bestTiled.millisPerStep, bestPerParticle.millisPerStep,
+                    bestPerParticle.millisPerStep / bestTiled.millisPerStep, particleCount, RuntimeGrid.getGridSize()));
+        }
+
+        gl.glDeleteQueries(queries);
+        pool.release(snapshot);
+        GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, 0);
+        GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        particleSystem.bindSSBO();
+
+        if (best == null) {
+            shaderManager.setComputeStrategy(previousSize, previousStrategy);
+        } else {
+            shaderManager.setComputeStrategy(best.workgroupSize, best.strategy);
+            persist(best);
+            Gdx.app.log("ComputeTuner", "Selected " + best + " for " + deviceKey
+                    + String.format(" (%.3f ms/step, %d particles)", best.millisPerStep, particleCount));
+        }
+        // The sweep links more programs than the variant cache holds, so the winner may have been
+        // evicted already; requesting it last relinks it if needed and makes it the newest entry
+        shaderManager.regenerateComputeShaderNow();
+        computeRenderer.setComputePrograms(shaderManager.getActivePopulateProgram(),
+                shaderManager.getActiveComputeProgram(), shaderManager.isActiveComputeTiled());
+        return best;
+    }
+
+    /**
+     * Median GPU time of one frame's compute work (every substep)
+     */
+    private double timeTrial(ComputeRenderer computeRenderer, ParticleSystem particleSystem, int[] queries) {
+        for (int i = 0; i < WARMUP_STEPS; i++) {
+            computeRenderer.executeComputeShader(TRIAL_DT, 0f, particleSystem);
+        }
+        for (int query : queries) {
+            gl.glBeginQuery(GL33.GL_TIME_ELAPSED, query);
+            computeRenderer.executeComputeShader(TRIAL_DT, 0f, particleSystem);
+            gl.glEndQuery(GL33.GL_TIME_ELAPSED);
+        }
+
+        long[] nanos = new long[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            // Blocks until the GPU is done, fine for a one-off benchmark
+            nanos[i] = gl.glGetQueryObjecti64(queries[i], GL15.GL_QUERY_RESULT);
+        }
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2] / 1_000_000.0;
+    }
+
+    private void restore(int snapshot, int particleSSBO, long bytes) {
+        GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, snapshot);
+        GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, particleSSBO);
+        gl.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, 0, 0, bytes);
+    }
+
+    private Properties readStore() {
+        Properties props = new Properties();
+        if (store.exists()) {
+            try (InputStream in = store.read()) {
+                props.load(in);
+            } catch (IOException | RuntimeException e) {
+                Gdx.app.error("ComputeTuner", "Could not read " + store.path() + ": " + e.getMessage());
+            }
+        }
+        return props;
+    }
+
+    private void persist(Choice choice) {
+        Properties props = readStore();
+        props.setProperty(deviceKey, choice.workgroupSize + "," + choice.strategy.name().toLowerCase());
+        try (OutputStream out = store.write(false)) {
+            props.store(out, "particle.comp tuning per GL_RENDERER | GL_VERSION");
+        } catch (IOException | RuntimeException e) {
+            Gdx.app.error("ComputeTuner", "Could not write " + store.path() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package io.github.simulation.render;
+
+import com.badlogic.gdx.Gdx;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.*;
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.RuntimeGrid;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.force.ForceTable;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+import io.github.simulation.gl.GpuBufferPool;
+import io.github.simulation.profiling.GpuProfiler;
+import io.github.simulation.util.PositionSampler;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+/**
+ * Steps many small independent worlds at once. Each world has its own
+ * attraction matrix, force factor, damping and interaction range; all of
+ * them share one particle buffer (world id in the particle's pad field),
+ * one cell hash and one force table, so a substep is a single populate and
+ * a single force dispatch of particle.comp built with WORLDS instead of one
+ * under-occupied dispatch per world. GLRenderer draws the result as a mosaic.
+ */
+public class EnsembleRenderer {
+
+    /**
+     * Parameters of one world, drawn around the current RuntimeConfig values
+     */
+    public static final class World {
+        public final float[][] matrix;
+        public final float forceFactor;
+        public final float velocityDamping;
+        public final float interactionRange;
+        int gridSize;
+        int keyBase;
+
+        World(float[][] matrix, float forceFactor, float velocityDamping, float interactionRange) {
+            this.matrix = matrix;
+            this.forceFactor = forceFactor;
+            this.velocityDamping = velocityDamping;
+            this.interactionRange = interactionRange;
+        }
+    }
+
+    private static final int PARTICLE_BINDING = 0;
+    private static final int COUNT_BINDING = 6;
+    private static final int WORLDS_BINDING = 8;
+    private static final int FORCE_TABLE_UNIT = 1;
+    private static final int WORLD_STRIDE_BYTES = 32; // std430 World: 4 floats/ints + 3 uints + pad
+    private static final int EMPTY = -1;
+    private static final int[] CLEAR_EMPTY = { EMPTY };
+
+    // Keeps the summed cell keys of every world well inside a uint; cells
+    // only get wider than the range, which the 3x3 neighbourhood allows
+    private static final int MAX_WORLD_GRID_DIM = 4096;
+
+    private final GLFacade gl = GLFacade.get();
+    private final int populateProgram;
+    private final int forceProgram;
+    private final GpuBufferPool pool;
+    private final int localSize;
+    private GpuProfiler profiler = GpuProfiler.DISABLED;
+
+    private World[] worlds = new World[0];
+    private int particleCount = 0;
+    private int hashSlots = 0;
+    private int seededGroups = -1;
+    private float seededExtent = -1f;
+
+    private int particleSSBO = 0;
+    private int cellNextSSBO = 0;
+    private int cellHeadsSSBO = 0;
+    private int cellKeysSSBO = 0;
+    private int worldsSSBO = 0;
+    private int countBuffer = 0;
+    private int forceTableTex = 0;
+    private ForceTable forceTable = null; // null after a reseed
+    private int forceTableLawVersion;
+    private float[] attraction = new float[0];
+
+    public EnsembleRenderer(int populateProgram, int forceProgram, GpuBufferPool pool) {
+        this.populateProgram = populateProgram;
+        this.forceProgram = forceProgram;
+        this.pool = pool;
+        IntBuffer size = BufferUtils.createIntBuffer(3);
+        gl.glGetProgramiv(forceProgram, GL43.GL_COMPUTE_WORK_GROUP_SIZE, size);
+        this.localSize = Math.max(1, size.get(0));
+    }
+
+    public void setProfiler(GpuProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Worlds the force table can hold: MAX_GROUPS^2 rows each, bounded by GL_MAX_TEXTURE_SIZE
+     */
+    public static int maxWorlds() {
+        int rowsPerWorld = SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS;
+        int maxTexture = GLFacade.get().glGetInteger(GL11.GL_MAX_TEXTURE_SIZE);
+        return Math.max(1, Math.min(SimulationConfig.MAX_ENSEMBLE_WORLDS, maxTexture / rowsPerWorld));
+    }
+
+    /**
+     * Replaces the ensemble with freshly drawn worlds: random matrices, force
+     * factor and range jittered around the current settings, particles placed
+     * with the current distribution
+     */
+    public void seed(int worldCount, int particlesPerWorld, long seed) {
+        Random rng = new Random(seed);
+        int groups = RuntimeConfig.getGroupCount();
+        float extent = RuntimeConfig.getWorldHalfExtent();
+        worldCount = Math.clamp(worldCount, 1, maxWorlds());
+
+        worlds = new World[worldCount];
+        for (int w = 0; w < worldCount; w++) {
+            float[][] matrix = new float[groups][groups];
+            for (int i = 0; i < groups; i++) {
+                for (int j = 0; j < groups; j++) {
+                    matrix[i][j] = rng.nextFloat() * 2.0f - 1.0f;
+                }
+            }
+            float forceFactor = RuntimeConfig.getForceFactor() * (0.5f + 1.5f * rng.nextFloat());
+            float range = Math.clamp(RuntimeConfig.getInteractionRange() * (0.5f + rng.nextFloat()), 0.005f, 1.0f);
+            worlds[w] = new World(matrix, forceFactor, RuntimeConfig.getVelocityDamping(), range);
+        }
+        particleCount = worldCount * particlesPerWorld;
+        layoutGrids(extent);
+        allocateBuffers();
+        uploadParticles(particlesPerWorld, rng, extent);
+        uploadWorlds(extent);
+        attraction = flattenMatrices();
+        forceTable = null;
+
+        seededGroups = groups;
+        seededExtent = extent;
+        Gdx.app.log("EnsembleRenderer", "Seeded " + worldCount + " worlds x " + particlesPerWorld + " particles, "
+                + hashSlots + " hash slots");
+    }
+
+    /**
+     * Reseeds if the group count or world size changed since the last seed
+     */
+    public void seedIfStale() {
+        if (worlds.length == 0 || seededGroups != RuntimeConfig.getGroupCount()
+                || seededExtent != RuntimeConfig.getWorldHalfExtent()) {
+            seed(SimulationConfig.ENSEMBLE_WORLDS, SimulationConfig.ENSEMBLE_PARTICLES_PER_WORLD,
+                    System.nanoTime());
+        }
+    }
+
+    // Per-world grid from its own range; keys of world w start after all cells of worlds < w
+    private void layoutGrids(float extent) {
+        long keyBase = 0;
+        for (World world : worlds) {
+            world.gridSize = Math.min(RuntimeGrid.gridSizeFor(extent, world.interactionRange), MAX_WORLD_GRID_DIM);
+            world.keyBase = (int) keyBase;
+            keyBase += (long) world.gridSize * world.gridSize;
+        }
+        long occupiedBound = Math.min(keyBase, particleCount);
+        hashSlots = RuntimeGrid.nextPowerOfTwo(Math.max(SimulationConfig.MIN_HASH_SLOTS,
+                (long) Math.ceil(occupiedBound / SimulationConfig.HASH_LOAD_FACTOR)));
+    }
+
+    private void allocateBuffers() {
+        releaseBuffers();
+        int stride = SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES;
+        particleSSBO = pool.acquire((long) Math.max(1, particleCount) * stride);
+        cellNextSSBO = pool.acquire((long) Math.max(1, particleCount) * Integer.BYTES);
+        cellHeadsSSBO = pool.acquire((long) hashSlots * Integer.BYTES);
+        cellKeysSSBO = pool.acquire((long) hashSlots * Integer.BYTES);
+
+        if (worldsSSBO == 0) {
+            worldsSSBO = gl.glGenBuffers();
+            countBuffer = gl.glGenBuffers();
+        }
+        // particle_count + dropped_inserts
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, countBuffer);
+        gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, new int[] { particleCount, 0 }, GL15.GL_STATIC_DRAW);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+    }
+
+    private void uploadParticles(int particlesPerWorld, Random rng, float extent) {
+        int groups = RuntimeConfig.getGroupCount();
+        ByteBuffer data = BufferUtils.createByteBuffer(
+                particleCount * SimulationConfig.PARTICLE_STRIDE_FLOATS * Float.BYTES);
+        for (int w = 0; w < worlds.length; w++) {
+            for (int i = 0; i < particlesPerWorld; i++) {
+                float[] p = PositionSampler.sample(RuntimeConfig.getDistribution(), rng, extent);
+                data.putFloat(p[0]).putFloat(p[1]);
+                data.putFloat(0f).putFloat(0f);
+                // Group id + world id in the pad slot
+                data.putInt(i % groups).putInt(w);
+            }
+        }
+        data.flip();
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, particleSSBO);
+        gl.glBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, 0, data);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+    }
+
+    private void uploadWorlds(float extent) {
+        int pairsPerWorld = SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS;
+        ByteBuffer data = BufferUtils.createByteBuffer(worlds.length * WORLD_STRIDE_BYTES);
+        for (int w = 0; w < worlds.length; w++) {
+            World world = worlds[w];
+            data.putFloat(world.forceFactor);
+            data.putFloat(world.velocityDamping);
+            data.putFloat(world.interactionRange);
+            data.putFloat(2.0f * extent / world.gridSize);
+            data.putInt(world.gridSize);
+            data.putInt(world.keyBase);
+            data.putInt(w * pairsPerWorld);
+            data.putInt(0);
+        }
+        data.flip();
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, worldsSSBO);
+        gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, data, GL15.GL_STATIC_DRAW);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+    }
+
+    /**
+     * Records RuntimeConfig.getSubsteps() substeps for every world; each is
+     * one hash clear, one populate and one force dispatch over all particles
+     */
+    public void step(float deltaTime) {
+        if (particleCount == 0) {
+            return;
+        }
+        int substeps = RuntimeConfig.getSubsteps();
+        float dt = deltaTime * RuntimeConfig.getTimeScale() / substeps;
+        int groups = (particleCount + localSize - 1) / localSize;
+        long slotBytes = (long) hashSlots * Integer.BYTES;
+
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, PARTICLE_BINDING, particleSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 1, cellNextSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 2, cellHeadsSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 3, cellKeysSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, COUNT_BINDING, countBuffer);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, WORLDS_BINDING, worldsSSBO);
+
+        GLStateManager.useProgram(populateProgram);
+        setStepUniforms(populateProgram, dt);
+        GLStateManager.useProgram(forceProgram);
+        setStepUniforms(forceProgram, dt);
+        bindForceTable(forceProgram);
+
+        for (int step = 0; step < substeps; step++) {
+            profiler.begin(GpuProfiler.POPULATE);
+            GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, cellHeadsSSBO);
+            gl.glClearBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, GL30.GL_R32I, 0, slotBytes,
+                    GL30.GL_RED_INTEGER, GL11.GL_INT, CLEAR_EMPTY);
+            GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, cellKeysSSBO);
+            gl.glClearBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, GL30.GL_R32I, 0, slotBytes,
+                    GL30.GL_RED_INTEGER, GL11.GL_INT, CLEAR_EMPTY);
+
+            GLStateManager.useProgram(populateProgram);
+            gl.glDispatchCompute(groups, 1, 1);
+            gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT);
+            profiler.end(GpuProfiler.POPULATE);
+
+            profiler.begin(GpuProfiler.FORCE);
+            GLStateManager.useProgram(forceProgram);
+            gl.glDispatchCompute(groups, 1, 1);
+            gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT | GL43.GL_BUFFER_UPDATE_BARRIER_BIT);
+            profiler.end(GpuProfiler.FORCE);
+        }
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+
+        gl.glMemoryBarrier(GL43.GL_VERTEX_ATTRIB_ARRAY_BARRIER_BIT);
+        GLStateManager.useProgram(0);
+    }
+
+    private void setStepUniforms(int program, float dt) {
+        setUniform(program, "u_dt", dt);
+        setUniform(program, "u_group_count", RuntimeConfig.getGroupCount());
+        setUniformUnsigned(program, "u_hash_mask", hashSlots - 1);
+        setUniformUnsigned(program, "u_hash_shift", RuntimeGrid.hashShift(hashSlots));
+        setUniform(program, "u_world_half_extent", RuntimeConfig.getWorldHalfExtent());
+        setUniform(program, "u_wrap", RuntimeConfig.isWrapBoundaries() ? 1 : 0);
+    }
+
+    // One MAX_GROUPS^2 block of rows per world, in world order
+    private float[] flattenMatrices() {
+        int pairsPerWorld = SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS;
+        float[] flat = new float[worlds.length * pairsPerWorld];
+        for (int w = 0; w < worlds.length; w++) {
+            float[][] m = worlds[w].matrix;
+            for (int r = 0; r < m.length; r++) {
+                for (int c = 0; c < m[r].length; c++) {
+                    flat[w * pairsPerWorld + r * SimulationConfig.MAX_GROUPS + c] = m[r][c];
+                }
+            }
+        }
+        return flat;
+    }
+
+    private void bindForceTable(int program) {
+        int lawVersion = RuntimeConfig.getForceLawVersion();
+        if (forceTableTex == 0) {
+            forceTableTex = gl.glGenTextures();
+            GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, forceTableTex);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+            gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+        }
+
+        GLStateManager.activeTexture(GL13.GL_TEXTURE0 + FORCE_TABLE_UNIT);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, forceTableTex);
+        // Recompiled only after a reseed or a force law change
+        if (forceTable == null || lawVersion != forceTableLawVersion) {
+            forceTable = new ForceTable(RuntimeConfig.getForceLaw(), attraction);
+            forceTableLawVersion = lawVersion;
+            float[] values = forceTable.getValues();
+            FloatBuffer texels = BufferUtils.createFloatBuffer(values.length);
+            texels.put(values).flip();
+            gl.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL30.GL_R32F, ForceTable.DISTANCE_SAMPLES,
+                    forceTable.getPairCount(), 0, GL11.GL_RED, GL11.GL_FLOAT, texels);
+        }
+        GLStateManager.activeTexture(GL13.GL_TEXTURE0);
+
+        setUniform(program, "u_force_table", FORCE_TABLE_UNIT);
+        float w = ForceTable.DISTANCE_SAMPLES;
+        setUniform(program, "u_force_table_scale", (w - 1f) / w);
+        setUniform(program, "u_force_table_offset", 0.5f / w);
+        setUniform(program, "u_force_table_rows", (float) forceTable.getPairCount());
+    }
+
+    /**
+     * Binds the ensemble's particles where particle.vert reads them
+     */
+    public void bindForRender() {
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, PARTICLE_BINDING, particleSSBO);
+    }
+
+    /**
+     * Tiles per side of the square mosaic that fits every world
+     */
+    public int getMosaicColumns() {
+        return (int) Math.ceil(Math.sqrt(worlds.length));
+    }
+
+    public int getWorldCount() {
+        return worlds.length;
+    }
+
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    public World getWorld(int index) {
+        return worlds[index];
+    }
+
+    private void setUniform(int program, String name, float value) {
+        int location = GLStateManager.uniformLocation(program, name);
+        if (location >= 0) {
+            gl.glUniform1f(location, value);
+        }
+    }
+
+    private void setUniform(int program, String name, int value) {
+        int location = GLStateManager.uniformLocation(program, name);
+        if (location >= 0) {
+            gl.glUniform1i(location, value);
+        }
+    }
+
+    private void setUniformUnsigned(int program, String name, int value) {
+        int location = GLStateManager.uniformLocation(program, name);
+        if (location >= 0) {
+            gl.glUniform1ui(location, value);
+        }
+    }
+
+    private void releaseBuffers() {
+        pool.release(particleSSBO);
+        pool.release(cellNextSSBO);
+        pool.release(cellHeadsSSBO);
+        pool.release(cellKeysSSBO);
+        particleSSBO = 0;
+        cellNextSSBO = 0;
+        cellHeadsSSBO = 0;
+        cellKeysSSBO = 0;
+    }
+
+    /**
+     * Returns the shared buffers to the pool, e.g. when leaving ensemble mode
+     */
+    public void release() {
+        releaseBuffers();
+        worlds = new World[0];
+        particleCount = 0;
+    }
+
+    public void dispose() {
+        release();
+        if (worldsSSBO != 0) {
+            GLStateManager.deleteBuffer(worldsSSBO);
+            GLStateManager.deleteBuffer(countBuffer);
+            worldsSSBO = 0;
+            countBuffer = 0;
+        }
+        if (forceTableTex != 0) {
+            GLStateManager.deleteTexture(forceTableTex);
+            forceTableTex = 0;
+            forceTable = null;
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package io.github.simulation.render;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.utils.ScreenUtils;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.*;
 
 import io.github.simulation.config.RuntimeConfig;
 import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.gl.GLFacade;
 import io.github.simulation.gl.GLStateManager;
+import io.github.simulation.profiling.GpuProfiler;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
@@ -17,8 +18,13 @@ import java.nio.IntBuffer;
  */
 public class GLRenderer {
 
+    private final GLFacade gl = GLFacade.get();
     private final int renderProgram;
     private final int blitProgram;
+    private final int splatProgram;
+    private final int toneMapProgram;
+    private final int fixedRenderProgram;
+    private final int fixedSplatProgram;
 
     // Particle rendering VAO/VBO 
     private int vao = 0;
@@ -28,15 +34,126 @@ public class GLRenderer {
     private int fbo = 0;
     private int fboTex = 0;
     private int fboRbo = 0;
-    private int fboSize = 0; // equals current window height
+    private int fboSize = 0; // window height times resolutionScale
+    private float resolutionScale = 1f; // lowered by the quality governor, the blit upscales
 
     // Blit resources 
     private int blitVao = 0;
     private int blitVbo = 0;
 
-    public GLRenderer(int renderProgram, int blitProgram) {
+    // Density splat accumulation (4 uints per FBO pixel)
+    private int splatSSBO = 0;
+    private static final int[] CLEAR_ZERO = { 0 };
+
+    // Group colours as vec4s, looked up by group id in the vertex and splat shaders
+    private int paletteSSBO = 0;
+    private float[][] uploadedPalette = null;
+
+    // Particle buffer before the last physics step, read by the point and splat
+    // shaders to draw between steps; only valid for the buffer, count and layout it came from
+    private static final int PREVIOUS_BINDING = 9;
+    private int previousSSBO = 0;
+    private long previousCapacity = 0;
+    private int capturedSource = 0;
+    private int capturedCount = -1;
+    private boolean capturedFixed = false;
+    private float alpha = -1f;
+
+    // Zoomed views: cull.comp compacts on-screen particle indices and writes the
+    // instance count of an indirect draw, so the point pass skips everything off screen
+    private static final int VISIBLE_BINDING = 10;
+    private static final int DRAW_COMMAND_BINDING = 11;
+    private static final int[] DRAW_COMMAND_INIT = { 1, 0, 0, 0 }; // count, instanceCount, first, baseInstance
+    private static final long INSTANCE_COUNT_OFFSET = 4;
+    private static final float MAX_SPEED = 0.5f; // particle.comp velocity cap, world units per second
+    private int cullProgram = 0;
+    private int fixedCullProgram = 0;
+    private int visibleSSBO = 0;
+    private long visibleCapacity = 0;
+    private int drawCommandBuffer = 0;
+
+    // Ensemble mosaic: columns x columns tiles, one world each; 0 draws the single world
+    private int mosaicColumns = 0;
+    private int mosaicCount = 0;
+
+    private GpuProfiler profiler = GpuProfiler.DISABLED;
+
+    public GLRenderer(int renderProgram, int blitProgram, int splatProgram, int toneMapProgram,
+                      int fixedRenderProgram, int fixedSplatProgram) {
         this.renderProgram = renderProgram;
         this.blitProgram = blitProgram;
+        this.splatProgram = splatProgram;
+        this.toneMapProgram = toneMapProgram;
+        this.fixedRenderProgram = fixedRenderProgram;
+        this.fixedSplatProgram = fixedSplatProgram;
+    }
+
+    public void setProfiler(GpuProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * cull.comp for the float and fixed point layouts; without them zoomed
+     * views draw every particle
+     */
+    public void setCullPrograms(int cullProgram, int fixedCullProgram) {
+        this.cullProgram = cullProgram;
+        this.fixedCullProgram = fixedCullProgram;
+    }
+
+    /**
+     * Draws the next frames as an ensemble mosaic of count particles, or the
+     * regular scene again with columns = 0. The mosaic is always point
+     * sprites in the float layout.
+     */
+    public void setMosaic(int columns, int count) {
+        this.mosaicColumns = columns;
+        this.mosaicCount = count;
+    }
+
+    /**
+     * Copies the particle buffer on the GPU right before a physics step, so
+     * frames until the next step can be drawn between the two states
+     */
+    public void capturePreviousState(int source, long bytes) {
+        if (previousSSBO == 0) {
+            previousSSBO = gl.glGenBuffers();
+        }
+        if (bytes > previousCapacity) {
+            GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, previousSSBO);
+            gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, bytes, GL15.GL_DYNAMIC_COPY);
+            GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+            previousCapacity = bytes;
+        }
+        if (bytes > 0) {
+            GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, source);
+            GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, previousSSBO);
+            gl.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_WRITE_BUFFER, 0, 0, bytes);
+            GLStateManager.bindBuffer(GL31.GL_COPY_READ_BUFFER, 0);
+            GLStateManager.bindBuffer(GL31.GL_COPY_WRITE_BUFFER, 0);
+        }
+        capturedSource = source;
+        capturedCount = RuntimeConfig.getParticleCount();
+        capturedFixed = RuntimeConfig.isFixedPoint();
+    }
+
+    /**
+     * Draws the next frame at alpha (0..1) between the captured and the
+     * current state of source; a negative alpha, or a capture from another
+     * buffer, particle count or layout, draws the current state
+     */
+    public void setInterpolation(int source, float alpha) {
+        boolean valid = source == capturedSource && capturedCount == RuntimeConfig.getParticleCount()
+                && capturedFixed == RuntimeConfig.isFixedPoint();
+        this.alpha = valid ? alpha : -1f;
+    }
+
+    private void bindInterpolation(int program, String alphaName, String wrapName, float drawAlpha) {
+        if (drawAlpha >= 0f) {
+            GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, PREVIOUS_BINDING, previousSSBO);
+        }
+        setUniform1f(program, alphaName, drawAlpha);
+        setUniform1i(program, wrapName, RuntimeConfig.isWrapBoundaries() ? 1 : 0);
     }
 
     public boolean initialize() {
@@ -53,100 +170,270 @@ public class GLRenderer {
         int squareSize = H;
 
         // (Re)create FBO when size changes
-        if (squareSize != fboSize || fbo == 0 || fboTex == 0) {
+        if (offscreenSize() != fboSize || fbo == 0 || fboTex == 0) {
             recreateOffscreenIfNeeded();
         }
 
         // Pass 1: render particles into square offscreen FBO
-        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fbo);
-        GL11.glViewport(0, 0, squareSize, squareSize);
-        GL11.glDisable(GL11.GL_SCISSOR_TEST);
-        ScreenUtils.clear(SimulationConfig.BACKGROUND_COLOR[0], SimulationConfig.BACKGROUND_COLOR[1],
+        profiler.begin(GpuProfiler.DRAW);
+        gl.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fbo);
+        gl.glViewport(0, 0, fboSize, fboSize);
+        GLStateManager.disable(GL11.GL_SCISSOR_TEST);
+        gl.glClearColor(SimulationConfig.BACKGROUND_COLOR[0], SimulationConfig.BACKGROUND_COLOR[1],
                 SimulationConfig.BACKGROUND_COLOR[2], SimulationConfig.BACKGROUND_COLOR[3]);
+        gl.glClear(GL11.GL_COLOR_BUFFER_BIT);
 
-        GLStateManager.ensureParticleRenderState();
-        GL20.glUseProgram(renderProgram);
+        uploadPaletteIfChanged();
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 5, paletteSSBO);
 
-        // For square offscreen we do not need horizontal squeeze
-        setUniform1f(renderProgram, "u_AspectScale", 1.0f);
-        setUniform1f(renderProgram, "u_PointSize", RuntimeConfig.getParticleSizePx());
-
-        GL30.glBindVertexArray(vao);
-        GL31.glDrawArraysInstanced(GL11.GL_POINTS, 0, 1, RuntimeConfig.getParticleCount());
-        GL30.glBindVertexArray(0);
-        GL20.glUseProgram(0);
+        if (isSplatActive()) {
+            renderSplat();
+        } else {
+            renderPoints();
+        }
+        profiler.end(GpuProfiler.DRAW);
 
         // Pass 2: composite to default framebuffer: center + mirrored side bars
-        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
-        GL11.glViewport(0, 0, W, H);
-        ScreenUtils.clear(SimulationConfig.BACKGROUND_COLOR[0], SimulationConfig.BACKGROUND_COLOR[1],
+        profiler.begin(GpuProfiler.BLIT);
+        gl.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+        gl.glViewport(0, 0, W, H);
+        gl.glClearColor(SimulationConfig.BACKGROUND_COLOR[0], SimulationConfig.BACKGROUND_COLOR[1],
                 SimulationConfig.BACKGROUND_COLOR[2], SimulationConfig.BACKGROUND_COLOR[3]);
+        gl.glClear(GL11.GL_COLOR_BUFFER_BIT);
 
         GLStateManager.ensureBlitState();
 
-        GL20.glUseProgram(blitProgram);
+        GLStateManager.useProgram(blitProgram);
         // Bind offscreen texture to unit 0
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, fboTex);
+        GLStateManager.activeTexture(GL13.GL_TEXTURE0);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, fboTex);
         setUniform1i(blitProgram, "u_Texture", 0);
 
-        GL30.glBindVertexArray(blitVao);
+        GLStateManager.bindVertexArray(blitVao);
 
         float ratio = (squareSize > 0) ? (barWidth / (float) squareSize) : 0f;
 
         // Draw center square
         if (barWidth >= 0) {
-            GL11.glViewport(barWidth, 0, squareSize, squareSize);
+            gl.glViewport(barWidth, 0, squareSize, squareSize);
             setUniform1i(blitProgram, "u_ForceWhite", 0);
             setUniform4f(blitProgram, "u_UVRect", 0f, 0f, 1f, 1f); // full texture
-            GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
+            gl.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
         }
 
+        // The bars continue the square across the torus seam, which only holds for the whole world
+        boolean bars = barWidth > 0 && RuntimeConfig.getViewZoom() == 1f;
+
         // Left bar
-        if (barWidth > 0) {
-            GL11.glViewport(0, 0, barWidth, squareSize);
+        if (bars) {
+            gl.glViewport(0, 0, barWidth, squareSize);
             setUniform1i(blitProgram, "u_ForceWhite", 1);
             setUniform4f(blitProgram, "u_UVRect", 1f - ratio, 0f, ratio, 1f);
-            GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
+            gl.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
         }
 
         // Right bar
-        if (barWidth > 0) {
-            GL11.glViewport(barWidth + squareSize, 0, barWidth, squareSize);
+        if (bars) {
+            gl.glViewport(barWidth + squareSize, 0, barWidth, squareSize);
             setUniform1i(blitProgram, "u_ForceWhite", 1);
             setUniform4f(blitProgram, "u_UVRect", 0f, 0f, ratio, 1f);
-            GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
+            gl.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
         }
 
-        GL30.glBindVertexArray(0);
-        GL20.glUseProgram(0);
+        GLStateManager.bindVertexArray(0);
+        GLStateManager.useProgram(0);
+        profiler.end(GpuProfiler.BLIT);
 
         // Restore full viewport for anything that renders afterwards 
-        GL11.glViewport(0, 0, W, H);
+        gl.glViewport(0, 0, W, H);
+
+        if (SimulationConfig.GL_DEBUG) {
+            int error = gl.glGetError();
+            if (error != GL11.GL_NO_ERROR) {
+                Gdx.app.error("GLRenderer", "Error after draw: 0x" + Integer.toHexString(error));
+            }
+        }
+    }
+
+    /**
+     * Point sprites get too expensive to blend once millions overlap; switch to
+     * density splatting above the configured particle count
+     */
+    public boolean isSplatActive() {
+        if (mosaicColumns > 0) {
+            return false;
+        }
+        switch (RuntimeConfig.getRenderMode()) {
+            case SPLAT:
+                return true;
+            case POINTS:
+                return false;
+            default:
+                // Zoomed in, roughly count / zoom^2 particles are on screen
+                float zoom = RuntimeConfig.getViewZoom();
+                return RuntimeConfig.getParticleCount() / (zoom * zoom) > SimulationConfig.SPLAT_PARTICLE_THRESHOLD;
+        }
+    }
 
-        int error = GL11.glGetError();
-        if (error != GL11.GL_NO_ERROR) {
-            Gdx.app.error("GLRenderer", "Error after draw: 0x" + Integer.toHexString(error));
+    /**
+     * RuntimeConfig swaps in a new palette array when the group count changes,
+     * so recolouring is a single small upload instead of a pass over every particle
+     */
+    private void uploadPaletteIfChanged() {
+        float[][] palette = RuntimeConfig.getGroupColors();
+        if (palette == uploadedPalette && paletteSSBO != 0) {
+            return;
+        }
+        if (paletteSSBO == 0) {
+            paletteSSBO = gl.glGenBuffers();
         }
+        // Sized for MAX_GROUPS so stale group ids never read past the end
+        int entries = Math.max(palette.length, SimulationConfig.MAX_GROUPS);
+        FloatBuffer data = BufferUtils.createFloatBuffer(entries * 4);
+        for (int i = 0; i < entries; i++) {
+            float[] col = palette[i % palette.length];
+            data.put(col[0]).put(col[1]).put(col[2]).put(col[3]);
+        }
+        data.flip();
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, paletteSSBO);
+        gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, data, GL15.GL_DYNAMIC_DRAW);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        uploadedPalette = palette;
+    }
+
+    private void renderPoints() {
+        boolean mosaic = mosaicColumns > 0;
+        int program = RuntimeConfig.isFixedPoint() && !mosaic ? fixedRenderProgram : renderProgram;
+        GLStateManager.ensureParticleRenderState();
+        GLStateManager.useProgram(program);
+
+        // For square offscreen we do not need horizontal squeeze
+        setUniform1f(program, "u_AspectScale", 1.0f);
+        setUniform1f(program, "u_PointSize", RuntimeConfig.getParticleSizePx() * resolutionScale);
+        setUniform1f(program, "u_WorldHalfExtent", RuntimeConfig.getWorldHalfExtent());
+        setUniform1i(program, "u_MosaicColumns", mosaicColumns);
+        // The ensemble's buffer is never captured
+        bindInterpolation(program, "u_Alpha", "u_Wrap", mosaic ? -1f : alpha);
+        setUniform2f(program, "u_ViewCenter", RuntimeConfig.getViewCenterX(), RuntimeConfig.getViewCenterY());
+        setUniform1f(program, "u_ViewZoom", RuntimeConfig.getViewZoom());
+
+        int count = mosaic ? mosaicCount : RuntimeConfig.getParticleCount();
+        boolean culled = !mosaic && RuntimeConfig.getViewZoom() > 1f && cullProgram != 0 && count > 0;
+        if (culled) {
+            cullVisible(count);
+            GLStateManager.useProgram(program);
+        }
+        setUniform1i(program, "u_Culled", culled ? 1 : 0);
+
+        GLStateManager.bindVertexArray(vao);
+        if (culled) {
+            GLStateManager.bindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, drawCommandBuffer);
+            gl.glDrawArraysIndirect(GL11.GL_POINTS, 0);
+            GLStateManager.bindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, 0);
+        } else {
+            gl.glDrawArraysInstanced(GL11.GL_POINTS, 0, 1, count);
+        }
+        GLStateManager.bindVertexArray(0);
+        GLStateManager.useProgram(0);
+    }
+
+    /**
+     * Writes the indices of particles inside the view (plus a margin for the
+     * point size and for interpolated motion) and their count into the
+     * indirect draw command; nothing is read back
+     */
+    private void cullVisible(int count) {
+        if (drawCommandBuffer == 0) {
+            drawCommandBuffer = gl.glGenBuffers();
+            GLStateManager.bindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, drawCommandBuffer);
+            gl.glBufferData(GL40.GL_DRAW_INDIRECT_BUFFER, DRAW_COMMAND_INIT, GL15.GL_DYNAMIC_DRAW);
+            GLStateManager.bindBuffer(GL40.GL_DRAW_INDIRECT_BUFFER, 0);
+            visibleSSBO = gl.glGenBuffers();
+        }
+        long bytes = (long) count * Integer.BYTES;
+        if (bytes > visibleCapacity) {
+            visibleCapacity = Math.max(bytes, visibleCapacity * 2);
+            GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, visibleSSBO);
+            gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, visibleCapacity, GL15.GL_DYNAMIC_COPY);
+        }
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, drawCommandBuffer);
+        gl.glClearBufferSubData(GL43.GL_SHADER_STORAGE_BUFFER, GL30.GL_R32UI, INSTANCE_COUNT_OFFSET, 4,
+                GL30.GL_RED_INTEGER, GL11.GL_UNSIGNED_INT, CLEAR_ZERO);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, VISIBLE_BINDING, visibleSSBO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, DRAW_COMMAND_BINDING, drawCommandBuffer);
+
+        float zoom = RuntimeConfig.getViewZoom();
+        float extent = RuntimeConfig.getWorldHalfExtent();
+        float margin = RuntimeConfig.getParticleSizePx() * resolutionScale / Math.max(1, fboSize);
+        if (alpha >= 0f && RuntimeConfig.getPhysicsHz() > 0f) {
+            margin += MAX_SPEED * RuntimeConfig.getTimeScale() / RuntimeConfig.getPhysicsHz() * zoom / extent;
+        }
+
+        int program = RuntimeConfig.isFixedPoint() ? fixedCullProgram : cullProgram;
+        GLStateManager.useProgram(program);
+        setUniform1i(program, "u_count", count);
+        setUniform1f(program, "u_world_half_extent", extent);
+        setUniform1i(program, "u_wrap", RuntimeConfig.isWrapBoundaries() ? 1 : 0);
+        setUniform2f(program, "u_view_center", RuntimeConfig.getViewCenterX(), RuntimeConfig.getViewCenterY());
+        setUniform1f(program, "u_view_zoom", zoom);
+        setUniform1f(program, "u_margin", margin);
+        gl.glDispatchCompute((count + SimulationConfig.WORKGROUP_SIZE - 1) / SimulationConfig.WORKGROUP_SIZE, 1, 1);
+        gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT | GL43.GL_COMMAND_BARRIER_BIT);
+    }
+
+    private void renderSplat() {
+        int count = RuntimeConfig.getParticleCount();
+
+        // Accumulate colour and density per pixel
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, splatSSBO);
+        gl.glClearBufferData(GL43.GL_SHADER_STORAGE_BUFFER, GL30.GL_R32UI, GL30.GL_RED_INTEGER,
+                GL11.GL_UNSIGNED_INT, CLEAR_ZERO);
+        GLStateManager.bindBufferBase(GL43.GL_SHADER_STORAGE_BUFFER, 4, splatSSBO);
+
+        if (count > 0) {
+            int program = RuntimeConfig.isFixedPoint() ? fixedSplatProgram : splatProgram;
+            GLStateManager.useProgram(program);
+            setUniform1i(program, "u_count", count);
+            setUniform1i(program, "u_size", fboSize);
+            setUniform1f(program, "u_world_half_extent", RuntimeConfig.getWorldHalfExtent());
+            bindInterpolation(program, "u_alpha", "u_wrap", alpha);
+            setUniform2f(program, "u_view_center", RuntimeConfig.getViewCenterX(), RuntimeConfig.getViewCenterY());
+            setUniform1f(program, "u_view_zoom", RuntimeConfig.getViewZoom());
+            gl.glDispatchCompute((count + SimulationConfig.WORKGROUP_SIZE - 1) / SimulationConfig.WORKGROUP_SIZE,
+                    1, 1);
+            gl.glMemoryBarrier(GL43.GL_SHADER_STORAGE_BARRIER_BIT);
+        }
+
+        // Tone map into the offscreen square
+        GLStateManager.ensureBlitState();
+        GLStateManager.useProgram(toneMapProgram);
+        setUniform1i(toneMapProgram, "u_size", fboSize);
+        setUniform1f(toneMapProgram, "u_Exposure", SimulationConfig.SPLAT_EXPOSURE);
+        setUniform4f(toneMapProgram, "u_UVRect", 0f, 0f, 1f, 1f);
+        GLStateManager.bindVertexArray(blitVao);
+        gl.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
+        GLStateManager.bindVertexArray(0);
+        GLStateManager.useProgram(0);
     }
 
     private void setupParticleVAO() {
         // Create VAO/VBO for single vertex instanced rendering
-        vao = GL30.glGenVertexArrays();
-        GL30.glBindVertexArray(vao);
+        vao = gl.glGenVertexArrays();
+        GLStateManager.bindVertexArray(vao);
 
-        vbo = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        vbo = gl.glGenBuffers();
+        GLStateManager.bindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
 
         FloatBuffer vertexBuffer = BufferUtils.createFloatBuffer(3);
         vertexBuffer.put(0f).put(0f).put(0f).flip();
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexBuffer, GL15.GL_STATIC_DRAW);
+        gl.glBufferData(GL15.GL_ARRAY_BUFFER, vertexBuffer, GL15.GL_STATIC_DRAW);
 
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glVertexAttribPointer(0, 3, GL11.GL_FLOAT, false, 3 * Float.BYTES, 0);
+        gl.glEnableVertexAttribArray(0);
+        gl.glVertexAttribPointer(0, 3, GL11.GL_FLOAT, false, 3 * Float.BYTES, 0);
 
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-        GL30.glBindVertexArray(0);
+        GLStateManager.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GLStateManager.bindVertexArray(0);
     }
 
     private void setupBlitQuad() {
@@ -161,123 +448,176 @@ public class GLRenderer {
                 -1f,  1f,  0f, 1f
         };
 
-        blitVao = GL30.glGenVertexArrays();
-        blitVbo = GL15.glGenBuffers();
+        blitVao = gl.glGenVertexArrays();
+        blitVbo = gl.glGenBuffers();
 
-        GL30.glBindVertexArray(blitVao);
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, blitVbo);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, quad, GL15.GL_STATIC_DRAW);
+        GLStateManager.bindVertexArray(blitVao);
+        GLStateManager.bindBuffer(GL15.GL_ARRAY_BUFFER, blitVbo);
+        gl.glBufferData(GL15.GL_ARRAY_BUFFER, quad, GL15.GL_STATIC_DRAW);
 
         int stride = (2 + 2) * Float.BYTES;
-        GL20.glEnableVertexAttribArray(0); // position
-        GL20.glVertexAttribPointer(0, 2, GL11.GL_FLOAT, false, stride, 0);
-        GL20.glEnableVertexAttribArray(1); // uv
-        GL20.glVertexAttribPointer(1, 2, GL11.GL_FLOAT, false, stride, 2 * Float.BYTES);
+        gl.glEnableVertexAttribArray(0); // position
+        gl.glVertexAttribPointer(0, 2, GL11.GL_FLOAT, false, stride, 0);
+        gl.glEnableVertexAttribArray(1); // uv
+        gl.glVertexAttribPointer(1, 2, GL11.GL_FLOAT, false, stride, 2 * Float.BYTES);
+
+        GLStateManager.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GLStateManager.bindVertexArray(0);
+    }
+
+    /**
+     * Offscreen resolution relative to the window height, (0, 1]; point
+     * sizes are scaled with it so particles keep their on-screen size
+     */
+    public void setResolutionScale(float scale) {
+        resolutionScale = Math.clamp(scale, 0.1f, 1f);
+    }
+
+    public float getResolutionScale() {
+        return resolutionScale;
+    }
 
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
-        GL30.glBindVertexArray(0);
+    private int offscreenSize() {
+        return Math.max(1, Math.round(Gdx.graphics.getHeight() * resolutionScale));
     }
 
     private void recreateOffscreenIfNeeded() {
-        int H = Gdx.graphics.getHeight();
-        int newSize = Math.max(1, H);
+        int newSize = offscreenSize();
 
         if (fbo != 0 && newSize == fboSize) return;
 
         // Dispose old
         if (fbo != 0) {
-            GL30.glDeleteFramebuffers(fbo);
+            gl.glDeleteFramebuffers(fbo);
             fbo = 0;
         }
         if (fboTex != 0) {
-            GL11.glDeleteTextures(fboTex);
+            GLStateManager.deleteTexture(fboTex);
             fboTex = 0;
         }
         if (fboRbo != 0) {
-            GL30.glDeleteRenderbuffers(fboRbo);
+            gl.glDeleteRenderbuffers(fboRbo);
             fboRbo = 0;
         }
 
         fboSize = newSize;
 
+        // Splat accumulation matches the offscreen square
+        if (splatSSBO == 0) {
+            splatSSBO = gl.glGenBuffers();
+        }
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, splatSSBO);
+        gl.glBufferData(GL43.GL_SHADER_STORAGE_BUFFER, (long) fboSize * fboSize * 4 * Integer.BYTES,
+                GL15.GL_DYNAMIC_DRAW);
+        GLStateManager.bindBuffer(GL43.GL_SHADER_STORAGE_BUFFER, 0);
+
         // Create color texture
-        fboTex = GL11.glGenTextures();
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, fboTex);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
-        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, fboSize, fboSize, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, (IntBuffer) null);
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        fboTex = gl.glGenTextures();
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, fboTex);
+        gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_LINEAR);
+        gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_LINEAR);
+        gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
+        gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
+        gl.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA8, fboSize, fboSize, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, (IntBuffer) null);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, 0);
 
         // Create renderbuffer for depth 
-        fboRbo = GL30.glGenRenderbuffers();
-        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, fboRbo);
-        GL30.glRenderbufferStorage(GL30.GL_RENDERBUFFER, GL14.GL_DEPTH_COMPONENT24, fboSize, fboSize);
-        GL30.glBindRenderbuffer(GL30.GL_RENDERBUFFER, 0);
+        fboRbo = gl.glGenRenderbuffers();
+        gl.glBindRenderbuffer(GL30.GL_RENDERBUFFER, fboRbo);
+        gl.glRenderbufferStorage(GL30.GL_RENDERBUFFER, GL14.GL_DEPTH_COMPONENT24, fboSize, fboSize);
+        gl.glBindRenderbuffer(GL30.GL_RENDERBUFFER, 0);
 
         // Create framebuffer
-        fbo = GL30.glGenFramebuffers();
-        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fbo);
-        GL32.glFramebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, fboTex, 0);
-        GL30.glFramebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER, fboRbo);
+        fbo = gl.glGenFramebuffers();
+        gl.glBindFramebuffer(GL30.GL_FRAMEBUFFER, fbo);
+        gl.glFramebufferTexture(GL30.GL_FRAMEBUFFER, GL30.GL_COLOR_ATTACHMENT0, fboTex, 0);
+        gl.glFramebufferRenderbuffer(GL30.GL_FRAMEBUFFER, GL30.GL_DEPTH_ATTACHMENT, GL30.GL_RENDERBUFFER, fboRbo);
 
-        int status = GL30.glCheckFramebufferStatus(GL30.GL_FRAMEBUFFER);
+        int status = gl.glCheckFramebufferStatus(GL30.GL_FRAMEBUFFER);
         if (status != GL30.GL_FRAMEBUFFER_COMPLETE) {
             Gdx.app.error("GLRenderer", "FBO incomplete: 0x" + Integer.toHexString(status));
         }
-        GL30.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
+        gl.glBindFramebuffer(GL30.GL_FRAMEBUFFER, 0);
     }
 
     private void setUniform1f(int program, String name, float value) {
-        int location = GL20.glGetUniformLocation(program, name);
+        int location = GLStateManager.uniformLocation(program, name);
         if (location >= 0) {
-            GL20.glUniform1f(location, value);
+            gl.glUniform1f(location, value);
         }
     }
 
     private void setUniform1i(int program, String name, int value) {
-        int location = GL20.glGetUniformLocation(program, name);
+        int location = GLStateManager.uniformLocation(program, name);
         if (location >= 0) {
-            GL20.glUniform1i(location, value);
+            gl.glUniform1i(location, value);
+        }
+    }
+
+    private void setUniform2f(int program, String name, float x, float y) {
+        int location = GLStateManager.uniformLocation(program, name);
+        if (location >= 0) {
+            gl.glUniform2f(location, x, y);
         }
     }
 
     private void setUniform4f(int program, String name, float x, float y, float z, float w) {
-        int location = GL20.glGetUniformLocation(program, name);
+        int location = GLStateManager.uniformLocation(program, name);
         if (location >= 0) {
-            GL20.glUniform4f(location, x, y, z, w);
+            gl.glUniform4f(location, x, y, z, w);
         }
     }
 
     public void dispose() {
         if (vbo != 0) {
-            GL15.glDeleteBuffers(vbo);
+            GLStateManager.deleteBuffer(vbo);
             vbo = 0;
         }
         if (vao != 0) {
-            GL30.glDeleteVertexArrays(vao);
+            GLStateManager.deleteVertexArray(vao);
             vao = 0;
         }
         if (blitVbo != 0) {
-            GL15.glDeleteBuffers(blitVbo);
+            GLStateManager.deleteBuffer(blitVbo);
             blitVbo = 0;
         }
         if (blitVao != 0) {
-            GL30.glDeleteVertexArrays(blitVao);
+            GLStateManager.deleteVertexArray(blitVao);
             blitVao = 0;
         }
         if (fbo != 0) {
-            GL30.glDeleteFramebuffers(fbo);
+            gl.glDeleteFramebuffers(fbo);
             fbo = 0;
         }
         if (fboTex != 0) {
-            GL11.glDeleteTextures(fboTex);
+            GLStateManager.deleteTexture(fboTex);
             fboTex = 0;
         }
         if (fboRbo != 0) {
-            GL30.glDeleteRenderbuffers(fboRbo);
+            gl.glDeleteRenderbuffers(fboRbo);
             fboRbo = 0;
         }
+        if (splatSSBO != 0) {
+            GLStateManager.deleteBuffer(splatSSBO);
+            splatSSBO = 0;
+        }
+        if (drawCommandBuffer != 0) {
+            GLStateManager.deleteBuffer(drawCommandBuffer);
+            GLStateManager.deleteBuffer(visibleSSBO);
+            drawCommandBuffer = 0;
+            visibleSSBO = 0;
+            visibleCapacity = 0;
+        }
+        if (previousSSBO != 0) {
+            GLStateManager.deleteBuffer(previousSSBO);
+            previousSSBO = 0;
+            previousCapacity = 0;
+            capturedSource = 0;
+        }
+        if (paletteSSBO != 0) {
+            GLStateManager.deleteBuffer(paletteSSBO);
+            paletteSSBO = 0;
+            uploadedPalette = null;
+        }
     }
 }
\ No newline at end of file
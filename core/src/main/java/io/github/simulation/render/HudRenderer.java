@@ -0,0 +1,272 @@
+package io.github.simulation.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+import org.lwjgl.opengl.*;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Retained-mode status panel. Text and the attraction matrix are drawn into
+ * a cached texture only when something shown on it changed; every other
+ * frame the panel costs one textured quad. The matrix comes from a small
+ * R32F texture coloured in hud_matrix.frag instead of one rectangle per cell.
+ */
+public class HudRenderer {
+
+    // Layout, in pixels from the top left corner of the window
+    private static final float PADDING_X = 10f;
+    private static final float LINE_HEIGHT = 20f;
+    private static final float MIN_TEXT_WIDTH = 300f;
+    private static final int MATRIX_X = 200;
+    private static final int MATRIX_TOP = 30;
+    private static final int CELL_SIZE = 18;
+
+    private final GLFacade gl = GLFacade.get();
+    private final int blitProgram;
+    private final int matrixProgram;
+    private final int blitTextureLoc;
+    private final int blitForceWhiteLoc;
+    private final int blitUvRectLoc;
+    private final int matrixTextureLoc;
+    private final int matrixGroupsLoc;
+    private final int matrixCellSizeLoc;
+
+    private final SpriteBatch batch = new SpriteBatch();
+    private final BitmapFont font = new BitmapFont();
+    private final Matrix4 projection = new Matrix4();
+    private FrameBuffer panel;
+
+    private int quadVao = 0;
+    private int quadVbo = 0;
+    private int matrixTex = 0;
+    private final FloatBuffer matrixData = BufferUtils.newFloatBuffer(
+            SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS);
+
+    // What the cached texture currently shows
+    private final String[] lines = new String[64];
+    private int lineCount = 0;
+    private final float[] matrix = new float[SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS];
+    private int groups = 0;
+    private boolean dirty = true;
+    private boolean matrixDirty = true;
+
+    public HudRenderer(int blitProgram, int matrixProgram) {
+        this.blitProgram = blitProgram;
+        this.matrixProgram = matrixProgram;
+        blitTextureLoc = gl.glGetUniformLocation(blitProgram, "u_Texture");
+        blitForceWhiteLoc = gl.glGetUniformLocation(blitProgram, "u_ForceWhite");
+        blitUvRectLoc = gl.glGetUniformLocation(blitProgram, "u_UVRect");
+        matrixTextureLoc = gl.glGetUniformLocation(matrixProgram, "u_Matrix");
+        matrixGroupsLoc = gl.glGetUniformLocation(matrixProgram, "u_Groups");
+        matrixCellSizeLoc = gl.glGetUniformLocation(matrixProgram, "u_CellSize");
+
+        setupQuad();
+
+        matrixTex = gl.glGenTextures();
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, matrixTex);
+        gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+        gl.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+        gl.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL30.GL_R32F, SimulationConfig.MAX_GROUPS,
+                SimulationConfig.MAX_GROUPS, 0, GL11.GL_RED, GL11.GL_FLOAT, (FloatBuffer) null);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, 0);
+        // SpriteBatch and BitmapFont created their GL objects directly
+        GLStateManager.invalidate();
+    }
+
+    /**
+     * Text lines, top to bottom; null entries are spacing. The panel is only
+     * redrawn if a line differs from what it shows.
+     */
+    public void setLines(String[] newLines, int count) {
+        count = Math.min(count, lines.length);
+        if (count != lineCount) {
+            dirty = true;
+        }
+        for (int i = 0; i < count; i++) {
+            String line = newLines[i];
+            if (line == null ? lines[i] != null : !line.equals(lines[i])) {
+                lines[i] = line;
+                dirty = true;
+            }
+        }
+        lineCount = count;
+    }
+
+    /**
+     * Compared against the uploaded copy every frame, which is cheap at
+     * MAX_GROUPS^2 floats and shows edits without waiting for a text refresh
+     */
+    public void setMatrix(float[][] m, int groupCount) {
+        int g = m == null ? 0 : Math.min(groupCount, SimulationConfig.MAX_GROUPS);
+        if (g != groups) {
+            groups = g;
+            dirty = true;
+            matrixDirty = true;
+        }
+        for (int i = 0; i < g; i++) {
+            for (int j = 0; j < g; j++) {
+                float v = m[i][j];
+                if (matrix[i * g + j] != v) {
+                    matrix[i * g + j] = v;
+                    dirty = true;
+                    matrixDirty = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Redraws the cached panel if needed and composites it over the frame
+     */
+    public void render() {
+        if (dirty || panel == null) {
+            redraw();
+        }
+
+        int h = Gdx.graphics.getHeight();
+        GLStateManager.ensureBlitState();
+        gl.glViewport(0, h - panel.getHeight(), panel.getWidth(), panel.getHeight());
+        GLStateManager.useProgram(blitProgram);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, panel.getColorBufferTexture().getTextureObjectHandle());
+        gl.glUniform1i(blitTextureLoc, 0);
+        gl.glUniform1i(blitForceWhiteLoc, 0);
+        gl.glUniform4f(blitUvRectLoc, 0f, 0f, 1f, 1f);
+        GLStateManager.bindVertexArray(quadVao);
+        gl.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
+        GLStateManager.bindVertexArray(0);
+        GLStateManager.useProgram(0);
+        gl.glViewport(0, 0, Gdx.graphics.getWidth(), h);
+    }
+
+    private void redraw() {
+        int matrixSize = groups * CELL_SIZE;
+        float textHeight = lineCount * LINE_HEIGHT - 5f;
+        int width = Math.round(Math.max(MIN_TEXT_WIDTH, MATRIX_X + matrixSize) + 15f);
+        int height = Math.round(Math.max(textHeight, matrixSize) + 5f);
+        if (panel == null || panel.getWidth() != width || panel.getHeight() != height) {
+            if (panel != null) {
+                panel.dispose();
+            }
+            panel = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+            panel.getColorBufferTexture().setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+            GLStateManager.invalidate();
+        }
+
+        GLStateManager.ensureSpriteBatchCompatibility();
+        panel.begin();
+        gl.glClearColor(0.2f, 0.2f, 0.2f, 0.8f);
+        gl.glClear(GL11.GL_COLOR_BUFFER_BIT);
+        // Keep the panel's own alpha where text and cells are drawn over it
+        GLStateManager.blendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE,
+                GL11.GL_ONE_MINUS_SRC_ALPHA);
+
+        if (groups > 0) {
+            drawMatrix(height);
+            gl.glViewport(0, 0, width, height);
+        }
+
+        batch.setProjectionMatrix(projection.setToOrtho2D(0, 0, width, height));
+        batch.setBlendFunctionSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE,
+                GL11.GL_ONE_MINUS_SRC_ALPHA);
+        batch.begin();
+        float y = height - 5f;
+        for (int i = 0; i < lineCount; i++) {
+            if (lines[i] != null) {
+                font.draw(batch, lines[i], PADDING_X, y);
+            }
+            y -= LINE_HEIGHT;
+        }
+        batch.end();
+        panel.end();
+        // SpriteBatch binds its own program, buffers and textures
+        GLStateManager.invalidate();
+
+        dirty = false;
+    }
+
+    // Row 0 at the top, one cell per pair with a one pixel gap
+    private void drawMatrix(int panelHeight) {
+        GLStateManager.activeTexture(GL13.GL_TEXTURE0);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, matrixTex);
+        if (matrixDirty) {
+            matrixData.clear();
+            matrixData.put(matrix, 0, groups * groups).flip();
+            gl.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 4);
+            gl.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, 0, 0, groups, groups, GL11.GL_RED, GL11.GL_FLOAT,
+                    matrixData);
+            matrixDirty = false;
+        }
+
+        int size = groups * CELL_SIZE;
+        gl.glViewport(MATRIX_X, panelHeight - MATRIX_TOP - (groups - 1) * CELL_SIZE, size, size);
+        GLStateManager.useProgram(matrixProgram);
+        gl.glUniform1i(matrixTextureLoc, 0);
+        gl.glUniform1i(matrixGroupsLoc, groups);
+        gl.glUniform1f(matrixCellSizeLoc, CELL_SIZE);
+        GLStateManager.bindVertexArray(quadVao);
+        gl.glDrawArrays(GL11.GL_TRIANGLES, 0, 6);
+        GLStateManager.bindVertexArray(0);
+        GLStateManager.useProgram(0);
+        GLStateManager.bindTexture(GL11.GL_TEXTURE_2D, 0);
+    }
+
+    private void setupQuad() {
+        // Viewport-filling quad, with UVs
+        float[] quad = new float[]{
+                // x,  y,   u, v
+                -1f, -1f,  0f, 0f,
+                 1f, -1f,  1f, 0f,
+                 1f,  1f,  1f, 1f,
+                -1f, -1f,  0f, 0f,
+                 1f,  1f,  1f, 1f,
+                -1f,  1f,  0f, 1f
+        };
+
+        quadVao = gl.glGenVertexArrays();
+        quadVbo = gl.glGenBuffers();
+
+        GLStateManager.bindVertexArray(quadVao);
+        GLStateManager.bindBuffer(GL15.GL_ARRAY_BUFFER, quadVbo);
+        gl.glBufferData(GL15.GL_ARRAY_BUFFER, quad, GL15.GL_STATIC_DRAW);
+
+        int stride = (2 + 2) * Float.BYTES;
+        gl.glEnableVertexAttribArray(0); // position
+        gl.glVertexAttribPointer(0, 2, GL11.GL_FLOAT, false, stride, 0);
+        gl.glEnableVertexAttribArray(1); // uv
+        gl.glVertexAttribPointer(1, 2, GL11.GL_FLOAT, false, stride, 2 * Float.BYTES);
+
+        GLStateManager.bindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GLStateManager.bindVertexArray(0);
+    }
+
+    public void dispose() {
+        if (panel != null) {
+            panel.dispose();
+            panel = null;
+        }
+        if (matrixTex != 0) {
+            GLStateManager.deleteTexture(matrixTex);
+            matrixTex = 0;
+        }
+        if (quadVbo != 0) {
+            GLStateManager.deleteBuffer(quadVbo);
+            quadVbo = 0;
+        }
+        if (quadVao != 0) {
+            GLStateManager.deleteVertexArray(quadVao);
+            quadVao = 0;
+        }
+        batch.dispose();
+        font.dispose();
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.simulation.render;
+
+import com.badlogic.gdx.Gdx;
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.RuntimeConfig.RenderMode;
+import io.github.simulation.config.SimulationConfig;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Holds the busy time of a frame near GOVERNOR_TARGET_FRAME_MS by trading
+ * quality for speed within the GOVERNOR_* bounds. Both directions compare
+ * busy time, never the frame-to-frame interval: a display below 60 Hz or a
+ * throttled window stretches the interval without the frame costing more,
+ * and mixing the two would degrade and restore on alternate windows.
+ * Timings are averaged over GOVERNOR_WINDOW frames and at most one knob
+ * moves per window:
+ * - over budget: one step down on one knob. Substeps go first when the
+ *   compute passes take most of the frame, otherwise the render knobs in
+ *   order overlay refresh, offscreen resolution, point size, render mode,
+ *   and substeps last.
+ * - well under budget: the most recent step is undone, so quality comes
+ *   back in the reverse order it was given up.
+ * Every decision is logged with the timings that caused it.
+ */
+public class QualityGovernor {
+
+    enum Knob {
+        SUBSTEPS("substeps"),
+        OVERLAY("overlay interval"),
+        RESOLUTION("resolution scale"),
+        POINT_SIZE("point size"),
+        RENDER_MODE("render mode");
+
+        final String label;
+
+        Knob(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Decision {
+        final Knob knob;
+        final float before;
+
+        Decision(Knob knob, float before) {
+            this.knob = knob;
+            this.before = before;
+        }
+    }
+
+    private static final Knob[] RENDER_ORDER = { Knob.OVERLAY, Knob.RESOLUTION, Knob.POINT_SIZE, Knob.RENDER_MODE,
+            Knob.SUBSTEPS };
+    private static final Knob[] COMPUTE_ORDER = { Knob.SUBSTEPS, Knob.OVERLAY, Knob.RESOLUTION, Knob.POINT_SIZE,
+            Knob.RENDER_MODE };
+
+    private final GLRenderer renderer;
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+    private int overlayInterval = 1;
+
+    private int frames = 0;
+    private double frameMsSum = 0;
+    private double busyMsSum = 0;
+    private double computeMsSum = 0;
+
+    public QualityGovernor(GLRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * @param frameMs   frame-to-frame interval, only logged; vsync and throttling stretch it
+     * @param busyMs    time the frame actually kept CPU or GPU busy (excludes vsync waits), 0 if unknown
+     * @param computeMs GPU time of the populate and force passes, 0 if unknown
+     */
+    public void update(float frameMs, float busyMs, float computeMs) {
+        if (!RuntimeConfig.isQualityGovernor()) {
+            restoreAll();
+            return;
+        }
+        frames++;
+        frameMsSum += frameMs;
+        busyMsSum += busyMs > 0f ? busyMs : frameMs;
+        computeMsSum += computeMs;
+        if (frames < SimulationConfig.GOVERNOR_WINDOW) {
+            return;
+        }
+        float frame = (float) (frameMsSum / frames);
+        float busy = (float) (busyMsSum / frames);
+        float compute = (float) (computeMsSum / frames);
+        frames = 0;
+        frameMsSum = 0;
+        busyMsSum = 0;
+        computeMsSum = 0;
+
+        float target = SimulationConfig.GOVERNOR_TARGET_FRAME_MS;
+        String timings = String.format("frame %.1f ms, busy %.1f ms, compute %.1f ms, target %.1f ms",
+                frame, busy, compute, target);
+        if (busy > target * SimulationConfig.GOVERNOR_OVER_BUDGET) {
+            Knob[] order = compute > busy * 0.5f ? COMPUTE_ORDER : RENDER_ORDER;
+            for (Knob knob : order) {
+                float before = value(knob);
+                if (degrade(knob)) {
+                    decisions.push(new Decision(knob, before));
+                    log("Over budget (" + timings + "): " + knob.label + " " + format(knob, before) + " -> "
+                            + format(knob, value(knob)));
+                    return;
+                }
+            }
+        } else if (busy < target * SimulationConfig.GOVERNOR_HEADROOM && !decisions.isEmpty()) {
+            Decision last = decisions.pop();
+            float current = value(last.knob);
+            apply(last.knob, last.before);
+            log("Headroom (" + timings + "): " + last.knob.label + " " + format(last.knob, current) + " -> "
+                    + format(last.knob, last.before));
+        }
+    }
+
+    // One step towards the bound; false if the knob is already there or does not apply
+    private boolean degrade(Knob knob) {
+        switch (knob) {
+            case SUBSTEPS:
+                if (RuntimeConfig.getSubsteps() <= SimulationConfig.GOVERNOR_MIN_SUBSTEPS) {
+                    return false;
+                }
+                RuntimeConfig.setSubsteps(RuntimeConfig.getSubsteps() - 1);
+                return true;
+            case OVERLAY:
+                if (overlayInterval * 2 > SimulationConfig.GOVERNOR_MAX_OVERLAY_INTERVAL) {
+                    return false;
+                }
+                overlayInterval *= 2;
+                return true;
+            case RESOLUTION:
+                float scale = renderer.getResolutionScale() - 0.25f;
+                if (scale < SimulationConfig.GOVERNOR_MIN_RESOLUTION_SCALE - 1e-3f) {
+                    return false;
+                }
+                renderer.setResolutionScale(scale);
+                return true;
+            case POINT_SIZE:
+                float size = Math.max(SimulationConfig.GOVERNOR_MIN_POINT_SIZE,
+                        RuntimeConfig.getParticleSizePx() * 0.75f);
+                if (size >= RuntimeConfig.getParticleSizePx()) {
+                    return false;
+                }
+                RuntimeConfig.setParticleSizePx(size);
+                return true;
+            case RENDER_MODE:
+                // Splatting only pays off once enough points overlap
+                if (!SimulationConfig.GOVERNOR_ALLOW_SPLAT || renderer.isSplatActive()
+                        || RuntimeConfig.getParticleCount() < SimulationConfig.GOVERNOR_SPLAT_MIN_PARTICLES) {
+                    return false;
+                }
+                RuntimeConfig.setRenderMode(RenderMode.SPLAT);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private float value(Knob knob) {
+        switch (knob) {
+            case SUBSTEPS:
+                return RuntimeConfig.getSubsteps();
+            case OVERLAY:
+                return overlayInterval;
+            case RESOLUTION:
+                return renderer.getResolutionScale();
+            case POINT_SIZE:
+                return RuntimeConfig.getParticleSizePx();
+            default:
+                return RuntimeConfig.getRenderMode().ordinal();
+        }
+    }
+
+    private void apply(Knob knob, float value) {
+        switch (knob) {
+            case SUBSTEPS:
+                RuntimeConfig.setSubsteps((int) value);
+                break;
+            case OVERLAY:
+                overlayInterval = (int) value;
+                break;
+            case RESOLUTION:
+                renderer.setResolutionScale(value);
+                break;
+            case POINT_SIZE:
+                RuntimeConfig.setParticleSizePx(value);
+                break;
+            default:
+                RuntimeConfig.setRenderMode(RenderMode.values()[(int) value]);
+                break;
+        }
+    }
+
+    private static String format(Knob knob, float value) {
+        switch (knob) {
+            case SUBSTEPS:
+            case OVERLAY:
+                return Integer.toString((int) value);
+            case RENDER_MODE:
+                return RenderMode.values()[(int) value].name();
+            default:
+                return String.format("%.2f", value);
+        }
+    }
+
+    /**
+     * Undoes every decision, newest first, e.g. when the governor is switched off
+     */
+    public void restoreAll() {
+        if (decisions.isEmpty()) {
+            return;
+        }
+        while (!decisions.isEmpty()) {
+            Decision d = decisions.pop();
+            apply(d.knob, d.before);
+        }
+        frames = 0;
+        frameMsSum = 0;
+        busyMsSum = 0;
+        computeMsSum = 0;
+        log("Restored full quality");
+    }
+
+    /**
+     * Divides HUD_REFRESH_HZ, the rate the status text is rebuilt at
+     */
+    public int getOverlayInterval() {
+        return overlayInterval;
+    }
+
+    /**
+     * Number of steps currently given up
+     */
+    public int getDegradations() {
+        return decisions.size();
+    }
+
+    private static void log(String message) {
+        Gdx.app.log("QualityGovernor", message);
+    }
+}
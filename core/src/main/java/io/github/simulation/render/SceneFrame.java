@@ -0,0 +1,103 @@
+package io.github.simulation.render;
+
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.particles.ParticleSystem;
+import io.github.simulation.profiling.FramePhaseEvent;
+import io.github.simulation.profiling.GpuProfiler;
+import io.github.simulation.shader.ShaderManager;
+import io.github.simulation.util.FixedStepClock;
+
+/**
+ * One frame of the single world: grid upkeep, compute variant switch, the
+ * physics steps due on the fixed step clock and the draw. Simulation runs
+ * it every frame and GLBudgetCheck runs it against a RecordingGLFacade, so
+ * the budget is checked on exactly the calls the app makes.
+ */
+public class SceneFrame {
+
+    private final ShaderManager shaderManager;
+    private final ParticleSystem particleSystem;
+    private final ComputeRenderer computeRenderer;
+    private final GLRenderer glRenderer;
+
+    // Physics runs at RuntimeConfig.getPhysicsHz(), frames are drawn between steps
+    private final FixedStepClock physicsClock = new FixedStepClock();
+    private int physicsSteps = 0;
+
+    // Only set where tuning requests are served
+    private ComputeTuner computeTuner = null;
+    private GpuProfiler gpuProfiler = GpuProfiler.DISABLED;
+
+    public SceneFrame(ShaderManager shaderManager, ParticleSystem particleSystem, ComputeRenderer computeRenderer,
+                      GLRenderer glRenderer) {
+        this.shaderManager = shaderManager;
+        this.particleSystem = particleSystem;
+        this.computeRenderer = computeRenderer;
+        this.glRenderer = glRenderer;
+    }
+
+    /**
+     * Serves RuntimeConfig's compute tuning requests; the profiler is paused
+     * while the tuner runs
+     */
+    public void setComputeTuner(ComputeTuner computeTuner, GpuProfiler gpuProfiler) {
+        this.computeTuner = computeTuner;
+        this.gpuProfiler = gpuProfiler;
+    }
+
+    /**
+     * Physics steps the last frame ran
+     */
+    public int getPhysicsSteps() {
+        return physicsSteps;
+    }
+
+    public void render(float deltaTime, float time) {
+        particleSystem.convertLayoutIfNeeded();
+
+        FramePhaseEvent phase = FramePhaseEvent.start("reassignGroupsIfNeeded");
+        particleSystem.reassignGroupsIfNeeded();
+        phase.finish();
+
+        particleSystem.bindSSBO();
+
+        phase = FramePhaseEvent.start("checkAndRebuildGrid");
+        particleSystem.checkAndRebuildGrid();
+        phase.finish();
+
+        if (computeTuner != null && RuntimeConfig.consumeComputeTuningRequest()) {
+            // The tuner runs its own GL_TIME_ELAPSED queries, which cannot nest
+            boolean profiling = gpuProfiler.isEnabled();
+            gpuProfiler.setEnabled(false);
+            computeTuner.tune(shaderManager, computeRenderer, particleSystem);
+            gpuProfiler.setEnabled(profiling);
+        }
+
+        // Specialised particle.comp for the current grid/groups once it has compiled
+        shaderManager.regenerateComputeShader();
+        computeRenderer.setComputePrograms(shaderManager.getActivePopulateProgram(),
+                shaderManager.getActiveComputeProgram(), shaderManager.isActiveComputeTiled());
+
+        // Clears the grid and records every substep (clearGrid has its own event). Only
+        // the state before the frame's last step is kept, that is what it is drawn from.
+        phase = FramePhaseEvent.start("executeComputeShader");
+        physicsSteps = physicsClock.advance(deltaTime, RuntimeConfig.getPhysicsHz(),
+                SimulationConfig.MAX_PHYSICS_STEPS_PER_FRAME);
+        for (int step = 0; step < physicsSteps; step++) {
+            if (physicsClock.isFixedRate() && step == physicsSteps - 1) {
+                glRenderer.capturePreviousState(particleSystem.getSSBO(), particleSystem.getParticleBytes());
+            }
+            computeRenderer.executeComputeShader(physicsClock.getStepSeconds(), time, particleSystem);
+        }
+        glRenderer.setInterpolation(particleSystem.getSSBO(),
+                physicsClock.isFixedRate() ? physicsClock.getAlpha() : -1f);
+        phase.finish();
+
+        phase = FramePhaseEvent.start("GLRenderer.render");
+        glRenderer.render();
+        phase.finish();
+
+        particleSystem.unbindSSBO();
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.simulation.shader;
+
+/**
+ * How particle.comp is built for the force pass
+ */
+public enum ComputeStrategy {
+    GENERIC,     // runtime values from uniforms, only the workgroup size is compiled in
+    SPECIALISED, // group count, grid size etc. compiled in as constants
+    TILED        // specialised, plus the shared memory tiled force kernel
+}
@@ -0,0 +1,120 @@
+package io.github.simulation.shader;
+
+import io.github.simulation.config.SimulationConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compile-time constants for one build of particle.comp. The shader falls
+ * back to the matching uniforms when a define is absent, so the generic
+ * program and every variant share one source. A GENERIC variant only fixes
+ * the workgroup size. Every variant has a force program and a matching
+ * populate program (populatePass), linked separately.
+ */
+public final class ComputeVariant {
+
+    private final ComputeStrategy strategy;
+    private final int groupCount;
+    private final int gridSize;
+    private final int maxProbes;
+    private final int workgroupSize;
+    private final boolean symmetricMatrix;
+    private final boolean populate;
+
+    public ComputeVariant(ComputeStrategy strategy, int groupCount, int gridSize, int maxProbes, int workgroupSize,
+                          boolean symmetricMatrix) {
+        this(strategy, groupCount, gridSize, maxProbes, workgroupSize, symmetricMatrix, false);
+    }
+
+    private ComputeVariant(ComputeStrategy strategy, int groupCount, int gridSize, int maxProbes, int workgroupSize,
+                           boolean symmetricMatrix, boolean populate) {
+        this.populate = populate;
+        this.strategy = strategy;
+        this.groupCount = groupCount;
+        this.gridSize = gridSize;
+        this.maxProbes = maxProbes;
+        this.workgroupSize = workgroupSize;
+        this.symmetricMatrix = symmetricMatrix;
+    }
+
+    /**
+     * The grid populate program built with the same constants; the tiled
+     * kernel only changes the force pass, so it shares the specialised one
+     */
+    public ComputeVariant populatePass() {
+        ComputeStrategy s = strategy == ComputeStrategy.TILED ? ComputeStrategy.SPECIALISED : strategy;
+        return new ComputeVariant(s, groupCount, gridSize, maxProbes, workgroupSize, symmetricMatrix, true);
+    }
+
+    /**
+     * Allocation-free equality check of a force variant against the current runtime parameters
+     */
+    public boolean matches(ComputeStrategy strategy, int groupCount, int gridSize, int maxProbes, int workgroupSize,
+                           boolean symmetricMatrix) {
+        return !populate && this.strategy == strategy && this.groupCount == groupCount && this.gridSize == gridSize
+                && this.maxProbes == maxProbes && this.workgroupSize == workgroupSize && this.symmetricMatrix == symmetricMatrix;
+    }
+
+    public String[] defines() {
+        List<String> defines = new ArrayList<>();
+        if (populate) {
+            defines.add("POPULATE_PASS");
+        }
+        if (strategy == ComputeStrategy.GENERIC) {
+            defines.add("LOCAL_SIZE " + workgroupSize);
+            return defines.toArray(new String[0]);
+        }
+        defines.add("GROUP_COUNT " + groupCount);
+        defines.add("GRID_SIZE " + gridSize);
+        defines.add("MAX_PROBES " + maxProbes);
+        defines.add("LOCAL_SIZE " + workgroupSize);
+        if (symmetricMatrix) {
+            defines.add("SYMMETRIC_MATRIX");
+        }
+        if (strategy == ComputeStrategy.TILED) {
+            defines.add("TILED_FORCES");
+            defines.add("TILE_CELLS " + SimulationConfig.TILE_CELLS);
+        }
+        return defines.toArray(new String[0]);
+    }
+
+    public ComputeStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getWorkgroupSize() {
+        return workgroupSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ComputeVariant)) {
+            return false;
+        }
+        ComputeVariant v = (ComputeVariant) o;
+        return populate == v.populate && strategy == v.strategy && groupCount == v.groupCount
+                && gridSize == v.gridSize && maxProbes == v.maxProbes && workgroupSize == v.workgroupSize
+                && symmetricMatrix == v.symmetricMatrix;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = strategy.ordinal() * 2 + (populate ? 1 : 0);
+        h = 31 * h + groupCount;
+        h = 31 * h + gridSize;
+        h = 31 * h + maxProbes;
+        h = 31 * h + workgroupSize;
+        return 31 * h + (symmetricMatrix ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        String pass = populate ? "populate " : "";
+        if (strategy == ComputeStrategy.GENERIC) {
+            return pass + "generic local=" + workgroupSize;
+        }
+        return pass + strategy.name().toLowerCase() + " groups=" + groupCount + " grid=" + gridSize + " probes=" + maxProbes
+                + " local=" + workgroupSize + (symmetricMatrix ? " symmetric" : "");
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.simulation.shader;
+
+import com.badlogic.gdx.Gdx;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+import org.lwjgl.opengl.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LRU of linked particle.comp variants. A missing variant is compiled with
+ * GL_ARB/KHR_parallel_shader_compile when available, so the driver builds it
+ * on its own threads while the caller keeps dispatching the generic program;
+ * completion is polled instead of waited on. Evicted programs are deleted.
+ */
+public class ComputeVariantCache {
+
+    private static final class PendingCompile {
+        final int shader;
+        final int program;
+        final String cacheKey;
+        final long startNanos;
+
+        PendingCompile(int shader, int program, String cacheKey, long startNanos) {
+            this.shader = shader;
+            this.program = program;
+            this.cacheKey = cacheKey;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final GLFacade gl = GLFacade.get();
+    private final String source;
+    private final ProgramBinaryCache binaryCache;
+    private final boolean parallelCompile;
+    private final LinkedHashMap<ComputeVariant, Integer> programs;
+    private final Map<ComputeVariant, PendingCompile> pending = new HashMap<>();
+    private final Set<ComputeVariant> failed = new HashSet<>();
+
+    /**
+     * @param binaryCache may be null
+     */
+    public ComputeVariantCache(String source, ProgramBinaryCache binaryCache, final int capacity) {
+        this.source = source;
+        this.binaryCache = binaryCache != null && binaryCache.isSupported() ? binaryCache : null;
+
+        parallelCompile = gl.enableParallelShaderCompile();
+
+        this.programs = new LinkedHashMap<ComputeVariant, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ComputeVariant, Integer> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                GLStateManager.deleteProgram(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Linked program for the variant, or 0 while it is still being built. The
+     * first request for a variant starts its compile.
+     */
+    public int request(ComputeVariant variant) {
+        Integer program = programs.get(variant);
+        if (program != null) {
+            return program;
+        }
+        poll();
+        program = programs.get(variant);
+        if (program != null) {
+            return program;
+        }
+        if (!pending.containsKey(variant) && !failed.contains(variant)) {
+            start(variant);
+        }
+        return 0;
+    }
+
+    /**
+     * Like request, but waits for the link to finish; 0 if the variant fails
+     */
+    public int requestNow(ComputeVariant variant) {
+        int program = request(variant);
+        if (program != 0) {
+            return program;
+        }
+        PendingCompile job = pending.remove(variant);
+        if (job != null) {
+            finish(variant, job);
+        }
+        Integer linked = programs.get(variant);
+        return linked != null ? linked : 0;
+    }
+
+    private void start(ComputeVariant variant) {
+        long start = System.nanoTime();
+        String src = ShaderManager.withDefines(source, variant.defines());
+
+        String key = null;
+        if (binaryCache != null) {
+            key = binaryCache.keyFor("compute", src);
+            int cached = binaryCache.load(key);
+            if (cached != 0) {
+                programs.put(variant, cached);
+                Gdx.app.log("ComputeVariantCache", "Variant [" + variant + "] loaded from binary cache");
+                return;
+            }
+        }
+
+        int cs = gl.glCreateShader(GL43.GL_COMPUTE_SHADER);
+        gl.glShaderSource(cs, src);
+        gl.glCompileShader(cs);
+        int prog = gl.glCreateProgram();
+        gl.glAttachShader(prog, cs);
+        gl.glProgramParameteri(prog, GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+        gl.glLinkProgram(prog);
+        pending.put(variant, new PendingCompile(cs, prog, key, start));
+    }
+
+    /**
+     * Moves finished compiles into the LRU without blocking on unfinished ones
+     */
+    public void poll() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<ComputeVariant, PendingCompile>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ComputeVariant, PendingCompile> entry = it.next();
+            PendingCompile job = entry.getValue();
+            if (parallelCompile
+                    && gl.glGetProgrami(job.program, ARBParallelShaderCompile.GL_COMPLETION_STATUS_ARB) == 0) {
+                continue;
+            }
+            it.remove();
+            finish(entry.getKey(), job);
+        }
+    }
+
+    private void finish(ComputeVariant variant, PendingCompile job) {
+        boolean compiled = gl.glGetShaderi(job.shader, GL20.GL_COMPILE_STATUS) != 0;
+        boolean linked = compiled && gl.glGetProgrami(job.program, GL20.GL_LINK_STATUS) != 0;
+        if (!linked) {
+            String log = compiled ? gl.glGetProgramInfoLog(job.program) : gl.glGetShaderInfoLog(job.shader);
+            Gdx.app.error("ComputeVariantCache", "Variant [" + variant + "] failed, keeping the generic program:\n" + log);
+            GLStateManager.deleteProgram(job.program);
+            gl.glDeleteShader(job.shader);
+            failed.add(variant);
+            return;
+        }
+
+        gl.glDetachShader(job.program, job.shader);
+        gl.glDeleteShader(job.shader);
+        long elapsed = System.nanoTime() - job.startNanos;
+        if (binaryCache != null) {
+            binaryCache.store(job.cacheKey, job.program, elapsed);
+        }
+        programs.put(variant, job.program);
+        Gdx.app.log("ComputeVariantCache", "Variant [" + variant + "] ready after " + elapsed / 1_000_000 + " ms"
+                + (parallelCompile ? " (background compile)" : ""));
+    }
+
+    public void dispose() {
+        for (int program : programs.values()) {
+            GLStateManager.deleteProgram(program);
+        }
+        programs.clear();
+        for (PendingCompile job : pending.values()) {
+            GLStateManager.deleteProgram(job.program);
+            gl.glDeleteShader(job.shader);
+        }
+        pending.clear();
+    }
+}
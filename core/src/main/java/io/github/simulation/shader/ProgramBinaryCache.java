@@ -0,0 +1,150 @@
+package io.github.simulation.shader;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * On-disk cache of linked program binaries (glGetProgramBinary). Entries are
+ * keyed by a hash of the shader sources, GL_RENDERER and GL_VERSION, so a
+ * driver update or an edited shader simply misses. Drivers may still reject
+ * a binary; callers then compile from source and the entry is rewritten.
+ */
+public class ProgramBinaryCache {
+
+    private static final int MAGIC = 0x50424331; // Little-endian like the rest of the header: "1CBP" on disk
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    private final GLFacade gl = GLFacade.get();
+    private final FileHandle dir;
+    private final boolean supported;
+    private final String deviceKey;
+
+    // Compile time recorded with the entry that was loaded last, for startup logging
+    private long lastSavedCompileNanos = 0;
+
+    public ProgramBinaryCache(FileHandle dir) {
+        this.dir = dir;
+        this.supported = gl.glGetInteger(GL41.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+        this.deviceKey = gl.glGetString(GL11.GL_RENDERER) + '\n' + gl.glGetString(GL11.GL_VERSION);
+        if (!supported) {
+            Gdx.app.log("ProgramBinaryCache", "Driver exposes no program binary formats, cache disabled.");
+        }
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public String keyFor(String label, String... sources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(deviceKey.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(label.getBytes(StandardCharsets.UTF_8));
+            for (String source : sources) {
+                digest.update((byte) 0);
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * Creates a program from the cached binary, or returns 0 when there is no
+     * usable entry
+     */
+    public int load(String key) {
+        if (!supported) {
+            return 0;
+        }
+        FileHandle file = dir.child(key + ".bin");
+        if (!file.exists()) {
+            return 0;
+        }
+
+        ByteBuffer data;
+        try {
+            byte[] bytes = file.readBytes();
+            data = BufferUtils.createByteBuffer(bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+            data.put(bytes).flip();
+        } catch (RuntimeException e) {
+            Gdx.app.error("ProgramBinaryCache", "Could not read " + file.path() + ": " + e.getMessage());
+            return 0;
+        }
+        if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC) {
+            file.delete();
+            return 0;
+        }
+        int format = data.getInt();
+        long compileNanos = data.getLong();
+        int length = data.getInt();
+        if (length != data.remaining()) {
+            file.delete();
+            return 0;
+        }
+
+        int prog = gl.glCreateProgram();
+        gl.glProgramBinary(prog, format, data);
+        if (gl.glGetProgrami(prog, GL20.GL_LINK_STATUS) == 0) {
+            // Rejected (driver changed in a way the key missed); fall back to source
+            GLStateManager.deleteProgram(prog);
+            file.delete();
+            return 0;
+        }
+        lastSavedCompileNanos = compileNanos;
+        return prog;
+    }
+
+    /**
+     * Writes the binary of a program linked with GL_PROGRAM_BINARY_RETRIEVABLE_HINT
+     */
+    public void store(String key, int prog, long compileNanos) {
+        if (!supported || prog == 0) {
+            return;
+        }
+        int length = gl.glGetProgrami(prog, GL41.GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) {
+            return;
+        }
+
+        IntBuffer written = BufferUtils.createIntBuffer(1);
+        IntBuffer format = BufferUtils.createIntBuffer(1);
+        ByteBuffer binary = BufferUtils.createByteBuffer(length);
+        gl.glGetProgramBinary(prog, written, format, binary);
+
+        byte[] out = new byte[HEADER_BYTES + written.get(0)];
+        // Same order as load() reads it in; wrap() alone would be big-endian
+        ByteBuffer header = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(format.get(0)).putLong(compileNanos).putInt(written.get(0));
+        binary.get(out, HEADER_BYTES, written.get(0));
+        try {
+            dir.child(key + ".bin").writeBytes(out, false);
+        } catch (RuntimeException e) {
+            Gdx.app.error("ProgramBinaryCache", "Could not write cache entry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Source compile time stored with the entry returned by the last successful load
+     */
+    public long getLastSavedCompileNanos() {
+        return lastSavedCompileNanos;
+    }
+}
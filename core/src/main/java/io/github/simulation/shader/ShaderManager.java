@@ -3,57 +3,301 @@ package io.github.simulation.shader;
 import com.badlogic.gdx.Gdx;
 import org.lwjgl.opengl.*;
 import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.RuntimeGrid;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.GLStateManager;
+
+import java.util.function.IntSupplier;
 
 /**
  * Manages shader compilation and program creation 
  */
 public class ShaderManager {
 
+    private final GLFacade gl = GLFacade.get();
     private int computeProgram = 0;
+    private int populateProgram = 0;
+    private int dispatchProgram = 0;
     private int renderProgram = 0;
     private int blitProgram = 0;
+    private int splatProgram = 0;
+    private int toneMapProgram = 0;
+    private int hudMatrixProgram = 0;
+
+    // Fixed point physics variants (particle buffer holds the 12-byte integer layout)
+    private int fixedPopulateProgram = 0;
+    private int fixedComputeProgram = 0;
+    private int fixedPositionProgram = 0;
+    private int fixedRenderProgram = 0;
+    private int fixedSplatProgram = 0;
+
+    // View culling: visible particle indices + indirect draw count, per particle layout
+    private int cullProgram = 0;
+    private int fixedCullProgram = 0;
+
+    // Ensemble programs: particle.comp with WORLDS, per-world parameters from an SSBO
+    private int ensemblePopulateProgram = 0;
+    private int ensembleComputeProgram = 0;
+
+    // particle.comp specialised for the current configuration, see regenerateComputeShader
+    private ComputeVariantCache computeVariants;
+    private ComputeVariant currentVariant = null;
+    private ComputeVariant currentPopulateVariant = null;
+    private int activeComputeProgram = 0;
+    private int activePopulateProgram = 0;
+    private boolean activeComputeTiled = false;
+    private int computeWorkgroupSize = SimulationConfig.WORKGROUP_SIZE;
+    private ComputeStrategy computeStrategy = ComputeStrategy.SPECIALISED;
+
+    private ProgramBinaryCache binaryCache;
+    private int cacheHits = 0;
+    private int cacheMisses = 0;
+    private long savedNanos = 0;
 
     public boolean initializeShaders() {
+        long start = System.nanoTime();
+        if (SimulationConfig.SHADER_BINARY_CACHE) {
+            binaryCache = new ProgramBinaryCache(Gdx.files.external(SimulationConfig.SHADER_CACHE_DIR));
+        }
+
         // Particle render program
         String vertexShader = Gdx.files.internal("shaders/particle.vert").readString();
         String fragmentShader = Gdx.files.internal("shaders/particle.frag").readString();
-        renderProgram = createRenderProgram(vertexShader, fragmentShader);
+        renderProgram = cached("render", () -> createRenderProgram(vertexShader, fragmentShader), vertexShader, fragmentShader);
 
         // Compute program
         String computeShaderSource = Gdx.files.internal("shaders/particle.comp").readString();
-        computeProgram = createComputeProgram(computeShaderSource);
+        computeProgram = cached("compute", () -> createComputeProgram(computeShaderSource), computeShaderSource);
+        String populateSource = withDefines(computeShaderSource, "POPULATE_PASS");
+        populateProgram = cached("compute", () -> createComputeProgram(populateSource), populateSource);
+        activeComputeProgram = computeProgram;
+        activePopulateProgram = populateProgram;
+        String ensembleSource = withDefines(computeShaderSource, "WORLDS");
+        ensembleComputeProgram = cached("compute", () -> createComputeProgram(ensembleSource), ensembleSource);
+        String ensemblePopulateSource = withDefines(computeShaderSource, "WORLDS", "POPULATE_PASS");
+        ensemblePopulateProgram = cached("compute", () -> createComputeProgram(ensemblePopulateSource),
+                ensemblePopulateSource);
+        if (SimulationConfig.COMPUTE_VARIANTS) {
+            computeVariants = new ComputeVariantCache(computeShaderSource, binaryCache,
+                    SimulationConfig.COMPUTE_VARIANT_CACHE_SIZE);
+        }
+
+        // Indirect dispatch arguments from the GPU-resident particle count
+        String dispatchSource = Gdx.files.internal("shaders/dispatch.comp").readString();
+        dispatchProgram = cached("compute", () -> createComputeProgram(dispatchSource), dispatchSource);
 
         // Blit program 
         String blitVert = Gdx.files.internal("shaders/blit.vert").readString();
         String blitFrag = Gdx.files.internal("shaders/blit.frag").readString();
-        blitProgram = createProgram(blitVert, blitFrag);
-
-        if (computeProgram == 0 || renderProgram == 0 || blitProgram == 0) {
+        blitProgram = cached("program", () -> createProgram(blitVert, blitFrag), blitVert, blitFrag);
+
+        // Density splat programs (accumulate + tone map)
+        String splatSource = Gdx.files.internal("shaders/splat.comp").readString();
+        splatProgram = cached("compute", () -> createComputeProgram(splatSource), splatSource);
+        String splatFrag = Gdx.files.internal("shaders/splat.frag").readString();
+        toneMapProgram = cached("program", () -> createProgram(blitVert, splatFrag), blitVert, splatFrag);
+
+        // Attraction matrix of the HUD, drawn from a float texture
+        String hudMatrixFrag = Gdx.files.internal("shaders/hud_matrix.frag").readString();
+        hudMatrixProgram = cached("program", () -> createProgram(blitVert, hudMatrixFrag), blitVert, hudMatrixFrag);
+
+        // Culling of zoomed views
+        String cullSource = Gdx.files.internal("shaders/cull.comp").readString();
+        cullProgram = cached("compute", () -> createComputeProgram(cullSource), cullSource);
+
+        // Fixed point physics and the matching readers of its particle layout
+        String fixedComputeSource = Gdx.files.internal("shaders/particle_fixed.comp").readString();
+        String fixedPopulateSource = withDefines(fixedComputeSource, "POPULATE_PASS");
+        fixedPopulateProgram = cached("compute", () -> createComputeProgram(fixedPopulateSource), fixedPopulateSource);
+        fixedComputeProgram = cached("compute", () -> createComputeProgram(fixedComputeSource), fixedComputeSource);
+        String fixedPositionSource = withDefines(fixedComputeSource, "POSITION_PASS");
+        fixedPositionProgram = cached("compute", () -> createComputeProgram(fixedPositionSource), fixedPositionSource);
+        String fixedVertexShader = withDefines(vertexShader, "FIXED_POINT");
+        fixedRenderProgram = cached("render", () -> createRenderProgram(fixedVertexShader, fragmentShader),
+                fixedVertexShader, fragmentShader);
+        String fixedSplatSource = withDefines(splatSource, "FIXED_POINT");
+        fixedSplatProgram = cached("compute", () -> createComputeProgram(fixedSplatSource), fixedSplatSource);
+        String fixedCullSource = withDefines(cullSource, "FIXED_POINT");
+        fixedCullProgram = cached("compute", () -> createComputeProgram(fixedCullSource), fixedCullSource);
+
+        if (computeProgram == 0 || populateProgram == 0 || dispatchProgram == 0 || renderProgram == 0 || blitProgram == 0
+                || splatProgram == 0 || toneMapProgram == 0 || hudMatrixProgram == 0
+                || fixedPopulateProgram == 0 || fixedComputeProgram == 0 || fixedPositionProgram == 0
+                || fixedRenderProgram == 0 || fixedSplatProgram == 0
+                || ensembleComputeProgram == 0 || ensemblePopulateProgram == 0
+                || cullProgram == 0 || fixedCullProgram == 0) {
             Gdx.app.error("ShaderManager", "Shaders failed to compile/link.");
             return false;
         }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        if (binaryCache != null && binaryCache.isSupported()) {
+            Gdx.app.log("ShaderManager", "Shaders ready in " + elapsedMs + " ms (" + cacheHits + " from binary cache, "
+                    + cacheMisses + " compiled, ~" + savedNanos / 1_000_000 + " ms saved)");
+        } else {
+            Gdx.app.log("ShaderManager", "Shaders compiled in " + elapsedMs + " ms");
+        }
         return true;
     }
 
+    /**
+     * Loads a program from the binary cache, or builds it from source and
+     * stores the result. The label keeps programs built differently from the
+     * same sources (attribute bindings) apart.
+     */
+    private int cached(String label, IntSupplier build, String... sources) {
+        if (binaryCache == null || !binaryCache.isSupported()) {
+            return build.getAsInt();
+        }
+        String key = binaryCache.keyFor(label, sources);
+
+        long start = System.nanoTime();
+        int prog = binaryCache.load(key);
+        if (prog != 0) {
+            cacheHits++;
+            savedNanos += Math.max(0, binaryCache.getLastSavedCompileNanos() - (System.nanoTime() - start));
+            return prog;
+        }
+
+        prog = build.getAsInt();
+        if (prog != 0) {
+            cacheMisses++;
+            binaryCache.store(key, prog, System.nanoTime() - start);
+        }
+        return prog;
+    }
+
+    /**
+     * Inserts #define lines right after the #version directive
+     */
+    static String withDefines(String source, String... defines) {
+        StringBuilder header = new StringBuilder();
+        for (String define : defines) {
+            header.append("#define ").append(define).append('\n');
+        }
+        int lineEnd = source.indexOf('\n');
+        if (!source.startsWith("#version") || lineEnd < 0) {
+            return header + source;
+        }
+        return source.substring(0, lineEnd + 1) + header + source.substring(lineEnd + 1);
+    }
+
+    /**
+     * Requests the particle.comp variant with the current group count, grid
+     * size, workgroup size and matrix symmetry baked in (only the workgroup
+     * size for GENERIC). Returns true once both its populate and force
+     * programs are linked; until then the generic pair stays active.
+     */
     public boolean regenerateComputeShader() {
-        return computeProgram != 0;
+        return regenerate(false);
+    }
+
+    /**
+     * Like regenerateComputeShader, but waits for the variant to link
+     */
+    public boolean regenerateComputeShaderNow() {
+        return regenerate(true);
+    }
+
+    private boolean regenerate(boolean wait) {
+        if (computeVariants == null) {
+            activeComputeProgram = computeProgram;
+            activePopulateProgram = populateProgram;
+            activeComputeTiled = false;
+            return false;
+        }
+        ComputeStrategy strategy = computeStrategy;
+        boolean specialised = strategy != ComputeStrategy.GENERIC;
+        int groupCount = specialised ? RuntimeConfig.getGroupCount() : 0;
+        int gridSize = specialised ? RuntimeGrid.getGridSize() : 0;
+        boolean symmetric = specialised && isSymmetric(RuntimeConfig.getAttractionMatrix(), groupCount);
+        if (currentVariant == null || !currentVariant.matches(strategy, groupCount, gridSize,
+                SimulationConfig.MAX_HASH_PROBES, computeWorkgroupSize, symmetric)) {
+            currentVariant = new ComputeVariant(strategy, groupCount, gridSize, SimulationConfig.MAX_HASH_PROBES,
+                    computeWorkgroupSize, symmetric);
+            currentPopulateVariant = currentVariant.populatePass();
+        }
+
+        int force = wait ? computeVariants.requestNow(currentVariant) : computeVariants.request(currentVariant);
+        int populate = wait ? computeVariants.requestNow(currentPopulateVariant)
+                : computeVariants.request(currentPopulateVariant);
+        boolean ready = force != 0 && populate != 0;
+        activeComputeProgram = ready ? force : computeProgram;
+        activePopulateProgram = ready ? populate : populateProgram;
+        activeComputeTiled = ready && strategy == ComputeStrategy.TILED;
+        return ready;
+    }
+
+    /**
+     * Workgroup size and whether runtime constants are compiled in, e.g. as
+     * chosen by ComputeTuner; takes effect on the next regenerateComputeShader
+     */
+    public void setComputeStrategy(int workgroupSize, ComputeStrategy strategy) {
+        computeWorkgroupSize = workgroupSize;
+        computeStrategy = strategy;
+    }
+
+    public int getComputeWorkgroupSize() {
+        return computeWorkgroupSize;
+    }
+
+    public ComputeStrategy getComputeStrategy() {
+        return computeStrategy;
+    }
+
+    public boolean hasComputeVariants() {
+        return computeVariants != null;
+    }
+
+    private static boolean isSymmetric(float[][] m, int groupCount) {
+        int n = Math.min(groupCount, m.length);
+        for (int r = 0; r < n; r++) {
+            for (int c = r + 1; c < n; c++) {
+                if (c >= m[r].length || r >= m[c].length || m[r][c] != m[c][r]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Force program of the variant when it is ready, otherwise the generic one
+     */
+    public int getActiveComputeProgram() {
+        return activeComputeProgram;
+    }
+
+    /**
+     * Populate program matching getActiveComputeProgram
+     */
+    public int getActivePopulateProgram() {
+        return activePopulateProgram;
+    }
+
+    /**
+     * True if the active program runs the force pass as the tiled kernel
+     */
+    public boolean isActiveComputeTiled() {
+        return activeComputeTiled;
     }
 
     public void updateComputeUniforms() {
-        GL20.glUseProgram(computeProgram);
+        GLStateManager.useProgram(computeProgram);
 
         // Update runtime configuration uniforms
         setUniform(computeProgram, "u_force_factor", RuntimeConfig.getForceFactor());
         setUniform(computeProgram, "u_velocity_damping", RuntimeConfig.getVelocityDamping());
         setUniform(computeProgram, "u_interaction_range", RuntimeConfig.getInteractionRange());
 
-        GL20.glUseProgram(0);
+        GLStateManager.useProgram(0);
     }
 
     private void setUniform(int program, String name, float value) {
-        int location = GL20.glGetUniformLocation(program, name);
+        int location = GLStateManager.uniformLocation(program, name);
         if (location >= 0) {
-            GL20.glUniform1f(location, value);
+            gl.glUniform1f(location, value);
         }
     }
 
@@ -61,6 +305,14 @@ public class ShaderManager {
         return computeProgram;
     }
 
+    public int getPopulateProgram() {
+        return populateProgram;
+    }
+
+    public int getDispatchProgram() {
+        return dispatchProgram;
+    }
+
     public int getRenderProgram() {
         return renderProgram;
     }
@@ -69,128 +321,241 @@ public class ShaderManager {
         return blitProgram;
     }
 
+    public int getSplatProgram() {
+        return splatProgram;
+    }
+
+    public int getToneMapProgram() {
+        return toneMapProgram;
+    }
+
+    public int getHudMatrixProgram() {
+        return hudMatrixProgram;
+    }
+
+    public int getFixedPopulateProgram() {
+        return fixedPopulateProgram;
+    }
+
+    public int getFixedComputeProgram() {
+        return fixedComputeProgram;
+    }
+
+    public int getFixedPositionProgram() {
+        return fixedPositionProgram;
+    }
+
+    public int getFixedRenderProgram() {
+        return fixedRenderProgram;
+    }
+
+    public int getFixedSplatProgram() {
+        return fixedSplatProgram;
+    }
+
+    public int getCullProgram() {
+        return cullProgram;
+    }
+
+    public int getFixedCullProgram() {
+        return fixedCullProgram;
+    }
+
+    public int getEnsemblePopulateProgram() {
+        return ensemblePopulateProgram;
+    }
+
+    public int getEnsembleComputeProgram() {
+        return ensembleComputeProgram;
+    }
+
     public void dispose() {
+        if (computeVariants != null) {
+            computeVariants.dispose();
+            computeVariants = null;
+        }
+        activeComputeProgram = 0;
+        activePopulateProgram = 0;
+        if (populateProgram != 0) {
+            GLStateManager.deleteProgram(populateProgram);
+            populateProgram = 0;
+        }
+        if (dispatchProgram != 0) {
+            GLStateManager.deleteProgram(dispatchProgram);
+            dispatchProgram = 0;
+        }
         if (computeProgram != 0) {
-            GL20.glDeleteProgram(computeProgram);
+            GLStateManager.deleteProgram(computeProgram);
             computeProgram = 0;
         }
         if (renderProgram != 0) {
-            GL20.glDeleteProgram(renderProgram);
+            GLStateManager.deleteProgram(renderProgram);
             renderProgram = 0;
         }
         if (blitProgram != 0) {
-            GL20.glDeleteProgram(blitProgram);
+            GLStateManager.deleteProgram(blitProgram);
             blitProgram = 0;
         }
+        if (splatProgram != 0) {
+            GLStateManager.deleteProgram(splatProgram);
+            splatProgram = 0;
+        }
+        if (toneMapProgram != 0) {
+            GLStateManager.deleteProgram(toneMapProgram);
+            toneMapProgram = 0;
+        }
+        if (hudMatrixProgram != 0) {
+            GLStateManager.deleteProgram(hudMatrixProgram);
+            hudMatrixProgram = 0;
+        }
+        if (fixedPopulateProgram != 0) {
+            GLStateManager.deleteProgram(fixedPopulateProgram);
+            fixedPopulateProgram = 0;
+        }
+        if (fixedComputeProgram != 0) {
+            GLStateManager.deleteProgram(fixedComputeProgram);
+            fixedComputeProgram = 0;
+        }
+        if (fixedPositionProgram != 0) {
+            GLStateManager.deleteProgram(fixedPositionProgram);
+            fixedPositionProgram = 0;
+        }
+        if (fixedRenderProgram != 0) {
+            GLStateManager.deleteProgram(fixedRenderProgram);
+            fixedRenderProgram = 0;
+        }
+        if (fixedSplatProgram != 0) {
+            GLStateManager.deleteProgram(fixedSplatProgram);
+            fixedSplatProgram = 0;
+        }
+        if (cullProgram != 0) {
+            GLStateManager.deleteProgram(cullProgram);
+            cullProgram = 0;
+        }
+        if (fixedCullProgram != 0) {
+            GLStateManager.deleteProgram(fixedCullProgram);
+            fixedCullProgram = 0;
+        }
+        if (ensemblePopulateProgram != 0) {
+            GLStateManager.deleteProgram(ensemblePopulateProgram);
+            ensemblePopulateProgram = 0;
+        }
+        if (ensembleComputeProgram != 0) {
+            GLStateManager.deleteProgram(ensembleComputeProgram);
+            ensembleComputeProgram = 0;
+        }
     }
 
     private int createComputeProgram(String src) {
-        int cs = GL20.glCreateShader(GL43.GL_COMPUTE_SHADER);
-        GL20.glShaderSource(cs, src);
-        GL20.glCompileShader(cs);
+        int cs = gl.glCreateShader(GL43.GL_COMPUTE_SHADER);
+        gl.glShaderSource(cs, src);
+        gl.glCompileShader(cs);
 
-        if (GL20.glGetShaderi(cs, GL20.GL_COMPILE_STATUS) == 0) {
-            String log = GL20.glGetShaderInfoLog(cs);
+        if (gl.glGetShaderi(cs, GL20.GL_COMPILE_STATUS) == 0) {
+            String log = gl.glGetShaderInfoLog(cs);
             Gdx.app.error("ShaderManager", "Compute shader compile error:\n" + log);
-            GL20.glDeleteShader(cs);
+            gl.glDeleteShader(cs);
             return 0;
         }
 
-        int prog = GL20.glCreateProgram();
-        GL20.glAttachShader(prog, cs);
-        GL20.glLinkProgram(prog);
+        int prog = gl.glCreateProgram();
+        gl.glAttachShader(prog, cs);
+        gl.glProgramParameteri(prog, GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+        gl.glLinkProgram(prog);
 
-        if (GL20.glGetProgrami(prog, GL20.GL_LINK_STATUS) == 0) {
-            String log = GL20.glGetProgramInfoLog(prog);
+        if (gl.glGetProgrami(prog, GL20.GL_LINK_STATUS) == 0) {
+            String log = gl.glGetProgramInfoLog(prog);
             Gdx.app.error("ShaderManager", "Compute program link error:\n" + log);
-            GL20.glDeleteProgram(prog);
-            GL20.glDeleteShader(cs);
+            GLStateManager.deleteProgram(prog);
+            gl.glDeleteShader(cs);
             return 0;
         }
 
-        GL20.glDetachShader(prog, cs);
-        GL20.glDeleteShader(cs);
+        gl.glDetachShader(prog, cs);
+        gl.glDeleteShader(cs);
         return prog;
     }
 
     // Particle render program 
     private int createRenderProgram(String vertSrc, String fragSrc) {
-        int vs = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
-        GL20.glShaderSource(vs, vertSrc);
-        GL20.glCompileShader(vs);
+        int vs = gl.glCreateShader(GL20.GL_VERTEX_SHADER);
+        gl.glShaderSource(vs, vertSrc);
+        gl.glCompileShader(vs);
 
-        if (GL20.glGetShaderi(vs, GL20.GL_COMPILE_STATUS) == 0) {
-            Gdx.app.error("ShaderManager", "Vertex shader compile error:\n" + GL20.glGetShaderInfoLog(vs));
-            GL20.glDeleteShader(vs);
+        if (gl.glGetShaderi(vs, GL20.GL_COMPILE_STATUS) == 0) {
+            Gdx.app.error("ShaderManager", "Vertex shader compile error:\n" + gl.glGetShaderInfoLog(vs));
+            gl.glDeleteShader(vs);
             return 0;
         }
 
-        int fs = GL20.glCreateShader(GL20.GL_FRAGMENT_SHADER);
-        GL20.glShaderSource(fs, fragSrc);
-        GL20.glCompileShader(fs);
+        int fs = gl.glCreateShader(GL20.GL_FRAGMENT_SHADER);
+        gl.glShaderSource(fs, fragSrc);
+        gl.glCompileShader(fs);
 
-        if (GL20.glGetShaderi(fs, GL20.GL_COMPILE_STATUS) == 0) {
-            Gdx.app.error("ShaderManager", "Fragment shader compile error:\n" + GL20.glGetShaderInfoLog(fs));
-            GL20.glDeleteShader(vs);
-            GL20.glDeleteShader(fs);
+        if (gl.glGetShaderi(fs, GL20.GL_COMPILE_STATUS) == 0) {
+            Gdx.app.error("ShaderManager", "Fragment shader compile error:\n" + gl.glGetShaderInfoLog(fs));
+            gl.glDeleteShader(vs);
+            gl.glDeleteShader(fs);
             return 0;
         }
 
-        int prog = GL20.glCreateProgram();
-        GL20.glAttachShader(prog, vs);
-        GL20.glAttachShader(prog, fs);
-        GL20.glBindAttribLocation(prog, 0, "in_pos");
-        GL20.glLinkProgram(prog);
-
-        if (GL20.glGetProgrami(prog, GL20.GL_LINK_STATUS) == 0) {
-            Gdx.app.error("ShaderManager", "Render program link error:\n" + GL20.glGetProgramInfoLog(prog));
-            GL20.glDeleteProgram(prog);
-            GL20.glDeleteShader(vs);
-            GL20.glDeleteShader(fs);
+        int prog = gl.glCreateProgram();
+        gl.glAttachShader(prog, vs);
+        gl.glAttachShader(prog, fs);
+        gl.glBindAttribLocation(prog, 0, "in_pos");
+        gl.glProgramParameteri(prog, GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+        gl.glLinkProgram(prog);
+
+        if (gl.glGetProgrami(prog, GL20.GL_LINK_STATUS) == 0) {
+            Gdx.app.error("ShaderManager", "Render program link error:\n" + gl.glGetProgramInfoLog(prog));
+            GLStateManager.deleteProgram(prog);
+            gl.glDeleteShader(vs);
+            gl.glDeleteShader(fs);
             return 0;
         }
 
-        GL20.glDetachShader(prog, vs);
-        GL20.glDetachShader(prog, fs);
-        GL20.glDeleteShader(vs);
-        GL20.glDeleteShader(fs);
+        gl.glDetachShader(prog, vs);
+        gl.glDetachShader(prog, fs);
+        gl.glDeleteShader(vs);
+        gl.glDeleteShader(fs);
         return prog;
     }
 
     // Generic program builder 
     private int createProgram(String vertSrc, String fragSrc) {
-        int vs = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
-        GL20.glShaderSource(vs, vertSrc);
-        GL20.glCompileShader(vs);
-        if (GL20.glGetShaderi(vs, GL20.GL_COMPILE_STATUS) == 0) {
-            Gdx.app.error("ShaderManager", "Vertex shader compile error:\n" + GL20.glGetShaderInfoLog(vs));
-            GL20.glDeleteShader(vs);
+        int vs = gl.glCreateShader(GL20.GL_VERTEX_SHADER);
+        gl.glShaderSource(vs, vertSrc);
+        gl.glCompileShader(vs);
+        if (gl.glGetShaderi(vs, GL20.GL_COMPILE_STATUS) == 0) {
+            Gdx.app.error("ShaderManager", "Vertex shader compile error:\n" + gl.glGetShaderInfoLog(vs));
+            gl.glDeleteShader(vs);
             return 0;
         }
 
-        int fs = GL20.glCreateShader(GL20.GL_FRAGMENT_SHADER);
-        GL20.glShaderSource(fs, fragSrc);
-        GL20.glCompileShader(fs);
-        if (GL20.glGetShaderi(fs, GL20.GL_COMPILE_STATUS) == 0) {
-            Gdx.app.error("ShaderManager", "Fragment shader compile error:\n" + GL20.glGetShaderInfoLog(fs));
-            GL20.glDeleteShader(vs);
-            GL20.glDeleteShader(fs);
+        int fs = gl.glCreateShader(GL20.GL_FRAGMENT_SHADER);
+        gl.glShaderSource(fs, fragSrc);
+        gl.glCompileShader(fs);
+        if (gl.glGetShaderi(fs, GL20.GL_COMPILE_STATUS) == 0) {
+            Gdx.app.error("ShaderManager", "Fragment shader compile error:\n" + gl.glGetShaderInfoLog(fs));
+            gl.glDeleteShader(vs);
+            gl.glDeleteShader(fs);
             return 0;
         }
 
-        int prog = GL20.glCreateProgram();
-        GL20.glAttachShader(prog, vs);
-        GL20.glAttachShader(prog, fs);
-        GL20.glLinkProgram(prog);
+        int prog = gl.glCreateProgram();
+        gl.glAttachShader(prog, vs);
+        gl.glAttachShader(prog, fs);
+        gl.glProgramParameteri(prog, GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+        gl.glLinkProgram(prog);
 
-        GL20.glDetachShader(prog, vs);
-        GL20.glDetachShader(prog, fs);
-        GL20.glDeleteShader(vs);
-        GL20.glDeleteShader(fs);
+        gl.glDetachShader(prog, vs);
+        gl.glDetachShader(prog, fs);
+        gl.glDeleteShader(vs);
+        gl.glDeleteShader(fs);
 
-        if (GL20.glGetProgrami(prog, GL20.GL_LINK_STATUS) == 0) {
-            Gdx.app.error("ShaderManager", "Program link error:\n" + GL20.glGetProgramInfoLog(prog));
-            GL20.glDeleteProgram(prog);
+        if (gl.glGetProgrami(prog, GL20.GL_LINK_STATUS) == 0) {
+            Gdx.app.error("ShaderManager", "Program link error:\n" + gl.glGetProgramInfoLog(prog));
+            GLStateManager.deleteProgram(prog);
             return 0;
         }
         return prog;
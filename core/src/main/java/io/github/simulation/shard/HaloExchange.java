@@ -0,0 +1,246 @@
+package io.github.simulation.shard;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Per-step exchange of halo and migrating particles with neighbouring shards
+ * over loopback TCP or Unix-domain socket channels.
+ *
+ * Frame layout: int payloadBytes, int haloCount, int migrantCount, records
+ */
+final class HaloExchange implements Closeable {
+
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final long CONNECT_TIMEOUT_MS = 30_000;
+
+    private final int[] neighbours;
+    private final SocketChannel[] channels;
+    private final ByteBuffer[] sendBuffers;
+    private final ByteBuffer[] recvBuffers;
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final ExecutorService senders;
+    private final Future<?>[] pending;
+
+    private long bytesSent;
+    private long bytesReceived;
+
+    private HaloExchange(int[] neighbours, SocketChannel[] channels) {
+        this.neighbours = neighbours;
+        this.channels = channels;
+        this.sendBuffers = new ByteBuffer[neighbours.length];
+        this.recvBuffers = new ByteBuffer[neighbours.length];
+        this.pending = new Future<?>[neighbours.length];
+        this.senders = Executors.newFixedThreadPool(Math.max(1, neighbours.length), r -> {
+            Thread t = new Thread(r, "halo-sender");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Connects to every neighbour: lower ranks are dialled, higher ranks accepted
+     */
+    static HaloExchange open(ShardOptions options, int[] neighbours) throws IOException {
+        boolean unix = "unix".equalsIgnoreCase(options.transport);
+        SocketChannel[] channels = new SocketChannel[neighbours.length];
+
+        int expectedAccepts = 0;
+        for (int n : neighbours) {
+            if (n > options.rank) {
+                expectedAccepts++;
+            }
+        }
+
+        SocketAddress own = addressOf(options, options.rank, unix);
+        if (unix) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) own).getPath());
+        }
+        try (ServerSocketChannel server = unix
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open()) {
+            server.bind(own);
+
+            for (int i = 0; i < neighbours.length; i++) {
+                if (neighbours[i] < options.rank) {
+                    channels[i] = dial(addressOf(options, neighbours[i], unix), unix);
+                    ByteBuffer hello = ByteBuffer.allocate(Integer.BYTES).putInt(options.rank);
+                    hello.flip();
+                    writeFully(channels[i], hello);
+                }
+            }
+            for (int a = 0; a < expectedAccepts; a++) {
+                SocketChannel ch = server.accept();
+                ByteBuffer hello = ByteBuffer.allocate(Integer.BYTES);
+                readFully(ch, hello);
+                hello.flip();
+                int peer = hello.getInt();
+                for (int i = 0; i < neighbours.length; i++) {
+                    if (neighbours[i] == peer) {
+                        channels[i] = ch;
+                    }
+                }
+            }
+        }
+        if (unix) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) own).getPath());
+        }
+        for (SocketChannel ch : channels) {
+            if (!unix) {
+                ch.socket().setTcpNoDelay(true);
+            }
+        }
+        return new HaloExchange(neighbours, channels);
+    }
+
+    private static SocketAddress addressOf(ShardOptions options, int rank, boolean unix) {
+        if (unix) {
+            Path socket = options.dir.toAbsolutePath().resolve("shard-" + rank + ".sock");
+            return UnixDomainSocketAddress.of(socket);
+        }
+        return new InetSocketAddress("127.0.0.1", options.basePort + rank);
+    }
+
+    private static SocketChannel dial(SocketAddress address, boolean unix) throws IOException {
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+        while (true) {
+            SocketChannel ch = unix ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+            try {
+                ch.connect(address);
+                return ch;
+            } catch (IOException e) {
+                ch.close();
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Could not connect to shard at " + address, e);
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while connecting", ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends halo[i]/migrants[i] to neighbour i and fills haloIn[i]/migrantsIn[i] with its reply
+     */
+    void exchange(ParticleBatch[] halo, ParticleBatch[] migrants,
+                  ParticleBatch[] haloIn, ParticleBatch[] migrantsIn) throws IOException {
+        for (int i = 0; i < neighbours.length; i++) {
+            int payload = (halo[i].size + migrants[i].size) * ParticleBatch.RECORD_BYTES;
+            ByteBuffer out = sendBuffers[i] = ensure(sendBuffers[i], HEADER_BYTES + payload);
+            out.clear();
+            out.putInt(payload).putInt(halo[i].size).putInt(migrants[i].size);
+            halo[i].writeTo(out);
+            migrants[i].writeTo(out);
+            out.flip();
+            bytesSent += out.remaining();
+
+            SocketChannel ch = channels[i];
+            pending[i] = senders.submit(() -> {
+                writeFully(ch, out);
+                return null;
+            });
+        }
+
+        for (int i = 0; i < neighbours.length; i++) {
+            header.clear();
+            readFully(channels[i], header);
+            header.flip();
+            int payload = header.getInt();
+            int haloCount = header.getInt();
+            int migrantCount = header.getInt();
+
+            ByteBuffer in = recvBuffers[i] = ensure(recvBuffers[i], payload);
+            in.clear().limit(payload);
+            readFully(channels[i], in);
+            in.flip();
+            bytesReceived += HEADER_BYTES + payload;
+
+            haloIn[i].readFrom(in, haloCount);
+            migrantsIn[i].readFrom(in, migrantCount);
+        }
+
+        for (Future<?> f : pending) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending halo", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Halo send failed", e.getCause());
+            }
+        }
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int capacity) {
+        if (buffer != null && buffer.capacity() >= capacity) {
+            return buffer;
+        }
+        int size = Math.max(capacity, buffer == null ? 4096 : buffer.capacity() * 2);
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeFully(SocketChannel ch, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            ch.write(buffer);
+        }
+    }
+
+    private static void readFully(SocketChannel ch, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (ch.read(buffer) < 0) {
+                throw new EOFException("Shard connection closed");
+            }
+        }
+    }
+
+    int neighbourCount() {
+        return neighbours.length;
+    }
+
+    /**
+     * Bytes sent since the last call
+     */
+    long takeBytesSent() {
+        long v = bytesSent;
+        bytesSent = 0;
+        return v;
+    }
+
+    /**
+     * Bytes received since the last call
+     */
+    long takeBytesReceived() {
+        long v = bytesReceived;
+        bytesReceived = 0;
+        return v;
+    }
+
+    @Override
+    public void close() throws IOException {
+        senders.shutdownNow();
+        for (SocketChannel ch : channels) {
+            if (ch != null) {
+                ch.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.simulation.shard;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable list of particles sent between shards (halo copies or migrants)
+ */
+final class ParticleBatch {
+
+    // x, y, vx, vy as floats + group as int
+    static final int RECORD_BYTES = 5 * 4;
+
+    float[] x = new float[256];
+    float[] y = new float[256];
+    float[] vx = new float[256];
+    float[] vy = new float[256];
+    int[] group = new int[256];
+    int size = 0;
+
+    void add(float px, float py, float pvx, float pvy, int g) {
+        if (size == x.length) {
+            int n = size * 2;
+            x = Arrays.copyOf(x, n);
+            y = Arrays.copyOf(y, n);
+            vx = Arrays.copyOf(vx, n);
+            vy = Arrays.copyOf(vy, n);
+            group = Arrays.copyOf(group, n);
+        }
+        x[size] = px;
+        y[size] = py;
+        vx[size] = pvx;
+        vy[size] = pvy;
+        group[size] = g;
+        size++;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void writeTo(ByteBuffer out) {
+        for (int i = 0; i < size; i++) {
+            out.putFloat(x[i]).putFloat(y[i]).putFloat(vx[i]).putFloat(vy[i]).putInt(group[i]);
+        }
+    }
+
+    void readFrom(ByteBuffer in, int n) {
+        clear();
+        for (int i = 0; i < n; i++) {
+            add(in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat(), in.getInt());
+        }
+    }
+}
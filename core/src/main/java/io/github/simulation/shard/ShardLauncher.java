@@ -0,0 +1,48 @@
+package io.github.simulation.shard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the CPU engine sharded across one local JVM per tile and prints the
+ * combined communication report.
+ *
+ * Example: --tiles 2x2 --particles 200000 --steps 500 --transport unix
+ */
+public class ShardLauncher {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ShardOptions options = ShardOptions.parse(args);
+        Files.createDirectories(options.dir);
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+
+        List<Process> workers = new ArrayList<>();
+        for (int rank = 0; rank < options.shardCount(); rank++) {
+            List<String> cmd = new ArrayList<>();
+            cmd.add(java);
+            cmd.add("-cp");
+            cmd.add(classpath);
+            cmd.add(ShardWorker.class.getName());
+            cmd.addAll(options.toWorkerArgs(rank));
+            workers.add(new ProcessBuilder(cmd).inheritIO().start());
+        }
+
+        int failed = 0;
+        for (Process p : workers) {
+            if (p.waitFor() != 0) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.err.println(failed + " shard(s) failed");
+            System.exit(1);
+        }
+
+        ShardReport.aggregate(options.dir, options.shardCount(), options.dir.resolve("shard-report.csv"));
+    }
+}
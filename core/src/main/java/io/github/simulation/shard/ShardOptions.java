@@ -0,0 +1,103 @@
+package io.github.simulation.shard;
+
+import io.github.simulation.config.SimulationConfig;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options shared by the shard launcher and its workers
+ */
+public final class ShardOptions {
+
+    public int rank = 0;
+    public int tilesX = 2;
+    public int tilesY = 2;
+    public int particles = SimulationConfig.PARTICLE_COUNT;
+    public int steps = 1000;
+    public float dt = 1.0f / 60.0f;
+    public int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    public long seed = 1L;
+    public String transport = "tcp"; // tcp | unix
+    public int basePort = 47100;
+    public Path dir = Paths.get("shards");
+
+    public static ShardOptions parse(String[] args) {
+        ShardOptions o = new ShardOptions();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rank":
+                    o.rank = Integer.parseInt(value);
+                    break;
+                case "--tiles": {
+                    String[] parts = value.toLowerCase().split("x");
+                    o.tilesX = Integer.parseInt(parts[0]);
+                    o.tilesY = Integer.parseInt(parts[parts.length - 1]);
+                    break;
+                }
+                case "--particles":
+                    o.particles = Integer.parseInt(value);
+                    break;
+                case "--steps":
+                    o.steps = Integer.parseInt(value);
+                    break;
+                case "--dt":
+                    o.dt = Float.parseFloat(value);
+                    break;
+                case "--threads":
+                    o.threads = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    o.seed = Long.parseLong(value);
+                    break;
+                case "--transport":
+                    o.transport = value;
+                    break;
+                case "--port":
+                    o.basePort = Integer.parseInt(value);
+                    break;
+                case "--dir":
+                    o.dir = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        return o;
+    }
+
+    /**
+     * Worker arguments for the given rank
+     */
+    public List<String> toWorkerArgs(int workerRank) {
+        List<String> a = new ArrayList<>();
+        a.add("--rank");
+        a.add(Integer.toString(workerRank));
+        a.add("--tiles");
+        a.add(tilesX + "x" + tilesY);
+        a.add("--particles");
+        a.add(Integer.toString(particles));
+        a.add("--steps");
+        a.add(Integer.toString(steps));
+        a.add("--dt");
+        a.add(Float.toString(dt));
+        a.add("--threads");
+        a.add(Integer.toString(threads));
+        a.add("--seed");
+        a.add(Long.toString(seed));
+        a.add("--transport");
+        a.add(transport);
+        a.add("--port");
+        a.add(Integer.toString(basePort));
+        a.add("--dir");
+        a.add(dir.toString());
+        return a;
+    }
+
+    public int shardCount() {
+        return tilesX * tilesY;
+    }
+}
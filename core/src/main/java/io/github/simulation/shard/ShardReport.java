@@ -0,0 +1,112 @@
+package io.github.simulation.shard;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-step communication volume and timing of one shard, written as CSV
+ */
+final class ShardReport {
+
+    static final String HEADER = "step,owned,halo,migrants_in,bytes_sent,bytes_received,exchange_ms,compute_ms";
+
+    private final int steps;
+    private final int[] owned;
+    private final int[] halo;
+    private final int[] migrantsIn;
+    private final long[] bytesSent;
+    private final long[] bytesReceived;
+    private final long[] exchangeNanos;
+    private final long[] computeNanos;
+
+    ShardReport(int steps) {
+        this.steps = steps;
+        owned = new int[steps];
+        halo = new int[steps];
+        migrantsIn = new int[steps];
+        bytesSent = new long[steps];
+        bytesReceived = new long[steps];
+        exchangeNanos = new long[steps];
+        computeNanos = new long[steps];
+    }
+
+    void record(int step, int ownedCount, int haloCount, int migrantCount, long sent, long received,
+                long exchangeNs, long computeNs) {
+        owned[step] = ownedCount;
+        halo[step] = haloCount;
+        migrantsIn[step] = migrantCount;
+        bytesSent[step] = sent;
+        bytesReceived[step] = received;
+        exchangeNanos[step] = exchangeNs;
+        computeNanos[step] = computeNs;
+    }
+
+    void write(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write(HEADER);
+            w.newLine();
+            for (int s = 0; s < steps; s++) {
+                w.write(String.format("%d,%d,%d,%d,%d,%d,%.3f,%.3f", s, owned[s], halo[s], migrantsIn[s],
+                        bytesSent[s], bytesReceived[s], exchangeNanos[s] / 1e6, computeNanos[s] / 1e6));
+                w.newLine();
+            }
+        }
+    }
+
+    static Path fileFor(Path dir, int rank) {
+        return dir.resolve("shard-" + rank + ".csv");
+    }
+
+    /**
+     * Combines the per-shard CSV files into one line per step: total particles, total
+     * bytes on the wire and the slowest shard's exchange and compute times.
+     */
+    static void aggregate(Path dir, int shards, Path out) throws IOException {
+        List<List<String>> rows = readAll(dir, shards);
+        int steps = rows.get(0).size() - 1;
+
+        double totalBytes = 0;
+        double totalExchange = 0;
+        double totalCompute = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(out)) {
+            w.write("step,particles,halo,bytes,max_exchange_ms,max_compute_ms");
+            w.newLine();
+            for (int s = 1; s <= steps; s++) {
+                long particles = 0, haloCount = 0, bytes = 0;
+                double maxExchange = 0, maxCompute = 0;
+                for (int r = 0; r < shards; r++) {
+                    String[] f = rows.get(r).get(s).split(",");
+                    particles += Long.parseLong(f[1]);
+                    haloCount += Long.parseLong(f[2]);
+                    bytes += Long.parseLong(f[4]);
+                    maxExchange = Math.max(maxExchange, Double.parseDouble(f[6]));
+                    maxCompute = Math.max(maxCompute, Double.parseDouble(f[7]));
+                }
+                totalBytes += bytes;
+                totalExchange += maxExchange;
+                totalCompute += maxCompute;
+                w.write(String.format("%d,%d,%d,%d,%.3f,%.3f", s - 1, particles, haloCount, bytes,
+                        maxExchange, maxCompute));
+                w.newLine();
+            }
+        }
+
+        System.out.printf("Shards: %d, steps: %d%n", shards, steps);
+        System.out.printf("Avg communication per step: %.1f KiB%n", totalBytes / steps / 1024.0);
+        System.out.printf("Avg exchange time per step: %.3f ms%n", totalExchange / steps);
+        System.out.printf("Avg compute time per step:  %.3f ms%n", totalCompute / steps);
+        System.out.println("Per-step report: " + out.toAbsolutePath());
+    }
+
+    private static List<List<String>> readAll(Path dir, int shards) throws IOException {
+        List<List<String>> rows = new ArrayList<>(shards);
+        for (int r = 0; r < shards; r++) {
+            rows.add(Files.readAllLines(fileFor(dir, r)));
+        }
+        return rows;
+    }
+}
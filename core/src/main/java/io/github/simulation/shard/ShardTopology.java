@@ -0,0 +1,95 @@
+package io.github.simulation.shard;
+
+import java.util.TreeSet;
+
+/**
+ * Splits the torus [-extent, extent]^2 into tilesX * tilesY tiles, one per shard
+ */
+public final class ShardTopology {
+
+    private final int tilesX;
+    private final int tilesY;
+    private final float halfExtent;
+    private final float tileWidth;
+    private final float tileHeight;
+
+    public ShardTopology(int tilesX, int tilesY, float halfExtent) {
+        this.tilesX = Math.max(1, tilesX);
+        this.tilesY = Math.max(1, tilesY);
+        this.halfExtent = halfExtent;
+        this.tileWidth = 2.0f * halfExtent / this.tilesX;
+        this.tileHeight = 2.0f * halfExtent / this.tilesY;
+    }
+
+    public int rankOf(int tx, int ty) {
+        tx = Math.floorMod(tx, tilesX);
+        ty = Math.floorMod(ty, tilesY);
+        return ty * tilesX + tx;
+    }
+
+    public int ownerOf(float x, float y) {
+        int tx = Math.clamp((int) Math.floor((x + halfExtent) / tileWidth), 0, tilesX - 1);
+        int ty = Math.clamp((int) Math.floor((y + halfExtent) / tileHeight), 0, tilesY - 1);
+        return ty * tilesX + tx;
+    }
+
+    public float getTileWidth() {
+        return tileWidth;
+    }
+
+    public float getTileHeight() {
+        return tileHeight;
+    }
+
+    /**
+     * Distinct ranks of the (up to 8) tiles around rank, excluding rank itself
+     */
+    public int[] neighbours(int rank) {
+        int tx = rank % tilesX;
+        int ty = rank / tilesX;
+        TreeSet<Integer> set = new TreeSet<>();
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int r = rankOf(tx + dx, ty + dy);
+                if (r != rank) {
+                    set.add(r);
+                }
+            }
+        }
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Tile steps between two ranks on the torus, a diagonal step counting as one
+     */
+    public int tileDistance(int a, int b) {
+        int dx = Math.abs(a % tilesX - b % tilesX);
+        int dy = Math.abs(a / tilesX - b / tilesX);
+        return Math.max(Math.min(dx, tilesX - dx), Math.min(dy, tilesY - dy));
+    }
+
+    /**
+     * Toroidal distance from a point to the rectangle of a tile (0 inside)
+     */
+    public float distanceToTile(int rank, float x, float y) {
+        int tx = rank % tilesX;
+        int ty = rank / tilesX;
+        float cx = -halfExtent + (tx + 0.5f) * tileWidth;
+        float cy = -halfExtent + (ty + 0.5f) * tileHeight;
+        float dx = Math.max(0f, Math.abs(wrap(x - cx)) - tileWidth * 0.5f);
+        float dy = Math.max(0f, Math.abs(wrap(y - cy)) - tileHeight * 0.5f);
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private float wrap(float d) {
+        float size = 2.0f * halfExtent;
+        if (d > halfExtent) d -= size;
+        else if (d < -halfExtent) d += size;
+        return d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d tiles of %.3fx%.3f", tilesX, tilesY, tileWidth, tileHeight);
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.simulation.shard;
+
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.cpu.CpuParticleEngine;
+import io.github.simulation.profiling.SimulationMetrics;
+import io.github.simulation.util.PositionSampler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * One shard of a distributed run: owns one tile of the torus and steps the
+ * CPU engine on its particles plus halo copies received from its neighbours.
+ */
+public class ShardWorker {
+
+    private final ShardOptions options;
+    private final ShardTopology topology;
+    private final CpuParticleEngine engine;
+    private final int[] neighbours;
+
+    private final ParticleBatch[] haloOut;
+    private final ParticleBatch[] migrantsOut;
+    private final ParticleBatch[] haloIn;
+    private final ParticleBatch[] migrantsIn;
+    // Migrants received for another tile, forwarded at the next exchange
+    private final ParticleBatch transit = new ParticleBatch();
+
+    ShardWorker(ShardOptions options) {
+        this.options = options;
+        this.topology = new ShardTopology(options.tilesX, options.tilesY, SimulationConfig.WORLD_HALF_EXTENT);
+        this.engine = new CpuParticleEngine(options.threads);
+        this.engine.setMetrics(SimulationMetrics.forSource("cpu"));
+        this.engine.setWrapBoundaries(true);
+        this.neighbours = topology.neighbours(options.rank);
+
+        float range = engine.getInteractionRange();
+        if (range > topology.getTileWidth() || range > topology.getTileHeight()) {
+            throw new IllegalArgumentException("Interaction range " + range + " exceeds tile size " + topology);
+        }
+
+        haloOut = batches(neighbours.length);
+        migrantsOut = batches(neighbours.length);
+        haloIn = batches(neighbours.length);
+        migrantsIn = batches(neighbours.length);
+    }
+
+    private static ParticleBatch[] batches(int n) {
+        ParticleBatch[] b = new ParticleBatch[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = new ParticleBatch();
+        }
+        return b;
+    }
+
+    /**
+     * Samples the same global initial state on every shard and keeps the owned part
+     */
+    private void seedOwnedParticles() {
+        Random rng = new Random(options.seed);
+        int groups = engine.getGroupCount();
+        for (int i = 0; i < options.particles; i++) {
+            float[] p = PositionSampler.sample(SimulationConfig.DISTRIBUTION, rng, engine.getWorldHalfExtent());
+            if (topology.ownerOf(p[0], p[1]) == options.rank) {
+                engine.add(p[0], p[1], 0f, 0f, i % groups);
+            }
+        }
+    }
+
+    void run() throws IOException {
+        seedOwnedParticles();
+        Files.createDirectories(options.dir);
+
+        ShardReport report = new ShardReport(options.steps);
+        try (HaloExchange exchange = HaloExchange.open(options, neighbours)) {
+            for (int step = 0; step < options.steps; step++) {
+                long t0 = System.nanoTime();
+
+                collectOutgoing();
+                exchange.exchange(haloOut, migrantsOut, haloIn, migrantsIn);
+
+                // Migrants become owned, halo copies are appended after them
+                int migrantCount = 0;
+                for (ParticleBatch b : migrantsIn) {
+                    migrantCount += b.size;
+                    acceptMigrants(b);
+                }
+                int owned = engine.getCount();
+                for (ParticleBatch b : haloIn) {
+                    append(b);
+                }
+                int halo = engine.getCount() - owned;
+
+                long t1 = System.nanoTime();
+                engine.step(options.dt, owned);
+                engine.setCount(owned);
+                long t2 = System.nanoTime();
+
+                // Particles in transit still count, so the total over all shards stays constant
+                report.record(step, owned + transit.size, halo, migrantCount, exchange.takeBytesSent(),
+                        exchange.takeBytesReceived(), t1 - t0, t2 - t1);
+            }
+        } finally {
+            engine.dispose();
+        }
+        report.write(ShardReport.fileFor(options.dir, options.rank));
+    }
+
+    /**
+     * Sorts owned particles into halo copies for nearby tiles and migrants for the
+     * tile that now owns them; migrants are removed locally. A particle that moved
+     * further than the neighbouring tiles goes to the neighbour closest to its owner
+     * and is relayed from there.
+     */
+    private void collectOutgoing() {
+        for (int n = 0; n < neighbours.length; n++) {
+            haloOut[n].clear();
+            migrantsOut[n].clear();
+        }
+        for (int i = 0; i < transit.size; i++) {
+            int n = nextHop(topology.ownerOf(transit.x[i], transit.y[i]));
+            migrantsOut[n].add(transit.x[i], transit.y[i], transit.vx[i], transit.vy[i], transit.group[i]);
+        }
+        transit.clear();
+
+        float range = engine.getInteractionRange();
+        float[] x = engine.getPosX();
+        float[] y = engine.getPosY();
+        float[] vx = engine.getVelX();
+        float[] vy = engine.getVelY();
+        int[] g = engine.getGroups();
+
+        // Backwards so swap-removal only moves already visited particles
+        for (int i = engine.getCount() - 1; i >= 0; i--) {
+            int owner = topology.ownerOf(x[i], y[i]);
+            for (int n = 0; n < neighbours.length; n++) {
+                if (neighbours[n] != owner && topology.distanceToTile(neighbours[n], x[i], y[i]) < range) {
+                    haloOut[n].add(x[i], y[i], vx[i], vy[i], g[i]);
+                }
+            }
+            if (owner != options.rank) {
+                migrantsOut[nextHop(owner)].add(x[i], y[i], vx[i], vy[i], g[i]);
+                engine.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Index of the neighbour closest to the owner's tile; the owner itself when adjacent
+     */
+    private int nextHop(int owner) {
+        int best = 0;
+        for (int n = 1; n < neighbours.length; n++) {
+            if (topology.tileDistance(neighbours[n], owner) < topology.tileDistance(neighbours[best], owner)) {
+                best = n;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Keeps migrants of this tile; the rest are in transit and not stepped here
+     */
+    private void acceptMigrants(ParticleBatch b) {
+        for (int i = 0; i < b.size; i++) {
+            if (topology.ownerOf(b.x[i], b.y[i]) == options.rank) {
+                engine.add(b.x[i], b.y[i], b.vx[i], b.vy[i], b.group[i]);
+            } else {
+                transit.add(b.x[i], b.y[i], b.vx[i], b.vy[i], b.group[i]);
+            }
+        }
+    }
+
+    private void append(ParticleBatch b) {
+        for (int i = 0; i < b.size; i++) {
+            engine.add(b.x[i], b.y[i], b.vx[i], b.vy[i], b.group[i]);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        new ShardWorker(ShardOptions.parse(args)).run();
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.simulation.util;
+
+/**
+ * Integer arithmetic shared by the fixed point CPU engine and particle_fixed.comp.
+ *
+ * Positions map the world [-extent, extent) onto the full 32-bit range, so the
+ * torus wrap is plain integer overflow and the low GROUP_BITS bits of x carry
+ * the group index. Velocities are packed int16 pairs in units of 2^VEL_SHIFT
+ * position units per step. Every operation below is exact and order
+ * independent, which is what makes runs bit-identical across thread counts and
+ * between Java and GLSL; keep the two in lockstep when changing anything here.
+ */
+public final class FixedPoint {
+
+    public static final int GROUP_BITS = 4; // MAX_GROUPS = 16
+    public static final int GROUP_MASK = (1 << GROUP_BITS) - 1;
+    public static final int VEL_SHIFT = 10;
+    public static final int MAX_VEL_COMPONENT = 32767;
+
+    public static final int ONE = 1 << 16;           // Q16 force and normalised distance
+    public static final int FORCE_B = 19661;         // 0.3 in Q16, the repulsion radius of the force curve
+    public static final int DIR_SHIFT = 12;          // unit direction in Q12
+    public static final int MAX_DIST_BITS = 15;      // shifted distances stay below 2^15 so squares fit an int
+
+    private static final double POSITION_UNITS = 4294967296.0; // 2^32
+
+    private FixedPoint() {
+    }
+
+    public static int encodePosition(float p, float extent) {
+        double t = (p + extent) / (2.0 * extent);
+        return (int) (long) Math.floor(t * POSITION_UNITS) & ~GROUP_MASK;
+    }
+
+    public static float decodePosition(int p, float extent) {
+        double t = Integer.toUnsignedLong(p & ~GROUP_MASK) / POSITION_UNITS;
+        return (float) (t * 2.0 * extent - extent);
+    }
+
+    /**
+     * World units per second to velocity units for a step of dt
+     */
+    public static int encodeVelocity(float v, float dt, float extent) {
+        double units = v * dt * POSITION_UNITS / (2.0 * extent) / (1 << VEL_SHIFT);
+        return Math.clamp(Math.round(units), -MAX_VEL_COMPONENT, MAX_VEL_COMPONENT);
+    }
+
+    public static float decodeVelocity(int v, float dt, float extent) {
+        return (float) (v * (double) (1 << VEL_SHIFT) * 2.0 * extent / POSITION_UNITS / dt);
+    }
+
+    public static int withGroup(int x, int group) {
+        return (x & ~GROUP_MASK) | (group & GROUP_MASK);
+    }
+
+    public static int groupOf(int x) {
+        return x & GROUP_MASK;
+    }
+
+    public static int packVelocity(int vx, int vy) {
+        return (vx & 0xFFFF) | (vy << 16);
+    }
+
+    public static int velocityX(int packed) {
+        return (short) packed;
+    }
+
+    public static int velocityY(int packed) {
+        return packed >> 16;
+    }
+
+    /**
+     * Grid cell along one axis, floor(p * gridSize / 2^32) using only 32-bit unsigned products
+     */
+    public static int cellCoord(int p, int gridSize) {
+        return (int) (((p >>> 16) * (long) gridSize) >>> 16);
+    }
+
+    /**
+     * Floor square root of a non-negative int, bit by bit
+     */
+    public static int isqrt(int n) {
+        int res = 0;
+        int bit = 1 << 30;
+        while (bit > n) {
+            bit >>= 2;
+        }
+        while (bit != 0) {
+            if (n >= res + bit) {
+                n -= res + bit;
+                res = (res >> 1) + bit;
+            } else {
+                res >>= 1;
+            }
+            bit >>= 2;
+        }
+        return res;
+    }
+
+    /**
+     * Division truncating toward zero for a non-negative divisor, spelled out
+     * because GLSL leaves negative integer division implementation defined
+     */
+    public static int divSigned(int num, int den) {
+        return num >= 0 ? num / den : -((-num) / den);
+    }
+
+    /**
+     * Bits [shift, shift + 31] of the 64-bit product, matching imulExtended in GLSL (1 <= shift <= 31)
+     */
+    public static int mulShift(int a, int b, int shift) {
+        return (int) (((long) a * b) >> shift);
+    }
+
+    /**
+     * Particle Life force in Q16 for a Q16 normalised distance and a Q15 attraction
+     */
+    public static int force(int dn, int attractionQ15) {
+        if (dn < FORCE_B) {
+            return (dn * ONE) / FORCE_B - ONE;
+        }
+        long t = Math.abs(2 * dn - ONE - FORCE_B);
+        int tri = ONE - (int) ((t * ONE) / (ONE - FORCE_B));
+        return (attractionQ15 * tri) >> 15;
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.simulation.util;
+
+import io.github.simulation.config.SimulationConfig;
+
+/**
+ * Integer constants for one fixed point step, derived once from the float
+ * parameters. CPU and GPU consume the same instance, so any rounding here is
+ * shared and cannot make the two paths diverge.
+ */
+public final class FixedPointParams {
+
+    public final int range;          // interaction range in position units
+    public final int distShift;      // neighbour offsets are shifted right by this before squaring
+    public final int rangeShifted;   // range >> distShift, below 2^15
+    public final int forceMul;       // velocity change = (force sum * forceMul) >> forceShift
+    public final int forceShift;
+    public final int damping;        // Q16
+    public final int maxVelocity;    // velocity units
+    public final int[] attractionQ15; // MAX_GROUPS stride
+
+    /**
+     * @param attraction attraction matrix with a MAX_GROUPS stride
+     */
+    public FixedPointParams(float interactionRange, float worldHalfExtent, float forceFactor,
+                            float velocityDamping, float dt, float[] attraction) {
+        double worldSize = 2.0 * worldHalfExtent;
+
+        long r = Math.round(interactionRange / worldSize * 4294967296.0);
+        range = (int) Math.clamp(r, 1L, Integer.MAX_VALUE);
+        distShift = Math.max(0, (32 - Integer.numberOfLeadingZeros(range)) - FixedPoint.MAX_DIST_BITS);
+        rangeShifted = Math.max(1, range >> distShift);
+
+        // Velocity units per world unit per second
+        double velocityUnits = dt * 4294967296.0 / worldSize / (1 << FixedPoint.VEL_SHIFT);
+
+        // Same 0.1 * dt factor as the float kernel, applied to a Q16 force sum
+        double k = forceFactor * 0.1 * dt * velocityUnits / FixedPoint.ONE;
+        int shift = k == 0.0 ? 31 : 14 - (int) Math.floor(Math.log(Math.abs(k)) / Math.log(2.0));
+        forceShift = Math.clamp(shift, 1, 31);
+        forceMul = (int) Math.clamp(Math.round(k * (1L << forceShift)), -(1L << 30), 1L << 30);
+
+        damping = (int) Math.clamp(Math.round(velocityDamping * FixedPoint.ONE), 0L, FixedPoint.ONE);
+        maxVelocity = (int) Math.clamp(Math.round(0.5 * velocityUnits), 1L, FixedPoint.MAX_VEL_COMPONENT);
+
+        int cells = SimulationConfig.MAX_GROUPS * SimulationConfig.MAX_GROUPS;
+        attractionQ15 = new int[cells];
+        for (int i = 0; i < Math.min(cells, attraction.length); i++) {
+            attractionQ15[i] = (int) Math.clamp(Math.round(attraction[i] * 32768.0), -32768L, 32767L);
+        }
+    }
+}
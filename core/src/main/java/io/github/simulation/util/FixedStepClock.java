@@ -0,0 +1,56 @@
+package io.github.simulation.util;
+
+/**
+ * Accumulator for a fixed physics rate independent of the display rate.
+ * Each frame adds its duration and takes as many whole steps as fit; the
+ * remainder, as a fraction of a step, is how far rendering interpolates
+ * from the previous state towards the current one. A rate of 0 means one
+ * variable step per frame, with nothing left over to interpolate.
+ */
+public final class FixedStepClock {
+
+    private float accumulator = 0f;
+    private float stepSeconds = 0f;
+    private boolean fixedRate = false;
+
+    /**
+     * Adds one frame and returns the number of steps to run now. Steps
+     * beyond maxSteps are dropped so a slow frame cannot snowball.
+     */
+    public int advance(float frameSeconds, float hz, int maxSteps) {
+        fixedRate = hz > 0f;
+        if (!fixedRate) {
+            stepSeconds = frameSeconds;
+            accumulator = 0f;
+            return 1;
+        }
+        stepSeconds = 1f / hz;
+        accumulator += frameSeconds;
+        int steps = (int) (accumulator / stepSeconds);
+        accumulator -= steps * stepSeconds;
+        if (steps > maxSteps) {
+            steps = maxSteps;
+            accumulator = 0f;
+        }
+        return steps;
+    }
+
+    /**
+     * Duration of one step; the frame time itself at a variable rate
+     */
+    public float getStepSeconds() {
+        return stepSeconds;
+    }
+
+    /**
+     * Fraction of a step that has elapsed since the last one, 0..1; always
+     * 1 at a variable rate
+     */
+    public float getAlpha() {
+        return fixedRate ? Math.min(1f, accumulator / stepSeconds) : 1f;
+    }
+
+    public boolean isFixedRate() {
+        return fixedRate;
+    }
+}
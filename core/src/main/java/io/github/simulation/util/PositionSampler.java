@@ -0,0 +1,77 @@
+package io.github.simulation.util;
+
+import io.github.simulation.config.RuntimeConfig.Distribution;
+
+import java.util.Random;
+
+/**
+ * Samples initial particle positions for the supported distributions
+ */
+public final class PositionSampler {
+
+    /**
+     * Center-biased distribution
+     * Uses a radial power law r = U^beta with beta > 0.5
+     */
+    private static final float CENTER_BIAS_BETA = 1.5f; // > 0.5 biases toward center
+
+    private PositionSampler() {
+    }
+
+    /**
+     * Samples a position in the world [-extent, extent] x [-extent, extent]
+     */
+    public static float[] sample(Distribution dist, Random rng, float extent) {
+        float[] p;
+        switch (dist) {
+            case UNIFORM:
+                p = sampleUniform(rng);
+                break;
+            case CENTER_BIASED:
+                p = sampleCentral(rng);
+                break;
+            case GAUSSIAN:
+                p = sampleGaussian(rng);
+                break;
+            default:
+                p = sampleUniform(rng);
+                break;
+        }
+        // Samplers work in the unit square; scale to the configured world
+        p[0] *= extent;
+        p[1] *= extent;
+        return p;
+    }
+
+    /**
+     * Uniform distribution in the square [-1, 1] x [-1, 1]
+     */
+    private static float[] sampleUniform(Random rng) {
+        float x = (float) (rng.nextDouble() * 2.0 - 1.0);
+        float y = (float) (rng.nextDouble() * 2.0 - 1.0);
+        return new float[] { x, y };
+    }
+
+    private static float[] sampleCentral(Random rng) {
+        double u = rng.nextDouble();
+        double theta = rng.nextDouble() * Math.PI * 2.0;
+        double r = Math.pow(u, CENTER_BIAS_BETA);
+        float x = (float) (r * Math.cos(theta));
+        float y = (float) (r * Math.sin(theta));
+        return new float[] { x, y };
+    }
+
+    /**
+     * Gaussian (normal) distribution centered at (0,0)
+     * Uses Box-Muller transform
+     */
+    private static float[] sampleGaussian(Random rng) {
+        double u1 = Math.max(1e-6, rng.nextDouble());
+        double u2 = rng.nextDouble();
+        double mag = Math.sqrt(-2.0 * Math.log(u1));
+        double z0 = mag * Math.cos(2 * Math.PI * u2);
+        double z1 = mag * Math.sin(2 * Math.PI * u2);
+        float scale = 0.3f;
+        return new float[] { (float) (z0 * scale), (float) (z1 * scale) };
+    }
+}
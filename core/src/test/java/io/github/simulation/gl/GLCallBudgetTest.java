@@ -0,0 +1,40 @@
+package io.github.simulation.gl;
+
+import io.github.simulation.config.SimulationConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Steady-state frames of the single world, recorded through the same
+ * SceneFrame Simulation renders, stay within GLCallBudget.steadyState()
+ */
+public class GLCallBudgetTest {
+
+    private GLBudgetCheck check;
+
+    @Before
+    public void setUp() {
+        check = new GLBudgetCheck(1280, 720, false);
+    }
+
+    @After
+    public void tearDown() {
+        check.dispose();
+        GLFacade.install(new LwjglGLFacade());
+    }
+
+    @Test
+    public void steadyStateFramesStayWithinBudget() {
+        for (int frame = 0; frame < SimulationConfig.GL_BUDGET_WARMUP_FRAMES; frame++) {
+            check.runFrame();
+        }
+        for (int frame = 0; frame < SimulationConfig.GL_BUDGET_FRAMES; frame++) {
+            assertEquals("Frame " + (frame + 1) + " after warmup", Collections.emptyList(), check.runFrame());
+        }
+    }
+}
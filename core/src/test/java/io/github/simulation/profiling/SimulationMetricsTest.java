@@ -0,0 +1,49 @@
+package io.github.simulation.profiling;
+
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.cpu.CpuParticleEngine;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Engines publish only to the metrics their owner gives them
+ */
+public class SimulationMetricsTest {
+
+    private static void run(CpuParticleEngine engine, int particles, int steps) {
+        try {
+            engine.seed(particles, SimulationConfig.DISTRIBUTION, 1L);
+            for (int i = 0; i < steps; i++) {
+                engine.step(1f / 60f, particles);
+            }
+        } finally {
+            engine.dispose();
+        }
+    }
+
+    @Test
+    public void enginesWithoutMetricsRecordNothing() {
+        run(new CpuParticleEngine(1), 500, 3);
+        run(new CpuParticleEngine(1), 700, 2);
+        assertEquals(0L, SimulationMetrics.DISABLED.getTotalSteps());
+        assertEquals(0, SimulationMetrics.DISABLED.getParticleCount());
+    }
+
+    @Test
+    public void eachEngineRecordsIntoItsOwnMetrics() {
+        SimulationMetrics first = SimulationMetrics.forSource("test-first");
+        SimulationMetrics second = SimulationMetrics.forSource("test-second");
+        CpuParticleEngine a = new CpuParticleEngine(1);
+        a.setMetrics(first);
+        CpuParticleEngine b = new CpuParticleEngine(1);
+        b.setMetrics(second);
+        run(a, 500, 3);
+        run(b, 700, 2);
+
+        assertEquals(3L, first.getTotalSteps());
+        assertEquals(500, first.getParticleCount());
+        assertEquals(2L, second.getTotalSteps());
+        assertEquals(700, second.getParticleCount());
+    }
+}
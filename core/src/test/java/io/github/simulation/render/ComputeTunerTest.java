@@ -0,0 +1,58 @@
+package io.github.simulation.render;
+
+import com.badlogic.gdx.Gdx;
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.gl.GLBudgetCheck;
+import io.github.simulation.gl.GLFacade;
+import io.github.simulation.gl.LwjglGLFacade;
+import io.github.simulation.gl.RecordingGLFacade;
+import io.github.simulation.profiling.GpuProfiler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The tuned variant is still linked when tune() returns. Without a GPU every
+ * trial times 0 ms, so the winner is the first candidate, the one the rest of
+ * the sweep is most likely to have pushed out of the variant cache.
+ */
+public class ComputeTunerTest {
+
+    private GLBudgetCheck check;
+    private File store;
+
+    @Before
+    public void setUp() throws IOException {
+        check = new GLBudgetCheck(1280, 720, false);
+        store = Files.createTempFile("compute-tuning", ".properties").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        check.dispose();
+        GLFacade.install(new LwjglGLFacade());
+        store.delete();
+    }
+
+    @Test
+    public void framesAfterTuningCompileNothing() {
+        check.getSceneFrame().setComputeTuner(new ComputeTuner(Gdx.files.absolute(store.getPath())),
+                GpuProfiler.DISABLED);
+        RuntimeConfig.requestComputeTuning();
+        check.runFrame();
+
+        RecordingGLFacade recorder = check.getRecorder();
+        for (int frame = 0; frame < 3; frame++) {
+            check.runFrame();
+            // A compile started by the tuning frame would be finished here
+            assertEquals(0, recorder.getCount("glCreateShader"));
+            assertEquals(0, recorder.getCount("glGetShaderi"));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.simulation.render;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import io.github.simulation.config.RuntimeConfig;
+import io.github.simulation.config.SimulationConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Decisions follow busy time; the frame-to-frame interval alone never moves a knob
+ */
+public class QualityGovernorTest {
+
+    private static final float TARGET = SimulationConfig.GOVERNOR_TARGET_FRAME_MS;
+    private static final float VSYNC_30_HZ = 1000f / 30f;
+
+    private final List<String> decisions = new ArrayList<>();
+    private QualityGovernor governor;
+
+    @Before
+    public void setUp() {
+        Gdx.app = (Application) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Application.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("log") && "QualityGovernor".equals(args[0])) {
+                        decisions.add((String) args[1]);
+                    }
+                    return null;
+                });
+        if (!RuntimeConfig.isQualityGovernor()) {
+            RuntimeConfig.toggleQualityGovernor();
+        }
+        governor = new QualityGovernor(new GLRenderer(0, 0, 0, 0, 0, 0));
+    }
+
+    @After
+    public void tearDown() {
+        governor.restoreAll();
+    }
+
+    private void run(int windows, float frameMs, float busyMs) {
+        for (int i = 0; i < windows * SimulationConfig.GOVERNOR_WINDOW; i++) {
+            governor.update(frameMs, busyMs, 0f);
+        }
+    }
+
+    @Test
+    public void thirtyHzVsyncDoesNotCycle() {
+        run(20, VSYNC_30_HZ, TARGET * 0.3f);
+        assertEquals(0, governor.getDegradations());
+        assertEquals(Collections.emptyList(), decisions);
+    }
+
+    @Test
+    public void busyFramesDegradeAndHeadroomRestores() {
+        run(1, TARGET * 2f, TARGET * 2f);
+        assertEquals(1, governor.getDegradations());
+
+        // Between headroom and budget nothing moves, even with a 30 Hz interval
+        run(10, VSYNC_30_HZ, TARGET * 0.9f);
+        assertEquals(1, governor.getDegradations());
+        assertEquals(1, decisions.size());
+
+        run(1, VSYNC_30_HZ, TARGET * 0.3f);
+        assertEquals(0, governor.getDegradations());
+        assertEquals(2, decisions.size());
+    }
+}
@@ -0,0 +1,182 @@
+package io.github.headless;
+
+import io.github.simulation.cpu.CpuParticleEngine;
+import io.github.simulation.cpu.PngFrameWriter;
+import io.github.simulation.cpu.SoftwareRasterizer;
+import io.github.simulation.profiling.SimulationMetrics;
+import io.github.simulation.util.PaletteUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Runs a scenario file on the CPU engine as fast as it steps, with no window
+ * or input, for job schedulers. Writes stats.csv (one row per stats.every
+ * steps), summary.properties and optional PNG or CSV snapshots to the output
+ * directory. Exits non-zero on a bad scenario or I/O failure.
+ *
+ * Usage: BatchRunner scenario.properties [--out dir] [--threads n] [--steps n]
+ */
+public class BatchRunner {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: BatchRunner scenario.properties [--out dir] [--threads n] [--steps n]");
+            System.exit(2);
+        }
+        try {
+            run(args);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void run(String[] args) throws IOException {
+        Path scenarioFile = Paths.get(args[0]);
+        Path out = Paths.get("batch-out");
+        int threads = Runtime.getRuntime().availableProcessors();
+        Scenario scenario = Scenario.load(scenarioFile);
+
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out": out = Paths.get(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--steps": scenario.steps = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Files.createDirectories(out);
+
+        CpuParticleEngine engine = new CpuParticleEngine(threads);
+        engine.setMetrics(SimulationMetrics.forSource("cpu"));
+        engine.setWorldHalfExtent(scenario.worldHalfExtent);
+        engine.setWrapBoundaries(scenario.wrap);
+        engine.setGroupCount(scenario.groups);
+        engine.setAttractionMatrix(scenario.matrix);
+        engine.setFixedPoint(scenario.fixedPoint);
+        engine.seed(scenario.particles, scenario.distribution, scenario.seed);
+
+        boolean pngSnapshots = scenario.snapshotEvery > 0 && scenario.snapshotFormat.equals("png");
+        float[][] palette = PaletteUtil.generateEvenHue(scenario.groups);
+        SoftwareRasterizer rasterizer = pngSnapshots ? new SoftwareRasterizer(scenario.snapshotSize, threads) : null;
+        PngFrameWriter pngWriter = pngSnapshots
+                ? new PngFrameWriter(out.resolve("snapshots"), scenario.snapshotSize, Math.max(1, threads / 2))
+                : null;
+
+        System.out.printf("Scenario %s: %d particles, %d groups, %d steps on %d threads%n",
+                scenarioFile, scenario.particles, scenario.groups, scenario.steps, threads);
+
+        long stepNanos = 0;
+        long intervalNanos = 0;
+        int snapshots = 0;
+        long checksum;
+        long start = System.nanoTime();
+        try (PrintWriter stats = new PrintWriter(Files.newBufferedWriter(out.resolve("stats.csv"),
+                StandardCharsets.UTF_8))) {
+            stats.println("step,time_scale,force_factor,range,grid_size,step_ms,kinetic_energy");
+            for (int step = 0; step < scenario.steps; step++) {
+                float timeScale = scenario.timeScale.valueAt(step);
+                float forceFactor = scenario.forceFactor.valueAt(step);
+                float range = scenario.range.valueAt(step);
+                engine.setForceFactor(forceFactor);
+                engine.setInteractionRange(range);
+
+                // Fixed point velocities are per step, so its dt stays constant
+                float dt = scenario.fixedPoint ? scenario.dt : scenario.dt * timeScale;
+                long t0 = System.nanoTime();
+                engine.step(dt);
+                long elapsed = System.nanoTime() - t0;
+                stepNanos += elapsed;
+                intervalNanos += elapsed;
+
+                int done = step + 1;
+                if (done % scenario.statsEvery == 0 || done == scenario.steps) {
+                    int rows = done % scenario.statsEvery == 0 ? scenario.statsEvery : done % scenario.statsEvery;
+                    stats.printf(Locale.ROOT, "%d,%.4f,%.4f,%.4f,%d,%.3f,%.6e%n", done, timeScale, forceFactor, range,
+                            engine.getGridSize(), intervalNanos / 1e6 / rows, kineticEnergy(engine));
+                    intervalNanos = 0;
+                }
+
+                if (scenario.snapshotEvery > 0 && done % scenario.snapshotEvery == 0) {
+                    if (pngSnapshots) {
+                        rasterizer.render(engine, palette, 2.0f);
+                        int[] rgb = pngWriter.acquireBuffer();
+                        rasterizer.resolve(rgb);
+                        pngWriter.submit(done, rgb);
+                    } else {
+                        writeCsvSnapshot(engine, out.resolve("snapshots").resolve(
+                                String.format("particles-%06d.csv", done)));
+                    }
+                    snapshots++;
+                }
+            }
+            checksum = engine.stateChecksum();
+        } finally {
+            if (pngWriter != null) {
+                pngWriter.close();
+            }
+            if (rasterizer != null) {
+                rasterizer.dispose();
+            }
+            engine.dispose();
+        }
+        double totalSeconds = (System.nanoTime() - start) / 1e9;
+        double avgStepMs = scenario.steps == 0 ? 0 : stepNanos / 1e6 / scenario.steps;
+
+        Properties summary = new Properties();
+        summary.setProperty("scenario", scenarioFile.toString());
+        summary.setProperty("particles", Integer.toString(scenario.particles));
+        summary.setProperty("steps", Integer.toString(scenario.steps));
+        summary.setProperty("threads", Integer.toString(threads));
+        summary.setProperty("physics", scenario.fixedPoint ? "fixed" : "float");
+        summary.setProperty("total_seconds", String.format(Locale.ROOT, "%.3f", totalSeconds));
+        summary.setProperty("avg_step_ms", String.format(Locale.ROOT, "%.3f", avgStepMs));
+        summary.setProperty("snapshots", Integer.toString(snapshots));
+        summary.setProperty("checksum", String.format("%016x", checksum));
+        try (BufferedWriter w = Files.newBufferedWriter(out.resolve("summary.properties"), StandardCharsets.UTF_8)) {
+            summary.store(w, "Batch run summary");
+        }
+
+        System.out.printf("Done in %.2f s, avg step %.2f ms, %d snapshots, state checksum %016x%n",
+                totalSeconds, avgStepMs, snapshots, checksum);
+        System.out.println("Output: " + out.toAbsolutePath());
+    }
+
+    /**
+     * Mean kinetic energy per particle (unit mass)
+     */
+    static double kineticEnergy(CpuParticleEngine engine) {
+        float[] vx = engine.getVelX();
+        float[] vy = engine.getVelY();
+        int n = engine.getCount();
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += vx[i] * vx[i] + vy[i] * vy[i];
+        }
+        return n == 0 ? 0 : 0.5 * sum / n;
+    }
+
+    private static void writeCsvSnapshot(CpuParticleEngine engine, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        float[] x = engine.getPosX();
+        float[] y = engine.getPosY();
+        float[] vx = engine.getVelX();
+        float[] vy = engine.getVelY();
+        int[] g = engine.getGroups();
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            w.println("x,y,vx,vy,group");
+            for (int i = 0, n = engine.getCount(); i < n; i++) {
+                w.printf(Locale.ROOT, "%.6f,%.6f,%.6f,%.6f,%d%n", x[i], y[i], vx[i], vy[i], g[i]);
+            }
+        }
+    }
+}
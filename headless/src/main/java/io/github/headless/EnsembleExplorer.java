@@ -0,0 +1,256 @@
+package io.github.headless;
+
+import io.github.simulation.config.RuntimeConfig.Distribution;
+import io.github.simulation.config.SimulationConfig;
+import io.github.simulation.cpu.CpuParticleEngine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates many attraction matrices with small CPU runs on a fixed pool of
+ * workers, one single-threaded engine each, so throughput scales with cores.
+ * Every run is scored with StructureMetrics; the top K are written as
+ * scenario files BatchRunner can replay, plus ranking.csv.
+ *
+ * In mutate mode the first batch is random and every later batch perturbs
+ * matrices from the current top K.
+ *
+ * Example: --runs 2000 --particles 5000 --steps 2000 --groups 6 --top 10 --mode mutate
+ */
+public class EnsembleExplorer {
+
+    private static final float MUTATION_SIGMA = 0.2f;
+
+    private static final class Candidate {
+        final int id;
+        final long seed;
+        final float[][] matrix;
+        StructureMetrics metrics;
+
+        Candidate(int id, long seed, float[][] matrix) {
+            this.id = id;
+            this.seed = seed;
+            this.matrix = matrix;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = 1000;
+        int particles = 5000;
+        int steps = 2000;
+        int groups = 6;
+        int top = 10;
+        int workers = Runtime.getRuntime().availableProcessors();
+        float dt = 1.0f / 60.0f;
+        long seed = 1L;
+        boolean mutate = false;
+        Distribution distribution = Distribution.UNIFORM;
+        Path out = Paths.get("ensemble");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--runs": runs = Integer.parseInt(value); break;
+                case "--particles": particles = Integer.parseInt(value); break;
+                case "--steps": steps = Integer.parseInt(value); break;
+                case "--groups": groups = Math.clamp(Integer.parseInt(value), 1, SimulationConfig.MAX_GROUPS); break;
+                case "--top": top = Math.max(1, Integer.parseInt(value)); break;
+                case "--workers": workers = Math.max(1, Integer.parseInt(value)); break;
+                case "--dt": dt = Float.parseFloat(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--mode":
+                    if (!value.equals("random") && !value.equals("mutate")) {
+                        throw new IllegalArgumentException("--mode must be random or mutate, got '" + value + "'");
+                    }
+                    mutate = value.equals("mutate");
+                    break;
+                case "--distribution": distribution = Distribution.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                case "--out": out = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        System.out.printf("Exploring %d matrices (%s): %d particles x %d steps, %d groups, %d workers%n",
+                runs, mutate ? "mutate" : "random", particles, steps, groups, workers);
+
+        Random rng = new Random(seed);
+        List<Candidate> best = new ArrayList<>();
+        List<Candidate> all = new ArrayList<>(runs);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "ensemble-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Candidate> completion = new ExecutorCompletionService<>(pool);
+
+        // Batches keep every worker busy while letting mutate mode learn from finished runs
+        int batch = workers * 4;
+        long start = System.nanoTime();
+        long lastReport = start;
+        int submitted = 0;
+        int finished = 0;
+        try {
+            while (finished < runs) {
+                int batchEnd = Math.min(runs, submitted + batch);
+                int inFlight = 0;
+                for (; submitted < batchEnd; submitted++) {
+                    float[][] matrix = mutate && !best.isEmpty()
+                            ? mutateMatrix(best.get(rng.nextInt(best.size())).matrix, rng)
+                            : randomMatrix(groups, rng);
+                    Candidate c = new Candidate(submitted, rng.nextLong(), matrix);
+                    int p = particles;
+                    int s = steps;
+                    float d = dt;
+                    Distribution dist = distribution;
+                    completion.submit(() -> evaluate(c, p, s, d, dist));
+                    inFlight++;
+                }
+                for (; inFlight > 0; inFlight--) {
+                    Candidate c = completion.take().get();
+                    all.add(c);
+                    finished++;
+                    insertTopK(best, c, top);
+                }
+
+                long now = System.nanoTime();
+                if (now - lastReport > 10_000_000_000L || finished == runs) {
+                    lastReport = now;
+                    System.out.printf("%d/%d runs, %.1f runs/min, best score %.4f%n", finished, runs,
+                            runsPerMinute(finished, now - start), best.get(0).metrics.score);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ensemble run failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double minutes = (System.nanoTime() - start) / 60e9;
+        writeResults(out, all, best, particles, steps, dt, distribution);
+        System.out.printf("Done: %d runs in %.2f min, %.1f runs/min on %d workers%n", runs, minutes,
+                runs / minutes, workers);
+        for (int rank = 0; rank < best.size(); rank++) {
+            Candidate c = best.get(rank);
+            System.out.printf("#%d run %d: score %.4f, clusters %d, kinetic %.3e, entropy %.3f%n", rank + 1, c.id,
+                    c.metrics.score, c.metrics.clusters, c.metrics.kineticEnergy, c.metrics.entropy);
+        }
+        System.out.println("Presets: " + out.toAbsolutePath());
+    }
+
+    private static Candidate evaluate(Candidate c, int particles, int steps, float dt, Distribution dist) {
+        // Workers run engines side by side, so none of them publishes SimulationMetrics
+        CpuParticleEngine engine = new CpuParticleEngine(1);
+        try {
+            engine.setGroupCount(c.matrix.length);
+            engine.setAttractionMatrix(c.matrix);
+            engine.seed(particles, dist, c.seed);
+            for (int step = 0; step < steps; step++) {
+                engine.step(dt);
+            }
+            c.metrics = StructureMetrics.measure(engine);
+        } finally {
+            engine.dispose();
+        }
+        return c;
+    }
+
+    private static void insertTopK(List<Candidate> best, Candidate c, int k) {
+        int at = 0;
+        while (at < best.size() && best.get(at).metrics.score >= c.metrics.score) {
+            at++;
+        }
+        if (at < k) {
+            best.add(at, c);
+            if (best.size() > k) {
+                best.remove(best.size() - 1);
+            }
+        }
+    }
+
+    private static double runsPerMinute(int runs, long nanos) {
+        return nanos == 0 ? 0 : runs / (nanos / 60e9);
+    }
+
+    // -1..1 like RuntimeConfig.randomizeAttractionMatrix
+    static float[][] randomMatrix(int groups, Random rng) {
+        float[][] m = new float[groups][groups];
+        for (int i = 0; i < groups; i++) {
+            for (int j = 0; j < groups; j++) {
+                m[i][j] = rng.nextFloat() * 2.0f - 1.0f;
+            }
+        }
+        return m;
+    }
+
+    static float[][] mutateMatrix(float[][] parent, Random rng) {
+        float[][] m = new float[parent.length][];
+        for (int i = 0; i < parent.length; i++) {
+            m[i] = new float[parent[i].length];
+            for (int j = 0; j < parent[i].length; j++) {
+                float v = parent[i][j] + (float) rng.nextGaussian() * MUTATION_SIGMA;
+                m[i][j] = Math.clamp(v, -1.0f, 1.0f);
+            }
+        }
+        return m;
+    }
+
+    private static void writeResults(Path out, List<Candidate> all, List<Candidate> best, int particles, int steps,
+                                     float dt, Distribution distribution) throws IOException {
+        Files.createDirectories(out);
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out.resolve("ranking.csv"),
+                StandardCharsets.UTF_8))) {
+            w.println("run,seed,score,clusters,kinetic_energy,entropy,matrix");
+            for (Candidate c : all) {
+                w.printf(Locale.ROOT, "%d,%d,%.6f,%d,%.6e,%.6f,\"%s\"%n", c.id, c.seed, c.metrics.score,
+                        c.metrics.clusters, c.metrics.kineticEnergy, c.metrics.entropy, formatMatrix(c.matrix));
+            }
+        }
+
+        for (int rank = 0; rank < best.size(); rank++) {
+            Candidate c = best.get(rank);
+            Path preset = out.resolve(String.format("preset-%02d.properties", rank + 1));
+            try (BufferedWriter w = Files.newBufferedWriter(preset, StandardCharsets.UTF_8)) {
+                w.write(String.format(Locale.ROOT, "# Ensemble rank %d (run %d): score %.4f, clusters %d, "
+                                + "kinetic %.3e, entropy %.3f%n", rank + 1, c.id, c.metrics.score,
+                        c.metrics.clusters, c.metrics.kineticEnergy, c.metrics.entropy));
+                w.write("particles=" + particles + "\n");
+                w.write("groups=" + c.matrix.length + "\n");
+                w.write("distribution=" + distribution.name().toLowerCase(Locale.ROOT) + "\n");
+                w.write("matrix=" + formatMatrix(c.matrix) + "\n");
+                w.write("steps=" + steps + "\n");
+                w.write(String.format(Locale.ROOT, "dt=%s%n", dt));
+                w.write("seed=" + c.seed + "\n");
+            }
+        }
+    }
+
+    // Scenario matrix syntax: rows separated by ';'
+    private static String formatMatrix(float[][] m) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < m.length; i++) {
+            if (i > 0) {
+                sb.append("; ");
+            }
+            for (int j = 0; j < m[i].length; j++) {
+                sb.append(j == 0 ? "" : " ").append(String.format(Locale.ROOT, "%.4f", m[i][j]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.headless;
+
+import java.util.Arrays;
+
+/**
+ * Piecewise linear timeline of one parameter, e.g. "0:1.0, 500:2.0, 1000:0.5".
+ * Values hold before the first and after the last keyframe.
+ */
+public final class Keyframes {
+
+    private final int[] steps;
+    private final float[] values;
+
+    private Keyframes(int[] steps, float[] values) {
+        this.steps = steps;
+        this.values = values;
+    }
+
+    public static Keyframes constant(float value) {
+        return new Keyframes(new int[] { 0 }, new float[] { value });
+    }
+
+    /**
+     * Parses "step:value" pairs separated by commas; steps must increase
+     */
+    public static Keyframes parse(String spec) {
+        String[] pairs = spec.split(",");
+        int[] steps = new int[pairs.length];
+        float[] values = new float[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            String[] kv = pairs[i].trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Keyframe must be step:value, got '" + pairs[i].trim() + "'");
+            }
+            steps[i] = Integer.parseInt(kv[0].trim());
+            values[i] = Float.parseFloat(kv[1].trim());
+            if (i > 0 && steps[i] <= steps[i - 1]) {
+                throw new IllegalArgumentException("Keyframe steps must increase: " + spec);
+            }
+        }
+        return new Keyframes(steps, values);
+    }
+
+    public float valueAt(int step) {
+        if (step <= steps[0]) {
+            return values[0];
+        }
+        int last = steps.length - 1;
+        if (step >= steps[last]) {
+            return values[last];
+        }
+        int i = Arrays.binarySearch(steps, step);
+        if (i >= 0) {
+            return values[i];
+        }
+        int hi = -i - 1;
+        int lo = hi - 1;
+        float t = (step - steps[lo]) / (float) (steps[hi] - steps[lo]);
+        return values[lo] + t * (values[hi] - values[lo]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < steps.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(steps[i]).append(':').append(values[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.headless;
+
+import io.github.simulation.config.RuntimeConfig.Distribution;
+import io.github.simulation.config.SimulationConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * A batch run read from a .properties file. Every key is optional:
+ *
+ * <pre>
+ * particles=50000
+ * groups=6
+ * distribution=gaussian          # uniform | center_biased | gaussian
+ * matrix=random                  # identity | random | rows, e.g. 1 -0.5 0; 0.2 1 0; 0 0 1
+ * steps=5000
+ * dt=0.0166667
+ * seed=1
+ * physics=float                  # float | fixed
+ * worldHalfExtent=1.0
+ * wrap=true
+ * timeScale=0:1.0, 2000:2.0      # keyframes step:value, linear in between
+ * forceFactor=0.2                # a plain number is a constant
+ * range=0:0.1, 4000:0.15
+ * stats.every=10                 # rows in stats.csv
+ * snapshot.every=0               # 0 = no snapshots
+ * snapshot.format=png            # png | csv
+ * snapshot.size=1024
+ * </pre>
+ */
+public final class Scenario {
+
+    public int particles = SimulationConfig.PARTICLE_COUNT;
+    public int groups = SimulationConfig.PARTICLE_GROUPS;
+    public Distribution distribution = SimulationConfig.DISTRIBUTION;
+    public float[][] matrix;
+    public int steps = 1000;
+    public float dt = 1.0f / 60.0f;
+    public long seed = 1L;
+    public boolean fixedPoint = SimulationConfig.FIXED_POINT;
+    public float worldHalfExtent = SimulationConfig.WORLD_HALF_EXTENT;
+    public boolean wrap = SimulationConfig.WRAP_BOUNDARIES;
+    public Keyframes timeScale = Keyframes.constant(1.0f);
+    public Keyframes forceFactor = Keyframes.constant(SimulationConfig.FORCE_FACTOR);
+    public Keyframes range = Keyframes.constant(SimulationConfig.INTERACTION_RANGE);
+    public int statsEvery = 10;
+    public int snapshotEvery = 0;
+    public String snapshotFormat = "png";
+    public int snapshotSize = 1024;
+
+    public static Scenario load(Path file) throws IOException {
+        Properties p = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            p.load(in);
+        }
+        Scenario s = new Scenario();
+        try {
+            s.particles = Integer.parseInt(p.getProperty("particles", Integer.toString(s.particles)).trim());
+            s.steps = Integer.parseInt(p.getProperty("steps", Integer.toString(s.steps)).trim());
+            s.dt = Float.parseFloat(p.getProperty("dt", Float.toString(s.dt)).trim());
+            s.seed = Long.parseLong(p.getProperty("seed", Long.toString(s.seed)).trim());
+            s.fixedPoint = "fixed".equalsIgnoreCase(p.getProperty("physics", s.fixedPoint ? "fixed" : "float").trim());
+            s.worldHalfExtent = Float.parseFloat(p.getProperty("worldHalfExtent",
+                    Float.toString(s.worldHalfExtent)).trim());
+            s.wrap = Boolean.parseBoolean(p.getProperty("wrap", Boolean.toString(s.wrap)).trim());
+            String dist = p.getProperty("distribution");
+            if (dist != null) {
+                s.distribution = Distribution.valueOf(dist.trim().toUpperCase(Locale.ROOT));
+            }
+
+            s.groups = Integer.parseInt(p.getProperty("groups", Integer.toString(s.groups)).trim());
+            s.matrix = parseMatrix(p.getProperty("matrix", "identity").trim(), s.groups, s.seed);
+            s.groups = s.matrix.length;
+            if (s.groups < 1 || s.groups > SimulationConfig.MAX_GROUPS) {
+                throw new IllegalArgumentException("groups must be 1.." + SimulationConfig.MAX_GROUPS);
+            }
+
+            s.timeScale = keyframes(p, "timeScale", s.timeScale);
+            s.forceFactor = keyframes(p, "forceFactor", s.forceFactor);
+            s.range = keyframes(p, "range", s.range);
+
+            s.statsEvery = Math.max(1, Integer.parseInt(p.getProperty("stats.every", "10").trim()));
+            s.snapshotEvery = Integer.parseInt(p.getProperty("snapshot.every", "0").trim());
+            s.snapshotFormat = p.getProperty("snapshot.format", s.snapshotFormat).trim().toLowerCase(Locale.ROOT);
+            s.snapshotSize = Integer.parseInt(p.getProperty("snapshot.size",
+                    Integer.toString(s.snapshotSize)).trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(file + ": " + e.getMessage(), e);
+        }
+        if (!s.snapshotFormat.equals("png") && !s.snapshotFormat.equals("csv")) {
+            throw new IllegalArgumentException(file + ": snapshot.format must be png or csv");
+        }
+        return s;
+    }
+
+    private static Keyframes keyframes(Properties p, String key, Keyframes fallback) {
+        String spec = p.getProperty(key);
+        if (spec == null || spec.trim().isEmpty()) {
+            return fallback;
+        }
+        return spec.contains(":") ? Keyframes.parse(spec) : Keyframes.constant(Float.parseFloat(spec.trim()));
+    }
+
+    /**
+     * identity, random (from seed, -1..1 like the interactive randomizer) or
+     * rows separated by ';' with entries separated by spaces or commas
+     */
+    static float[][] parseMatrix(String spec, int groups, long seed) {
+        if (spec.equalsIgnoreCase("identity")) {
+            float[][] m = new float[groups][groups];
+            for (int i = 0; i < groups; i++) {
+                m[i][i] = 1.0f;
+            }
+            return m;
+        }
+        if (spec.equalsIgnoreCase("random")) {
+            Random rng = new Random(seed ^ 0x5DEECE66DL);
+            float[][] m = new float[groups][groups];
+            for (int i = 0; i < groups; i++) {
+                for (int j = 0; j < groups; j++) {
+                    m[i][j] = rng.nextFloat() * 2.0f - 1.0f;
+                }
+            }
+            return m;
+        }
+        String[] rows = spec.split(";");
+        float[][] m = new float[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            String[] cells = rows[i].trim().split("[\\s,]+");
+            if (cells.length != rows.length) {
+                throw new IllegalArgumentException("matrix must be square, row " + i + " has " + cells.length
+                        + " entries for " + rows.length + " rows");
+            }
+            m[i] = new float[cells.length];
+            for (int j = 0; j < cells.length; j++) {
+                m[i][j] = Float.parseFloat(cells[j]);
+            }
+        }
+        return m;
+    }
+}
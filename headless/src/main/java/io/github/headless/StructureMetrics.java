@@ -0,0 +1,117 @@
+package io.github.headless;
+
+import io.github.simulation.cpu.CpuParticleEngine;
+
+/**
+ * Cheap structure measures of a finished run, computed on a coarse occupancy
+ * grid over the world, sized for about MEAN_OCCUPANCY particles per cell so
+ * Poisson noise of a uniform gas stays well below the density threshold:
+ * - clusters: 4-connected groups (wrapping) of cells holding at least
+ *   DENSE_FACTOR times the mean occupancy
+ * - kinetic energy: mean 0.5 * |v|^2 per particle
+ * - spatial entropy: Shannon entropy of the occupancy, normalised to 0..1
+ *   (1 = perfectly uniform gas)
+ */
+public final class StructureMetrics {
+
+    private static final int MEAN_OCCUPANCY = 8;
+    private static final double DENSE_FACTOR = 3.0;
+    private static final int MIN_GRID = 4;
+    private static final int MAX_GRID = 64;
+    private static final double ACTIVE_ENERGY = 1e-5; // kinetic energy at which a run counts as half alive
+
+    public final int grid;
+    public final int clusters;
+    public final double kineticEnergy;
+    public final double entropy;
+    public final double score;
+
+    private StructureMetrics(int grid, int clusters, double kineticEnergy, double entropy) {
+        this.grid = grid;
+        this.clusters = clusters;
+        this.kineticEnergy = kineticEnergy;
+        this.entropy = entropy;
+        this.score = score(clusters, grid, kineticEnergy, entropy);
+    }
+
+    static int gridFor(int particles) {
+        return Math.clamp((int) Math.sqrt(particles / (double) MEAN_OCCUPANCY), MIN_GRID, MAX_GRID);
+    }
+
+    /**
+     * Rewards several distinct clusters, a clumped (low entropy) layout and
+     * motion that has not died out; a uniform gas, one blob or a frozen
+     * world all score near zero.
+     */
+    static double score(int clusters, int grid, double kineticEnergy, double entropy) {
+        double clusterTerm = clusters <= 1 ? 0.0 : Math.log(clusters) / Math.log(grid * grid / 4.0);
+        double structure = 1.0 - entropy;
+        double activity = kineticEnergy / (kineticEnergy + ACTIVE_ENERGY);
+        return Math.min(1.0, clusterTerm) * structure * activity;
+    }
+
+    public static StructureMetrics measure(CpuParticleEngine engine) {
+        int n = engine.getCount();
+        float[] x = engine.getPosX();
+        float[] y = engine.getPosY();
+        float[] vx = engine.getVelX();
+        float[] vy = engine.getVelY();
+        float e = engine.getWorldHalfExtent();
+        int grid = gridFor(n);
+
+        int[] occupancy = new int[grid * grid];
+        double energy = 0;
+        for (int i = 0; i < n; i++) {
+            int cx = Math.clamp((int) ((x[i] + e) / (2 * e) * grid), 0, grid - 1);
+            int cy = Math.clamp((int) ((y[i] + e) / (2 * e) * grid), 0, grid - 1);
+            occupancy[cy * grid + cx]++;
+            energy += vx[i] * vx[i] + vy[i] * vy[i];
+        }
+        if (n == 0) {
+            return new StructureMetrics(grid, 0, 0, 1);
+        }
+
+        double entropy = 0;
+        for (int count : occupancy) {
+            if (count > 0) {
+                double p = count / (double) n;
+                entropy -= p * Math.log(p);
+            }
+        }
+        entropy /= Math.log(grid * grid);
+
+        int clusters = countClusters(occupancy, grid, DENSE_FACTOR * n / (grid * grid));
+        return new StructureMetrics(grid, clusters, 0.5 * energy / n, entropy);
+    }
+
+    // Flood fill over dense cells, wrapping like the torus
+    private static int countClusters(int[] occupancy, int grid, double threshold) {
+        boolean[] seen = new boolean[occupancy.length];
+        int[] stack = new int[occupancy.length];
+        int clusters = 0;
+        for (int start = 0; start < occupancy.length; start++) {
+            if (seen[start] || occupancy[start] < threshold) {
+                continue;
+            }
+            clusters++;
+            int top = 0;
+            stack[top++] = start;
+            seen[start] = true;
+            while (top > 0) {
+                int cell = stack[--top];
+                int cx = cell % grid;
+                int cy = cell / grid;
+                int[] neighbours = {
+                        cy * grid + (cx + 1) % grid, cy * grid + (cx + grid - 1) % grid,
+                        ((cy + 1) % grid) * grid + cx, ((cy + grid - 1) % grid) * grid + cx };
+                for (int nb : neighbours) {
+                    if (!seen[nb] && occupancy[nb] >= threshold) {
+                        seen[nb] = true;
+                        stack[top++] = nb;
+                    }
+                }
+            }
+        }
+        return clusters;
+    }
+}